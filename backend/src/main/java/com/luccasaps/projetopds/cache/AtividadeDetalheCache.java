@@ -0,0 +1,58 @@
+package com.luccasaps.projetopds.cache;
+
+import com.luccasaps.projetopds.controller.dto.AtividadeResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Cache de curta duração do detalhe das atividades (GET /atividades/{id}), indexado pelo ID.
+ * Alterações, inscrições e saídas chamam invalidate(...); o TTL curto cobre as mudanças feitas
+ * em massa pelos jobs (encerramento, geocodificação).
+ */
+@Component
+public class AtividadeDetalheCache {
+
+    private final BoundedCache<UUID, AtividadeResponseDTO> cache;
+
+    public AtividadeDetalheCache(MeterRegistry meterRegistry,
+                                 @Value("${atividades.detalhe-cache.max-size:5000}") int maxSize,
+                                 @Value("${atividades.detalhe-cache.ttl-ms:5000}") long ttlMs) {
+        this.cache = new BoundedCache<UUID, AtividadeResponseDTO>("atividades.detalhe", maxSize, Duration.ofMillis(ttlMs))
+                .bindTo(meterRegistry);
+    }
+
+    public AtividadeResponseDTO get(UUID id, Function<UUID, AtividadeResponseDTO> carregador) {
+        return cache.get(id, carregador);
+    }
+
+    public void invalidate(UUID id) {
+        invalidate(List.of(id));
+    }
+
+    // Remove agora e de novo após o fim da transação (mesmo motivo de UserProfileCache.invalidate)
+    public void invalidate(Collection<UUID> ids) {
+        ids.forEach(cache::invalidate);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    ids.forEach(cache::invalidate);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
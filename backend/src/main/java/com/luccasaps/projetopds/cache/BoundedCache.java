@@ -0,0 +1,203 @@
+package com.luccasaps.projetopds.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache em memória com tamanho máximo (descarta o item usado há mais tempo - LRU)
+ * e expiração opcional por tempo de vida (TTL).
+ *
+ * Para não gravar um valor antigo depois de uma invalidação, cada carga em andamento recebe uma marca
+ * própria da sua chave; invalidar a chave (ou o cache todo) descarta a marca, e o valor carregado só é
+ * guardado se a marca ainda for a mesma. Invalidar uma chave não afeta as cargas das outras.
+ */
+public class BoundedCache<K, V> {
+
+    private record Entrada<V>(V valor, long expiraEmNanos) {}
+
+    private final String nome;
+    private final int tamanhoMaximo;
+    private final long ttlNanos; // 0 = sem expiração
+    private final LinkedHashMap<K, Entrada<V>> entradas;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Carga em andamento por chave (protegido pelo lock do próprio objeto)
+    private final Map<K, Object> cargas = new HashMap<>();
+
+    public BoundedCache(String nome, int tamanhoMaximo, Duration ttl) {
+        if (tamanhoMaximo <= 0) {
+            throw new IllegalArgumentException("O tamanho máximo do cache deve ser positivo.");
+        }
+        this.nome = nome;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.ttlNanos = ttl != null ? ttl.toNanos() : 0;
+        // accessOrder = true transforma o LinkedHashMap em uma lista LRU
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada<V>> eldest) {
+                if (size() > BoundedCache.this.tamanhoMaximo) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public V get(K chave) {
+        V valor = buscar(chave);
+        if (valor != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return valor;
+    }
+
+    /**
+     * Retorna o valor do cache ou o carrega com a função informada (fora do lock).
+     * Exceções da carga são propagadas e nada é guardado.
+     */
+    public V get(K chave, Function<? super K, ? extends V> carregador) {
+        V valor = buscar(chave);
+        if (valor != null) {
+            hits.increment();
+            return valor;
+        }
+        misses.increment();
+
+        Object marca = new Object();
+        synchronized (this) {
+            cargas.put(chave, marca);
+        }
+        V carregado = null;
+        try {
+            carregado = carregador.apply(chave);
+        } finally {
+            synchronized (this) {
+                // Se a chave foi invalidada (ou outra carga dela começou) durante a carga, a marca não é mais esta
+                if (cargas.remove(chave, marca) && carregado != null) {
+                    guardar(chave, carregado);
+                }
+            }
+        }
+        return carregado;
+    }
+
+    public synchronized void put(K chave, V valor) {
+        guardar(chave, valor);
+    }
+
+    public synchronized void invalidate(K chave) {
+        cargas.remove(chave);
+        entradas.remove(chave);
+    }
+
+    public synchronized void invalidateAll() {
+        cargas.clear();
+        entradas.clear();
+    }
+
+    public synchronized int size() {
+        return entradas.size();
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Publica as métricas padrão de cache (cache.gets, cache.puts, cache.evictions, cache.size)
+     * e a taxa de acerto (cache.hit.ratio) com a tag cache=&lt;nome&gt;.
+     */
+    public BoundedCache<K, V> bindTo(MeterRegistry meterRegistry) {
+        new Metricas(this).bindTo(meterRegistry);
+        return this;
+    }
+
+    private synchronized V buscar(K chave) {
+        Entrada<V> entrada = entradas.get(chave);
+        if (entrada == null) {
+            return null;
+        }
+        if (ttlNanos > 0 && System.nanoTime() - entrada.expiraEmNanos() > 0) {
+            entradas.remove(chave);
+            evictions.increment();
+            return null;
+        }
+        return entrada.valor();
+    }
+
+    // Chamado sempre com o lock do objeto
+    private void guardar(K chave, V valor) {
+        long expiraEm = ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0;
+        entradas.put(chave, new Entrada<>(valor, expiraEm));
+        puts.increment();
+    }
+
+    private static final class Metricas extends CacheMeterBinder<BoundedCache<?, ?>> {
+
+        Metricas(BoundedCache<?, ?> cache) {
+            super(cache, cache.getNome(), Tags.empty());
+        }
+
+        @Override
+        protected Long size() {
+            BoundedCache<?, ?> cache = getCache();
+            return cache != null ? (long) cache.size() : null;
+        }
+
+        @Override
+        protected long hitCount() {
+            BoundedCache<?, ?> cache = getCache();
+            return cache != null ? cache.hits.sum() : 0L;
+        }
+
+        @Override
+        protected Long missCount() {
+            BoundedCache<?, ?> cache = getCache();
+            return cache != null ? cache.misses.sum() : null;
+        }
+
+        @Override
+        protected Long evictionCount() {
+            BoundedCache<?, ?> cache = getCache();
+            return cache != null ? cache.evictions.sum() : null;
+        }
+
+        @Override
+        protected long putCount() {
+            BoundedCache<?, ?> cache = getCache();
+            return cache != null ? cache.puts.sum() : 0L;
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            BoundedCache<?, ?> cache = getCache();
+            if (cache == null) {
+                return;
+            }
+            Gauge.builder("cache.hit.ratio", cache, c -> {
+                        long hits = c.hits.sum();
+                        long total = hits + c.misses.sum();
+                        return total == 0 ? 0.0 : (double) hits / total;
+                    })
+                    .tags("cache", cache.getNome())
+                    .description("Proporção de leituras atendidas pelo cache")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.luccasaps.projetopds.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luccasaps.projetopds.controller.dto.UserResponseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Cache dos perfis públicos (GET /users/{username}), já serializados em JSON e indexados pelo username.
+ * Os serviços que alteram o usuário chamam invalidate(...) para remover o perfil do cache.
+ */
+@Component
+public class UserProfileCache {
+
+    private final BoundedCache<String, byte[]> cache;
+    private final ObjectMapper objectMapper;
+
+    public UserProfileCache(ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry,
+                            @Value("${usuarios.perfil-cache.max-size:10000}") int maxSize,
+                            @Value("${usuarios.perfil-cache.ttl-ms:600000}") long ttlMs) {
+        this.objectMapper = objectMapper;
+        this.cache = new BoundedCache<String, byte[]>("usuarios.perfil", maxSize, Duration.ofMillis(ttlMs))
+                .bindTo(meterRegistry);
+    }
+
+    /**
+     * Retorna o JSON do perfil, carregando e serializando com o 'carregador' em caso de cache miss.
+     */
+    public byte[] get(String username, Supplier<UserResponseDTO> carregador) {
+        return cache.get(username, chave -> serializar(carregador.get()));
+    }
+
+    /**
+     * Remove os perfis do cache agora e, se houver uma transação ativa, novamente após o commit.
+     * A segunda remoção descarta um perfil antigo que outra requisição tenha lido e guardado
+     * enquanto a transação ainda não tinha sido confirmada.
+     */
+    public void invalidate(String... usernames) {
+        removerTodos(usernames);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    removerTodos(usernames);
+                }
+            });
+        }
+    }
+
+    private void removerTodos(String... usernames) {
+        for (String username : usernames) {
+            if (username != null) {
+                cache.invalidate(username);
+            }
+        }
+    }
+
+    private byte[] serializar(UserResponseDTO dto) {
+        try {
+            return objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar o perfil do usuário.", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.luccasaps.projetopds.config;
+
+import com.luccasaps.projetopds.controller.dto.UserResponseDTO;
+import com.luccasaps.projetopds.controller.mappers.AtividadeMapper;
+import com.luccasaps.projetopds.controller.mappers.ModalidadeMapper;
+import com.luccasaps.projetopds.controller.mappers.UserMapper;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Dicas para a imagem nativa (perfil 'native'): o que é carregado por reflexão ou como recurso
+ * e que o processamento AOT do Spring não consegue descobrir sozinho.
+ * No modo JVM (perfis 'aot' e CDS) elas não têm efeito.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(AppRuntimeHints.class)
+public class AppRuntimeHints implements RuntimeHintsRegistrar {
+
+    // O JJWT 0.11 instancia as implementações (jjwt-impl / jjwt-jackson, só em runtime) pelo nome
+    static final String[] CLASSES_JJWT = {
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DefaultCompressionCodecResolver",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (String classe : CLASSES_JJWT) {
+            hints.reflection().registerType(TypeReference.of(classe),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        // Migrações do Flyway nas pastas por banco (spring.flyway.locations)
+        hints.resources().registerPattern("db/migration/*/*.sql");
+
+        // Serializado direto pelo ObjectMapper no UserProfileCache (fora do retorno de um controller)
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), UserResponseDTO.class);
+
+        // Proxies JDK do MapperTimingPostProcessor (Server-Timing), que chamam os mappers por reflexão
+        for (Class<?> mapper : new Class<?>[]{AtividadeMapper.class, ModalidadeMapper.class, UserMapper.class}) {
+            hints.proxies().registerJdkProxy(mapper);
+            hints.reflection().registerType(mapper, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
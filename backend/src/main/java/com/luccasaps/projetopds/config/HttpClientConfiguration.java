@@ -0,0 +1,100 @@
+package com.luccasaps.projetopds.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLContext;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * RestTemplate compartilhado para APIs externas (Brasil API, OpenCage), sobre um pool de conexões
+ * keep-alive do Apache HttpClient 5: a conexão TCP/TLS com cada provedor é reaproveitada entre consultas.
+ * O cliente clássico (bloqueante) do HttpClient 5 fala HTTP/1.1; o keep-alive já elimina o handshake por chamada.
+ * Métricas do pool: httpcomponents.httpclient.pool.* (tag httpclient=outbound); das chamadas: http.client.requests.
+ */
+@Configuration
+@EnableConfigurationProperties(HttpClientProperties.class)
+public class HttpClientConfiguration {
+
+    static final String NOME_POOL = "outbound";
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager outboundConnectionManager(HttpClientProperties properties,
+                                                                        MeterRegistry meterRegistry) throws NoSuchAlgorithmException {
+        PoolingHttpClientConnectionManager connectionManager = criarConnectionManager(properties, SSLContext.getDefault());
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, NOME_POOL).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient outboundHttpClient(PoolingHttpClientConnectionManager outboundConnectionManager,
+                                                  HttpClientProperties properties) {
+        return criarHttpClient(outboundConnectionManager, properties);
+    }
+
+    // O builder do Spring Boot registra as observações (http.client.requests) por template de URI
+    @Bean
+    public RestTemplate outboundRestTemplate(RestTemplateBuilder builder, CloseableHttpClient outboundHttpClient) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(outboundHttpClient))
+                .build();
+    }
+
+    static PoolingHttpClientConnectionManager criarConnectionManager(HttpClientProperties properties, SSLContext sslContext) {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setTlsSocketStrategy(new DefaultClientTlsStrategy(sslContext))
+                .setMaxConnTotal(properties.maxConnections())
+                .setMaxConnPerRoute(properties.maxConnectionsPerRoute())
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(properties.connectTimeout()))
+                        .setSocketTimeout(Timeout.of(properties.responseTimeout()))
+                        .setTimeToLive(TimeValue.of(properties.timeToLive()))
+                        .setValidateAfterInactivity(TimeValue.of(properties.validateAfterInactivity()))
+                        .build())
+                .setDefaultSocketConfig(SocketConfig.custom()
+                        .setSoTimeout(Timeout.of(properties.responseTimeout()))
+                        .setTcpNoDelay(true)
+                        .build())
+                .build();
+    }
+
+    static CloseableHttpClient criarHttpClient(PoolingHttpClientConnectionManager connectionManager,
+                                               HttpClientProperties properties) {
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(properties.poolTimeout()))
+                        .setResponseTimeout(Timeout.of(properties.responseTimeout()))
+                        .build())
+                // Vale o menor entre o pedido pelo servidor (cabeçalho Keep-Alive) e o configurado
+                .setKeepAliveStrategy((response, context) -> {
+                    TimeValue servidor = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    TimeValue maximo = TimeValue.of(properties.keepAlive());
+                    return servidor.compareTo(maximo) < 0 ? servidor : maximo;
+                })
+                .evictIdleConnections(TimeValue.of(properties.keepAlive()))
+                .evictExpiredConnections()
+                // Quem decide repetir é o chamador (disjuntor/varredura da geocodificação)
+                .disableAutomaticRetries()
+                .build();
+    }
+}
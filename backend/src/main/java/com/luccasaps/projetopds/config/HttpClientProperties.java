@@ -0,0 +1,22 @@
+package com.luccasaps.projetopds.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Cliente HTTP compartilhado para chamadas a serviços externos (prefixo 'http-client' no application.yml).
+ * Todos os tempos são limites rígidos: uma API lenta falha rápido e o disjuntor do provedor decide o resto.
+ */
+@ConfigurationProperties(prefix = "http-client")
+public record HttpClientProperties(
+        @DefaultValue("50") int maxConnections,           // conexões no pool, somando todos os hosts
+        @DefaultValue("20") int maxConnectionsPerRoute,   // conexões por host
+        @DefaultValue("2s") Duration connectTimeout,      // TCP + TLS
+        @DefaultValue("3s") Duration responseTimeout,     // sem dados do servidor por esse tempo = falha
+        @DefaultValue("500ms") Duration poolTimeout,      // espera por uma conexão livre do pool
+        @DefaultValue("30s") Duration keepAlive,          // tempo máximo de uma conexão ociosa reaproveitável
+        @DefaultValue("5m") Duration timeToLive,          // idade máxima de uma conexão (renova DNS/TLS de tempos em tempos)
+        @DefaultValue("2s") Duration validateAfterInactivity
+) {}
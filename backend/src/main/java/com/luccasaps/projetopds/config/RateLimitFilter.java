@@ -0,0 +1,162 @@
+package com.luccasaps.projetopds.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Limita a taxa de requisições nas rotas caras (BCrypt no login/cadastro, geocodificação na busca).
+ * Roda logo depois do SecurityFilter: cada requisição consome uma ficha do balde do IP e,
+ * se autenticada, também do balde do usuário. Sem fichas, responde 429 com Retry-After.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimitProperties properties;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ConcurrentHashMap<String, TokenBucket> baldes = new ConcurrentHashMap<>();
+    // Uma thread para a limpeza fora do agendamento: no máximo uma em andamento e uma na fila; as demais são descartadas
+    private final ThreadPoolExecutor limpador = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1),
+            tarefa -> {
+                Thread thread = new Thread(tarefa, "rate-limit-limpeza");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+    // Um contador de rejeições por política, registrado uma única vez (e não a cada 429)
+    private final Map<String, Counter> rejeicoes;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.rejeicoes = properties.policies().stream()
+                .collect(Collectors.toUnmodifiableMap(RateLimitProperties.Policy::name,
+                        politica -> Counter.builder("rate.limit.rejeicoes")
+                                .tag("politica", politica.name())
+                                .register(meterRegistry),
+                        (primeiro, segundo) -> primeiro));
+        this.limpador.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.enabled() || encontrarPolitica(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RateLimitProperties.Policy politica = encontrarPolitica(request);
+        long agora = System.nanoTime();
+
+        // 1. Balde do usuário autenticado (quando houver) e balde do IP
+        long espera = 0;
+        String usuario = usuarioAutenticado();
+        if (usuario != null) {
+            espera = consumir(politica, "user:" + usuario, agora);
+        }
+        if (espera == 0) {
+            espera = consumir(politica, "ip:" + request.getRemoteAddr(), agora);
+        }
+
+        // 2. Sem fichas: 429 Too Many Requests
+        if (espera > 0) {
+            long segundos = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + TimeUnit.SECONDS.toNanos(1) - 1));
+            log.debug("Rate limit excedido: politica={}, ip={}, usuario={}", politica.name(), request.getRemoteAddr(), usuario);
+            rejeicoes.get(politica.name()).increment();
+
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(segundos));
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"too_many_requests\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Remove periodicamente os baldes que já se reabasteceram por completo (clientes inativos).
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.cleanup-interval-ms:60000}")
+    public void limparBaldesOciosos() {
+        long agora = System.nanoTime();
+        baldes.entrySet().removeIf(entry -> entry.getValue().isCheio(agora));
+    }
+
+    @PreDestroy
+    void encerrar() {
+        limpador.shutdownNow();
+    }
+
+    private long consumir(RateLimitProperties.Policy politica, String cliente, long agora) {
+        String chave = politica.name() + ":" + cliente;
+        TokenBucket balde = baldes.get(chave);
+
+        if (balde == null) {
+            // Mantém o mapa limitado: se estiver cheio, agenda a limpeza dos baldes ociosos em segundo plano
+            // (percorrer o mapa inteiro aqui atrasaria a requisição) e, até lá, o cliente novo divide
+            // um balde de "excesso" com os demais.
+            if (baldes.size() >= properties.maxKeys()) {
+                limpador.execute(this::limparBaldesOciosos);
+                chave = politica.name() + ":excesso";
+            }
+            balde = baldes.computeIfAbsent(chave, k ->
+                    new TokenBucket(politica.capacity(), politica.refillPeriod().toNanos(), agora));
+        }
+
+        return balde.tryConsume(agora);
+    }
+
+    private RateLimitProperties.Policy encontrarPolitica(HttpServletRequest request) {
+        String caminho = request.getRequestURI().substring(request.getContextPath().length());
+        List<RateLimitProperties.Policy> politicas = properties.policies();
+        for (RateLimitProperties.Policy politica : politicas) {
+            boolean metodoConfere = !StringUtils.hasText(politica.method())
+                    || politica.method().equalsIgnoreCase(request.getMethod());
+            if (metodoConfere && pathMatcher.match(politica.path(), caminho)) {
+                return politica;
+            }
+        }
+        return null;
+    }
+
+    private String usuarioAutenticado() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
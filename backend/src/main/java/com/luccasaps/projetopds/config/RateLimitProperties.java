@@ -0,0 +1,34 @@
+package com.luccasaps.projetopds.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import org.hibernate.validator.constraints.time.DurationMin;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuração do RateLimitFilter (prefixo 'rate-limit' no application.yml).
+ * Cada política define um "balde" com 'capacity' fichas que é reabastecido por completo a cada 'refill-period'.
+ * Valores zerados (ou negativos) impedem a aplicação de subir: o TokenBucket divide por ambos.
+ */
+@Validated
+@ConfigurationProperties(prefix = "rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") int maxKeys, // quantidade máxima de baldes (IPs/usuários) em memória
+        @DefaultValue List<@Valid Policy> policies
+) {
+
+    public record Policy(
+            String name,
+            String method,          // GET, POST... (vazio = qualquer método)
+            String path,            // padrão Ant, ex: /atividades/proximas
+            @Positive int capacity,
+            @NotNull @DurationMin(nanos = 1) Duration refillPeriod
+    ) {}
+}
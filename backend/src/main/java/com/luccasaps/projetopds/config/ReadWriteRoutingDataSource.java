@@ -0,0 +1,33 @@
+package com.luccasaps.projetopds.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envia as conexões de transações @Transactional(readOnly = true) para a réplica e todo o resto
+ * para o banco primário. Se a réplica estiver atrasada ou fora do ar, as leituras voltam para o primário.
+ *
+ * Precisa ficar atrás de um LazyConnectionDataSourceProxy: assim a conexão só é obtida no primeiro
+ * comando SQL, quando o Spring já marcou a transação como somente leitura.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Destino { PRIMARY, REPLICA }
+
+    private final ReplicaLagMonitor replicaLagMonitor;
+
+    public ReadWriteRoutingDataSource(ReplicaLagMonitor replicaLagMonitor) {
+        this.replicaLagMonitor = replicaLagMonitor;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean somenteLeitura = TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+
+        if (somenteLeitura && replicaLagMonitor.isReplicaDisponivel()) {
+            return Destino.REPLICA;
+        }
+        return Destino.PRIMARY;
+    }
+}
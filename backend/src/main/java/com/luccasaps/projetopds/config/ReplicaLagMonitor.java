@@ -0,0 +1,70 @@
+package com.luccasaps.projetopds.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Verifica periodicamente se a réplica está no ar e qual o atraso de replicação.
+ * Quando o atraso passa de 'max-lag' (ou a réplica não responde), o ReadWriteRoutingDataSource
+ * passa a mandar as leituras para o primário até a réplica se recuperar.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource replica;
+    private final String lagQuery;      // deve retornar o atraso em segundos; vazio = só verifica a conexão
+    private final Duration maxLag;
+
+    // Começa no primário: a réplica só recebe leituras depois da primeira verificação bem-sucedida
+    private volatile boolean replicaDisponivel = false;
+    private volatile double ultimoLagSegundos;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, Duration maxLag, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+
+        Gauge.builder("datasource.replica.disponivel", this, m -> m.replicaDisponivel ? 1 : 0)
+                .description("1 se as leituras estão indo para a réplica, 0 se voltaram para o primário")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replica.lag.segundos", this, m -> m.ultimoLagSegundos)
+                .description("Último atraso de replicação medido")
+                .register(meterRegistry);
+    }
+
+    public boolean isReplicaDisponivel() {
+        return replicaDisponivel;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check-interval-ms:5000}")
+    public void verificar() {
+        boolean disponivel;
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(StringUtils.hasText(lagQuery) ? lagQuery : "SELECT 0")) {
+
+            ultimoLagSegundos = rs.next() ? rs.getDouble(1) : 0;
+            disponivel = ultimoLagSegundos * 1000 <= maxLag.toMillis();
+        } catch (Exception e) {
+            log.debug("Falha ao verificar a réplica: {}", e.toString());
+            disponivel = false;
+        }
+
+        if (disponivel != replicaDisponivel) {
+            log.warn("Réplica {} (atraso: {}s)", disponivel ? "disponível novamente" : "indisponível; leituras no primário",
+                    ultimoLagSegundos);
+        }
+        replicaDisponivel = disponivel;
+    }
+}
@@ -3,6 +3,7 @@ package com.luccasaps.projetopds.config;
 import com.luccasaps.projetopds.model.User;
 import com.luccasaps.projetopds.repository.UserRepository;
 import lombok.AllArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -31,10 +32,12 @@ import com.luccasaps.projetopds.config.RestAuthEntryPoint; // 👈 novo
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties(RateLimitProperties.class)
 @AllArgsConstructor
 public class SecurityConfiguration {
 
     private final SecurityFilter securityFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final UserRepository userRepository;
     private final RestAuthEntryPoint restAuthEntryPoint; // 👈 injeta EntryPoint
 
@@ -49,10 +52,13 @@ public class SecurityConfiguration {
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        // Métricas e estatísticas do Hibernate expõem os comandos SQL e permitem reset: só ADMIN
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/error").permitAll()
                         .requestMatchers(HttpMethod.POST, "/login").permitAll()
                         .requestMatchers(HttpMethod.POST, "/users/register").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/users/disponibilidade").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         .anyRequest().authenticated()
                 )
@@ -61,7 +67,8 @@ public class SecurityConfiguration {
                         .contentTypeOptions(c -> {})
                         .httpStrictTransportSecurity(hsts -> hsts.maxAgeInSeconds(31536000).includeSubDomains(false))
                 )
-                .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(rateLimitFilter, SecurityFilter.class);                                     // 👈 429 após identificar o usuário
 
         return http.build();
     }
@@ -87,7 +94,7 @@ public class SecurityConfiguration {
         cfg.setAllowCredentials(true);
 
         // Se quiser ler cabeçalhos como Location no cliente:
-        cfg.setExposedHeaders(List.of("Location"));
+        cfg.setExposedHeaders(List.of("Location", "Retry-After", "Idempotent-Replayed", "Server-Timing"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         // Aplica para todas as rotas
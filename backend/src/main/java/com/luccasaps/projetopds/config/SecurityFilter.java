@@ -2,32 +2,52 @@
 package com.luccasaps.projetopds.config;
 
 import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.observability.RequestTiming;
 import com.luccasaps.projetopds.repository.UserRepository;
 import com.luccasaps.projetopds.service.TokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
-@AllArgsConstructor
 public class SecurityFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(SecurityFilter.class);
+    private static final GrantedAuthority ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
 
     private final TokenService tokenService;
     private final UserRepository userRepository;
+    private final Set<String> adminEmails; // em minúsculas
+
+    public SecurityFilter(TokenService tokenService,
+                          UserRepository userRepository,
+                          @Value("${seguranca.admin-emails:}") Set<String> adminEmails) {
+        this.tokenService = tokenService;
+        this.userRepository = userRepository;
+        this.adminEmails = adminEmails.stream()
+                .map(String::trim)
+                .filter(email -> !email.isEmpty())
+                .map(email -> email.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
 
     @Override
     protected void doFilterInternal(
@@ -36,6 +56,7 @@ public class SecurityFilter extends OncePerRequestFilter {
             FilterChain filterChain
     ) throws ServletException, IOException {
 
+        long inicio = RequestTiming.inicio();
         try {
             String tokenJWT = recuperarToken(request);
 
@@ -47,8 +68,7 @@ public class SecurityFilter extends OncePerRequestFilter {
                     // 👇 use ignore-case pra não falhar por maiúsculas/minúsculas
                     User user = userRepository.findByEmailIgnoreCase(subject).orElse(null);
                     if (user != null) {
-                        var authorities = user.getAuthorities();
-                        if (authorities == null) authorities = Collections.emptyList();
+                        var authorities = papeis(user);
 
                         var authentication = new UsernamePasswordAuthenticationToken(
                                 user, null, authorities
@@ -70,11 +90,25 @@ public class SecurityFilter extends OncePerRequestFilter {
             // qualquer falha não deve virar 500
             log.debug("SecurityFilter error: {}", e.toString());
             SecurityContextHolder.clearContext();
+        } finally {
+            RequestTiming.registrar(RequestTiming.Fase.AUTH, inicio);
         }
 
         filterChain.doFilter(request, response);
     }
 
+    // Papéis do usuário mais ADMIN para os e-mails configurados em 'seguranca.admin-emails'
+    private Collection<GrantedAuthority> papeis(User user) {
+        Collection<GrantedAuthority> papeis = new ArrayList<>();
+        if (user.getAuthorities() != null) {
+            papeis.addAll(user.getAuthorities());
+        }
+        if (user.getEmail() != null && adminEmails.contains(user.getEmail().toLowerCase(Locale.ROOT))) {
+            papeis.add(ADMIN);
+        }
+        return papeis;
+    }
+
     private String recuperarToken(HttpServletRequest request) {
         String authorizationHeader = request.getHeader("Authorization");
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
@@ -0,0 +1,45 @@
+package com.luccasaps.projetopds.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de fichas sem locks, implementado como GCRA (Generic Cell Rate Algorithm):
+ * todo o estado é um único long (o "horário teórico de chegada"), atualizado com compare-and-set.
+ * Equivale a um token bucket com 'capacidade' fichas reabastecidas a uma ficha por 'intervaloNanos'.
+ */
+final class TokenBucket {
+
+    private final long intervaloNanos;   // tempo para repor uma ficha
+    private final long toleranciaNanos;  // rajada permitida (capacidade * intervalo)
+    private final AtomicLong horarioTeorico;
+
+    TokenBucket(int capacidade, long periodoNanos, long agoraNanos) {
+        this.intervaloNanos = Math.max(1, periodoNanos / capacidade);
+        this.toleranciaNanos = intervaloNanos * capacidade;
+        this.horarioTeorico = new AtomicLong(agoraNanos); // começa cheio
+    }
+
+    /**
+     * Tenta consumir uma ficha.
+     * @return 0 se a ficha foi consumida; caso contrário, quantos nanos esperar até haver uma ficha.
+     */
+    long tryConsume(long agoraNanos) {
+        while (true) {
+            long atual = horarioTeorico.get();
+            long base = atual - agoraNanos > 0 ? atual : agoraNanos;
+            long proximo = base + intervaloNanos;
+            long excesso = proximo - agoraNanos - toleranciaNanos;
+            if (excesso > 0) {
+                return excesso;
+            }
+            if (horarioTeorico.compareAndSet(atual, proximo)) {
+                return 0;
+            }
+        }
+    }
+
+    // Um balde cheio não guarda nenhuma informação útil e pode ser descartado
+    boolean isCheio(long agoraNanos) {
+        return horarioTeorico.get() - agoraNanos <= 0;
+    }
+}
@@ -1,16 +1,29 @@
 package com.luccasaps.projetopds.controller;
 
 import com.luccasaps.projetopds.controller.dto.AtividadeCreateDTO;
+import com.luccasaps.projetopds.controller.dto.AtividadeEmAltaDTO;
 import com.luccasaps.projetopds.controller.dto.AtividadeResponseDTO;
 import com.luccasaps.projetopds.controller.dto.AtividadeUpdateDTO;
+import com.luccasaps.projetopds.controller.dto.BuscaAtividadesDTO;
+import com.luccasaps.projetopds.controller.dto.CursorPageResponseDTO;
+import com.luccasaps.projetopds.controller.dto.GradeMapaDTO;
+import com.luccasaps.projetopds.controller.dto.ListaEsperaResponseDTO;
 import com.luccasaps.projetopds.controller.dto.PageResponseDTO;
+import com.luccasaps.projetopds.controller.dto.ParticipanteDTO;
 import com.luccasaps.projetopds.controller.mappers.AtividadeMapper;
 import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.User;
 import com.luccasaps.projetopds.service.AtividadeService;
+import com.luccasaps.projetopds.service.GeocodingService;
+import com.luccasaps.projetopds.service.GradeMapaService;
+import com.luccasaps.projetopds.service.IdempotencyService;
+import com.luccasaps.projetopds.service.TendenciaAtividadesService;
+import com.luccasaps.projetopds.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -19,7 +32,10 @@ import org.springframework.web.bind.annotation.*;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/atividades")
@@ -28,30 +44,84 @@ public class AtividadeController implements GenericController {
 
     private final AtividadeService atividadeService;
     private final AtividadeMapper atividadeMapper;
+    private final IdempotencyService idempotencyService;
+    private final UserService userService;
+    private final GradeMapaService gradeMapaService;
+    private final TendenciaAtividadesService tendenciaAtividadesService;
 
     @PostMapping
-    public ResponseEntity<AtividadeResponseDTO> create(@RequestBody AtividadeCreateDTO dto, Authentication authentication) {
-        // 'authentication.getName()' irá conter o email do usuário logado (do token JWT)
+    public ResponseEntity<AtividadeResponseDTO> create(
+            @RequestBody AtividadeCreateDTO dto,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
+        // 'authentication.getName()' irá conter o username do usuário logado (do token JWT)
+        String username = authentication.getName();
 
-        Atividade atividade = atividadeService.create(dto, authentication.getName());
+        // Repetições com a mesma Idempotency-Key recebem a mesma resposta, sem criar outra atividade
+        return idempotencyService.executar(idempotencyKey, username + ":POST /atividades", dto, AtividadeResponseDTO.class, () -> {
+            Atividade atividade = atividadeService.create(dto, username);
 
-        URI location = gerarHeaderLocation(atividade.getId());
+            URI location = gerarHeaderLocation(atividade.getId());
 
-        AtividadeResponseDTO responseDTO = atividadeMapper.toResponseDTO(atividade);
+            AtividadeResponseDTO responseDTO = atividadeMapper.toResponseDTO(atividade);
 
-        return ResponseEntity.created(location).body(responseDTO); // Retorna 201 Created
+            return ResponseEntity.created(location).body(responseDTO); // Retorna 201 Created
+        });
     }
 
     /**
      * Endpoint para o usuário autenticado se inscrever em uma atividade.
+     * Se a atividade estiver lotada, o usuário entra na lista de espera e recebe 202 Accepted com a sua posição.
+     * Aceita o cabeçalho Idempotency-Key para que repetições não gerem erro de "já inscrito".
      * @param id O UUID da atividade, vindo da URL.
      * @param authentication Objeto com os dados do usuário logado.
      */
     @PostMapping("/{id}/inscrever")
-    @ResponseStatus(HttpStatus.NO_CONTENT) // Retorna 204 No Content em caso de sucesso
-    public void inscreverEmAtividade(@PathVariable UUID id, Authentication authentication) {
+    public ResponseEntity<ListaEsperaResponseDTO> inscreverEmAtividade(
+            @PathVariable UUID id,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            Authentication authentication) {
         String username = authentication.getName();
-        atividadeService.inscrever(id, username);
+
+        return idempotencyService.executar(idempotencyKey, username + ":POST /atividades/inscrever", id.toString(), ListaEsperaResponseDTO.class, () ->
+                atividadeService.inscrever(id, username)
+                        .map(posicao -> ResponseEntity.accepted().body(posicao)) // 202: está na lista de espera
+                        .orElseGet(() -> ResponseEntity.noContent().build())    // 204: inscrito
+        );
+    }
+
+    /**
+     * Sai da atividade (ou da lista de espera). A vaga liberada vai para o primeiro da fila.
+     */
+    @DeleteMapping("/{id}/inscricao")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void sairDaAtividade(@PathVariable UUID id, Authentication authentication) {
+        atividadeService.sair(id, authentication.getName());
+    }
+
+    /**
+     * Detalhe de uma atividade (criador, modalidade e contagem de participantes em uma única consulta).
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<AtividadeResponseDTO> findById(@PathVariable UUID id) {
+        return ResponseEntity.ok(atividadeService.findDetalheById(id));
+    }
+
+    /**
+     * Participantes da atividade, paginados por cursor: envie o 'proximoCursor' recebido para obter a página seguinte.
+     */
+    @GetMapping("/{id}/participantes")
+    public ResponseEntity<CursorPageResponseDTO<ParticipanteDTO>> findParticipantes(
+            @PathVariable UUID id,
+            @RequestParam(required = false) UUID cursor,
+            @RequestParam(defaultValue = "20") int tamanho) {
+        int tamanhoValido = Math.clamp(tamanho, 1, 100);
+        return ResponseEntity.ok(atividadeService.findParticipantes(id, cursor, tamanhoValido));
+    }
+
+    @GetMapping("/{id}/lista-espera/posicao")
+    public ResponseEntity<ListaEsperaResponseDTO> findPosicaoNaListaDeEspera(@PathVariable UUID id, Authentication authentication) {
+        return ResponseEntity.ok(atividadeService.findPosicaoNaListaDeEspera(id, authentication.getName()));
     }
 
     @PutMapping("/{id}")
@@ -104,6 +174,113 @@ public class AtividadeController implements GenericController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * "Perto de mim": usa as coordenadas do CEP cadastrado pelo usuário autenticado, sem consultar APIs de CEP.
+     */
+    @GetMapping("/proximas/me")
+    public ResponseEntity<PageResponseDTO<AtividadeResponseDTO>> findNearbyMe(
+            @RequestParam(defaultValue = "10.0") Double distancia,
+            Pageable pageable,
+            Authentication authentication) {
+
+        GeocodingService.Coordenadas coords = userService.findCoordenadas((User) authentication.getPrincipal());
+        Page<AtividadeResponseDTO> responsePage = atividadeService.findNearbyPaginated(coords, distancia, pageable)
+                .map(atividadeMapper::toResponseDTO);
+
+        PageResponseDTO<AtividadeResponseDTO> response = new PageResponseDTO<>(
+                responsePage.getContent(),
+                responsePage.getNumber(),
+                responsePage.getTotalElements(),
+                responsePage.getTotalPages()
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Atividades em alta (inscrições e visualizações recentes), opcionalmente por UF e/ou modalidade.
+     * Lido de uma foto em memória recalculada a cada poucos segundos.
+     */
+    @GetMapping("/em-alta")
+    public ResponseEntity<List<AtividadeEmAltaDTO>> findEmAlta(
+            @RequestParam(required = false) String uf,
+            @RequestParam(required = false) String modalidade,
+            @RequestParam(defaultValue = "10") int limite) {
+
+        return ResponseEntity.ok(tendenciaAtividadesService.findEmAlta(uf, modalidade, Math.clamp(limite, 1, 50)));
+    }
+
+    /**
+     * Visão de mapa: contagens e centroides das atividades abertas por célula (quadkey) dentro do viewport,
+     * ex.: /atividades/mapa?norte=-23.4&sul=-23.7&leste=-46.5&oeste=-46.8&zoom=12&modalidades=corrida
+     */
+    @GetMapping("/mapa")
+    public ResponseEntity<GradeMapaDTO> findGradeMapa(
+            @RequestParam double norte,
+            @RequestParam double sul,
+            @RequestParam double leste,
+            @RequestParam double oeste,
+            @RequestParam int zoom,
+            @RequestParam(required = false) List<String> modalidades) {
+
+        Set<String> nomes = modalidades == null ? Set.of()
+                : modalidades.stream().map(n -> n.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        return ResponseEntity.ok(gradeMapaService.agregar(norte, sul, leste, oeste, Math.clamp(zoom, 0, 22), nomes));
+    }
+
+    /**
+     * Busca com filtros combináveis, ex.: /atividades/busca?modalidades=corrida&de=2025-06-01&ate=2025-06-30&comVagas=true&cep=01001-000&distancia=5
+     * Por padrão ordena pela data e horário da atividade.
+     */
+    @GetMapping("/busca")
+    public ResponseEntity<PageResponseDTO<AtividadeResponseDTO>> buscar(
+            @Valid BuscaAtividadesDTO filtros,
+            @PageableDefault(sort = {"data", "horario"}) Pageable pageable) {
+        Page<AtividadeResponseDTO> responsePage = atividadeService.buscar(filtros, pageable);
+
+        PageResponseDTO<AtividadeResponseDTO> response = new PageResponseDTO<>(
+                responsePage.getContent(),
+                responsePage.getNumber(),
+                responsePage.getTotalElements(),
+                responsePage.getTotalPages()
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Agenda: próximas atividades abertas perto do CEP que começam nas próximas 'horas', em ordem de início.
+     * Paginada por cursor: envie o 'proximoCursor' recebido para obter a página seguinte.
+     */
+    @GetMapping("/agenda")
+    public ResponseEntity<CursorPageResponseDTO<AtividadeResponseDTO>> findAgenda(
+            @RequestParam String cep,
+            @RequestParam(defaultValue = "10.0") Double distancia,
+            @RequestParam(defaultValue = "48") int horas,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int tamanho) {
+        int horasValidas = Math.clamp(horas, 1, 24 * 14);
+        int tamanhoValido = Math.clamp(tamanho, 1, 100);
+        return ResponseEntity.ok(atividadeService.findAgenda(cep, distancia, horasValidas, cursor, tamanhoValido));
+    }
+
+    /**
+     * Histórico de atividades passadas do usuário autenticado (inclui as já arquivadas).
+     */
+    @GetMapping("/minhas/historico")
+    public ResponseEntity<PageResponseDTO<AtividadeResponseDTO>> findHistorico(Pageable pageable, Authentication authentication) {
+        Page<AtividadeResponseDTO> responsePage = atividadeService.findHistoricoPaginated(authentication.getName(), pageable);
+
+        PageResponseDTO<AtividadeResponseDTO> response = new PageResponseDTO<>(
+                responsePage.getContent(),
+                responsePage.getNumber(),
+                responsePage.getTotalElements(),
+                responsePage.getTotalPages()
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT) // Retorna 204 No Content em caso de sucesso
     public void delete(@PathVariable UUID id, Authentication authentication) {
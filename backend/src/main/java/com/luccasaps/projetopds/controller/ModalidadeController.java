@@ -2,8 +2,10 @@ package com.luccasaps.projetopds.controller;
 
 import com.luccasaps.projetopds.controller.dto.ApiResponseDTO;
 import com.luccasaps.projetopds.controller.dto.ModalidadeDTO;
+import com.luccasaps.projetopds.controller.dto.ModalidadeEstatisticaDTO;
 import com.luccasaps.projetopds.controller.mappers.ModalidadeMapper;
 import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.service.EstatisticasModalidadeService;
 import com.luccasaps.projetopds.service.ModalidadeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +22,7 @@ public class ModalidadeController {
 
     private final ModalidadeMapper modalidadeMapper;
     private final ModalidadeService modalidadeService;
+    private final EstatisticasModalidadeService estatisticasModalidadeService;
 
     @GetMapping
     public ResponseEntity<ApiResponseDTO<List<ModalidadeDTO>>> getAllModalidades(){
@@ -33,4 +36,13 @@ public class ModalidadeController {
         return ResponseEntity.ok(response);
 
     }
+
+    /**
+     * Atividades abertas/lotadas, taxa média de ocupação e usuários interessados por modalidade.
+     * Lê os contadores mantidos pelas escritas (poucas linhas), sem agregar as tabelas de atividades.
+     */
+    @GetMapping("/estatisticas")
+    public ResponseEntity<ApiResponseDTO<List<ModalidadeEstatisticaDTO>>> getEstatisticas() {
+        return ResponseEntity.ok(new ApiResponseDTO<>(estatisticasModalidadeService.findAll()));
+    }
 }
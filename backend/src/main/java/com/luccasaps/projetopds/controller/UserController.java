@@ -1,17 +1,21 @@
 package com.luccasaps.projetopds.controller;
 
+import com.luccasaps.projetopds.cache.UserProfileCache;
+import com.luccasaps.projetopds.controller.dto.DisponibilidadeDTO;
 import com.luccasaps.projetopds.controller.dto.PageResponseDTO;
 import com.luccasaps.projetopds.controller.dto.UserDTO;
 import com.luccasaps.projetopds.controller.dto.UserResponseDTO;
 import com.luccasaps.projetopds.controller.dto.UserUpdateDTO;
 import com.luccasaps.projetopds.controller.mappers.UserMapper;
 import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.service.DisponibilidadeCadastroService;
 import com.luccasaps.projetopds.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -25,6 +29,8 @@ public class UserController implements GenericController {
 
     private final UserService userService;
     private final UserMapper userMapper;
+    private final UserProfileCache userProfileCache;
+    private final DisponibilidadeCadastroService disponibilidadeCadastroService;
 
     @PostMapping("/register")
     public ResponseEntity<UserResponseDTO> register(@RequestBody @Valid UserDTO userDTO){
@@ -36,6 +42,18 @@ public class UserController implements GenericController {
         return ResponseEntity.created(location).body(userResponse);
     }
 
+    /**
+     * Verificação ao vivo do formulário de cadastro, ex.: /users/disponibilidade?email=a@b.com&username=ana.
+     * "Livre" quase sempre vem do filtro em memória; só possíveis acertos consultam o banco.
+     */
+    @GetMapping("/disponibilidade")
+    public ResponseEntity<DisponibilidadeDTO> verificarDisponibilidade(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String username) {
+
+        return ResponseEntity.ok(disponibilidadeCadastroService.verificar(email, username));
+    }
+
     @GetMapping
     public ResponseEntity<PageResponseDTO<UserResponseDTO>> findAll(Pageable pageable){
         Page<User> userPage = userService.findAll(pageable);
@@ -52,9 +70,10 @@ public class UserController implements GenericController {
     }
 
     @GetMapping("/{username}")
-    public ResponseEntity<UserResponseDTO> findByUsername(@PathVariable String username){
-        UserResponseDTO userResponseDTO = userService.findByUsername(username);
-        return ResponseEntity.ok().body(userResponseDTO);
+    public ResponseEntity<byte[]> findByUsername(@PathVariable String username){
+        // O perfil é servido já serializado a partir do cache; o banco só é consultado em cache miss
+        byte[] perfil = userProfileCache.get(username, () -> userService.findByUsername(username));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(perfil);
     }
 
     @PutMapping
@@ -0,0 +1,15 @@
+package com.luccasaps.projetopds.controller.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.UUID;
+
+// Item do ranking de atividades em alta; 'pontuacao' combina inscrições e visualizações recentes (com decaimento)
+public record AtividadeEmAltaDTO(UUID id,
+                                 String titulo,
+                                 String modalidade,
+                                 String uf,
+                                 LocalDate data,
+                                 LocalTime horario,
+                                 double pontuacao) {
+}
@@ -1,6 +1,7 @@
 package com.luccasaps.projetopds.controller.dto;
 
 import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.StatusGeocodificacao;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.UUID;
@@ -14,6 +15,7 @@ public record AtividadeResponseDTO(
         String cep,
         String street,
         StatusAtividade status,
+        StatusGeocodificacao geocodificacao, // PENDENTE enquanto as coordenadas não foram obtidas; FALHOU se o CEP não foi encontrado
         Integer capacidade,
         boolean semLimite,
 
@@ -2,6 +2,7 @@ package com.luccasaps.projetopds.controller.dto;
 
 import com.luccasaps.projetopds.model.StatusAtividade;
 import jakarta.validation.constraints.FutureOrPresent;
+import jakarta.validation.constraints.Pattern;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -14,6 +15,7 @@ public record AtividadeUpdateDTO(
         @FutureOrPresent(message = "A data não pode ser no passado")
         LocalDate data,
         LocalTime horario,
+        @Pattern(regexp = "\\d{5}-?\\d{3}", message = "CEP deve estar no formato 00000-000")
         String cep,
         String uf,
         String street,
@@ -0,0 +1,20 @@
+package com.luccasaps.projetopds.controller.dto;
+
+import com.luccasaps.projetopds.model.StatusAtividade;
+import jakarta.validation.constraints.Positive;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Filtros da busca de atividades (parâmetros de GET /atividades/busca). Todos são opcionais e combináveis.
+public record BuscaAtividadesDTO(
+        List<String> modalidades,                                   // nomes das modalidades
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate de, // data inicial (inclusive)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate ate,// data final (inclusive)
+        List<StatusAtividade> status,                               // padrão: OPEN e CLOSED
+        Boolean comVagas,                                           // true = apenas atividades com vaga
+        String cep,                                                 // centro do raio
+        @Positive Double distancia                                  // raio em km (usado com 'cep')
+) {
+}
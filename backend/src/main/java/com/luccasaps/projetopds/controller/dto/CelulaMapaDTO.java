@@ -0,0 +1,11 @@
+package com.luccasaps.projetopds.controller.dto;
+
+import java.util.Map;
+
+// Uma célula da grade do mapa: quantidade de atividades abertas, centroide e quantidade por modalidade
+public record CelulaMapaDTO(String quadkey,
+                            int quantidade,
+                            double latitude,
+                            double longitude,
+                            Map<String, Integer> porModalidade) {
+}
@@ -0,0 +1,7 @@
+package com.luccasaps.projetopds.controller.dto;
+
+import java.util.List;
+
+public record CursorPageResponseDTO<T>(List<T> content,         // Os itens desta página
+                                       String proximoCursor) {  // Valor para o parâmetro 'cursor' da próxima página (null = última)
+}
@@ -0,0 +1,6 @@
+package com.luccasaps.projetopds.controller.dto;
+
+// Resposta de GET /users/disponibilidade; um campo é nulo quando o valor correspondente não foi informado
+public record DisponibilidadeDTO(Boolean emailDisponivel,
+                                 Boolean usernameDisponivel) {
+}
@@ -0,0 +1,7 @@
+package com.luccasaps.projetopds.controller.dto;
+
+import java.util.List;
+
+// 'nivel' é o nível de quadkey usado (pode ser mais grosso que o pedido, para limitar o número de células)
+public record GradeMapaDTO(int nivel, int total, List<CelulaMapaDTO> celulas) {
+}
@@ -0,0 +1,8 @@
+package com.luccasaps.projetopds.controller.dto;
+
+import java.util.UUID;
+
+public record ListaEsperaResponseDTO(UUID atividadeId,
+                                     long posicao,     // Posição do usuário na fila (1 = o próximo a ser promovido)
+                                     long totalNaFila) {
+}
@@ -0,0 +1,10 @@
+package com.luccasaps.projetopds.controller.dto;
+
+// Estatísticas de uma modalidade; 'taxaOcupacaoMedia' (participantes / vagas das atividades com limite) é nula sem vagas
+public record ModalidadeEstatisticaDTO(Long modalidadeId,
+                                       String nome,
+                                       long atividadesAbertas,
+                                       long atividadesLotadas,
+                                       Double taxaOcupacaoMedia,
+                                       long usuariosAtivos) {
+}
@@ -1,4 +1,4 @@
-package com.luccasaps.projetopds.dto;
+package com.luccasaps.projetopds.controller.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
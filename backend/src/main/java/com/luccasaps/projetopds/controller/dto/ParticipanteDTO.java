@@ -0,0 +1,9 @@
+package com.luccasaps.projetopds.controller.dto;
+
+import java.util.UUID;
+
+// Dados de exibição de um participante (sem carregar a entidade User inteira)
+public record ParticipanteDTO(UUID id,
+                              String username,
+                              String name) {
+}
@@ -2,6 +2,7 @@ package com.luccasaps.projetopds.controller.dto;
 
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Past;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import org.hibernate.validator.constraints.UniqueElements;
 
@@ -27,6 +28,18 @@ public record UserUpdateDTO(
 
         String phone,
 
+        @Pattern(regexp = "\\d{5}-?\\d{3}", message = "CEP deve estar no formato 00000-000")
+        String cep,
+
+        @Pattern(
+                regexp = "AC|AL|AP|AM|BA|CE|DF|ES|GO|MA|MT|MS|MG|PA|PB|PR|PE|PI|RJ|RN|RS|RO|RR|SC|SP|SE|TO",
+                message = "UF inválida"
+        )
+        String uf,
+
+        @Size(min = 2, max = 120)
+        String street,
+
         @UniqueElements
         List<String> modalidadesNomes
 ) {
@@ -4,6 +4,7 @@ import com.luccasaps.projetopds.controller.dto.AtividadeCreateDTO;
 import com.luccasaps.projetopds.controller.dto.AtividadeResponseDTO;
 import com.luccasaps.projetopds.controller.dto.AtividadeUpdateDTO;
 import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.AtividadeArquivada;
 import org.mapstruct.*;
 
 import java.util.List;
@@ -30,6 +31,20 @@ public interface AtividadeMapper {
     @Mapping(target = "participantesCount", expression = "java(atividade.getParticipantes().size())")
     AtividadeResponseDTO toResponseDTO(Atividade atividade);
 
+    // Detalhe: a contagem de participantes vem calculada pela consulta (ver AtividadeRepository.findDetalheById)
+    @Mapping(source = "atividade.criador.id", target = "criadorId")
+    @Mapping(source = "atividade.criador.name", target = "criadorNome")
+    @Mapping(source = "atividade.modalidade.nome", target = "modalidadeNome")
+    @Mapping(source = "participantesCount", target = "participantesCount")
+    AtividadeResponseDTO toResponseDTO(Atividade atividade, int participantesCount);
+
+    // Atividades arquivadas já guardam a contagem de participantes em uma coluna própria
+    @Mapping(source = "criador.id", target = "criadorId")
+    @Mapping(source = "criador.name", target = "criadorNome")
+    @Mapping(source = "modalidade.nome", target = "modalidadeNome")
+    @Mapping(target = "geocodificacao", ignore = true)
+    AtividadeResponseDTO toResponseDTO(AtividadeArquivada atividadeArquivada);
+
     // Método para converter uma lista de entidades para uma lista de DTOs
     List<AtividadeResponseDTO> toResponseDTOList(List<Atividade> atividades);
 }
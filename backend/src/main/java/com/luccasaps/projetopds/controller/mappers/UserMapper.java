@@ -18,11 +18,15 @@ public interface UserMapper {
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "dataCadastro", ignore = true)
     @Mapping(target = "modalidades", ignore = true)
+    @Mapping(target = "latitude", ignore = true)
+    @Mapping(target = "longitude", ignore = true)
     User toEntity(UserDTO userDTO);
 
     UserDTO toDTO(User user);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "latitude", ignore = true)
+    @Mapping(target = "longitude", ignore = true)
     void updateEntityFromDTO(UserUpdateDTO userUpdateDTODTO, @MappingTarget User user);
 
     @Mapping(target = "modalidades", source = "modalidades")
@@ -25,6 +25,18 @@ public class ApiExceptionHandler {
         } else if (reason != null && reason.equalsIgnoreCase("MODALIDADE_INVALIDA")) {
             body.put("code", "MODALIDADE_INVALIDA");
             body.put("message", "Uma ou mais modalidades não existem.");
+        } else if (reason != null && reason.equalsIgnoreCase("IDEMPOTENCY_KEY_REUSED")) {
+            body.put("code", "IDEMPOTENCY_KEY_REUSED");
+            body.put("message", "Esta Idempotency-Key já foi usada com outros dados.");
+        } else if (reason != null && reason.equalsIgnoreCase("IDEMPOTENCY_KEY_IN_PROGRESS")) {
+            body.put("code", "IDEMPOTENCY_KEY_IN_PROGRESS");
+            body.put("message", "A requisição original com esta Idempotency-Key ainda está em processamento.");
+        } else if (reason != null && reason.equalsIgnoreCase("IDEMPOTENCY_KEY_INVALIDA")) {
+            body.put("code", "IDEMPOTENCY_KEY_INVALIDA");
+            body.put("message", "A Idempotency-Key deve ter no máximo 128 caracteres.");
+        } else if (reason != null && reason.equalsIgnoreCase("IDEMPOTENCY_KEY_LIMIT")) {
+            body.put("code", "IDEMPOTENCY_KEY_LIMIT");
+            body.put("message", "Muitas requisições com Idempotency-Key em andamento; tente novamente em instantes.");
         } else {
             body.put("message", reason != null ? reason : "Erro");
         }
@@ -64,6 +64,17 @@ public class Atividade {
     @Column(nullable = true)
     private Double longitude;
 
+    // Geocodificação em segundo plano (ver GeocodificacaoAtividadeService)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "geocodificacao_status", length = 20, nullable = false)
+    private StatusGeocodificacao geocodificacao = StatusGeocodificacao.PENDENTE;
+
+    @Column(name = "geocodificacao_tentativas", nullable = false)
+    private int geocodificacaoTentativas;
+
+    @Column(name = "geocodificacao_proxima_tentativa")
+    private LocalDateTime geocodificacaoProximaTentativa;
+
     // --- Capacidade e Status ---
     private Integer capacidade; // Campo "Capacidade"
 
@@ -83,6 +94,14 @@ public class Atividade {
     )
     private Set<User> participantes = new HashSet<>();
 
+    // --- Lista de espera (ver ListaEspera) ---
+    // A fila ocupa as posições [esperaInicio, esperaFim): entrar, promover e consultar a posição custam O(1)
+    @Column(name = "espera_inicio", nullable = false)
+    private long esperaInicio; // posição de quem está no início da fila
+
+    @Column(name = "espera_fim", nullable = false)
+    private long esperaFim; // próxima posição livre no fim da fila
+
     // --- Datas de Auditoria ---
     @CreatedDate
     @Column(name = "criado_em", updatable = false)
@@ -0,0 +1,88 @@
+package com.luccasaps.projetopds.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+// Cópia "fria" de uma atividade encerrada/cancelada há mais tempo que o configurado.
+// As linhas são movidas pelo AtividadeArquivamentoService e nunca são alteradas depois disso.
+@Getter
+@Setter
+@Entity
+@Table(name = "atividade_arquivada", schema = "public")
+public class AtividadeArquivada {
+
+    @Id
+    private UUID id; // Mesmo ID que a atividade tinha na tabela 'atividade'
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "criador_id", nullable = false)
+    private User criador;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "modalidade_id", nullable = false)
+    private Modalidade modalidade;
+
+    @Column(length = 50, nullable = false)
+    private String titulo;
+
+    @Column(length = 500)
+    private String observacoes;
+
+    @Column(nullable = false)
+    private LocalDate data;
+
+    @Column(nullable = false)
+    private LocalTime horario;
+
+    @Column(length = 9)
+    private String cep;
+
+    @Column(length = 2)
+    private String uf;
+
+    @Column(length = 120)
+    private String street;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    private Integer capacidade;
+
+    @Column(nullable = false)
+    private boolean semLimite;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private StatusAtividade status;
+
+    // Quantidade de participantes no momento do arquivamento (evita contar a coleção abaixo)
+    @Column(name = "participantes_count", nullable = false)
+    private int participantesCount;
+
+    // Apenas os IDs dos participantes: o histórico não depende da existência do usuário
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+            name = "atividade_participantes_arquivada",
+            joinColumns = @JoinColumn(name = "atividade_id")
+    )
+    @Column(name = "usuario_id", nullable = false)
+    private Set<UUID> participantesIds = new HashSet<>();
+
+    @Column(name = "criado_em")
+    private LocalDateTime criadoEm;
+
+    @Column(name = "atualizado_em")
+    private LocalDateTime atualizadoEm;
+
+    @Column(name = "arquivado_em", nullable = false)
+    private LocalDateTime arquivadoEm;
+}
@@ -0,0 +1,37 @@
+package com.luccasaps.projetopds.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Resposta guardada para uma Idempotency-Key (usado quando 'idempotency.persistent' = true).
+@Getter
+@Setter
+@Entity
+@Table(name = "idempotency_key", schema = "public")
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 255)
+    private String chave; // SHA-256 (hex) de escopo (usuário + rota) + valor do cabeçalho Idempotency-Key
+
+    @Column(length = 64, nullable = false)
+    private String fingerprint; // hash do corpo da requisição original
+
+    @Column(nullable = false)
+    private int status;
+
+    @Column(length = 512)
+    private String location;
+
+    @Column(length = 8000)
+    private String corpo; // JSON da resposta
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+}
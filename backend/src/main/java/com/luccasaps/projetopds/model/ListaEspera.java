@@ -0,0 +1,37 @@
+package com.luccasaps.projetopds.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uma vaga na lista de espera de uma atividade lotada.
+ * A 'posicao' é absoluta dentro da atividade; a posição real na fila é
+ * posicao - atividade.esperaInicio + 1 (ver Atividade.esperaInicio/esperaFim).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "atividade_lista_espera", schema = "public")
+public class ListaEspera {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "atividade_id", nullable = false)
+    private Atividade atividade;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "usuario_id", nullable = false)
+    private User usuario;
+
+    @Column(nullable = false)
+    private long posicao;
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+}
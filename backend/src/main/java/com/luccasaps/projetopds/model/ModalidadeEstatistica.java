@@ -0,0 +1,62 @@
+package com.luccasaps.projetopds.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Uma faixa dos contadores de uma modalidade (ver EstatisticasModalidadeService). O valor da modalidade
+ * é a soma de todas as suas faixas; a reconciliação grava o valor real na faixa 0 e zera as demais.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@IdClass(ModalidadeEstatistica.Chave.class)
+@Table(name = "modalidade_estatistica", schema = "public")
+public class ModalidadeEstatistica {
+
+    @Id
+    @Column(name = "modalidade_id")
+    private Long modalidadeId;
+
+    @Id
+    @Column(name = "faixa")
+    private Integer faixa;
+
+    @Column(name = "atividades_ativas", nullable = false)
+    private long atividadesAtivas;
+
+    @Column(name = "atividades_lotadas", nullable = false)
+    private long atividadesLotadas;
+
+    // Participantes e capacidade somam só as atividades com limite de vagas (base da taxa de ocupação)
+    @Column(name = "participantes", nullable = false)
+    private long participantes;
+
+    @Column(name = "capacidade", nullable = false)
+    private long capacidade;
+
+    @Column(name = "usuarios", nullable = false)
+    private long usuarios;
+
+    public ModalidadeEstatistica(Long modalidadeId, Integer faixa) {
+        this.modalidadeId = modalidadeId;
+        this.faixa = faixa;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Chave implements Serializable {
+        private Long modalidadeId;
+        private Integer faixa;
+    }
+}
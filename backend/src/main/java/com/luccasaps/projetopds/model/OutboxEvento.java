@@ -0,0 +1,51 @@
+package com.luccasaps.projetopds.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Evento de domínio gravado na mesma transação da alteração e entregue depois pelo OutboxDispatcher.
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_evento", schema = "public")
+public class OutboxEvento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // também define a ordem de entrega
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 40, nullable = false)
+    private TipoEvento tipo;
+
+    @Column(name = "agregado_tipo", length = 40, nullable = false)
+    private String agregadoTipo;
+
+    @Column(name = "agregado_id", length = 64, nullable = false)
+    private String agregadoId;
+
+    @Column(length = 4000, nullable = false)
+    private String payload; // JSON
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20, nullable = false)
+    private StatusOutbox status;
+
+    @Column(nullable = false)
+    private int tentativas;
+
+    @Column(name = "proxima_tentativa", nullable = false)
+    private LocalDateTime proximaTentativa;
+
+    @Column(length = 500)
+    private String erro; // última falha
+
+    @Column(name = "criado_em", nullable = false)
+    private LocalDateTime criadoEm;
+
+    @Column(name = "processado_em")
+    private LocalDateTime processadoEm;
+}
@@ -0,0 +1,26 @@
+package com.luccasaps.projetopds.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Trava (lease) usada pelos jobs agendados para garantir que apenas uma instância
+// da aplicação execute cada job por vez, mesmo com várias réplicas no ar.
+@Getter
+@Setter
+@Entity
+@Table(name = "scheduler_lock", schema = "public")
+public class SchedulerLock {
+
+    @Id
+    @Column(length = 64)
+    private String nome; // Nome do job protegido pela trava
+
+    @Column(name = "bloqueado_ate", nullable = false)
+    private LocalDateTime bloqueadoAte; // A trava expira sozinha depois deste instante
+
+    @Column(name = "bloqueado_por", length = 128)
+    private String bloqueadoPor; // Identificação da instância que detém a trava
+}
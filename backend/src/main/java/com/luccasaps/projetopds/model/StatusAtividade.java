@@ -2,6 +2,7 @@ package com.luccasaps.projetopds.model;
 
 public enum StatusAtividade {
     OPEN,      // Aberta
-    CLOSED,    // Fechada (cheia ou encerrada)
-    CANCELED   // Cancelada
+    CLOSED,    // Fechada (cheia)
+    CANCELED,  // Cancelada
+    FINISHED   // Encerrada (data/horário já passaram)
 }
@@ -0,0 +1,7 @@
+package com.luccasaps.projetopds.model;
+
+public enum StatusGeocodificacao {
+    PENDENTE,  // Aguardando as coordenadas (ainda não aparece na busca por proximidade)
+    RESOLVIDO, // Coordenadas preenchidas
+    FALHOU     // CEP desconhecido pelos provedores ou tentativas esgotadas; o criador pode corrigir o CEP
+}
@@ -0,0 +1,7 @@
+package com.luccasaps.projetopds.model;
+
+public enum StatusOutbox {
+    PENDENTE,   // Aguardando entrega (ou uma nova tentativa)
+    PROCESSADO, // Entregue a todos os handlers
+    FALHOU      // Esgotou as tentativas; fica registrado para análise
+}
@@ -0,0 +1,64 @@
+package com.luccasaps.projetopds.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Pontuação de uma atividade no ranking de atividades em alta (soma de todas as instâncias), no momento da
+ * última gravação da linha. O checkpoint carrega as linhas existentes antes de somar, então uma instância
+ * criada pelo construtor é sempre nova (Persistable evita o SELECT que o save() faria por causa do ID atribuído).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "tendencia_checkpoint", schema = "public")
+public class TendenciaCheckpoint implements Persistable<UUID> {
+
+    @Id
+    @Column(name = "atividade_id")
+    private UUID atividadeId;
+
+    @Column(name = "pontuacao_inscricoes", nullable = false)
+    private double pontuacaoInscricoes;
+
+    @Column(name = "pontuacao_visualizacoes", nullable = false)
+    private double pontuacaoVisualizacoes;
+
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    // Falso para linhas carregadas do banco: o checkpoint as altera pelo dirty checking
+    @Transient
+    private boolean nova = true;
+
+    public TendenciaCheckpoint(UUID atividadeId, double pontuacaoInscricoes, double pontuacaoVisualizacoes,
+                               LocalDateTime atualizadoEm) {
+        this.atividadeId = atividadeId;
+        this.pontuacaoInscricoes = pontuacaoInscricoes;
+        this.pontuacaoVisualizacoes = pontuacaoVisualizacoes;
+        this.atualizadoEm = atualizadoEm;
+    }
+
+    @Override
+    public UUID getId() {
+        return atividadeId;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarPersistida() {
+        this.nova = false;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nova;
+    }
+}
@@ -0,0 +1,23 @@
+package com.luccasaps.projetopds.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// Eventos de domínio gravados no outbox. O agregado define a ordem de entrega (por agregado, em ordem de criação).
+@Getter
+@RequiredArgsConstructor
+public enum TipoEvento {
+    ATIVIDADE_CRIADA("atividade"),
+    ATIVIDADE_ATUALIZADA("atividade"),
+    ATIVIDADE_EXCLUIDA("atividade"),
+    ATIVIDADE_GEOCODIFICADA("atividade"),
+    ATIVIDADE_GEOCODIFICACAO_FALHOU("atividade"),
+    INSCRICAO_REALIZADA("atividade"),
+    INSCRICAO_CANCELADA("atividade"),
+    LISTA_ESPERA_ENTRADA("atividade"),
+    LISTA_ESPERA_SAIDA("atividade"),
+    USUARIO_CADASTRADO("usuario"),
+    USUARIO_ATUALIZADO("usuario");
+
+    private final String agregado;
+}
@@ -55,6 +55,13 @@ public class User implements UserDetails {
     @Column(length = 120, nullable = false)
     private String street;
 
+    // Coordenadas do CEP; nulas se as APIs de CEP estavam fora no cadastro (obtidas na primeira busca "perto de mim")
+    @Column(nullable = true)
+    private Double latitude;
+
+    @Column(nullable = true)
+    private Double longitude;
+
     @ManyToMany(fetch = FetchType.LAZY, cascade = { CascadeType.PERSIST, CascadeType.MERGE })
     @JoinTable(
             name = "user_modalidade", // Nome da tabela de junção
@@ -0,0 +1,51 @@
+package com.luccasaps.projetopds.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Envolve o DataSource principal ('dataSource') em um proxy JDBC que observa cada comando executado:
+ * tempo da fase 'db' no Server-Timing e métricas/log de comandos lentos (SqlMetricsQueryListener).
+ * Com a réplica habilitada, envolve o roteador, então os comandos das duas conexões são contados uma única vez.
+ */
+@Component
+class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private static final String NOME_DATASOURCE = "dataSource";
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final long limiteLentoMs;
+    private final int maxComandos;
+    private final boolean histograma;
+
+    // O MeterRegistry é resolvido só na primeira consulta: pedir o bean aqui o criaria antes dos outros post-processors
+    DataSourceProxyPostProcessor(ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                 @Value("${observability.sql.slow-threshold-ms:200}") long limiteLentoMs,
+                                 @Value("${observability.sql.max-statements:500}") int maxComandos,
+                                 @Value("${observability.sql.histogram:true}") boolean histograma) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.limiteLentoMs = limiteLentoMs;
+        this.maxComandos = maxComandos;
+        this.histograma = histograma;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!NOME_DATASOURCE.equals(beanName) || !(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(NOME_DATASOURCE)
+                .listener(new RequestTimingQueryListener())
+                .listener(new SqlMetricsQueryListener(meterRegistryProvider, limiteLentoMs, maxComandos, histograma))
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.luccasaps.projetopds.observability;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/hibernate: contadores do Hibernate (carregamentos de entidades e coleções, cache de
+ * segundo nível, consultas) desde a subida ou o último reset (DELETE).
+ * Depende de 'hibernate.generate_statistics' (jpa.properties, ligado só no perfil 'dev'); desligado,
+ * o endpoint informa isso. Como todo endpoint do actuator além do health, exige o papel ADMIN.
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+
+    private static final int TOP = 10;
+
+    private final Statistics statistics;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> estatisticas() {
+        Map<String, Object> resposta = new LinkedHashMap<>();
+        resposta.put("habilitado", statistics.isStatisticsEnabled());
+        if (!statistics.isStatisticsEnabled()) {
+            return resposta;
+        }
+        resposta.put("desde", statistics.getStart());
+
+        Map<String, Object> sessoes = new LinkedHashMap<>();
+        sessoes.put("abertas", statistics.getSessionOpenCount());
+        sessoes.put("transacoes", statistics.getTransactionCount());
+        sessoes.put("flushes", statistics.getFlushCount());
+        sessoes.put("statementsPreparados", statistics.getPrepareStatementCount());
+        sessoes.put("conexoesObtidas", statistics.getConnectCount());
+        resposta.put("sessoes", sessoes);
+
+        Map<String, Object> entidades = new LinkedHashMap<>();
+        entidades.put("carregadas", statistics.getEntityLoadCount());
+        entidades.put("buscadas", statistics.getEntityFetchCount());
+        entidades.put("inseridas", statistics.getEntityInsertCount());
+        entidades.put("atualizadas", statistics.getEntityUpdateCount());
+        entidades.put("removidas", statistics.getEntityDeleteCount());
+        entidades.put("maisAcessadas", topEntidades());
+        resposta.put("entidades", entidades);
+
+        Map<String, Object> colecoes = new LinkedHashMap<>();
+        colecoes.put("carregadas", statistics.getCollectionLoadCount());
+        colecoes.put("buscadas", statistics.getCollectionFetchCount());
+        colecoes.put("maisBuscadas", topColecoes());
+        resposta.put("colecoes", colecoes);
+
+        Map<String, Object> cacheSegundoNivel = new LinkedHashMap<>();
+        cacheSegundoNivel.put("acertos", statistics.getSecondLevelCacheHitCount());
+        cacheSegundoNivel.put("faltas", statistics.getSecondLevelCacheMissCount());
+        cacheSegundoNivel.put("insercoes", statistics.getSecondLevelCachePutCount());
+        resposta.put("cacheSegundoNivel", cacheSegundoNivel);
+
+        Map<String, Object> consultas = new LinkedHashMap<>();
+        consultas.put("executadas", statistics.getQueryExecutionCount());
+        consultas.put("tempoMaximoMs", statistics.getQueryExecutionMaxTime());
+        consultas.put("maisLenta", statistics.getQueryExecutionMaxTimeQueryString());
+        consultas.put("cachePlanoAcertos", statistics.getQueryPlanCacheHitCount());
+        consultas.put("cachePlanoFaltas", statistics.getQueryPlanCacheMissCount());
+        resposta.put("consultas", consultas);
+        return resposta;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.clear();
+    }
+
+    // N+1 aparece aqui: a entidade ou coleção com 'buscadas' muito acima do número de requisições
+    private Map<String, Long> topEntidades() {
+        Map<String, Long> top = new LinkedHashMap<>();
+        Arrays.stream(statistics.getEntityNames())
+                .map(nome -> Map.entry(nome, statistics.getEntityStatistics(nome).getFetchCount()
+                        + statistics.getEntityStatistics(nome).getLoadCount()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+
+    private Map<String, Long> topColecoes() {
+        Map<String, Long> top = new LinkedHashMap<>();
+        Arrays.stream(statistics.getCollectionRoleNames())
+                .map(papel -> Map.entry(papel, statistics.getCollectionStatistics(papel).getFetchCount()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(TOP)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+}
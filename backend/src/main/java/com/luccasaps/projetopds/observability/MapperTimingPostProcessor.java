@@ -0,0 +1,37 @@
+package com.luccasaps.projetopds.observability;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+
+/**
+ * Mede o tempo gasto nos mappers do MapStruct (fase 'map'), onde acontecem os carregamentos lazy
+ * de criador, modalidade e participantes. Os mappers são injetados pela interface, então um proxy JDK basta.
+ * O SQL disparado dentro do mapper também aparece na fase 'db'.
+ */
+@Component
+class MapperTimingPostProcessor implements BeanPostProcessor {
+
+    private static final String PACOTE_MAPPERS = "com.luccasaps.projetopds.controller.mappers";
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> classe = bean.getClass();
+        if (!classe.getPackageName().equals(PACOTE_MAPPERS) || !classe.getSimpleName().endsWith("Impl")) {
+            return bean;
+        }
+
+        return Proxy.newProxyInstance(classe.getClassLoader(), classe.getInterfaces(), (proxy, metodo, args) -> {
+            long inicio = RequestTiming.inicio();
+            try {
+                return metodo.invoke(bean, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            } finally {
+                RequestTiming.registrar(RequestTiming.Fase.MAPPING, inicio);
+            }
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.luccasaps.projetopds.observability;
+
+import java.util.Arrays;
+
+/**
+ * Tempos acumulados por fase durante uma requisição HTTP (autenticação, geocodificação, SQL, mapeamento
+ * e serialização), lidos pelo ServerTimingFilter para montar o cabeçalho Server-Timing.
+ * Cada thread reaproveita a mesma instância entre requisições (dois arrays fixos), então medir não aloca nada.
+ * Fora de uma requisição (jobs agendados, workers) as chamadas não fazem nada.
+ */
+public final class RequestTiming {
+
+    public enum Fase {
+        AUTH("auth"),
+        GEOCODING("geo"),
+        DB("db"),
+        MAPPING("map"),
+        SERIALIZATION("ser");
+
+        private final String nome;
+
+        Fase(String nome) {
+            this.nome = nome;
+        }
+    }
+
+    private static final Fase[] FASES = Fase.values();
+    private static final ThreadLocal<RequestTiming> ATUAL = new ThreadLocal<>();
+
+    private final long[] duracoes = new long[FASES.length];
+    private final int[] contagens = new int[FASES.length];
+    private long inicio;
+    private long inicioConsulta;
+    private long inicioSerializacao;
+    private boolean ativo;
+
+    private RequestTiming() {
+    }
+
+    static RequestTiming iniciar() {
+        RequestTiming timing = ATUAL.get();
+        if (timing == null) {
+            timing = new RequestTiming();
+            ATUAL.set(timing);
+        }
+        Arrays.fill(timing.duracoes, 0);
+        Arrays.fill(timing.contagens, 0);
+        timing.inicioConsulta = 0;
+        timing.inicioSerializacao = 0;
+        timing.inicio = System.nanoTime();
+        timing.ativo = true;
+        return timing;
+    }
+
+    static void encerrar() {
+        RequestTiming timing = ATUAL.get();
+        if (timing != null) {
+            timing.ativo = false;
+        }
+    }
+
+    private static RequestTiming ativo() {
+        RequestTiming timing = ATUAL.get();
+        return timing != null && timing.ativo ? timing : null;
+    }
+
+    /**
+     * Início de uma medição; devolve 0 quando não há requisição sendo medida.
+     * Uso: long inicio = RequestTiming.inicio(); try { ... } finally { RequestTiming.registrar(Fase.X, inicio); }
+     */
+    public static long inicio() {
+        return ativo() != null ? System.nanoTime() : 0;
+    }
+
+    public static void registrar(Fase fase, long inicio) {
+        if (inicio == 0) {
+            return;
+        }
+        RequestTiming timing = ativo();
+        if (timing != null) {
+            timing.duracoes[fase.ordinal()] += System.nanoTime() - inicio;
+            timing.contagens[fase.ordinal()]++;
+        }
+    }
+
+    // --- Chamados pelo listener do proxy JDBC e pelo ServerTimingResponseAdvice ---
+
+    static void consultaIniciada() {
+        RequestTiming timing = ativo();
+        if (timing != null) {
+            timing.inicioConsulta = System.nanoTime();
+        }
+    }
+
+    static void consultaTerminada() {
+        RequestTiming timing = ativo();
+        if (timing != null && timing.inicioConsulta != 0) {
+            timing.duracoes[Fase.DB.ordinal()] += System.nanoTime() - timing.inicioConsulta;
+            timing.contagens[Fase.DB.ordinal()]++;
+            timing.inicioConsulta = 0;
+        }
+    }
+
+    static void serializacaoIniciada() {
+        RequestTiming timing = ativo();
+        if (timing != null && timing.inicioSerializacao == 0) {
+            timing.inicioSerializacao = System.nanoTime();
+        }
+    }
+
+    void finalizarSerializacao() {
+        if (inicioSerializacao != 0) {
+            duracoes[Fase.SERIALIZATION.ordinal()] += System.nanoTime() - inicioSerializacao;
+            inicioSerializacao = 0;
+        }
+    }
+
+    long duracao(Fase fase) {
+        return duracoes[fase.ordinal()];
+    }
+
+    int contagem(Fase fase) {
+        return contagens[fase.ordinal()];
+    }
+
+    long total() {
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Valor do cabeçalho, ex.: auth;dur=0.41, db;dur=2.13;desc="3 sql", app;dur=7.92
+     * 'app' é o tempo total até o momento em que o cabeçalho foi escrito (antes do corpo da resposta).
+     */
+    String cabecalho() {
+        StringBuilder sb = new StringBuilder(96);
+        for (Fase fase : FASES) {
+            if (contagens[fase.ordinal()] == 0) {
+                continue;
+            }
+            sb.append(fase.nome).append(";dur=").append(emMs(duracoes[fase.ordinal()]));
+            if (fase == Fase.DB) {
+                sb.append(";desc=\"").append(contagens[fase.ordinal()]).append(" sql\"");
+            }
+            sb.append(", ");
+        }
+        return sb.append("app;dur=").append(emMs(total())).toString();
+    }
+
+    // Linha estruturada (chave=valor) para o log amostrado
+    String linhaDeLog(String metodo, String rota, int status) {
+        StringBuilder sb = new StringBuilder(160)
+                .append("method=").append(metodo)
+                .append(" path=").append(rota)
+                .append(" status=").append(status)
+                .append(" total_ms=").append(emMs(total()));
+        for (Fase fase : FASES) {
+            sb.append(' ').append(fase.nome).append("_ms=").append(emMs(duracoes[fase.ordinal()]));
+        }
+        return sb.append(" sql_count=").append(contagens[Fase.DB.ordinal()]).toString();
+    }
+
+    private static double emMs(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
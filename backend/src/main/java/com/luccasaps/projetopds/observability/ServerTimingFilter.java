@@ -0,0 +1,64 @@
+package com.luccasaps.projetopds.observability;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mede cada requisição por fase (ver RequestTiming) e devolve o resultado no cabeçalho Server-Timing.
+ * Roda antes de todos os outros filtros para incluir a autenticação JWT. Uma fração configurável
+ * das requisições também gera uma linha de log estruturada, que inclui o tempo de serialização do corpo.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger logAmostrado = LoggerFactory.getLogger("server-timing");
+
+    @Value("${observability.server-timing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${observability.server-timing.header:true}")
+    private boolean header;
+
+    @Value("${observability.server-timing.log-sample-rate:0.0}")
+    private double logSampleRate;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RequestTiming timing = RequestTiming.iniciar();
+        ServerTimingResponseWrapper resposta = new ServerTimingResponseWrapper(response, timing, header);
+        try {
+            filterChain.doFilter(request, resposta);
+        } finally {
+            resposta.escreverCabecalho(); // respostas sem corpo (ex.: 204)
+            timing.finalizarSerializacao();
+
+            if (logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                logAmostrado.info(timing.linhaDeLog(request.getMethod(), request.getRequestURI(), response.getStatus()));
+            }
+            RequestTiming.encerrar();
+        }
+    }
+}
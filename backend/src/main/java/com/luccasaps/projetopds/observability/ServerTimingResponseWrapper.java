@@ -0,0 +1,70 @@
+package com.luccasaps.projetopds.observability;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Escreve o cabeçalho Server-Timing no último momento possível: quando o corpo da resposta começa
+ * a ser escrito (ou quando a resposta é confirmada sem corpo), sem precisar guardar o corpo em buffer.
+ */
+class ServerTimingResponseWrapper extends HttpServletResponseWrapper {
+
+    static final String HEADER = "Server-Timing";
+
+    private final RequestTiming timing;
+    private final boolean incluirCabecalho;
+    private boolean cabecalhoEscrito;
+
+    ServerTimingResponseWrapper(HttpServletResponse response, RequestTiming timing, boolean incluirCabecalho) {
+        super(response);
+        this.timing = timing;
+        this.incluirCabecalho = incluirCabecalho;
+    }
+
+    void escreverCabecalho() {
+        if (!cabecalhoEscrito && incluirCabecalho && !isCommitted()) {
+            setHeader(HEADER, timing.cabecalho());
+        }
+        cabecalhoEscrito = true;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        escreverCabecalho();
+        return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        escreverCabecalho();
+        return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        escreverCabecalho();
+        super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        escreverCabecalho();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        escreverCabecalho();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        escreverCabecalho();
+        super.sendRedirect(location);
+    }
+}
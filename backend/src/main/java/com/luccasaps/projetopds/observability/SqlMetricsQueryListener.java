@@ -0,0 +1,177 @@
+package com.luccasaps.projetopds.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histograma de latência por comando SQL normalizado (métrica 'db.sql', rótulo 'sql') e por tipo de comando
+ * (métrica 'db.sql.operacao', rótulo 'operacao': select, insert, update, delete ou outro), e log dos comandos
+ * acima do limite no logger 'slow-query'. O log traz só a forma do comando e os tipos dos parâmetros,
+ * nunca os valores.
+ * O número de rótulos 'sql' distintos é limitado (SQL montado dinamicamente não estoura o registry): além
+ * do limite, os comandos novos entram em 'sql=outros'. Por comando, o histograma usa os buckets fixos de
+ * BUCKETS_COMANDO (uma dúzia de séries por rótulo); os buckets de percentil gerados pelo Micrometer, bem mais
+ * numerosos, ficam só na métrica por operação, que tem poucos rótulos.
+ */
+class SqlMetricsQueryListener implements QueryExecutionListener {
+
+    static final String METRICA = "db.sql";
+    static final String METRICA_OPERACAO = "db.sql.operacao";
+    static final String OUTROS = "outros";
+
+    // Limites fixos do histograma por comando: cobrem de um acesso por índice a um comando lento
+    static final Duration[] BUCKETS_COMANDO = {
+            Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(5), Duration.ofMillis(10),
+            Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250),
+            Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofMillis(2500), Duration.ofSeconds(5)};
+
+    private static final Set<String> OPERACOES = Set.of("select", "insert", "update", "delete", "merge");
+
+    private static final Logger logLento = LoggerFactory.getLogger("slow-query");
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final long limiteLentoMs;
+    private final int maxComandos;
+    private final boolean histograma;
+
+    // SQL como veio do Hibernate -> timers; evita normalizar (regex) a cada execução
+    private final Map<String, Timers> porSql = new ConcurrentHashMap<>();
+    private final Map<String, Timer> porNormalizado = new ConcurrentHashMap<>();
+    private final Map<String, Timer> porOperacao = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    SqlMetricsQueryListener(ObjectProvider<MeterRegistry> meterRegistryProvider, long limiteLentoMs,
+                            int maxComandos, boolean histograma) {
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.limiteLentoMs = limiteLentoMs;
+        this.maxComandos = maxComandos;
+        this.histograma = histograma;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        String sql = queryInfoList.get(0).getQuery();
+        long elapsedMs = execInfo.getElapsedTime();
+
+        Timers timers = timers(sql);
+        if (timers != null) {
+            timers.comando().record(elapsedMs, TimeUnit.MILLISECONDS);
+            timers.operacao().record(elapsedMs, TimeUnit.MILLISECONDS);
+        }
+
+        if (limiteLentoMs >= 0 && elapsedMs >= limiteLentoMs && logLento.isWarnEnabled()) {
+            logLento.warn("elapsed_ms={} success={} batch_size={} sql=\"{}\" binds={}",
+                    elapsedMs, execInfo.isSuccess(), Math.max(execInfo.getBatchSize(), queryInfoList.size()),
+                    SqlNormalizer.normalizar(sql), tiposDosParametros(queryInfoList.get(0)));
+        }
+    }
+
+    private Timers timers(String sql) {
+        Timers timers = porSql.get(sql);
+        if (timers != null) {
+            return timers;
+        }
+
+        MeterRegistry registry = registry();
+        if (registry == null) {
+            return null; // antes do contexto terminar de subir (ex.: migrações do Flyway)
+        }
+
+        String normalizado = SqlNormalizer.normalizar(sql);
+        Timer comando = porNormalizado.get(normalizado);
+        if (comando == null) {
+            String rotulo = porNormalizado.size() < maxComandos ? normalizado : OUTROS;
+            comando = porNormalizado.computeIfAbsent(rotulo, r -> novoTimerComando(registry, r));
+        }
+        Timer operacao = porOperacao.computeIfAbsent(operacao(sql), o -> novoTimerOperacao(registry, o));
+
+        timers = new Timers(comando, operacao);
+        if (porSql.size() < maxComandos * 4) {
+            porSql.put(sql, timers);
+        }
+        return timers;
+    }
+
+    private Timer novoTimerComando(MeterRegistry registry, String rotulo) {
+        Timer.Builder builder = Timer.builder(METRICA)
+                .description("Latência de cada comando SQL, agrupado pela forma normalizada")
+                .tag("sql", rotulo);
+        if (histograma) {
+            builder.serviceLevelObjectives(BUCKETS_COMANDO);
+        }
+        return builder.register(registry);
+    }
+
+    private Timer novoTimerOperacao(MeterRegistry registry, String operacao) {
+        Timer.Builder builder = Timer.builder(METRICA_OPERACAO)
+                .description("Latência dos comandos SQL por tipo de comando")
+                .tag("operacao", operacao);
+        if (histograma) {
+            builder.publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10));
+        }
+        return builder.register(registry);
+    }
+
+    private MeterRegistry registry() {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            registry = meterRegistryProvider.getIfAvailable();
+            meterRegistry = registry;
+        }
+        return registry;
+    }
+
+    // Primeira palavra do comando; o conjunto fechado mantém o rótulo com poucos valores
+    static String operacao(String sql) {
+        int inicio = 0;
+        while (inicio < sql.length() && (Character.isWhitespace(sql.charAt(inicio)) || sql.charAt(inicio) == '(')) {
+            inicio++;
+        }
+        int fim = inicio;
+        while (fim < sql.length() && Character.isLetter(sql.charAt(fim))) {
+            fim++;
+        }
+        String palavra = sql.substring(inicio, fim).toLowerCase(Locale.ROOT);
+        return OPERACOES.contains(palavra) ? palavra : "outro";
+    }
+
+    // Só os tipos: os valores podem ser dados pessoais (email, telefone, hash de senha)
+    private static String tiposDosParametros(QueryInfo queryInfo) {
+        if (queryInfo.getParametersList().isEmpty()) {
+            return "[]";
+        }
+        StringJoiner tipos = new StringJoiner(", ", "[", "]");
+        queryInfo.getParametersList().get(0).forEach(parametro -> {
+            Object[] args = parametro.getArgs();
+            Object valor = args != null && args.length > 1 ? args[1] : null;
+            tipos.add(valor == null ? "null" : valor.getClass().getSimpleName());
+        });
+        return tipos.toString();
+    }
+
+    private record Timers(Timer comando, Timer operacao) {}
+}
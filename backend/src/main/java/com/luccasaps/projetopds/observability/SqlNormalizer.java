@@ -0,0 +1,34 @@
+package com.luccasaps.projetopds.observability;
+
+import java.util.regex.Pattern;
+
+/**
+ * Reduz um comando SQL à sua "forma": literais viram '?', listas IN de qualquer tamanho viram '(?)'
+ * e espaços são colapsados. Comandos que só diferem nos valores caem na mesma métrica,
+ * e nenhum valor (email, senha criptografada, coordenadas) chega ao log ou aos rótulos.
+ */
+final class SqlNormalizer {
+
+    static final int TAMANHO_MAXIMO = 300;
+
+    // Sem grupos repetidos por caractere ou por item: o java.util.regex empilha uma chamada por repetição de
+    // grupo, e uma lista IN com milhares de parâmetros (ou um texto longo) estouraria a pilha
+    private static final Pattern TEXTO = Pattern.compile("'[^']*+(?:''[^']*+)*+'");
+    private static final Pattern NUMERO = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+    private static final Pattern LISTA = Pattern.compile("\\(\\s*\\?[\\s,?]*+\\)");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private SqlNormalizer() {
+    }
+
+    static String normalizar(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String normalizado = TEXTO.matcher(sql).replaceAll("?");
+        normalizado = NUMERO.matcher(normalizado).replaceAll("?");
+        normalizado = LISTA.matcher(normalizado).replaceAll("(?)");
+        normalizado = ESPACOS.matcher(normalizado).replaceAll(" ").trim();
+        return normalizado.length() > TAMANHO_MAXIMO ? normalizado.substring(0, TAMANHO_MAXIMO) + "..." : normalizado;
+    }
+}
@@ -0,0 +1,206 @@
+package com.luccasaps.projetopds.outbox;
+
+import com.luccasaps.projetopds.model.OutboxEvento;
+import com.luccasaps.projetopds.model.StatusOutbox;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import com.luccasaps.projetopds.service.SchedulerLockService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entrega em segundo plano os eventos gravados pelo OutboxService, em lotes e em ordem por agregado.
+ * Um evento só é marcado como processado depois que todos os handlers terminam (entrega "pelo menos uma vez");
+ * em caso de falha, ele volta com espera exponencial e segura os eventos seguintes do mesmo agregado.
+ * Só uma instância despacha por vez (trava em 'scheduler_lock'). A trava é renovada antes de cada lote e,
+ * dentro do lote, a entrega para quando metade do prazo da trava já passou: os eventos restantes ficam para a
+ * próxima rodada, sem que outra instância assuma a trava e entregue os mesmos eventos em paralelo.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    static final String LOCK = "outbox-dispatcher";
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final List<OutboxEventHandler> handlers;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter eventosEntregues;
+    private final Counter eventosComFalha;
+    private final Counter eventosDescartados;
+    private final Timer atrasoEntrega;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${outbox.max-tentativas:10}")
+    private int maxTentativas;
+
+    @Value("${outbox.backoff-inicial-ms:1000}")
+    private long backoffInicialMs;
+
+    @Value("${outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${outbox.retencao-horas:72}")
+    private long retencaoHoras;
+
+    @Value("${outbox.lock-duration-ms:60000}")
+    private long lockDurationMs;
+
+    public OutboxDispatcher(OutboxEventoRepository outboxEventoRepository,
+                            ObjectProvider<OutboxEventHandler> handlers,
+                            SchedulerLockService schedulerLockService,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventoRepository = outboxEventoRepository;
+        this.handlers = handlers.orderedStream().toList(); // pode não haver nenhum handler registrado
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = transactionTemplate;
+
+        this.eventosEntregues = Counter.builder("outbox.eventos.entregues")
+                .description("Eventos entregues a todos os handlers")
+                .register(meterRegistry);
+        this.eventosComFalha = Counter.builder("outbox.eventos.falhas")
+                .description("Tentativas de entrega que falharam")
+                .register(meterRegistry);
+        this.eventosDescartados = Counter.builder("outbox.eventos.descartados")
+                .description("Eventos que esgotaram as tentativas (status FALHOU)")
+                .register(meterRegistry);
+        this.atrasoEntrega = Timer.builder("outbox.eventos.atraso")
+                .description("Tempo entre a gravação do evento e a sua entrega")
+                .register(meterRegistry);
+        Gauge.builder("outbox.eventos.pendentes", outboxEventoRepository, repo -> repo.countByStatus(StatusOutbox.PENDENTE))
+                .description("Eventos aguardando entrega")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.interval-ms:1000}",
+            initialDelayString = "${outbox.initial-delay-ms:10000}")
+    public void despachar() {
+        Duration duracaoTrava = Duration.ofMillis(lockDurationMs);
+        if (!schedulerLockService.tryAcquire(LOCK, duracaoTrava)) {
+            return;
+        }
+
+        try {
+            for (int lote = 0; lote < maxBatchesPerRun; lote++) {
+                // Renova a trava (a mesma instância pode readquiri-la); se outra a assumiu, para aqui
+                if (lote > 0 && !schedulerLockService.tryAcquire(LOCK, duracaoTrava)) {
+                    log.warn("Outbox: trava perdida durante o despacho; os eventos restantes ficam para a próxima rodada.");
+                    return;
+                }
+                long prazoNanos = System.nanoTime() + duracaoTrava.toNanos() / 2;
+
+                // Um lote incompleto (ou interrompido pelo prazo) significa que a rodada acabou
+                if (despacharLote(prazoNanos) < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            schedulerLockService.release(LOCK);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.cleanup-interval-ms:3600000}",
+            initialDelayString = "${outbox.cleanup-interval-ms:3600000}")
+    public void limparProcessados() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencaoHoras);
+        Integer removidos = transactionTemplate.execute(status -> outboxEventoRepository.deleteProcessadosAntes(limite));
+        if (removidos != null && removidos > 0) {
+            log.debug("Outbox: {} eventos processados removidos.", removidos);
+        }
+    }
+
+    // Devolve quantos eventos do lote foram tratados (entregues, com falha ou segurados pelo agregado)
+    private int despacharLote(long prazoNanos) {
+        LocalDateTime agora = LocalDateTime.now();
+        List<OutboxEvento> eventos = transactionTemplate.execute(status ->
+                outboxEventoRepository.findProntos(agora, Limit.of(batchSize)));
+        if (eventos == null || eventos.isEmpty()) {
+            return 0;
+        }
+
+        // Fora de transação: os handlers não seguram conexão nem bloqueios do banco
+        List<Long> entregues = new ArrayList<>();
+        Set<String> agregadosBloqueados = new HashSet<>();
+        int tratados = 0;
+        for (OutboxEvento evento : eventos) {
+            if (System.nanoTime() - prazoNanos > 0) {
+                log.debug("Outbox: prazo da trava atingido; {} eventos ficam para a próxima rodada.", eventos.size() - tratados);
+                break;
+            }
+            tratados++;
+
+            String agregado = evento.getAgregadoTipo() + ":" + evento.getAgregadoId();
+            if (agregadosBloqueados.contains(agregado)) {
+                continue; // um evento anterior do mesmo agregado falhou neste lote
+            }
+
+            try {
+                entregar(evento);
+                entregues.add(evento.getId());
+                atrasoEntrega.record(Duration.between(evento.getCriadoEm(), LocalDateTime.now()));
+            } catch (Exception e) {
+                agregadosBloqueados.add(agregado);
+                registrarFalha(evento, e);
+            }
+        }
+
+        if (!entregues.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status ->
+                    outboxEventoRepository.marcarProcessados(entregues, LocalDateTime.now()));
+            eventosEntregues.increment(entregues.size());
+        }
+        return tratados;
+    }
+
+    private void entregar(OutboxEvento evento) throws Exception {
+        for (OutboxEventHandler handler : handlers) {
+            if (handler.suporta(evento.getTipo())) {
+                handler.processar(evento);
+            }
+        }
+    }
+
+    private void registrarFalha(OutboxEvento evento, Exception e) {
+        int tentativas = evento.getTentativas() + 1;
+        boolean esgotou = tentativas >= maxTentativas;
+
+        long espera = Math.min(backoffMaxMs, backoffInicialMs << Math.min(tentativas - 1, 20));
+        LocalDateTime proximaTentativa = LocalDateTime.now().plus(Duration.ofMillis(espera));
+        String erro = String.valueOf(e.getMessage());
+        String erroTruncado = erro.length() > 500 ? erro.substring(0, 500) : erro;
+
+        transactionTemplate.executeWithoutResult(status -> outboxEventoRepository.registrarFalha(
+                evento.getId(), esgotou ? StatusOutbox.FALHOU : StatusOutbox.PENDENTE, proximaTentativa, erroTruncado));
+
+        eventosComFalha.increment();
+        if (esgotou) {
+            eventosDescartados.increment();
+            log.error("Outbox: evento {} ({}) descartado após {} tentativas.", evento.getId(), evento.getTipo(), tentativas, e);
+        } else {
+            log.warn("Outbox: falha ao entregar o evento {} ({}), nova tentativa em {} ms.", evento.getId(), evento.getTipo(), espera, e);
+        }
+    }
+}
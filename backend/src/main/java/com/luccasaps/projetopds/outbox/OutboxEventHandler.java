@@ -0,0 +1,16 @@
+package com.luccasaps.projetopds.outbox;
+
+import com.luccasaps.projetopds.model.OutboxEvento;
+import com.luccasaps.projetopds.model.TipoEvento;
+
+/**
+ * Consumidor de eventos do outbox (cache, feeds, notificações, indexação...).
+ * A entrega é "pelo menos uma vez": um evento pode ser reentregue após uma falha ou queda da instância,
+ * então o processamento precisa ser idempotente. Eventos do mesmo agregado chegam em ordem.
+ */
+public interface OutboxEventHandler {
+
+    boolean suporta(TipoEvento tipo);
+
+    void processar(OutboxEvento evento) throws Exception;
+}
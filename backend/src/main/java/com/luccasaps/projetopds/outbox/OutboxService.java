@@ -0,0 +1,66 @@
+package com.luccasaps.projetopds.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luccasaps.projetopds.model.OutboxEvento;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.StatusOutbox;
+import com.luccasaps.projetopds.model.TipoEvento;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Grava eventos de domínio no outbox dentro da transação de quem os publica: o evento só existe
+ * se a alteração for confirmada, e a requisição não espera pelos consumidores (ver OutboxDispatcher).
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEvento tipo, Object agregadoId, Map<String, ?> dados) {
+        LocalDateTime agora = LocalDateTime.now();
+
+        OutboxEvento evento = new OutboxEvento();
+        evento.setTipo(tipo);
+        evento.setAgregadoTipo(tipo.getAgregado());
+        evento.setAgregadoId(String.valueOf(agregadoId));
+        evento.setPayload(serializar(dados));
+        evento.setStatus(StatusOutbox.PENDENTE);
+        evento.setProximaTentativa(agora);
+        evento.setCriadoEm(agora);
+        outboxEventoRepository.save(evento);
+    }
+
+    /**
+     * Um evento do tipo informado para cada atividade do criador nos status informados, com um único comando.
+     * Usado quando as atividades são removidas em massa (exclusão de conta) e o evento só leva o ID.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int registrarPorAtividadeDoCriador(TipoEvento tipo, UUID criadorId, Collection<StatusAtividade> status) {
+        if (!"atividade".equals(tipo.getAgregado())) {
+            throw new IllegalArgumentException("Evento não é de atividade: " + tipo);
+        }
+        return outboxEventoRepository.inserirPorAtividadeDoCriador(tipo.name(), criadorId,
+                status.stream().map(Enum::name).toList(), LocalDateTime.now());
+    }
+
+    private String serializar(Map<String, ?> dados) {
+        try {
+            return objectMapper.writeValueAsString(dados);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível serializar o evento", e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.AtividadeArquivada;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface AtividadeArquivadaRepository extends JpaRepository<AtividadeArquivada, UUID> {
+
+    // --- Movimentação da tabela quente para o arquivo (usado pelo AtividadeArquivamentoService) ---
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO atividade_arquivada (id, criador_id, modalidade_id, titulo, observacoes, data, horario, " +
+            "cep, uf, street, latitude, longitude, capacidade, sem_limite, status, participantes_count, " +
+            "criado_em, atualizado_em, arquivado_em) " +
+            "SELECT a.id, a.criador_id, a.modalidade_id, a.titulo, a.observacoes, a.data, a.horario, " +
+            "a.cep, a.uf, a.street, a.latitude, a.longitude, a.capacidade, a.sem_limite, a.status, " +
+            "(SELECT count(*) FROM atividade_participantes p WHERE p.atividade_id = a.id), " +
+            "a.criado_em, a.atualizado_em, :arquivadoEm " +
+            "FROM atividade a WHERE a.id IN (:ids)",
+            nativeQuery = true)
+    int copiarAtividades(@Param("ids") Collection<UUID> ids, @Param("arquivadoEm") LocalDateTime arquivadoEm);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO atividade_participantes_arquivada (atividade_id, usuario_id) " +
+            "SELECT p.atividade_id, p.usuario_id FROM atividade_participantes p WHERE p.atividade_id IN (:ids)",
+            nativeQuery = true)
+    int copiarParticipantes(@Param("ids") Collection<UUID> ids);
+
+    // --- Histórico do usuário ---
+
+    /**
+     * Busca as atividades arquivadas das quais o usuário participou, da mais recente para a mais antiga.
+     * Usa LIMIT/OFFSET explícitos porque a página do histórico começa no meio do arquivo
+     * (depois das atividades passadas que ainda estão na tabela quente).
+     */
+    @Query(value = "SELECT a.* FROM atividade_arquivada a " +
+            "JOIN atividade_participantes_arquivada p ON p.atividade_id = a.id " +
+            "WHERE p.usuario_id = :usuarioId " +
+            "ORDER BY a.data DESC, a.horario DESC " +
+            "LIMIT :pageSize OFFSET :offset",
+            nativeQuery = true)
+    List<AtividadeArquivada> findHistoricoPaginado(@Param("usuarioId") UUID usuarioId,
+                                                   @Param("pageSize") int pageSize,
+                                                   @Param("offset") long offset);
+
+    @Query(value = "SELECT count(*) FROM atividade_participantes_arquivada p WHERE p.usuario_id = :usuarioId",
+            nativeQuery = true)
+    long countHistorico(@Param("usuarioId") UUID usuarioId);
+
+    // --- Exclusão de conta (ver UserService.deleteSelf) ---
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_participantes_arquivada WHERE atividade_id IN " +
+            "(SELECT a.id FROM atividade_arquivada a WHERE a.criador_id = :criadorId)",
+            nativeQuery = true)
+    int deleteParticipantesByCriadorId(@Param("criadorId") UUID criadorId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_participantes_arquivada WHERE usuario_id = :usuarioId", nativeQuery = true)
+    int deleteInscricoesByUsuarioId(@Param("usuarioId") UUID usuarioId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from AtividadeArquivada a where a.criador.id = :criadorId")
+    int deleteInBulkByCriadorId(@Param("criadorId") UUID criadorId);
+}
@@ -1,28 +1,59 @@
 package com.luccasaps.projetopds.repository;
 
+import com.luccasaps.projetopds.controller.dto.ParticipanteDTO;
 import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.StatusGeocodificacao;
 import com.luccasaps.projetopds.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Tuple;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
-public interface AtividadeRepository extends JpaRepository<Atividade, UUID> {
+public interface AtividadeRepository extends JpaRepository<Atividade, UUID>, JpaSpecificationExecutor<Atividade> {
     Atividade findByTitulo(String nome);
 
     List<Atividade> findByCriador(User criador);
 
     List<Atividade> findByModalidadeNomeIn(List<String> nomes);
 
+    // Busca filtrada (ver AtividadeSpecifications); criador e modalidade vêm na mesma consulta
+    @Override
+    @EntityGraph(attributePaths = {"criador", "modalidade"})
+    Page<Atividade> findAll(Specification<Atividade> spec, Pageable pageable);
+
+    // Contagem de participantes de várias atividades em um único comando (evita N consultas ao mapear uma página)
+    // JPQL, não nativa: em consultas nativas o H2 devolve a coluna UUID como byte[]
+    @Query("select a.id, size(a.participantes) from Atividade a where a.id in :ids")
+    List<Object[]> countParticipantesByAtividadeIds(@Param("ids") Collection<UUID> ids);
+
     /**
      * Busca uma 'página' de atividades dentro de um raio de distância (em km).
+     * Considera apenas atividades ainda não encerradas/canceladas e que já têm coordenadas.
      * Inclui parâmetros para LIMIT (pageSize) e OFFSET (offset) para a paginação manual.
      */
     @Query(value = "SELECT *, (6371 * acos(cos(radians(:lat)) * cos(radians(a.latitude)) * cos(radians(a.longitude) - radians(:lon)) + sin(radians(:lat)) * sin(radians(a.latitude)))) AS distancia " +
             "FROM atividade a " +
-            "WHERE (6371 * acos(cos(radians(:lat)) * cos(radians(a.latitude)) * cos(radians(a.longitude) - radians(:lon)) + sin(radians(:lat)) * sin(radians(a.latitude)))) < :distancia " +
+            "WHERE a.status IN ('OPEN', 'CLOSED') AND a.geocodificacao_status = 'RESOLVIDO' " +
+            "AND (6371 * acos(cos(radians(:lat)) * cos(radians(a.latitude)) * cos(radians(a.longitude) - radians(:lon)) + sin(radians(:lat)) * sin(radians(a.latitude)))) < :distancia " +
             "ORDER BY distancia " +
             "LIMIT :pageSize OFFSET :offset",
             nativeQuery = true)
@@ -38,7 +69,8 @@ public interface AtividadeRepository extends JpaRepository<Atividade, UUID> {
      * Essencial para que a paginação funcione.
      */
     @Query(value = "SELECT count(*) FROM atividade a " +
-            "WHERE (6371 * acos(cos(radians(:lat)) * cos(radians(a.latitude)) * cos(radians(a.longitude) - radians(:lon)) + sin(radians(:lat)) * sin(radians(a.latitude)))) < :distancia",
+            "WHERE a.status IN ('OPEN', 'CLOSED') AND a.geocodificacao_status = 'RESOLVIDO' " +
+            "AND (6371 * acos(cos(radians(:lat)) * cos(radians(a.latitude)) * cos(radians(a.longitude) - radians(:lon)) + sin(radians(:lat)) * sin(radians(a.latitude)))) < :distancia",
             nativeQuery = true)
     long countAtividadesProximas(
             @Param("lat") Double latitude,
@@ -46,4 +78,340 @@ public interface AtividadeRepository extends JpaRepository<Atividade, UUID> {
             @Param("distancia") Double distanciaEmKm);
 
     List<Atividade> findAllByCriador(User criador);
+
+    /**
+     * Agenda: IDs das próximas atividades abertas dentro da janela de tempo e do raio, em ordem de início.
+     * A consulta percorre o índice idx_atividade_abertas_agenda a partir do cursor (data, horario, id) e aplica
+     * o filtro de distância às candidatas, parando assim que encontra 'limite' atividades.
+     */
+    @Query(value = "SELECT a.id FROM atividade a " +
+            "WHERE a.status = 'OPEN' AND a.geocodificacao_status = 'RESOLVIDO' " +
+            "AND (a.data, a.horario, a.id) > (:cursorData, :cursorHorario, :cursorId) " +
+            "AND (a.data, a.horario) <= (:fimData, :fimHorario) " +
+            "AND (6371 * acos(cos(radians(:lat)) * cos(radians(a.latitude)) * cos(radians(a.longitude) - radians(:lon)) + sin(radians(:lat)) * sin(radians(a.latitude)))) < :distancia " +
+            "ORDER BY a.data, a.horario, a.id " +
+            "LIMIT :limite",
+            nativeQuery = true)
+    List<UUID> findIdsAgenda(@Param("lat") Double latitude,
+                             @Param("lon") Double longitude,
+                             @Param("distancia") Double distanciaEmKm,
+                             @Param("cursorData") LocalDate cursorData,
+                             @Param("cursorHorario") LocalTime cursorHorario,
+                             @Param("cursorId") UUID cursorId,
+                             @Param("fimData") LocalDate fimData,
+                             @Param("fimHorario") LocalTime fimHorario,
+                             @Param("limite") int limite);
+
+    // Carrega as atividades de uma página já selecionada, com criador e modalidade na mesma consulta
+    @EntityGraph(attributePaths = {"criador", "modalidade"})
+    List<Atividade> findByIdIn(Collection<UUID> ids);
+
+    /**
+     * Detalhe da atividade em um único comando: criador e modalidade via fetch join
+     * e a contagem de participantes como subconsulta (sem carregar a coleção).
+     */
+    @Query("""
+           select a as atividade, size(a.participantes) as participantesCount
+           from Atividade a join fetch a.criador join fetch a.modalidade
+           where a.id = :id
+           """)
+    Optional<Tuple> findDetalheById(@Param("id") UUID id);
+
+    /**
+     * Pontos da grade do mapa (GradeMapaService): atividades abertas com coordenadas, só com as colunas necessárias.
+     */
+    @Query("""
+           select a.id as id, a.latitude as latitude, a.longitude as longitude, m.nome as modalidade
+           from Atividade a join a.modalidade m
+           where a.status = com.luccasaps.projetopds.model.StatusAtividade.OPEN
+             and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.RESOLVIDO
+             and a.latitude is not null and a.longitude is not null
+           """)
+    List<Tuple> findPontosMapa();
+
+    // O mesmo para uma atividade; vazio se ela não deve aparecer no mapa (fechada, encerrada, excluída, sem coordenadas)
+    @Query("""
+           select a.id as id, a.latitude as latitude, a.longitude as longitude, m.nome as modalidade
+           from Atividade a join a.modalidade m
+           where a.id = :id
+             and a.status = com.luccasaps.projetopds.model.StatusAtividade.OPEN
+             and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.RESOLVIDO
+             and a.latitude is not null and a.longitude is not null
+           """)
+    Optional<Tuple> findPontoMapaById(@Param("id") UUID id);
+
+    // Dados exibidos no ranking de atividades em alta (TendenciaAtividadesService), só das atividades ainda por acontecer
+    @Query("""
+           select a.id as id, a.titulo as titulo, m.nome as modalidade, a.uf as uf, a.data as data, a.horario as horario
+           from Atividade a join a.modalidade m
+           where a.id in :ids and a.status in :status and a.data >= :hoje
+           """)
+    List<Tuple> findResumosTendencia(@Param("ids") Collection<UUID> ids,
+                                     @Param("status") Set<StatusAtividade> status,
+                                     @Param("hoje") LocalDate hoje);
+
+    // Busca apenas o username do criador, sem carregar a atividade nem os participantes
+    @Query("select a.criador.username from Atividade a where a.id = :id")
+    Optional<String> findCriadorUsernameById(@Param("id") UUID id);
+
+    // --- Inscrições e lista de espera (ver AtividadeService.inscrever/sair) ---
+
+    /**
+     * Carrega a atividade travando apenas a sua linha (SELECT ... FOR UPDATE).
+     * Serializa inscrições, saídas e promoções da mesma atividade sem bloquear as demais.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Atividade a where a.id = :id")
+    Optional<Atividade> findByIdForUpdate(@Param("id") UUID id);
+
+    @Query(value = "SELECT count(*) FROM atividade_participantes WHERE atividade_id = :atividadeId", nativeQuery = true)
+    long countParticipantes(@Param("atividadeId") UUID atividadeId);
+
+    @Query(value = "SELECT CASE WHEN EXISTS (SELECT 1 FROM atividade_participantes " +
+            "WHERE atividade_id = :atividadeId AND usuario_id = :usuarioId) THEN TRUE ELSE FALSE END",
+            nativeQuery = true)
+    boolean existsParticipante(@Param("atividadeId") UUID atividadeId, @Param("usuarioId") UUID usuarioId);
+
+    // Sem 'clearAutomatically': a atividade travada continua gerenciada para a atualização do status
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO atividade_participantes (atividade_id, usuario_id) VALUES (:atividadeId, :usuarioId)", nativeQuery = true)
+    int insertParticipante(@Param("atividadeId") UUID atividadeId, @Param("usuarioId") UUID usuarioId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM atividade_participantes WHERE atividade_id = :atividadeId AND usuario_id = :usuarioId", nativeQuery = true)
+    int deleteParticipante(@Param("atividadeId") UUID atividadeId, @Param("usuarioId") UUID usuarioId);
+
+    // --- Participantes paginados por chave (keyset): percorre o índice (atividade_id, usuario_id) a partir do cursor ---
+
+    @Query("""
+           select new com.luccasaps.projetopds.controller.dto.ParticipanteDTO(u.id, u.username, u.name)
+           from Atividade a join a.participantes u
+           where a.id = :atividadeId
+           order by u.id
+           """)
+    List<ParticipanteDTO> findParticipantes(@Param("atividadeId") UUID atividadeId, Limit limit);
+
+    @Query("""
+           select new com.luccasaps.projetopds.controller.dto.ParticipanteDTO(u.id, u.username, u.name)
+           from Atividade a join a.participantes u
+           where a.id = :atividadeId and u.id > :cursor
+           order by u.id
+           """)
+    List<ParticipanteDTO> findParticipantesApos(@Param("atividadeId") UUID atividadeId,
+                                                @Param("cursor") UUID cursor,
+                                                Limit limit);
+
+    // --- Exclusões em massa (um único comando cada, independente da quantidade de linhas) ---
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_participantes WHERE atividade_id = :atividadeId", nativeQuery = true)
+    int deleteParticipantesByAtividadeId(@Param("atividadeId") UUID atividadeId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_participantes WHERE atividade_id IN " +
+            "(SELECT a.id FROM atividade a WHERE a.criador_id = :criadorId)",
+            nativeQuery = true)
+    int deleteParticipantesByCriadorId(@Param("criadorId") UUID criadorId);
+
+    // Atividades de outras pessoas, ainda abertas ou lotadas, em que o usuário está inscrito (em ordem de ID)
+    @Query("""
+           select a.id from Atividade a join a.participantes p
+           where p.id = :usuarioId and a.criador.id <> :usuarioId and a.status in :status
+           order by a.id
+           """)
+    List<UUID> findIdsInscricoesEmAtividadesDeOutros(@Param("usuarioId") UUID usuarioId,
+                                                     @Param("status") Collection<StatusAtividade> status);
+
+    // Atividades do criador que ainda aparecem no mapa e nos detalhes (abertas ou lotadas)
+    @Query("select a.id from Atividade a where a.criador.id = :criadorId and a.status in :status")
+    List<UUID> findIdsByCriadorIdAndStatusIn(@Param("criadorId") UUID criadorId,
+                                             @Param("status") Collection<StatusAtividade> status);
+
+    // Remove as inscrições do usuário em atividades de outras pessoas
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_participantes WHERE usuario_id = :usuarioId", nativeQuery = true)
+    int deleteInscricoesByUsuarioId(@Param("usuarioId") UUID usuarioId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Atividade a where a.id = :id")
+    int deleteInBulkById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Atividade a where a.criador.id = :criadorId")
+    int deleteInBulkByCriadorId(@Param("criadorId") UUID criadorId);
+
+    // --- Geocodificação em segundo plano (ver GeocodificacaoAtividadeService) ---
+
+    // CEPs distintos com atividades pendentes cuja próxima tentativa já venceu
+    @Query("""
+           select distinct a.cep from Atividade a
+           where a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+             and a.geocodificacaoProximaTentativa <= :agora
+           """)
+    List<String> findCepsGeocodificacaoPendente(@Param("agora") LocalDateTime agora, Limit limit);
+
+    @Query("""
+           select a.id from Atividade a
+           where a.cep = :cep and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+           """)
+    List<UUID> findIdsGeocodificacaoPendenteByCep(@Param("cep") String cep);
+
+    @Query("""
+           select max(a.geocodificacaoTentativas) from Atividade a
+           where a.cep = :cep and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+           """)
+    Optional<Integer> findMaxTentativasGeocodificacaoByCep(@Param("cep") String cep);
+
+    // Reserva os CEPs para esta instância, evitando que outra varredura os pegue enquanto a consulta está em andamento
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           update Atividade a set a.geocodificacaoProximaTentativa = :ate
+           where a.cep in :ceps and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+           """)
+    int adiarGeocodificacao(@Param("ceps") Collection<String> ceps, @Param("ate") LocalDateTime ate);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           update Atividade a
+           set a.latitude = :latitude, a.longitude = :longitude,
+               a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.RESOLVIDO,
+               a.geocodificacaoProximaTentativa = null
+           where a.id in :ids and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+           """)
+    int resolverGeocodificacao(@Param("ids") Collection<UUID> ids,
+                               @Param("latitude") Double latitude,
+                               @Param("longitude") Double longitude);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           update Atividade a
+           set a.geocodificacaoTentativas = a.geocodificacaoTentativas + 1,
+               a.geocodificacaoProximaTentativa = :proximaTentativa,
+               a.geocodificacao = case when a.geocodificacaoTentativas + 1 >= :maxTentativas
+                                       then com.luccasaps.projetopds.model.StatusGeocodificacao.FALHOU
+                                       else com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE end
+           where a.cep = :cep and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+           """)
+    int registrarFalhaGeocodificacao(@Param("cep") String cep,
+                                     @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                                     @Param("maxTentativas") int maxTentativas);
+
+    // Atividades que esgotam as tentativas com a próxima falha registrada para o CEP
+    @Query("""
+           select a.id from Atividade a
+           where a.cep = :cep and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+             and a.geocodificacaoTentativas + 1 >= :maxTentativas
+           """)
+    List<UUID> findIdsGeocodificacaoEsgotadaByCep(@Param("cep") String cep, @Param("maxTentativas") int maxTentativas);
+
+    // CEP que nenhum provedor conhece: falha definitiva, sem novas tentativas
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           update Atividade a
+           set a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.FALHOU,
+               a.geocodificacaoProximaTentativa = null
+           where a.id in :ids and a.geocodificacao = com.luccasaps.projetopds.model.StatusGeocodificacao.PENDENTE
+           """)
+    int registrarCepInexistente(@Param("ids") Collection<UUID> ids);
+
+    long countByGeocodificacao(StatusGeocodificacao geocodificacao);
+
+    // --- Ciclo de vida (encerramento de atividades passadas) ---
+
+    /**
+     * Busca um lote de IDs de atividades com os status informados cuja data/horário já passou.
+     * Usa o índice idx_atividade_status_data para percorrer apenas o intervalo necessário.
+     */
+    @Query("""
+           select a.id from Atividade a
+           where a.status in :status
+             and (a.data < :hoje or (a.data = :hoje and a.horario < :agora))
+           order by a.data, a.horario
+           """)
+    List<UUID> findIdsPassadas(@Param("status") Collection<StatusAtividade> status,
+                               @Param("hoje") LocalDate hoje,
+                               @Param("agora") LocalTime agora,
+                               Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+           update Atividade a
+           set a.status = :novoStatus, a.atualizadoEm = :atualizadoEm
+           where a.id in :ids and a.status in :statusAtuais
+           """)
+    int updateStatusInBulk(@Param("ids") Collection<UUID> ids,
+                           @Param("statusAtuais") Collection<StatusAtividade> statusAtuais,
+                           @Param("novoStatus") StatusAtividade novoStatus,
+                           @Param("atualizadoEm") LocalDateTime atualizadoEm);
+
+    long countByStatus(StatusAtividade status);
+
+    // --- Estatísticas por modalidade (ver EstatisticasModalidadeService) ---
+
+    /**
+     * Por modalidade, das atividades OPEN/CLOSED: [modalidade_id, atividades, lotadas, participantes, capacidade].
+     * Participantes e capacidade só contam atividades com limite de vagas. Usado só pela reconciliação.
+     */
+    @Query(value = """
+           SELECT a.modalidade_id,
+                  COUNT(*),
+                  SUM(CASE WHEN a.status = 'CLOSED' THEN 1 ELSE 0 END),
+                  SUM(CASE WHEN a.sem_limite = FALSE AND a.capacidade IS NOT NULL THEN COALESCE(p.total, 0) ELSE 0 END),
+                  SUM(CASE WHEN a.sem_limite = FALSE AND a.capacidade IS NOT NULL THEN a.capacidade ELSE 0 END)
+           FROM atividade a
+           LEFT JOIN (SELECT atividade_id, COUNT(*) AS total FROM atividade_participantes GROUP BY atividade_id) p
+                  ON p.atividade_id = a.id
+           WHERE a.status IN ('OPEN', 'CLOSED')
+           GROUP BY a.modalidade_id
+           """, nativeQuery = true)
+    List<Object[]> somarEstatisticasPorModalidade();
+
+    // O mesmo, restrito às atividades informadas (antes de encerrá-las ou excluí-las em massa)
+    @Query(value = """
+           SELECT a.modalidade_id,
+                  COUNT(*),
+                  SUM(CASE WHEN a.status = 'CLOSED' THEN 1 ELSE 0 END),
+                  SUM(CASE WHEN a.sem_limite = FALSE AND a.capacidade IS NOT NULL THEN COALESCE(p.total, 0) ELSE 0 END),
+                  SUM(CASE WHEN a.sem_limite = FALSE AND a.capacidade IS NOT NULL THEN a.capacidade ELSE 0 END)
+           FROM atividade a
+           LEFT JOIN (SELECT atividade_id, COUNT(*) AS total FROM atividade_participantes
+                      WHERE atividade_id IN (:ids) GROUP BY atividade_id) p
+                  ON p.atividade_id = a.id
+           WHERE a.id IN (:ids) AND a.status IN ('OPEN', 'CLOSED')
+           GROUP BY a.modalidade_id
+           """, nativeQuery = true)
+    List<Object[]> somarEstatisticasPorModalidade(@Param("ids") Collection<UUID> ids);
+
+    // --- Arquivamento (ver AtividadeArquivamentoService) ---
+
+    @Query("""
+           select a.id from Atividade a
+           where a.status in :status and a.data < :limite
+           order by a.data
+           """)
+    List<UUID> findIdsArquivaveis(@Param("status") Collection<StatusAtividade> status,
+                                  @Param("limite") LocalDate limite,
+                                  Limit limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_participantes WHERE atividade_id IN (:ids)", nativeQuery = true)
+    int deleteParticipantesByAtividadeIds(@Param("ids") Collection<UUID> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Atividade a where a.id in :ids")
+    int deleteInBulkByIds(@Param("ids") Collection<UUID> ids);
+
+    // Atividades passadas das quais o usuário participou e que ainda não foram arquivadas
+    @Query(value = """
+           select a from Atividade a join a.participantes p
+           where p.id = :usuarioId and a.status in :status
+           order by a.data desc, a.horario desc
+           """,
+           countQuery = """
+           select count(a) from Atividade a join a.participantes p
+           where p.id = :usuarioId and a.status in :status
+           """)
+    Page<Atividade> findHistorico(@Param("usuarioId") UUID usuarioId,
+                                  @Param("status") Collection<StatusAtividade> status,
+                                  Pageable pageable);
 }
@@ -0,0 +1,89 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.StatusGeocodificacao;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Filtros combináveis da busca de atividades (ver AtividadeService.buscar).
+ * Cada filtro compara colunas diretamente, sem joins, para que os índices compostos do V8 possam ser usados:
+ * (status, data, horario), (modalidade_id, status, data) e (status, latitude, longitude).
+ */
+public final class AtividadeSpecifications {
+
+    private static final double RAIO_TERRA_KM = 6371.0;
+    private static final double KM_POR_GRAU_LATITUDE = 111.32;
+
+    private AtividadeSpecifications() {
+    }
+
+    public static Specification<Atividade> comStatus(Collection<StatusAtividade> status) {
+        return (root, query, cb) -> status.size() == 1
+                ? cb.equal(root.get("status"), status.iterator().next())
+                : root.get("status").in(status);
+    }
+
+    // Recebe os IDs já resolvidos para não precisar de join com a tabela de modalidades
+    public static Specification<Atividade> comModalidades(Collection<Long> modalidadeIds) {
+        return (root, query, cb) -> root.get("modalidade").get("id").in(modalidadeIds);
+    }
+
+    public static Specification<Atividade> aPartirDe(LocalDate data) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("data"), data);
+    }
+
+    public static Specification<Atividade> ate(LocalDate data) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("data"), data);
+    }
+
+    /**
+     * Atividades dentro do raio. Um retângulo em latitude/longitude (que usa o índice) seleciona os candidatos
+     * e a fórmula de Haversine, a mesma da busca por proximidade, descarta os cantos.
+     */
+    public static Specification<Atividade> dentroDoRaio(double latitude, double longitude, double distanciaKm) {
+        return (root, query, cb) -> {
+            double deltaLat = distanciaKm / KM_POR_GRAU_LATITUDE;
+            double deltaLon = distanciaKm / (KM_POR_GRAU_LATITUDE * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+
+            Expression<Double> lat = root.get("latitude");
+            Expression<Double> lon = root.get("longitude");
+
+            return cb.and(
+                    cb.equal(root.get("geocodificacao"), StatusGeocodificacao.RESOLVIDO),
+                    cb.between(lat, latitude - deltaLat, latitude + deltaLat),
+                    cb.between(lon, longitude - deltaLon, longitude + deltaLon),
+                    cb.lessThan(distanciaKm(cb, latitude, longitude, lat, lon), distanciaKm));
+        };
+    }
+
+    private static Expression<Double> distanciaKm(CriteriaBuilder cb, double latitude, double longitude,
+                                                  Expression<Double> lat, Expression<Double> lon) {
+        Expression<Double> latRad = radianos(cb, lat);
+        double origemLatRad = Math.toRadians(latitude);
+
+        Expression<Double> cosseno = cb.sum(
+                cb.prod(cb.prod(Math.cos(origemLatRad), cos(cb, latRad)),
+                        cos(cb, cb.diff(radianos(cb, lon), Math.toRadians(longitude)))),
+                cb.prod(Math.sin(origemLatRad), sin(cb, latRad)));
+
+        return cb.prod(RAIO_TERRA_KM, cb.function("acos", Double.class, cosseno));
+    }
+
+    private static Expression<Double> radianos(CriteriaBuilder cb, Expression<Double> graus) {
+        return cb.function("radians", Double.class, graus);
+    }
+
+    private static Expression<Double> cos(CriteriaBuilder cb, Expression<Double> x) {
+        return cb.function("cos", Double.class, x);
+    }
+
+    private static Expression<Double> sin(CriteriaBuilder cb, Expression<Double> x) {
+        return cb.function("sin", Double.class, x);
+    }
+}
@@ -0,0 +1,21 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    Optional<IdempotencyRecord> findByChaveAndExpiraEmAfter(String chave, LocalDateTime agora);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiraEm < :agora")
+    int deleteExpirados(@Param("agora") LocalDateTime agora);
+}
@@ -0,0 +1,83 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.controller.dto.ListaEsperaResponseDTO;
+import com.luccasaps.projetopds.model.ListaEspera;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ListaEsperaRepository extends JpaRepository<ListaEspera, Long> {
+
+    boolean existsByAtividadeIdAndUsuarioId(UUID atividadeId, UUID usuarioId);
+
+    Optional<ListaEspera> findByAtividadeIdAndUsuarioId(UUID atividadeId, UUID usuarioId);
+
+    // O próximo da fila (usa o índice idx_lista_espera_atividade_posicao)
+    Optional<ListaEspera> findFirstByAtividadeIdOrderByPosicaoAsc(UUID atividadeId);
+
+    /**
+     * Posição do usuário na fila com uma única consulta por chave (índice único atividade/usuário + PK da atividade),
+     * sem contar quem está na frente.
+     */
+    @Query("""
+           select new com.luccasaps.projetopds.controller.dto.ListaEsperaResponseDTO(
+               a.id, l.posicao - a.esperaInicio + 1, a.esperaFim - a.esperaInicio)
+           from ListaEspera l join l.atividade a join l.usuario u
+           where a.id = :atividadeId and u.username = :username
+           """)
+    Optional<ListaEsperaResponseDTO> findPosicao(@Param("atividadeId") UUID atividadeId,
+                                                 @Param("username") String username);
+
+    // Sem 'clearAutomatically': é chamado com a atividade travada e gerenciada na mesma transação
+    @Modifying(flushAutomatically = true)
+    @Query("update ListaEspera l set l.posicao = l.posicao - 1 where l.atividade.id = :atividadeId and l.posicao > :posicao")
+    int deslocarApos(@Param("atividadeId") UUID atividadeId, @Param("posicao") long posicao);
+
+    // Atividades de outras pessoas em cuja fila o usuário está (em ordem de ID; ver UserService.deleteSelf)
+    @Query("""
+           select l.atividade.id from ListaEspera l
+           where l.usuario.id = :usuarioId and l.atividade.criador.id <> :usuarioId
+           order by l.atividade.id
+           """)
+    List<UUID> findAtividadeIdsEmFilasDeOutros(@Param("usuarioId") UUID usuarioId);
+
+    // --- Exclusões em massa (ver UserService.deleteSelf, AtividadeService.deleteById e o arquivamento) ---
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_lista_espera WHERE atividade_id IN (:ids)", nativeQuery = true)
+    int deleteByAtividadeIds(@Param("ids") Collection<UUID> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_lista_espera WHERE atividade_id IN " +
+            "(SELECT a.id FROM atividade a WHERE a.criador_id = :criadorId)",
+            nativeQuery = true)
+    int deleteByCriadorId(@Param("criadorId") UUID criadorId);
+
+    /**
+     * Tira o usuário de todas as filas em que está, mantendo as filas contíguas:
+     * primeiro encolhe o fim de cada fila afetada (o que também trava a linha da atividade),
+     * depois desloca quem estava atrás dele e, por fim, remove as entradas.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE atividade a SET espera_fim = espera_fim - 1 WHERE EXISTS " +
+            "(SELECT 1 FROM atividade_lista_espera x WHERE x.usuario_id = :usuarioId AND x.atividade_id = a.id)",
+            nativeQuery = true)
+    int encolherFilasDoUsuario(@Param("usuarioId") UUID usuarioId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE atividade_lista_espera l SET posicao = posicao - 1 WHERE EXISTS " +
+            "(SELECT 1 FROM atividade_lista_espera x WHERE x.usuario_id = :usuarioId " +
+            "AND x.atividade_id = l.atividade_id AND x.posicao < l.posicao)",
+            nativeQuery = true)
+    int deslocarFilasDoUsuario(@Param("usuarioId") UUID usuarioId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM atividade_lista_espera WHERE usuario_id = :usuarioId", nativeQuery = true)
+    int deleteByUsuarioId(@Param("usuarioId") UUID usuarioId);
+}
@@ -0,0 +1,52 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.ModalidadeEstatistica;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Tuple;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ModalidadeEstatisticaRepository extends JpaRepository<ModalidadeEstatistica, ModalidadeEstatistica.Chave> {
+
+    // Sempre na mesma ordem das escritas (modalidade, faixa), para que a reconciliação não cause deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from ModalidadeEstatistica e order by e.modalidadeId, e.faixa")
+    List<ModalidadeEstatistica> findAllForUpdate();
+
+    // Sem 'clearAutomatically': roda no fim da transação, com as entidades ainda por gravar no contexto
+    @Modifying
+    @Query("""
+           update ModalidadeEstatistica e
+           set e.atividadesAtivas = e.atividadesAtivas + :atividades,
+               e.atividadesLotadas = e.atividadesLotadas + :lotadas,
+               e.participantes = e.participantes + :participantes,
+               e.capacidade = e.capacidade + :capacidade,
+               e.usuarios = e.usuarios + :usuarios
+           where e.modalidadeId = :modalidadeId and e.faixa = :faixa
+           """)
+    int incrementar(@Param("modalidadeId") Long modalidadeId,
+                    @Param("faixa") Integer faixa,
+                    @Param("atividades") long atividades,
+                    @Param("lotadas") long lotadas,
+                    @Param("participantes") long participantes,
+                    @Param("capacidade") long capacidade,
+                    @Param("usuarios") long usuarios);
+
+    @Query("""
+           select e.modalidadeId as modalidadeId, m.nome as nome,
+                  sum(e.atividadesAtivas) as atividadesAtivas, sum(e.atividadesLotadas) as atividadesLotadas,
+                  sum(e.participantes) as participantes, sum(e.capacidade) as capacidade,
+                  sum(e.usuarios) as usuarios
+           from ModalidadeEstatistica e join Modalidade m on m.id = e.modalidadeId
+           group by e.modalidadeId, m.nome
+           order by m.nome
+           """)
+    List<Tuple> somarPorModalidade();
+}
@@ -0,0 +1,97 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.OutboxEvento;
+import com.luccasaps.projetopds.model.StatusOutbox;
+import com.luccasaps.projetopds.model.TipoEvento;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventoRepository extends JpaRepository<OutboxEvento, Long> {
+
+    /**
+     * Próximos eventos pendentes, em ordem de criação. Um evento só é elegível se nenhum evento anterior
+     * do mesmo agregado estiver aguardando nova tentativa, o que preserva a ordem por agregado.
+     */
+    @Query("""
+           select e from OutboxEvento e
+           where e.status = com.luccasaps.projetopds.model.StatusOutbox.PENDENTE
+             and e.proximaTentativa <= :agora
+             and not exists (
+                 select 1 from OutboxEvento a
+                 where a.agregadoTipo = e.agregadoTipo and a.agregadoId = e.agregadoId
+                   and a.status = com.luccasaps.projetopds.model.StatusOutbox.PENDENTE
+                   and a.id < e.id and a.proximaTentativa > :agora)
+           order by e.id
+           """)
+    List<OutboxEvento> findProntos(@Param("agora") LocalDateTime agora, Limit limit);
+
+    @Modifying
+    @Query("""
+           update OutboxEvento e
+           set e.status = com.luccasaps.projetopds.model.StatusOutbox.PROCESSADO, e.processadoEm = :agora
+           where e.id in :ids
+           """)
+    int marcarProcessados(@Param("ids") Collection<Long> ids, @Param("agora") LocalDateTime agora);
+
+    @Modifying
+    @Query("""
+           update OutboxEvento e
+           set e.status = :status, e.tentativas = e.tentativas + 1,
+               e.proximaTentativa = :proximaTentativa, e.erro = :erro
+           where e.id = :id
+           """)
+    int registrarFalha(@Param("id") Long id,
+                       @Param("status") StatusOutbox status,
+                       @Param("proximaTentativa") LocalDateTime proximaTentativa,
+                       @Param("erro") String erro);
+
+    /**
+     * IDs dos agregados dos eventos (de qualquer status) dos tipos informados gravados depois do evento 'depoisDe',
+     * em ordem. Usado por quem mantém estado em memória em todas as instâncias, já que só uma despacha o outbox.
+     */
+    @Query("""
+           select e.id as id, e.agregadoId as agregadoId from OutboxEvento e
+           where e.id > :depoisDe and e.tipo in :tipos
+           order by e.id
+           """)
+    List<Tuple> findAgregadosDesde(@Param("depoisDe") long depoisDe,
+                                   @Param("tipos") Collection<TipoEvento> tipos,
+                                   Limit limit);
+
+    /**
+     * Um evento pendente por atividade do criador nos status informados, com um único INSERT ... SELECT
+     * (exclusão de conta: a quantidade de comandos não depende de quantas atividades ele criou).
+     * O payload é o mesmo que o OutboxService gravaria: {"atividadeId":"<id>"}.
+     */
+    @Modifying
+    @Query(value = """
+           INSERT INTO outbox_evento (tipo, agregado_tipo, agregado_id, payload, status, tentativas, proxima_tentativa, criado_em)
+           SELECT :tipo, 'atividade', CAST(a.id AS VARCHAR(64)), '{"atividadeId":"' || CAST(a.id AS VARCHAR(64)) || '"}',
+                  'PENDENTE', 0, :agora, :agora
+           FROM atividade a
+           WHERE a.criador_id = :criadorId AND a.status IN (:status)
+           ORDER BY a.id
+           """, nativeQuery = true)
+    int inserirPorAtividadeDoCriador(@Param("tipo") String tipo,
+                                     @Param("criadorId") UUID criadorId,
+                                     @Param("status") Collection<String> status,
+                                     @Param("agora") LocalDateTime agora);
+
+    @Query("select coalesce(max(e.id), 0) from OutboxEvento e")
+    long findUltimoId();
+
+    long countByStatus(StatusOutbox status);
+
+    @Modifying
+    @Query("delete from OutboxEvento e where e.status = com.luccasaps.projetopds.model.StatusOutbox.PROCESSADO and e.processadoEm < :limite")
+    int deleteProcessadosAntes(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,39 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    /**
+     * Tenta adquirir a trava com um UPDATE condicional: só afeta a linha se a trava
+     * estiver expirada ou já pertencer à mesma instância. Retorna 1 se conseguiu.
+     */
+    @Modifying
+    @Query("""
+           update SchedulerLock l
+           set l.bloqueadoAte = :ate, l.bloqueadoPor = :dono
+           where l.nome = :nome and (l.bloqueadoAte < :agora or l.bloqueadoPor = :dono)
+           """)
+    int tryAcquire(@Param("nome") String nome,
+                   @Param("dono") String dono,
+                   @Param("agora") LocalDateTime agora,
+                   @Param("ate") LocalDateTime ate);
+
+    @Modifying
+    @Query("""
+           update SchedulerLock l
+           set l.bloqueadoAte = :agora
+           where l.nome = :nome and l.bloqueadoPor = :dono
+           """)
+    int release(@Param("nome") String nome,
+                @Param("dono") String dono,
+                @Param("agora") LocalDateTime agora);
+}
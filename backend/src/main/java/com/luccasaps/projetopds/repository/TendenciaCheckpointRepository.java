@@ -0,0 +1,19 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.TendenciaCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface TendenciaCheckpointRepository extends JpaRepository<TendenciaCheckpoint, UUID> {
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from TendenciaCheckpoint t where t.atualizadoEm < :limite")
+    int deleteByAtualizadoEmBefore(@Param("limite") LocalDateTime limite);
+}
@@ -1,12 +1,18 @@
 package com.luccasaps.projetopds.repository;
 
 import com.luccasaps.projetopds.model.User;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,6 +27,9 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmailIgnoreCase(String email);
     boolean existsByEmailIgnoreCase(String email);
     boolean existsByUsernameIgnoreCase(String username);
+    // Valores já normalizados (minúsculas, como o cadastro grava): usam o índice das restrições únicas
+    boolean existsByEmail(String email);
+    boolean existsByUsername(String username);
     // carrega o usuário + modalidades em uma única query
     @Query("""
            select u from User u
@@ -28,4 +37,51 @@ public interface UserRepository extends JpaRepository<User, UUID> {
            where upper(u.email) = upper(:email)
            """)
     Optional<User> findByEmailIgnoreCaseFetchModalidades(@Param("email") String email);
+
+    // carrega o usuário + modalidades em uma única query (usado pelo perfil público)
+    @Query("""
+           select u from User u
+           left join fetch u.modalidades m
+           where u.username = :username
+           """)
+    Optional<User> findByUsernameFetchModalidades(@Param("username") String username);
+
+    @Query("select u.id from User u where u.username = :username")
+    Optional<UUID> findIdByUsername(@Param("username") String username);
+
+    // --- Filtro de e-mails/usernames em uso (ver DisponibilidadeCadastroService) ---
+
+    // Percorre os usuários em lotes pela chave primária (a próxima página começa depois do último ID)
+    @Query("select u.id as id, u.email as email, u.username as username from User u order by u.id")
+    List<Tuple> findCredenciais(Limit limit);
+
+    @Query("select u.id as id, u.email as email, u.username as username from User u where u.id > :cursor order by u.id")
+    List<Tuple> findCredenciaisApos(@Param("cursor") UUID cursor, Limit limit);
+
+    @Query("select u.email as email, u.username as username from User u where u.id in :ids")
+    List<Tuple> findCredenciaisByIdIn(@Param("ids") Collection<UUID> ids);
+
+    // Cadastros recentes, inclusive os feitos em outras instâncias (usa idx_usuarios_data_cadastro)
+    @Query("select u.email as email, u.username as username from User u where u.dataCadastro >= :desde")
+    List<Tuple> findCredenciaisCadastradasDesde(@Param("desde") LocalDateTime desde);
+
+    // Só grava se o CEP ainda for o consultado (o usuário pode ter trocado de CEP no meio tempo)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update User u set u.latitude = :latitude, u.longitude = :longitude where u.id = :id and u.cep = :cep")
+    int atualizarCoordenadas(@Param("id") UUID id,
+                             @Param("cep") String cep,
+                             @Param("latitude") Double latitude,
+                             @Param("longitude") Double longitude);
+
+    // [modalidade_id, usuários] — usado pela reconciliação das estatísticas por modalidade
+    @Query(value = "SELECT modalidade_id, COUNT(*) FROM user_modalidade GROUP BY modalidade_id", nativeQuery = true)
+    List<Object[]> countUsuariosPorModalidade();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM user_modalidade WHERE user_id = :userId", nativeQuery = true)
+    int deleteModalidadesByUserId(@Param("userId") UUID userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from User u where u.id = :id")
+    int deleteInBulkById(@Param("id") UUID id);
 }
@@ -0,0 +1,119 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.repository.AtividadeArquivadaRepository;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ListaEsperaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Job em segundo plano que move atividades encerradas/canceladas antigas (e suas inscrições)
+ * para as tabelas de arquivo, mantendo 'atividade' e 'atividade_participantes' pequenas.
+ * Cada bloco é copiado e removido na mesma transação, então uma atividade nunca fica
+ * nas duas tabelas (nem em nenhuma) ao mesmo tempo.
+ */
+@Service
+@Slf4j
+public class AtividadeArquivamentoService {
+
+    static final String LOCK = "atividade-arquivamento";
+
+    private static final Set<StatusAtividade> STATUS_ARQUIVAVEIS = EnumSet.of(StatusAtividade.FINISHED, StatusAtividade.CANCELED);
+
+    private final AtividadeRepository atividadeRepository;
+    private final AtividadeArquivadaRepository atividadeArquivadaRepository;
+    private final ListaEsperaRepository listaEsperaRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter atividadesArquivadas;
+
+    @Value("${atividades.arquivamento.idade-minima-dias:30}")
+    private int idadeMinimaDias;
+
+    @Value("${atividades.arquivamento.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${atividades.arquivamento.max-chunks-per-run:50}")
+    private int maxChunksPerRun;
+
+    @Value("${atividades.arquivamento.lock-duration-ms:600000}")
+    private long lockDurationMs;
+
+    public AtividadeArquivamentoService(AtividadeRepository atividadeRepository,
+                                        AtividadeArquivadaRepository atividadeArquivadaRepository,
+                                        ListaEsperaRepository listaEsperaRepository,
+                                        SchedulerLockService schedulerLockService,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry) {
+        this.atividadeRepository = atividadeRepository;
+        this.atividadeArquivadaRepository = atividadeArquivadaRepository;
+        this.listaEsperaRepository = listaEsperaRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = transactionTemplate;
+
+        this.atividadesArquivadas = Counter.builder("atividades.arquivamento.arquivadas")
+                .description("Atividades movidas para as tabelas de arquivo")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${atividades.arquivamento.interval-ms:3600000}",
+            initialDelayString = "${atividades.arquivamento.initial-delay-ms:120000}")
+    public void arquivarAtividadesAntigas() {
+        if (!schedulerLockService.tryAcquire(LOCK, Duration.ofMillis(lockDurationMs))) {
+            log.debug("Arquivamento em execução em outra instância; pulando.");
+            return;
+        }
+
+        try {
+            LocalDate limite = LocalDate.now().minusDays(idadeMinimaDias);
+            long total = 0;
+            for (int bloco = 0; bloco < maxChunksPerRun; bloco++) {
+                Integer arquivadas = transactionTemplate.execute(status -> arquivarBloco(limite));
+                int quantidade = arquivadas != null ? arquivadas : 0;
+                total += quantidade;
+                atividadesArquivadas.increment(quantidade);
+
+                if (quantidade < chunkSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("Arquivamento moveu {} atividades anteriores a {}.", total, limite);
+            }
+        } finally {
+            schedulerLockService.release(LOCK);
+        }
+    }
+
+    private int arquivarBloco(LocalDate limite) {
+        List<UUID> ids = atividadeRepository.findIdsArquivaveis(STATUS_ARQUIVAVEIS, limite, Limit.of(chunkSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // 1. Copia as atividades e as inscrições para o arquivo.
+        atividadeArquivadaRepository.copiarAtividades(ids, LocalDateTime.now());
+        atividadeArquivadaRepository.copiarParticipantes(ids);
+
+        // 2. Remove da tabela quente (inscrições e lista de espera primeiro, por causa da chave estrangeira).
+        listaEsperaRepository.deleteByAtividadeIds(ids);
+        atividadeRepository.deleteParticipantesByAtividadeIds(ids);
+        return atividadeRepository.deleteInBulkByIds(ids);
+    }
+}
@@ -0,0 +1,145 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Job em segundo plano que encerra (status FINISHED) as atividades cuja data/horário já passou.
+ * Trabalha em lotes limitados, cada um em sua própria transação curta, e só roda em uma instância
+ * por vez graças à trava em 'scheduler_lock'.
+ */
+@Service
+@Slf4j
+public class AtividadeLifecycleService {
+
+    static final String LOCK = "atividade-lifecycle";
+
+    // Atividades que ainda podem aparecer nas buscas e que devem ser encerradas quando passarem
+    private static final Set<StatusAtividade> STATUS_ATIVOS = EnumSet.of(StatusAtividade.OPEN, StatusAtividade.CLOSED);
+
+    private final AtividadeRepository atividadeRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final EstatisticasModalidadeService estatisticasModalidadeService;
+
+    private final Counter atividadesEncerradas;
+    private final Timer duracaoExecucao;
+    private final AtomicLong ultimaExecucaoEncerradas = new AtomicLong();
+    private final AtomicLong atividadesAbertas = new AtomicLong();
+
+    @Value("${atividades.lifecycle.batch-size:500}")
+    private int batchSize;
+
+    @Value("${atividades.lifecycle.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${atividades.lifecycle.lock-duration-ms:300000}")
+    private long lockDurationMs;
+
+    public AtividadeLifecycleService(AtividadeRepository atividadeRepository,
+                                     SchedulerLockService schedulerLockService,
+                                     TransactionTemplate transactionTemplate,
+                                     EstatisticasModalidadeService estatisticasModalidadeService,
+                                     MeterRegistry meterRegistry) {
+        this.atividadeRepository = atividadeRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = transactionTemplate;
+        this.estatisticasModalidadeService = estatisticasModalidadeService;
+
+        this.atividadesEncerradas = Counter.builder("atividades.lifecycle.encerradas")
+                .description("Atividades passadas encerradas pelo job de ciclo de vida")
+                .register(meterRegistry);
+        this.duracaoExecucao = Timer.builder("atividades.lifecycle.execucao")
+                .description("Duração de cada execução do job de ciclo de vida")
+                .register(meterRegistry);
+        Gauge.builder("atividades.lifecycle.ultima.execucao.encerradas", ultimaExecucaoEncerradas, AtomicLong::get)
+                .description("Atividades encerradas na última execução")
+                .register(meterRegistry);
+        // Contado a cada rodada do job, e não a cada coleta de métricas
+        Gauge.builder("atividades.abertas", atividadesAbertas, AtomicLong::get)
+                .description("Quantidade de atividades com status OPEN")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${atividades.lifecycle.interval-ms:60000}",
+            initialDelayString = "${atividades.lifecycle.initial-delay-ms:30000}")
+    public void encerrarAtividadesPassadas() {
+        // 1. Só uma instância executa por vez; as demais simplesmente pulam esta rodada.
+        if (!schedulerLockService.tryAcquire(LOCK, Duration.ofMillis(lockDurationMs))) {
+            log.debug("Job de ciclo de vida em execução em outra instância; pulando.");
+            atualizarAbertas();
+            return;
+        }
+
+        try {
+            Timer.Sample sample = Timer.start();
+            long total = processarLotes();
+            sample.stop(duracaoExecucao);
+
+            ultimaExecucaoEncerradas.set(total);
+            if (total > 0) {
+                log.info("Job de ciclo de vida encerrou {} atividades passadas.", total);
+            }
+        } finally {
+            schedulerLockService.release(LOCK);
+        }
+        atualizarAbertas();
+    }
+
+    // Todas as instâncias atualizam o gauge, então ele não fica parado onde o job deixou de rodar
+    private void atualizarAbertas() {
+        atividadesAbertas.set(atividadeRepository.countByStatus(StatusAtividade.OPEN));
+    }
+
+    private long processarLotes() {
+        long total = 0;
+        for (int lote = 0; lote < maxBatchesPerRun; lote++) {
+            Integer encerradas = transactionTemplate.execute(status -> encerrarLote());
+            int quantidade = encerradas != null ? encerradas : 0;
+            total += quantidade;
+            atividadesEncerradas.increment(quantidade);
+
+            // 2. Um lote incompleto significa que não há mais atividades passadas pendentes.
+            if (quantidade < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int encerrarLote() {
+        LocalDateTime agora = LocalDateTime.now();
+
+        // Seleciona um lote pelo índice (status, data, horario) e atualiza só esses IDs,
+        // mantendo as transações curtas e os bloqueios restritos ao lote.
+        List<UUID> ids = atividadeRepository.findIdsPassadas(
+                STATUS_ATIVOS, agora.toLocalDate(), agora.toLocalTime(), Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Atividades encerradas deixam de contar nas estatísticas por modalidade (uma consulta agrupada por lote)
+        estatisticasModalidadeService.removerContribuicoes(ids);
+
+        // O filtro de status no UPDATE evita sobrescrever uma atividade alterada entre a busca e a atualização
+        return atividadeRepository.updateStatusInBulk(ids, STATUS_ATIVOS, StatusAtividade.FINISHED, agora);
+    }
+}
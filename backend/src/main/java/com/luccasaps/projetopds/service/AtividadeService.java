@@ -1,37 +1,77 @@
 package com.luccasaps.projetopds.service;
 
+import com.luccasaps.projetopds.cache.AtividadeDetalheCache;
 import com.luccasaps.projetopds.controller.dto.AtividadeCreateDTO;
+import com.luccasaps.projetopds.controller.dto.AtividadeResponseDTO;
 import com.luccasaps.projetopds.controller.dto.AtividadeUpdateDTO;
+import com.luccasaps.projetopds.controller.dto.BuscaAtividadesDTO;
+import com.luccasaps.projetopds.controller.dto.CursorPageResponseDTO;
+import com.luccasaps.projetopds.controller.dto.ListaEsperaResponseDTO;
+import com.luccasaps.projetopds.controller.dto.ParticipanteDTO;
 import com.luccasaps.projetopds.controller.mappers.AtividadeMapper;
 import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.AtividadeArquivada;
+import com.luccasaps.projetopds.model.ListaEspera;
 import com.luccasaps.projetopds.model.Modalidade;
 import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.StatusGeocodificacao;
+import com.luccasaps.projetopds.model.TipoEvento;
 import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.outbox.OutboxService;
+import com.luccasaps.projetopds.repository.AtividadeArquivadaRepository;
 import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.AtividadeSpecifications;
+import com.luccasaps.projetopds.repository.ListaEsperaRepository;
 import com.luccasaps.projetopds.repository.UserRepository;
 import com.luccasaps.projetopds.repository.ModalidadeRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class AtividadeService {
 
+    // Status considerados "passados" no histórico do usuário (os mesmos que são arquivados)
+    private static final Set<StatusAtividade> STATUS_HISTORICO = EnumSet.of(StatusAtividade.FINISHED, StatusAtividade.CANCELED);
+
+    // Status em que a atividade ainda aceita inscrições (CLOSED = lotada, vai para a lista de espera)
+    static final Set<StatusAtividade> STATUS_ATIVOS = EnumSet.of(StatusAtividade.OPEN, StatusAtividade.CLOSED);
+
     private final AtividadeRepository atividadeRepository;
+    private final AtividadeArquivadaRepository atividadeArquivadaRepository;
+    private final ListaEsperaRepository listaEsperaRepository;
     private final UserRepository userRepository;
     private final ModalidadeRepository modalidadeRepository;
     private final AtividadeMapper atividadeMapper;
     private final GeocodingService geocodingService;
+    private final OutboxService outboxService;
+    private final GeocodificacaoAtividadeService geocodificacaoAtividadeService;
+    private final AtividadeDetalheCache atividadeDetalheCache;
+    private final TendenciaAtividadesService tendenciaAtividadesService;
+    private final EstatisticasModalidadeService estatisticasModalidadeService;
 
     // Exemplo de método para criar uma atividade
     @Transactional // Garante que todas as operações com o banco sejam atômicas
@@ -50,23 +90,25 @@ public class AtividadeService {
         atividade.setStatus(StatusAtividade.OPEN); // Uma nova atividade sempre começa como "Aberta"
         atividade.getParticipantes().add(criador); // O criador é automaticamente o primeiro participante
 
-        GeocodingService.Coordenadas coords = geocodingService.getCoordinates(dto.cep());
-
-        if (coords == null) {
-            throw new IllegalArgumentException("Não foi possível obter as coordenadas para o CEP informado. A atividade não pode ser criada.");
-        }
-
-        atividade.setLatitude(coords.latitude());
-        atividade.setLongitude(coords.longitude());
+        // As coordenadas são obtidas em segundo plano depois do commit; até lá a atividade
+        // fica PENDENTE e não aparece na busca por proximidade.
+        atividade.setCep(normalizarCep(dto.cep()));
+        geocodificacaoAtividadeService.marcarPendente(atividade);
 
         // 5. Salva a nova atividade no banco de dados
-        return atividadeRepository.save(atividade);
+        Atividade salva = atividadeRepository.save(atividade);
+        estatisticasModalidadeService.adicionarContribuicao(salva, 1);
+
+        // 6. Efeitos colaterais (feeds, índices...) são entregues depois, a partir do outbox
+        outboxService.registrar(TipoEvento.ATIVIDADE_CRIADA, salva.getId(), dadosDoEvento(salva));
+        return salva;
     }
 
     @Transactional
     public Atividade update(UUID atividadeId, AtividadeUpdateDTO dto, String usernameAtual) {
         // 1. Busca a atividade no banco de dados.
-        Atividade atividade = atividadeRepository.findById(atividadeId)
+        // (com a linha travada, pois uma mudança de capacidade pode promover quem está na lista de espera)
+        Atividade atividade = atividadeRepository.findByIdForUpdate(atividadeId)
                 .orElseThrow(() -> new EntityNotFoundException("Atividade não encontrada com o ID: " + atividadeId));
 
         // 2. !! VERIFICAÇÃO DE SEGURANÇA CRUCIAL !!
@@ -75,9 +117,30 @@ public class AtividadeService {
             throw new AccessDeniedException("Acesso negado: você não tem permissão para alterar esta atividade.");
         }
 
+        // Status e capacidade podem mudar: a contribuição antiga sai das estatísticas e a nova entra no fim
+        long participantes = atividadeRepository.countParticipantes(atividadeId);
+        estatisticasModalidadeService.removerContribuicao(atividade, participantes);
+
         // 3. Aplica as atualizações dos campos que foram fornecidos no DTO
+        String cepAnterior = atividade.getCep();
         atividadeMapper.updateAtividadeFromDto(dto, atividade);
 
+        // Um CEP novo invalida as coordenadas: a atividade volta a ser geocodificada em segundo plano.
+        // Reenviar o CEP de uma geocodificação que falhou também tenta de novo.
+        if (dto.cep() != null) {
+            atividade.setCep(normalizarCep(dto.cep()));
+            if (!atividade.getCep().equals(cepAnterior) || atividade.getGeocodificacao() == StatusGeocodificacao.FALHOU) {
+                geocodificacaoAtividadeService.marcarPendente(atividade);
+            }
+        }
+
+        // Se a capacidade aumentou (ou virou "sem limite"), as novas vagas vão para a fila
+        participantes = preencherVagas(atividade, participantes);
+        estatisticasModalidadeService.adicionarContribuicao(atividade, participantes);
+
+        outboxService.registrar(TipoEvento.ATIVIDADE_ATUALIZADA, atividade.getId(), dadosDoEvento(atividade));
+        atividadeDetalheCache.invalidate(atividadeId);
+
         // 4. O @Transactional se encarrega de salvar a entidade atualizada no banco.
         return atividade;
     }
@@ -93,6 +156,15 @@ public class AtividadeService {
             throw new EntityNotFoundException("CEP inválido ou não foi possível encontrar coordenadas: " + cep);
         }
 
+        return findNearbyPaginated(coords, distanciaKm, pageable);
+    }
+
+    /**
+     * Mesma busca a partir de coordenadas já conhecidas (ex.: as salvas no cadastro do usuário), sem chamada externa.
+     */
+    @Transactional(readOnly = true)
+    public Page<Atividade> findNearbyPaginated(GeocodingService.Coordenadas coords, Double distanciaKm, Pageable pageable) {
+
         // 3. Extrai a latitude e longitude do nosso record padronizado
         Double latitude = coords.latitude();
         Double longitude = coords.longitude();
@@ -113,15 +185,171 @@ public class AtividadeService {
         return new PageImpl<>(atividadesDaPagina, pageable, totalDeAtividades);
     }
 
+    /**
+     * Busca com filtros combináveis (modalidades, janela de datas, status, vagas e raio).
+     * Monta a página com três comandos: a página (com criador e modalidade), a contagem total
+     * e as contagens de participantes das atividades da página.
+     */
+    @Transactional(readOnly = true)
+    public Page<AtividadeResponseDTO> buscar(BuscaAtividadesDTO filtros, Pageable pageable) {
+        List<Specification<Atividade>> specs = new ArrayList<>();
+
+        Set<StatusAtividade> status = filtros.status() == null || filtros.status().isEmpty()
+                ? EnumSet.copyOf(STATUS_ATIVOS) : EnumSet.copyOf(filtros.status());
+        // "Com vagas" corresponde ao status OPEN (inscrever/sair mantêm CLOSED para as lotadas) e se soma
+        // aos status pedidos: com vagas + só CLOSED/FINISHED não tem resultado
+        if (Boolean.TRUE.equals(filtros.comVagas())) {
+            status.retainAll(EnumSet.of(StatusAtividade.OPEN));
+            if (status.isEmpty()) {
+                return Page.empty(pageable);
+            }
+        }
+        specs.add(AtividadeSpecifications.comStatus(status));
+
+        if (filtros.modalidades() != null && !filtros.modalidades().isEmpty()) {
+            List<String> nomes = filtros.modalidades().stream().map(n -> n.toLowerCase(Locale.ROOT)).toList();
+            List<Long> ids = modalidadeRepository.findByNomeIn(nomes).stream().map(Modalidade::getId).toList();
+            if (ids.isEmpty()) {
+                return Page.empty(pageable);
+            }
+            specs.add(AtividadeSpecifications.comModalidades(ids));
+        }
+        if (filtros.de() != null) {
+            specs.add(AtividadeSpecifications.aPartirDe(filtros.de()));
+        }
+        if (filtros.ate() != null) {
+            specs.add(AtividadeSpecifications.ate(filtros.ate()));
+        }
+        if (filtros.cep() != null && !filtros.cep().isBlank()) {
+            GeocodingService.Coordenadas coords = geocodingService.getCoordinates(filtros.cep());
+            if (coords == null) {
+                throw new EntityNotFoundException("CEP inválido ou não foi possível encontrar coordenadas: " + filtros.cep());
+            }
+            double distancia = filtros.distancia() != null ? filtros.distancia() : 10.0;
+            specs.add(AtividadeSpecifications.dentroDoRaio(coords.latitude(), coords.longitude(), distancia));
+        }
+
+        Page<Atividade> pagina = atividadeRepository.findAll(Specification.allOf(specs), pageable);
+        Map<UUID, Integer> participantes = contarParticipantes(pagina.getContent());
+        return pagina.map(a -> atividadeMapper.toResponseDTO(a, participantes.getOrDefault(a.getId(), 0)));
+    }
+
+    /**
+     * Próximas atividades abertas perto do CEP que começam nas próximas 'horas', em ordem de início.
+     * Paginada por cursor (data, horário e ID da última atividade), então as páginas seguintes não ficam mais caras.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<AtividadeResponseDTO> findAgenda(String cep, Double distanciaKm, int horas,
+                                                                 String cursor, int tamanho) {
+        GeocodingService.Coordenadas coords = geocodingService.getCoordinates(cep);
+        if (coords == null) {
+            throw new EntityNotFoundException("CEP inválido ou não foi possível encontrar coordenadas: " + cep);
+        }
+
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime fim = agora.plusHours(horas);
+        CursorAgenda inicio = cursor != null ? CursorAgenda.decodificar(cursor) : new CursorAgenda(agora, new UUID(0, 0));
+
+        // 1. Seleciona os IDs pela janela de tempo (um a mais para saber se há próxima página)
+        List<UUID> ids = atividadeRepository.findIdsAgenda(coords.latitude(), coords.longitude(), distanciaKm,
+                inicio.inicio().toLocalDate(), inicio.inicio().toLocalTime(), inicio.id(),
+                fim.toLocalDate(), fim.toLocalTime(), tamanho + 1);
+        boolean temProxima = ids.size() > tamanho;
+        List<UUID> idsPagina = temProxima ? ids.subList(0, tamanho) : ids;
+        if (idsPagina.isEmpty()) {
+            return new CursorPageResponseDTO<>(List.of(), null);
+        }
+
+        // 2. Carrega as atividades e as contagens de participantes, mantendo a ordem da agenda
+        Map<UUID, Atividade> porId = new HashMap<>();
+        atividadeRepository.findByIdIn(idsPagina).forEach(a -> porId.put(a.getId(), a));
+        List<Atividade> atividades = idsPagina.stream().map(porId::get).filter(Objects::nonNull).toList();
+        Map<UUID, Integer> participantes = contarParticipantes(atividades);
+
+        List<AtividadeResponseDTO> conteudo = atividades.stream()
+                .map(a -> atividadeMapper.toResponseDTO(a, participantes.getOrDefault(a.getId(), 0)))
+                .toList();
+
+        String proximoCursor = null;
+        if (temProxima) {
+            Atividade ultima = atividades.getLast();
+            proximoCursor = new CursorAgenda(LocalDateTime.of(ultima.getData(), ultima.getHorario()), ultima.getId()).codificar();
+        }
+        return new CursorPageResponseDTO<>(conteudo, proximoCursor);
+    }
+
+    // Posição na agenda: início da atividade + ID como desempate. Enviado ao cliente em Base64 (opaco).
+    private record CursorAgenda(LocalDateTime inicio, UUID id) {
+
+        String codificar() {
+            String valor = inicio + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static CursorAgenda decodificar(String cursor) {
+            try {
+                String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] partes = valor.split("\\|", 2);
+                return new CursorAgenda(LocalDateTime.parse(partes[0]), UUID.fromString(partes[1]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor inválido.");
+            }
+        }
+    }
+
+    private Map<UUID, Integer> contarParticipantes(List<Atividade> atividades) {
+        if (atividades.isEmpty()) {
+            return Map.of();
+        }
+        List<UUID> ids = atividades.stream().map(Atividade::getId).toList();
+        Map<UUID, Integer> contagens = new HashMap<>();
+        for (Object[] linha : atividadeRepository.countParticipantesByAtividadeIds(ids)) {
+            contagens.put((UUID) linha[0], ((Number) linha[1]).intValue());
+        }
+        return contagens;
+    }
+
     @Transactional(readOnly = true)
     public Page<Atividade> findAllPaginated(Pageable pageable) {
         return atividadeRepository.findAll(pageable);
     }
 
+    /**
+     * Histórico de atividades passadas do usuário, lendo de forma transparente a tabela quente
+     * e o arquivo. Como só são arquivadas atividades mais antigas que as que ficam na tabela quente,
+     * a página é montada com as atividades recentes primeiro e completada com as arquivadas.
+     */
+    @Transactional(readOnly = true)
+    public Page<AtividadeResponseDTO> findHistoricoPaginated(String username, Pageable pageable) {
+        UUID usuarioId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + username));
+
+        // 1. Parte da página que vem da tabela quente
+        Page<Atividade> recentes = atividadeRepository.findHistorico(usuarioId, STATUS_HISTORICO, pageable);
+        List<AtividadeResponseDTO> conteudo = new ArrayList<>(recentes.map(atividadeMapper::toResponseDTO).getContent());
+
+        // 2. O restante (se houver espaço na página) vem do arquivo, continuando de onde a tabela quente terminou
+        long totalRecentes = recentes.getTotalElements();
+        if (conteudo.size() < pageable.getPageSize()) {
+            long offsetArquivo = Math.max(0, pageable.getOffset() - totalRecentes);
+            List<AtividadeArquivada> arquivadas = atividadeArquivadaRepository.findHistoricoPaginado(
+                    usuarioId, pageable.getPageSize() - conteudo.size(), offsetArquivo);
+            arquivadas.forEach(a -> conteudo.add(atividadeMapper.toResponseDTO(a)));
+        }
+
+        long totalArquivadas = atividadeArquivadaRepository.countHistorico(usuarioId);
+        return new PageImpl<>(conteudo, pageable, totalRecentes + totalArquivadas);
+    }
+
+    /**
+     * Inscreve o usuário na atividade. Se ela estiver lotada, o usuário entra no fim da lista de espera
+     * e a sua posição é retornada; se a inscrição for direta, retorna vazio.
+     */
     @Transactional
-    public void inscrever(UUID atividadeId, String username) {
-        // 1. Busca a atividade e o usuário no banco de dados.
-        Atividade atividade = atividadeRepository.findById(atividadeId)
+    public Optional<ListaEsperaResponseDTO> inscrever(UUID atividadeId, String username) {
+        // 1. Trava a linha da atividade: inscrições e saídas da mesma atividade passam uma de cada vez,
+        // enquanto as de outras atividades seguem em paralelo.
+        Atividade atividade = atividadeRepository.findByIdForUpdate(atividadeId)
                 .orElseThrow(() -> new EntityNotFoundException("Atividade não encontrada com o ID: " + atividadeId));
 
         User usuario = userRepository.findOptionalByUsername(username)
@@ -129,45 +357,232 @@ public class AtividadeService {
 
         // 2. --- Validações de Regra de Negócio ---
 
-        // Validação 1: A atividade deve estar aberta para inscrições.
-        if (atividade.getStatus() != StatusAtividade.OPEN) {
+        // Validação 1: A atividade deve estar aberta ou apenas fechada por lotação.
+        if (!STATUS_ATIVOS.contains(atividade.getStatus())) {
             throw new IllegalStateException("Esta atividade não está aberta para inscrições.");
         }
 
-        // Validação 2: O usuário não pode se inscrever em uma atividade que ele já participa.
-        if (atividade.getParticipantes().contains(usuario)) {
+        // Validação 2: O usuário não pode se inscrever em uma atividade que ele já participa ou aguarda.
+        if (atividadeRepository.existsParticipante(atividadeId, usuario.getId())) {
             throw new IllegalStateException("Você já está inscrito nesta atividade.");
         }
+        if (listaEsperaRepository.existsByAtividadeIdAndUsuarioId(atividadeId, usuario.getId())) {
+            throw new IllegalStateException("Você já está na lista de espera desta atividade.");
+        }
 
-        // Validação 3: Se a atividade não tem limite de vagas, permite a inscrição.
-        // Se tiver limite, verifica se ainda há vagas.
-        if (!atividade.isSemLimite() && atividade.getParticipantes().size() >= atividade.getCapacidade()) {
-            throw new IllegalStateException("Esta atividade já atingiu a capacidade máxima de participantes.");
+        // Validação 3: Sem vagas (ou com gente na frente esperando), o usuário vai para o fim da fila.
+        long participantes = atividadeRepository.countParticipantes(atividadeId);
+        if (!temVaga(atividade, participantes) || atividade.getEsperaFim() > atividade.getEsperaInicio()) {
+            ListaEsperaResponseDTO posicao = entrarNaListaDeEspera(atividade, usuario);
+            outboxService.registrar(TipoEvento.LISTA_ESPERA_ENTRADA, atividadeId,
+                    Map.of("atividadeId", atividadeId, "usuarioId", usuario.getId(), "posicao", posicao.posicao()));
+            tendenciaAtividadesService.registrarInscricao(atividadeId); // entrar na fila também é procura
+            return Optional.of(posicao);
         }
 
         // 3. --- Processa a Inscrição ---
-        atividade.getParticipantes().add(usuario);
+        estatisticasModalidadeService.removerContribuicao(atividade, participantes);
+        atividadeRepository.insertParticipante(atividadeId, usuario.getId());
+        outboxService.registrar(TipoEvento.INSCRICAO_REALIZADA, atividadeId,
+                Map.of("atividadeId", atividadeId, "usuarioId", usuario.getId()));
+        atividadeDetalheCache.invalidate(atividadeId);
+        tendenciaAtividadesService.registrarInscricao(atividadeId);
 
         // 4. Se a atividade atingiu a capacidade máxima após a inscrição, fecha para novas inscrições.
-        if (!atividade.isSemLimite() && atividade.getParticipantes().size() == atividade.getCapacidade()) {
-            atividade.setStatus(StatusAtividade.CLOSED);
+        atualizarStatusPorLotacao(atividade, participantes + 1);
+        estatisticasModalidadeService.adicionarContribuicao(atividade, participantes + 1);
+        return Optional.empty();
+    }
+
+    /**
+     * Tira o usuário da atividade (ou da lista de espera). Uma vaga liberada é passada
+     * ao primeiro da fila na mesma transação.
+     */
+    @Transactional
+    public void sair(UUID atividadeId, String username) {
+        Atividade atividade = atividadeRepository.findByIdForUpdate(atividadeId)
+                .orElseThrow(() -> new EntityNotFoundException("Atividade não encontrada com o ID: " + atividadeId));
+
+        User usuario = userRepository.findOptionalByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + username));
+
+        if (!STATUS_ATIVOS.contains(atividade.getStatus())) {
+            throw new IllegalStateException("Esta atividade já foi encerrada ou cancelada.");
+        }
+        if (atividade.getCriador().getId().equals(usuario.getId())) {
+            throw new IllegalStateException("O criador não pode sair da própria atividade.");
+        }
+
+        // 1. Se estava na fila, basta sair dela e fechar o buraco.
+        Optional<ListaEspera> naFila = listaEsperaRepository.findByAtividadeIdAndUsuarioId(atividadeId, usuario.getId());
+        if (naFila.isPresent()) {
+            listaEsperaRepository.delete(naFila.get());
+            listaEsperaRepository.deslocarApos(atividadeId, naFila.get().getPosicao());
+            atividade.setEsperaFim(atividade.getEsperaFim() - 1);
+            outboxService.registrar(TipoEvento.LISTA_ESPERA_SAIDA, atividadeId,
+                    Map.of("atividadeId", atividadeId, "usuarioId", usuario.getId()));
+            return;
+        }
+
+        // 2. Se era participante, libera a vaga e promove quem está esperando.
+        long participantes = atividadeRepository.countParticipantes(atividadeId);
+        if (atividadeRepository.deleteParticipante(atividadeId, usuario.getId()) == 0) {
+            throw new IllegalStateException("Você não está inscrito nesta atividade.");
+        }
+        estatisticasModalidadeService.removerContribuicao(atividade, participantes);
+        outboxService.registrar(TipoEvento.INSCRICAO_CANCELADA, atividadeId,
+                Map.of("atividadeId", atividadeId, "usuarioId", usuario.getId()));
+        participantes = preencherVagas(atividade, participantes - 1);
+        estatisticasModalidadeService.adicionarContribuicao(atividade, participantes);
+        atividadeDetalheCache.invalidate(atividadeId);
+    }
+
+    /**
+     * Passa aos primeiros da fila as vagas liberadas por uma remoção em massa de inscrições (exclusão de conta)
+     * e reabre as atividades que deixaram de estar lotadas. Recebe os IDs em ordem, para que as travas sejam
+     * sempre obtidas na mesma sequência. As estatísticas por modalidade não são ajustadas aqui: quem remove
+     * em massa pede a reconciliação.
+     */
+    @Transactional
+    public void preencherVagasLiberadas(List<UUID> atividadeIds) {
+        for (UUID atividadeId : atividadeIds) {
+            atividadeRepository.findByIdForUpdate(atividadeId).ifPresent(atividade -> {
+                preencherVagas(atividade, atividadeRepository.countParticipantes(atividadeId));
+                atividadeDetalheCache.invalidate(atividadeId);
+            });
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public AtividadeResponseDTO findDetalheById(UUID atividadeId) {
+        AtividadeResponseDTO detalhe = atividadeDetalheCache.get(atividadeId, id -> atividadeRepository.findDetalheById(id)
+                .map(t -> atividadeMapper.toResponseDTO(
+                        t.get("atividade", Atividade.class),
+                        t.get("participantesCount", Integer.class)))
+                .orElseThrow(() -> new EntityNotFoundException("Atividade não encontrada com o ID: " + atividadeId)));
+        tendenciaAtividadesService.registrarVisualizacao(atividadeId);
+        return detalhe;
+    }
+
+    /**
+     * Uma página de participantes, ordenada pelo ID do usuário. O cursor é o ID do último participante
+     * da página anterior, então qualquer página custa o mesmo que a primeira.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageResponseDTO<ParticipanteDTO> findParticipantes(UUID atividadeId, UUID cursor, int tamanho) {
+        // Busca um item a mais só para saber se existe uma próxima página
+        Limit limite = Limit.of(tamanho + 1);
+        List<ParticipanteDTO> participantes = cursor == null
+                ? atividadeRepository.findParticipantes(atividadeId, limite)
+                : atividadeRepository.findParticipantesApos(atividadeId, cursor, limite);
+
+        // O criador sempre participa, então uma lista vazia sem cursor indica uma atividade inexistente
+        if (participantes.isEmpty() && (cursor == null || !atividadeRepository.existsById(atividadeId))) {
+            throw new EntityNotFoundException("Atividade não encontrada com o ID: " + atividadeId);
+        }
+
+        if (participantes.size() <= tamanho) {
+            return new CursorPageResponseDTO<>(participantes, null);
         }
+        List<ParticipanteDTO> pagina = participantes.subList(0, tamanho);
+        return new CursorPageResponseDTO<>(pagina, pagina.getLast().id().toString());
+    }
+
+    @Transactional(readOnly = true)
+    public ListaEsperaResponseDTO findPosicaoNaListaDeEspera(UUID atividadeId, String username) {
+        return listaEsperaRepository.findPosicao(atividadeId, username)
+                .orElseThrow(() -> new EntityNotFoundException("Você não está na lista de espera desta atividade."));
+    }
+
+    private ListaEsperaResponseDTO entrarNaListaDeEspera(Atividade atividade, User usuario) {
+        ListaEspera entrada = new ListaEspera();
+        entrada.setAtividade(atividade);
+        entrada.setUsuario(usuario);
+        entrada.setPosicao(atividade.getEsperaFim());
+        entrada.setCriadoEm(LocalDateTime.now());
+        listaEsperaRepository.save(entrada);
+
+        atividade.setEsperaFim(atividade.getEsperaFim() + 1);
+        return new ListaEsperaResponseDTO(atividade.getId(),
+                entrada.getPosicao() - atividade.getEsperaInicio() + 1,
+                atividade.getEsperaFim() - atividade.getEsperaInicio());
+    }
+
+    /**
+     * Promove os primeiros da fila enquanto houver vagas e ajusta o status pela lotação.
+     * Deve ser chamado com a atividade travada (findByIdForUpdate); recebe e devolve a quantidade de participantes.
+     */
+    private long preencherVagas(Atividade atividade, long participantes) {
+        UUID atividadeId = atividade.getId();
+
+        if (STATUS_ATIVOS.contains(atividade.getStatus())) {
+            while (temVaga(atividade, participantes) && atividade.getEsperaFim() > atividade.getEsperaInicio()) {
+                ListaEspera proximo = listaEsperaRepository.findFirstByAtividadeIdOrderByPosicaoAsc(atividadeId).orElse(null);
+                if (proximo == null) {
+                    // Fila vazia apesar dos contadores (não deveria acontecer): realinha e segue
+                    atividade.setEsperaInicio(atividade.getEsperaFim());
+                    break;
+                }
+                atividadeRepository.insertParticipante(atividadeId, proximo.getUsuario().getId());
+                listaEsperaRepository.delete(proximo);
+                outboxService.registrar(TipoEvento.INSCRICAO_REALIZADA, atividadeId,
+                        Map.of("atividadeId", atividadeId, "usuarioId", proximo.getUsuario().getId(), "promovido", true));
+                atividade.setEsperaInicio(proximo.getPosicao() + 1);
+                participantes++;
+            }
+            atualizarStatusPorLotacao(atividade, participantes);
+        }
+        return participantes;
+    }
+
+    // Dados comuns dos eventos de atividade (HashMap: alguns campos podem ser nulos)
+    private static Map<String, Object> dadosDoEvento(Atividade atividade) {
+        Map<String, Object> dados = new HashMap<>();
+        dados.put("atividadeId", atividade.getId());
+        dados.put("criadorId", atividade.getCriador().getId());
+        dados.put("modalidadeId", atividade.getModalidade() != null ? atividade.getModalidade().getId() : null);
+        dados.put("status", atividade.getStatus());
+        dados.put("data", atividade.getData());
+        dados.put("horario", atividade.getHorario());
+        dados.put("uf", atividade.getUf());
+        dados.put("latitude", atividade.getLatitude());
+        dados.put("longitude", atividade.getLongitude());
+        return dados;
+    }
+
+    // Guarda só os dígitos, para que o mesmo CEP escrito de formas diferentes compartilhe a geocodificação
+    private static String normalizarCep(String cep) {
+        return cep.replaceAll("\\D", "");
+    }
+
+    private static boolean temVaga(Atividade atividade, long participantes) {
+        return atividade.isSemLimite() || atividade.getCapacidade() == null || participantes < atividade.getCapacidade();
+    }
+
+    private static void atualizarStatusPorLotacao(Atividade atividade, long participantes) {
+        atividade.setStatus(temVaga(atividade, participantes) ? StatusAtividade.OPEN : StatusAtividade.CLOSED);
     }
 
     @Transactional
     public void deleteById(UUID atividadeId, String username) {
-        // 1. Busca a atividade no banco de dados.
-        Atividade atividade = atividadeRepository.findById(atividadeId)
+        // 1. Busca apenas o criador da atividade (sem carregar a coleção de participantes).
+        String criadorUsername = atividadeRepository.findCriadorUsernameById(atividadeId)
                 .orElseThrow(() -> new EntityNotFoundException("Atividade não encontrada com o ID: " + atividadeId));
 
         // 2. !! VERIFICAÇÃO DE SEGURANÇA CRUCIAL !!
         // Garante que o usuário que está fazendo a requisição é o mesmo que criou a atividade.
-        if (!atividade.getCriador().getUsername().equals(username)) {
+        if (!criadorUsername.equals(username)) {
             throw new AccessDeniedException("Acesso negado: você não tem permissão para excluir esta atividade.");
         }
 
-        // 3. Se a verificação passar, exclui a atividade.
-        // O JPA cuidará de remover os registros na tabela de junção 'atividade_participantes'.
-        atividadeRepository.delete(atividade);
+        // 3. Se a verificação passar, remove as inscrições e a atividade com dois comandos em massa,
+        // sem carregar os participantes na memória.
+        estatisticasModalidadeService.removerContribuicoes(List.of(atividadeId));
+        listaEsperaRepository.deleteByAtividadeIds(List.of(atividadeId));
+        atividadeRepository.deleteParticipantesByAtividadeId(atividadeId);
+        atividadeRepository.deleteInBulkById(atividadeId);
+
+        outboxService.registrar(TipoEvento.ATIVIDADE_EXCLUIDA, atividadeId, Map.of("atividadeId", atividadeId));
+        atividadeDetalheCache.invalidate(atividadeId);
     }
 }
\ No newline at end of file
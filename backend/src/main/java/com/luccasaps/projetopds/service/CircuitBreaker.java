@@ -0,0 +1,218 @@
+package com.luccasaps.projetopds.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Disjuntor de um provedor externo, com janela deslizante das últimas chamadas.
+ * FECHADO: tudo passa; abre quando a taxa de falha da janela atinge o limite (com um mínimo de chamadas).
+ * ABERTO: nada passa até o fim da espera. MEIO_ABERTO: algumas chamadas de teste passam; se todas
+ * derem certo o disjuntor fecha, e a primeira falha o abre de novo.
+ * Também mantém a latência média (EWMA) das chamadas bem-sucedidas, usada para ordenar os provedores.
+ */
+@Slf4j
+class CircuitBreaker {
+
+    enum Estado { FECHADO, MEIO_ABERTO, ABERTO }
+
+    record Config(int janela, int minChamadas, double taxaFalhaMaxima, long esperaAbertoMs,
+                  int chamadasMeioAberto, double ewmaAlpha) {}
+
+    private final String nome;
+    private final Config config;
+    private final LongSupplier relogioNanos;
+    private final MeterRegistry meterRegistry;
+
+    // Janela circular: true = falha
+    private final boolean[] resultados;
+    private int posicao;
+    private int preenchidas;
+    private int falhasNaJanela;
+
+    private Estado estado = Estado.FECHADO;
+    private long abertoAteNanos;
+    private int testesEmAndamento;
+    private int sucessosMeioAberto;
+    private double latenciaMediaMs = Double.NaN;
+
+    private final Timer chamadasSucesso;
+    private final Timer chamadasFalha;
+    private final Counter chamadasRejeitadas;
+
+    CircuitBreaker(String nome, Config config, MeterRegistry meterRegistry) {
+        this(nome, config, meterRegistry, System::nanoTime);
+    }
+
+    CircuitBreaker(String nome, Config config, MeterRegistry meterRegistry, LongSupplier relogioNanos) {
+        this.nome = nome;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.relogioNanos = relogioNanos;
+        this.resultados = new boolean[config.janela()];
+
+        this.chamadasSucesso = Timer.builder("geocoding.provedor.chamadas")
+                .description("Chamadas aos provedores de CEP")
+                .tags("provedor", nome, "resultado", "sucesso")
+                .register(meterRegistry);
+        this.chamadasFalha = Timer.builder("geocoding.provedor.chamadas")
+                .description("Chamadas aos provedores de CEP")
+                .tags("provedor", nome, "resultado", "falha")
+                .register(meterRegistry);
+        this.chamadasRejeitadas = Counter.builder("geocoding.circuito.rejeitadas")
+                .description("Chamadas não feitas porque o disjuntor do provedor estava aberto")
+                .tag("provedor", nome)
+                .register(meterRegistry);
+        Gauge.builder("geocoding.circuito.estado", this, c -> c.getEstado().ordinal())
+                .description("Estado do disjuntor: 0 = fechado, 1 = meio-aberto, 2 = aberto")
+                .tag("provedor", nome)
+                .register(meterRegistry);
+        Gauge.builder("geocoding.provedor.falhas.taxa", this, CircuitBreaker::getTaxaFalha)
+                .description("Fração de falhas na janela deslizante do disjuntor")
+                .tag("provedor", nome)
+                .register(meterRegistry);
+        Gauge.builder("geocoding.provedor.latencia.media", this, c -> {
+                    double media = c.getLatenciaMediaMs();
+                    return Double.isNaN(media) ? 0 : media;
+                })
+                .description("Latência média (EWMA, ms) das chamadas bem-sucedidas")
+                .tag("provedor", nome)
+                .register(meterRegistry);
+    }
+
+    String getNome() {
+        return nome;
+    }
+
+    synchronized Estado getEstado() {
+        return estado;
+    }
+
+    synchronized double getTaxaFalha() {
+        return preenchidas == 0 ? 0 : (double) falhasNaJanela / preenchidas;
+    }
+
+    synchronized double getLatenciaMediaMs() {
+        return latenciaMediaMs;
+    }
+
+    /**
+     * Reserva uma chamada. false quando o disjuntor está aberto (ou já há testes suficientes
+     * em andamento no meio-aberto); nesse caso o chamador pula o provedor sem registrar nada.
+     */
+    synchronized boolean permitirChamada() {
+        if (estado == Estado.ABERTO) {
+            if (relogioNanos.getAsLong() - abertoAteNanos < 0) {
+                chamadasRejeitadas.increment();
+                return false;
+            }
+            transicionar(Estado.MEIO_ABERTO);
+        }
+        if (estado == Estado.MEIO_ABERTO) {
+            if (testesEmAndamento >= config.chamadasMeioAberto()) {
+                chamadasRejeitadas.increment();
+                return false;
+            }
+            testesEmAndamento++;
+        }
+        return true;
+    }
+
+    synchronized void registrarSucesso(long duracaoNanos) {
+        chamadasSucesso.record(duracaoNanos, TimeUnit.NANOSECONDS);
+        double ms = duracaoNanos / 1_000_000.0;
+        latenciaMediaMs = Double.isNaN(latenciaMediaMs) ? ms : latenciaMediaMs + config.ewmaAlpha() * (ms - latenciaMediaMs);
+
+        if (estado == Estado.MEIO_ABERTO) {
+            testesEmAndamento = Math.max(0, testesEmAndamento - 1);
+            if (++sucessosMeioAberto >= config.chamadasMeioAberto()) {
+                transicionar(Estado.FECHADO);
+            }
+            return;
+        }
+        adicionarNaJanela(false);
+    }
+
+    synchronized void registrarFalha(long duracaoNanos) {
+        chamadasFalha.record(duracaoNanos, TimeUnit.NANOSECONDS);
+
+        if (estado == Estado.MEIO_ABERTO) {
+            testesEmAndamento = Math.max(0, testesEmAndamento - 1);
+            transicionar(Estado.ABERTO);
+            return;
+        }
+        if (estado == Estado.FECHADO) {
+            adicionarNaJanela(true);
+            if (preenchidas >= config.minChamadas() && getTaxaFalha() >= config.taxaFalhaMaxima()) {
+                transicionar(Estado.ABERTO);
+            }
+        }
+    }
+
+    /**
+     * Custo para ordenar os provedores (menor = tentado primeiro): latência média dividida pela taxa de sucesso.
+     * Um disjuntor aberto cuja espera já terminou concorre pela latência de antes de abrir, então o provedor
+     * que costuma ser mais rápido recebe a chamada de teste (e, se falhar, a requisição segue para o próximo).
+     * Provedor ainda sem medição fica depois dos já medidos; aberto e ainda em espera fica por último.
+     */
+    synchronized double custo() {
+        if (estado == Estado.ABERTO && relogioNanos.getAsLong() - abertoAteNanos < 0) {
+            return Double.MAX_VALUE;
+        }
+        if (Double.isNaN(latenciaMediaMs)) {
+            return Double.MAX_VALUE / 2;
+        }
+        return latenciaMediaMs / Math.max(1 - getTaxaFalha(), 0.05);
+    }
+
+    private void adicionarNaJanela(boolean falha) {
+        if (preenchidas == resultados.length) {
+            if (resultados[posicao]) {
+                falhasNaJanela--;
+            }
+        } else {
+            preenchidas++;
+        }
+        resultados[posicao] = falha;
+        if (falha) {
+            falhasNaJanela++;
+        }
+        posicao = (posicao + 1) % resultados.length;
+    }
+
+    private void limparJanela() {
+        posicao = 0;
+        preenchidas = 0;
+        falhasNaJanela = 0;
+    }
+
+    private void transicionar(Estado novo) {
+        Estado anterior = estado;
+        estado = novo;
+        switch (novo) {
+            case ABERTO -> abertoAteNanos = relogioNanos.getAsLong() + TimeUnit.MILLISECONDS.toNanos(config.esperaAbertoMs());
+            case MEIO_ABERTO -> {
+                testesEmAndamento = 0;
+                sucessosMeioAberto = 0;
+                limparJanela();
+            }
+            case FECHADO -> limparJanela();
+        }
+
+        Counter.builder("geocoding.circuito.transicoes")
+                .description("Mudanças de estado do disjuntor")
+                .tags("provedor", nome, "de", anterior.name(), "para", novo.name())
+                .register(meterRegistry)
+                .increment();
+        if (novo == Estado.ABERTO) {
+            log.warn("Disjuntor do provedor {} aberto por {} ms (estado anterior: {}).", nome, config.esperaAbertoMs(), anterior);
+        } else {
+            log.info("Disjuntor do provedor {}: {} -> {}.", nome, anterior, novo);
+        }
+    }
+}
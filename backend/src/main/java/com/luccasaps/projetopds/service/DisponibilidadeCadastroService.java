@@ -0,0 +1,216 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.DisponibilidadeDTO;
+import com.luccasaps.projetopds.model.TipoEvento;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Disponibilidade de e-mail e username para o formulário de cadastro. Um filtro de Bloom em memória com os
+ * valores em uso responde "livre" sem ir ao banco; só os possíveis acertos (em uso ou falso positivo) são
+ * confirmados com uma consulta pela restrição única. A resposta é só uma orientação: quem garante a unicidade
+ * é a restrição no INSERT do cadastro (UserService.save).
+ * O filtro é reconstruído a partir do banco na subida e periodicamente (o que também descarta contas excluídas
+ * e valores antigos de e-mails e usernames trocados); entre as reconstruções recebe os cadastros e as edições
+ * desta instância depois do commit e, das demais, os cadastros por uma varredura curta em 'data_cadastro' e
+ * as edições de e-mail/username pelos eventos USUARIO_ATUALIZADO do outbox.
+ */
+@Service
+@Slf4j
+public class DisponibilidadeCadastroService {
+
+    private static final String PREFIXO_EMAIL = "e:";
+    private static final String PREFIXO_USERNAME = "u:";
+    private static final Set<TipoEvento> EVENTOS = Set.of(TipoEvento.USUARIO_ATUALIZADO);
+
+    private final UserRepository userRepository;
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final Counter respostasDoFiltro;
+    private final Counter consultasAoBanco;
+    private final Timer tempoReconstrucao;
+
+    // Nulo até a primeira construção: enquanto isso, toda consulta vai ao banco
+    private volatile FiltroBloom filtro;
+    // Durante uma reconstrução, os novos cadastros entram também no filtro que está sendo montado
+    private volatile FiltroBloom emConstrucao;
+    private LocalDateTime ultimaSincronizacao;
+    private long ultimoEventoLido;
+
+    @Value("${usuarios.disponibilidade.taxa-falso-positivo:0.01}")
+    private double taxaFalsoPositivo;
+
+    @Value("${usuarios.disponibilidade.capacidade-minima:100000}")
+    private long capacidadeMinima;
+
+    @Value("${usuarios.disponibilidade.lote:5000}")
+    private int lote;
+
+    @Value("${usuarios.disponibilidade.margem-sincronizacao:2m}")
+    private Duration margemSincronizacao;
+
+    public DisponibilidadeCadastroService(UserRepository userRepository, OutboxEventoRepository outboxEventoRepository,
+                                          MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.outboxEventoRepository = outboxEventoRepository;
+
+        this.respostasDoFiltro = Counter.builder("usuarios.disponibilidade.consultas")
+                .description("Verificações de disponibilidade por origem da resposta")
+                .tag("fonte", "filtro")
+                .register(meterRegistry);
+        this.consultasAoBanco = Counter.builder("usuarios.disponibilidade.consultas")
+                .description("Verificações de disponibilidade por origem da resposta")
+                .tag("fonte", "banco")
+                .register(meterRegistry);
+        this.tempoReconstrucao = Timer.builder("usuarios.disponibilidade.reconstrucao")
+                .description("Tempo para reconstruir o filtro de e-mails e usernames em uso")
+                .register(meterRegistry);
+        Gauge.builder("usuarios.disponibilidade.filtro.bytes", this, s -> s.filtro != null ? s.filtro.bits() / 8.0 : 0)
+                .description("Memória ocupada pelo filtro de e-mails e usernames em uso")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parâmetros nulos ou vazios não são verificados (o campo correspondente volta nulo).
+     */
+    public DisponibilidadeDTO verificar(String email, String username) {
+        Boolean emailDisponivel = email == null || email.isBlank() ? null
+                : disponivel(PREFIXO_EMAIL, normalizar(email), userRepository::existsByEmail);
+        Boolean usernameDisponivel = username == null || username.isBlank() ? null
+                : disponivel(PREFIXO_USERNAME, normalizar(username), userRepository::existsByUsername);
+        return new DisponibilidadeDTO(emailDisponivel, usernameDisponivel);
+    }
+
+    // Entra no filtro só depois do commit: um cadastro desfeito não deixa o valor marcado como em uso
+    public void registrarCadastro(String email, String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            adicionar(email, username);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                adicionar(email, username);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${usuarios.disponibilidade.reconstrucao-interval-ms:21600000}",
+            initialDelayString = "${usuarios.disponibilidade.initial-delay-ms:0}")
+    public synchronized void reconstruir() {
+        Timer.Sample sample = Timer.start();
+        LocalDateTime inicio = LocalDateTime.now();
+
+        // Dimensionado com folga (e-mail + username por usuário, em dobro) para crescer até a próxima reconstrução
+        FiltroBloom novo = new FiltroBloom(Math.max(capacidadeMinima, userRepository.count() * 4), taxaFalsoPositivo);
+        emConstrucao = novo;
+        long usuarios = 0;
+        try {
+            // Lido antes dos usuários: as edições seguintes são reaplicadas pela sincronização
+            long ultimoEvento = outboxEventoRepository.findUltimoId();
+            List<Tuple> pagina = userRepository.findCredenciais(Limit.of(lote));
+            while (!pagina.isEmpty()) {
+                for (Tuple t : pagina) {
+                    adicionar(novo, t.get("email", String.class), t.get("username", String.class));
+                }
+                usuarios += pagina.size();
+                if (pagina.size() < lote) {
+                    break;
+                }
+                pagina = userRepository.findCredenciaisApos(pagina.getLast().get("id", UUID.class), Limit.of(lote));
+            }
+            filtro = novo;
+            ultimaSincronizacao = inicio;
+            ultimoEventoLido = ultimoEvento;
+        } finally {
+            emConstrucao = null;
+        }
+
+        sample.stop(tempoReconstrucao);
+        log.info("Filtro de disponibilidade reconstruído com {} usuários ({} KiB, {} funções de hash).",
+                usuarios, novo.bits() / 8 / 1024, novo.funcoes());
+    }
+
+    @Scheduled(fixedDelayString = "${usuarios.disponibilidade.sincronizacao-interval-ms:30000}",
+            initialDelayString = "${usuarios.disponibilidade.sincronizacao-interval-ms:30000}")
+    public synchronized void sincronizar() {
+        FiltroBloom atual = filtro;
+        if (atual == null) {
+            // A construção da subida falhou (ex.: banco indisponível): tenta de novo em vez de esperar a próxima
+            reconstruir();
+            return;
+        }
+        LocalDateTime agora = LocalDateTime.now();
+        // A margem cobre cadastros que gravaram 'data_cadastro' antes da última varredura mas só foram
+        // confirmados depois dela, e pequenas diferenças de relógio entre as instâncias.
+        for (Tuple t : userRepository.findCredenciaisCadastradasDesde(ultimaSincronizacao.minus(margemSincronizacao))) {
+            adicionar(atual, t.get("email", String.class), t.get("username", String.class));
+        }
+        ultimaSincronizacao = agora;
+
+        // E-mails e usernames trocados em qualquer instância: o evento traz o usuário, o valor novo vem do banco
+        List<Tuple> eventos;
+        do {
+            eventos = outboxEventoRepository.findAgregadosDesde(ultimoEventoLido, EVENTOS, Limit.of(lote));
+            if (eventos.isEmpty()) {
+                break;
+            }
+            List<UUID> alterados = eventos.stream().map(e -> UUID.fromString(e.get("agregadoId", String.class))).toList();
+            for (Tuple t : userRepository.findCredenciaisByIdIn(alterados)) {
+                adicionar(atual, t.get("email", String.class), t.get("username", String.class));
+            }
+            ultimoEventoLido = eventos.getLast().get("id", Long.class);
+        } while (eventos.size() == lote);
+    }
+
+    private boolean disponivel(String prefixo, String valor, Predicate<String> existeNoBanco) {
+        FiltroBloom atual = filtro;
+        if (atual != null && !atual.podeConter(prefixo + valor)) {
+            respostasDoFiltro.increment();
+            return true;
+        }
+        consultasAoBanco.increment();
+        return !existeNoBanco.test(valor);
+    }
+
+    private void adicionar(String email, String username) {
+        adicionar(filtro, email, username);
+        adicionar(emConstrucao, email, username);
+    }
+
+    private static void adicionar(FiltroBloom destino, String email, String username) {
+        if (destino == null) {
+            return;
+        }
+        if (email != null) {
+            destino.adicionar(PREFIXO_EMAIL + normalizar(email));
+        }
+        if (username != null) {
+            destino.adicionar(PREFIXO_USERNAME + normalizar(username));
+        }
+    }
+
+    // A mesma normalização do cadastro (UserService), que grava e-mail e username em minúsculas
+    private static String normalizar(String valor) {
+        return valor.toLowerCase(Locale.ROOT);
+    }
+}
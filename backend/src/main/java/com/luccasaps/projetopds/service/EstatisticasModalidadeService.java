@@ -0,0 +1,364 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.ModalidadeEstatisticaDTO;
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.model.ModalidadeEstatistica;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ModalidadeEstatisticaRepository;
+import com.luccasaps.projetopds.repository.ModalidadeRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Estatísticas por modalidade (atividades abertas/lotadas, taxa de ocupação e usuários interessados) mantidas
+ * pelas próprias escritas, sem GROUP BY sobre 'atividade', 'atividade_participantes' e 'user_modalidade' a cada leitura.
+ * Os serviços informam a contribuição de uma atividade antes e depois de alterá-la (ou a troca de modalidades de um
+ * usuário); as diferenças se acumulam na transação e são somadas em 'modalidade_estatistica' logo antes do commit,
+ * com um UPDATE por modalidade numa faixa sorteada. Assim os contadores valem para todas as instâncias e são
+ * desfeitos junto com um rollback. Uma reconciliação periódica (e a pedido, depois de escritas em massa) recalcula
+ * os valores reais com a tabela travada.
+ */
+@Service
+@Slf4j
+public class EstatisticasModalidadeService {
+
+    static final String LOCK = "estatisticas-modalidade";
+
+    // Linhas por modalidade; a migração V12 semeia essa mesma quantidade
+    static final int FAIXAS = 8;
+
+    private static final Set<StatusAtividade> STATUS_ATIVOS = EnumSet.of(StatusAtividade.OPEN, StatusAtividade.CLOSED);
+
+    private final ModalidadeEstatisticaRepository estatisticaRepository;
+    private final AtividadeRepository atividadeRepository;
+    private final UserRepository userRepository;
+    private final ModalidadeRepository modalidadeRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer tempoReconciliacao;
+    private final Counter modalidadesCorrigidas;
+
+    // A tabela nasce zerada pela migração, então a primeira rodada após a subida já reconcilia
+    private final AtomicBoolean reconciliacaoPendente = new AtomicBoolean(true);
+
+    @Value("${modalidades.estatisticas.lock-duration-ms:120000}")
+    private long lockDurationMs;
+
+    public EstatisticasModalidadeService(ModalidadeEstatisticaRepository estatisticaRepository,
+                                         AtividadeRepository atividadeRepository,
+                                         UserRepository userRepository,
+                                         ModalidadeRepository modalidadeRepository,
+                                         SchedulerLockService schedulerLockService,
+                                         TransactionTemplate transactionTemplate,
+                                         MeterRegistry meterRegistry) {
+        this.estatisticaRepository = estatisticaRepository;
+        this.atividadeRepository = atividadeRepository;
+        this.userRepository = userRepository;
+        this.modalidadeRepository = modalidadeRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = transactionTemplate;
+
+        this.tempoReconciliacao = Timer.builder("modalidades.estatisticas.reconciliacao")
+                .description("Tempo para recalcular as estatísticas por modalidade a partir do banco")
+                .register(meterRegistry);
+        this.modalidadesCorrigidas = Counter.builder("modalidades.estatisticas.divergencias")
+                .description("Modalidades cujos contadores estavam diferentes do banco na reconciliação")
+                .register(meterRegistry);
+    }
+
+    // --- Escritas (sempre dentro da transação que altera os dados) ---
+
+    /** Desconta o que a atividade soma hoje; chamar antes de alterá-la ou excluí-la. */
+    public void removerContribuicao(Atividade atividade, long participantes) {
+        Contagem contagem = contagemDaAtividade(atividade, participantes);
+        if (contagem != null) {
+            acumular(atividade.getModalidade().getId(), contagem.negativa());
+        }
+    }
+
+    /** Soma o que a atividade passou a contribuir; chamar depois de criá-la ou alterá-la. */
+    public void adicionarContribuicao(Atividade atividade, long participantes) {
+        Contagem contagem = contagemDaAtividade(atividade, participantes);
+        if (contagem != null) {
+            acumular(atividade.getModalidade().getId(), contagem);
+        }
+    }
+
+    /**
+     * Desconta um conjunto de atividades com uma consulta agrupada, sem carregá-las; chamar antes de
+     * encerrá-las ou excluí-las em massa.
+     */
+    public void removerContribuicoes(Collection<UUID> atividadeIds) {
+        if (atividadeIds.isEmpty()) {
+            return;
+        }
+        for (Object[] linha : atividadeRepository.somarEstatisticasPorModalidade(atividadeIds)) {
+            acumular(numero(linha[0]), contagemDeAtividades(linha).negativa());
+        }
+    }
+
+    public void registrarModalidadesDoUsuario(Collection<Modalidade> antes, Collection<Modalidade> depois) {
+        Set<Long> idsAntes = antes.stream().map(Modalidade::getId).collect(Collectors.toSet());
+        Set<Long> idsDepois = depois.stream().map(Modalidade::getId).collect(Collectors.toSet());
+        for (Long id : idsAntes) {
+            if (!idsDepois.contains(id)) {
+                acumular(id, new Contagem(0, 0, 0, 0, -1));
+            }
+        }
+        for (Long id : idsDepois) {
+            if (!idsAntes.contains(id)) {
+                acumular(id, new Contagem(0, 0, 0, 0, 1));
+            }
+        }
+    }
+
+    /**
+     * Para escritas em massa cujo efeito nos contadores seria caro calcular (ex.: exclusão de conta).
+     * Vale depois do commit; a reconciliação roda na próxima verificação desta instância.
+     */
+    public void solicitarReconciliacao() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reconciliacaoPendente.set(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reconciliacaoPendente.set(true);
+            }
+        });
+    }
+
+    // --- Leitura ---
+
+    @Transactional(readOnly = true)
+    public List<ModalidadeEstatisticaDTO> findAll() {
+        return estatisticaRepository.somarPorModalidade().stream()
+                .map(EstatisticasModalidadeService::toDTO)
+                .toList();
+    }
+
+    // --- Reconciliação ---
+
+    @Scheduled(fixedDelayString = "${modalidades.estatisticas.verificacao-interval-ms:10000}",
+            initialDelayString = "${modalidades.estatisticas.initial-delay-ms:15000}")
+    public synchronized void reconciliarSeSolicitado() {
+        // Se outra instância está com a trava, tenta de novo na próxima rodada: a reconciliação dela
+        // pode ter começado antes do commit que fez o pedido.
+        if (reconciliacaoPendente.getAndSet(false) && !reconciliar()) {
+            reconciliacaoPendente.set(true);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${modalidades.estatisticas.reconciliacao-interval-ms:600000}",
+            initialDelayString = "${modalidades.estatisticas.reconciliacao-interval-ms:600000}")
+    public synchronized void reconciliarPeriodicamente() {
+        reconciliar();
+    }
+
+    private boolean reconciliar() {
+        if (!schedulerLockService.tryAcquire(LOCK, Duration.ofMillis(lockDurationMs))) {
+            log.debug("Reconciliação das estatísticas por modalidade em execução em outra instância; pulando.");
+            return false;
+        }
+        try {
+            Timer.Sample sample = Timer.start();
+            Integer corrigidas = transactionTemplate.execute(status -> recalcular());
+            sample.stop(tempoReconciliacao);
+
+            if (corrigidas != null && corrigidas > 0) {
+                modalidadesCorrigidas.increment(corrigidas);
+                log.info("Reconciliação corrigiu as estatísticas de {} modalidades.", corrigidas);
+            }
+            return true;
+        } finally {
+            schedulerLockService.release(LOCK);
+        }
+    }
+
+    private int recalcular() {
+        // 1. Trava todas as faixas (na mesma ordem das escritas). Transações que já somaram terminam antes e
+        // aparecem nas contagens abaixo; as que ainda vão somar esperam e somam por cima do valor reconciliado.
+        Map<Long, ModalidadeEstatistica[]> faixas = new HashMap<>();
+        for (ModalidadeEstatistica linha : estatisticaRepository.findAllForUpdate()) {
+            if (linha.getFaixa() >= 0 && linha.getFaixa() < FAIXAS) {
+                faixas.computeIfAbsent(linha.getModalidadeId(), id -> new ModalidadeEstatistica[FAIXAS])[linha.getFaixa()] = linha;
+            }
+        }
+
+        // 2. Valores reais
+        Map<Long, Contagem> reais = new HashMap<>();
+        for (Object[] linha : atividadeRepository.somarEstatisticasPorModalidade()) {
+            reais.merge(numero(linha[0]), contagemDeAtividades(linha), Contagem::mais);
+        }
+        for (Object[] linha : userRepository.countUsuariosPorModalidade()) {
+            reais.merge(numero(linha[0]), new Contagem(0, 0, 0, 0, numero(linha[1])), Contagem::mais);
+        }
+
+        // 3. Valor real na faixa 0 e as demais zeradas; o Hibernate só grava as linhas que mudaram
+        int corrigidas = 0;
+        List<ModalidadeEstatistica> novas = new ArrayList<>();
+        for (Modalidade modalidade : modalidadeRepository.findAll()) {
+            Long id = modalidade.getId();
+            Contagem real = reais.getOrDefault(id, Contagem.ZERO);
+            ModalidadeEstatistica[] linhas = faixas.computeIfAbsent(id, k -> new ModalidadeEstatistica[FAIXAS]);
+
+            Contagem atual = Contagem.ZERO;
+            for (int faixa = 0; faixa < FAIXAS; faixa++) {
+                if (linhas[faixa] == null) {
+                    linhas[faixa] = new ModalidadeEstatistica(id, faixa);
+                    novas.add(linhas[faixa]);
+                }
+                atual = atual.mais(contagemDaLinha(linhas[faixa]));
+                gravar(linhas[faixa], faixa == 0 ? real : Contagem.ZERO);
+            }
+            if (!atual.equals(real)) {
+                corrigidas++;
+            }
+        }
+        estatisticaRepository.saveAll(novas);
+        return corrigidas;
+    }
+
+    // --- Acúmulo por transação ---
+
+    private void acumular(Long modalidadeId, Contagem contagem) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Sem transação não há como somar junto com a escrita; a reconciliação corrige
+            reconciliacaoPendente.set(true);
+            return;
+        }
+        Pendentes pendentes = (Pendentes) TransactionSynchronizationManager.getResource(this);
+        if (pendentes == null) {
+            pendentes = new Pendentes(ThreadLocalRandom.current().nextInt(FAIXAS));
+            TransactionSynchronizationManager.bindResource(this, pendentes);
+            TransactionSynchronizationManager.registerSynchronization(pendentes);
+        }
+        pendentes.contagens.merge(modalidadeId, contagem, Contagem::mais);
+    }
+
+    /**
+     * Diferenças acumuladas numa transação. Ordenadas por modalidade, como a reconciliação trava as linhas,
+     * e aplicadas só no fim: a linha da faixa fica travada apenas até o commit.
+     */
+    private final class Pendentes implements TransactionSynchronization {
+
+        private final int faixa;
+        private final Map<Long, Contagem> contagens = new TreeMap<>();
+
+        private Pendentes(int faixa) {
+            this.faixa = faixa;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            contagens.forEach((modalidadeId, c) -> {
+                if (c.equals(Contagem.ZERO)) {
+                    return;
+                }
+                int atualizadas = estatisticaRepository.incrementar(modalidadeId, faixa,
+                        c.atividades(), c.lotadas(), c.participantes(), c.capacidade(), c.usuarios());
+                if (atualizadas == 0) {
+                    // Modalidade sem linhas ainda (criada depois da migração): a reconciliação cria as faixas
+                    reconciliacaoPendente.set(true);
+                }
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EstatisticasModalidadeService.this);
+        }
+    }
+
+    record Contagem(long atividades, long lotadas, long participantes, long capacidade, long usuarios) {
+
+        static final Contagem ZERO = new Contagem(0, 0, 0, 0, 0);
+
+        Contagem mais(Contagem outra) {
+            return new Contagem(atividades + outra.atividades, lotadas + outra.lotadas,
+                    participantes + outra.participantes, capacidade + outra.capacidade, usuarios + outra.usuarios);
+        }
+
+        Contagem negativa() {
+            return new Contagem(-atividades, -lotadas, -participantes, -capacidade, -usuarios);
+        }
+    }
+
+    // Só atividades OPEN/CLOSED contam; participantes e vagas só das que têm limite (base da taxa de ocupação)
+    private static Contagem contagemDaAtividade(Atividade atividade, long participantes) {
+        if (atividade.getModalidade() == null || !STATUS_ATIVOS.contains(atividade.getStatus())) {
+            return null;
+        }
+        boolean comLimite = !atividade.isSemLimite() && atividade.getCapacidade() != null;
+        return new Contagem(1,
+                atividade.getStatus() == StatusAtividade.CLOSED ? 1 : 0,
+                comLimite ? participantes : 0,
+                comLimite ? atividade.getCapacidade() : 0,
+                0);
+    }
+
+    // [modalidade_id, atividades, lotadas, participantes, capacidade] (ver AtividadeRepository)
+    private static Contagem contagemDeAtividades(Object[] linha) {
+        return new Contagem(numero(linha[1]), numero(linha[2]), numero(linha[3]), numero(linha[4]), 0);
+    }
+
+    private static Contagem contagemDaLinha(ModalidadeEstatistica linha) {
+        return new Contagem(linha.getAtividadesAtivas(), linha.getAtividadesLotadas(),
+                linha.getParticipantes(), linha.getCapacidade(), linha.getUsuarios());
+    }
+
+    private static void gravar(ModalidadeEstatistica linha, Contagem contagem) {
+        linha.setAtividadesAtivas(contagem.atividades());
+        linha.setAtividadesLotadas(contagem.lotadas());
+        linha.setParticipantes(contagem.participantes());
+        linha.setCapacidade(contagem.capacidade());
+        linha.setUsuarios(contagem.usuarios());
+    }
+
+    // SUM/COUNT nativos voltam como Long, BigDecimal ou BigInteger conforme o banco
+    private static long numero(Object valor) {
+        return valor != null ? ((Number) valor).longValue() : 0;
+    }
+
+    private static ModalidadeEstatisticaDTO toDTO(Tuple t) {
+        long ativas = t.get("atividadesAtivas", Long.class);
+        long lotadas = t.get("atividadesLotadas", Long.class);
+        long participantes = t.get("participantes", Long.class);
+        long capacidade = t.get("capacidade", Long.class);
+        return new ModalidadeEstatisticaDTO(
+                t.get("modalidadeId", Long.class),
+                t.get("nome", String.class),
+                ativas - lotadas,
+                lotadas,
+                capacidade > 0 ? (double) participantes / capacidade : null,
+                t.get("usuarios", Long.class));
+    }
+}
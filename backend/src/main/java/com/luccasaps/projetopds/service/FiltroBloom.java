@@ -0,0 +1,80 @@
+package com.luccasaps.projetopds.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de strings: "não contém" é sempre verdade; "pode conter" erra com a taxa configurada
+ * (para a quantidade de entradas prevista). Não aceita remoções; quem usa reconstrói periodicamente.
+ * Seguro para uso concorrente: as consultas não travam e as inserções usam CAS por palavra de 64 bits.
+ */
+final class FiltroBloom {
+
+    private final AtomicLongArray palavras;
+    private final long bits;
+    private final int funcoes;
+
+    FiltroBloom(long entradasPrevistas, double taxaFalsoPositivo) {
+        long n = Math.max(1, entradasPrevistas);
+        // Tamanho e número de funções de hash ótimos: m = -n ln p / (ln 2)², k = m/n ln 2
+        long m = (long) Math.ceil(-n * Math.log(taxaFalsoPositivo) / (Math.log(2) * Math.log(2)));
+        this.palavras = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64));
+        this.bits = (long) palavras.length() * 64;
+        this.funcoes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+    }
+
+    void adicionar(String valor) {
+        long h1 = hash(valor);
+        long h2 = misturar(h1) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            int palavra = (int) (bit >>> 6);
+            long mascara = 1L << bit;
+            long atual = palavras.get(palavra);
+            while ((atual & mascara) == 0 && !palavras.weakCompareAndSetVolatile(palavra, atual, atual | mascara)) {
+                atual = palavras.get(palavra);
+            }
+        }
+    }
+
+    boolean podeConter(String valor) {
+        long h1 = hash(valor);
+        long h2 = misturar(h1) | 1;
+        for (int i = 0; i < funcoes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((palavras.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bits() {
+        return bits;
+    }
+
+    int funcoes() {
+        return funcoes;
+    }
+
+    // FNV-1a de 64 bits sobre o UTF-8, finalizado para espalhar os bits. As k posições saem de
+    // h1 + i * h2 (dupla dispersão de Kirsch-Mitzenmacher), sem calcular k hashes.
+    private static long hash(String valor) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : valor.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return misturar(h);
+    }
+
+    // Finalização do MurmurHash3 (fmix64)
+    private static long misturar(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,249 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.cache.AtividadeDetalheCache;
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.StatusGeocodificacao;
+import com.luccasaps.projetopds.model.TipoEvento;
+import com.luccasaps.projetopds.outbox.OutboxService;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Obtém as coordenadas das atividades fora da requisição de criação.
+ * A atividade é salva como PENDENTE e uma consulta é disparada logo após o commit; se as APIs de CEP
+ * estiverem fora, uma varredura periódica tenta de novo com espera exponencial. Atividades com o mesmo CEP
+ * compartilham uma única consulta. Quando as coordenadas chegam, a atividade passa a aparecer na busca
+ * por proximidade e um evento ATIVIDADE_GEOCODIFICADA é gravado no outbox.
+ * Um CEP que todos os provedores responderam não conhecer não é repetido: a atividade vai direto para FALHOU
+ * (assim como ao esgotar as tentativas) e um evento ATIVIDADE_GEOCODIFICACAO_FALHOU avisa o criador,
+ * que pode corrigir o CEP.
+ */
+@Service
+@Slf4j
+public class GeocodificacaoAtividadeService {
+
+    static final String LOCK = "atividade-geocodificacao";
+
+    private final AtividadeRepository atividadeRepository;
+    private final GeocodingService geocodingService;
+    private final OutboxService outboxService;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final AtividadeDetalheCache atividadeDetalheCache;
+    private final ThreadPoolExecutor executor;
+
+    // CEPs com consulta em andamento nesta instância
+    private final Set<String> emAndamento = ConcurrentHashMap.newKeySet();
+
+    private final Counter atividadesResolvidas;
+    private final Counter consultasComFalha;
+    private final AtomicLong pendentes = new AtomicLong();
+
+    @Value("${atividades.geocodificacao.espera-inicial-ms:120000}")
+    private long esperaInicialMs;
+
+    @Value("${atividades.geocodificacao.max-tentativas:8}")
+    private int maxTentativas;
+
+    @Value("${atividades.geocodificacao.backoff-inicial-ms:30000}")
+    private long backoffInicialMs;
+
+    @Value("${atividades.geocodificacao.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${atividades.geocodificacao.batch-size:100}")
+    private int batchSize;
+
+    @Value("${atividades.geocodificacao.lock-duration-ms:120000}")
+    private long lockDurationMs;
+
+    public GeocodificacaoAtividadeService(AtividadeRepository atividadeRepository,
+                                          GeocodingService geocodingService,
+                                          OutboxService outboxService,
+                                          SchedulerLockService schedulerLockService,
+                                          TransactionTemplate transactionTemplate,
+                                          AtividadeDetalheCache atividadeDetalheCache,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${atividades.geocodificacao.threads:4}") int threads,
+                                          @Value("${atividades.geocodificacao.queue-capacity:1000}") int queueCapacity) {
+        this.atividadeRepository = atividadeRepository;
+        this.geocodingService = geocodingService;
+        this.outboxService = outboxService;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = transactionTemplate;
+        this.atividadeDetalheCache = atividadeDetalheCache;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "geocodificacao-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.atividadesResolvidas = Counter.builder("atividades.geocodificacao.resolvidas")
+                .description("Atividades que receberam coordenadas em segundo plano")
+                .register(meterRegistry);
+        this.consultasComFalha = Counter.builder("atividades.geocodificacao.falhas")
+                .description("Consultas de CEP que não retornaram coordenadas")
+                .register(meterRegistry);
+        // Contado a cada varredura, e não a cada coleta de métricas
+        Gauge.builder("atividades.geocodificacao.pendentes", pendentes, AtomicLong::get)
+                .description("Atividades aguardando coordenadas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marca a atividade como pendente e agenda a consulta do seu CEP para depois do commit.
+     * A próxima tentativa da varredura fica um pouco à frente, para não competir com a consulta imediata.
+     */
+    public void marcarPendente(Atividade atividade) {
+        atividade.setLatitude(null);
+        atividade.setLongitude(null);
+        atividade.setGeocodificacao(StatusGeocodificacao.PENDENTE);
+        atividade.setGeocodificacaoTentativas(0);
+        atividade.setGeocodificacaoProximaTentativa(LocalDateTime.now().plus(Duration.ofMillis(esperaInicialMs)));
+
+        String cep = atividade.getCep();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    agendar(cep);
+                }
+            });
+        } else {
+            agendar(cep);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${atividades.geocodificacao.interval-ms:30000}",
+            initialDelayString = "${atividades.geocodificacao.initial-delay-ms:20000}")
+    public void varrerPendentes() {
+        // Todas as instâncias atualizam o gauge, então ele não fica parado onde a varredura deixou de rodar
+        pendentes.set(atividadeRepository.countByGeocodificacao(StatusGeocodificacao.PENDENTE));
+        if (!schedulerLockService.tryAcquire(LOCK, Duration.ofMillis(lockDurationMs))) {
+            return;
+        }
+
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            List<String> ceps = transactionTemplate.execute(status -> {
+                List<String> vencidos = atividadeRepository.findCepsGeocodificacaoPendente(agora, Limit.of(batchSize));
+                if (!vencidos.isEmpty()) {
+                    atividadeRepository.adiarGeocodificacao(vencidos, agora.plus(Duration.ofMillis(lockDurationMs)));
+                }
+                return vencidos;
+            });
+            if (ceps != null) {
+                ceps.forEach(this::agendar);
+            }
+        } finally {
+            schedulerLockService.release(LOCK);
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private void agendar(String cep) {
+        if (cep == null || !emAndamento.add(cep)) {
+            return; // já existe uma consulta para este CEP em andamento
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    resolver(cep);
+                } catch (Exception e) {
+                    log.warn("Erro ao geocodificar o CEP {}.", cep, e);
+                } finally {
+                    emAndamento.remove(cep);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            emAndamento.remove(cep);
+            log.debug("Fila de geocodificação cheia; o CEP {} fica para a próxima varredura.", cep);
+        }
+    }
+
+    void resolver(String cep) {
+        GeocodingService.Consulta consulta = geocodingService.consultar(cep);
+        GeocodingService.Coordenadas coords = consulta.coordenadas();
+
+        if (coords == null) {
+            consultasComFalha.increment();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (consulta.cepInexistente()) {
+                    List<UUID> ids = atividadeRepository.findIdsGeocodificacaoPendenteByCep(cep);
+                    if (!ids.isEmpty()) {
+                        atividadeRepository.registrarCepInexistente(ids);
+                        registrarFalhaDefinitiva(ids, cep, "CEP_INEXISTENTE");
+                    }
+                    return;
+                }
+                // Provedores fora: tenta de novo com espera exponencial, até esgotar as tentativas
+                List<UUID> esgotadas = atividadeRepository.findIdsGeocodificacaoEsgotadaByCep(cep, maxTentativas);
+                int tentativas = atividadeRepository.findMaxTentativasGeocodificacaoByCep(cep).orElse(0) + 1;
+                long espera = Math.min(backoffMaxMs, backoffInicialMs << Math.min(tentativas - 1, 20));
+                atividadeRepository.registrarFalhaGeocodificacao(cep, LocalDateTime.now().plus(Duration.ofMillis(espera)), maxTentativas);
+                registrarFalhaDefinitiva(esgotadas, cep, "TENTATIVAS_ESGOTADAS");
+            });
+            return;
+        }
+
+        Integer resolvidas = transactionTemplate.execute(status -> {
+            List<UUID> ids = atividadeRepository.findIdsGeocodificacaoPendenteByCep(cep);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            int atualizadas = atividadeRepository.resolverGeocodificacao(ids, coords.latitude(), coords.longitude());
+            for (UUID id : ids) {
+                outboxService.registrar(TipoEvento.ATIVIDADE_GEOCODIFICADA, id,
+                        Map.of("atividadeId", id, "latitude", coords.latitude(), "longitude", coords.longitude()));
+            }
+            atividadeDetalheCache.invalidate(ids);
+            return atualizadas;
+        });
+        atividadesResolvidas.increment(resolvidas != null ? resolvidas : 0);
+    }
+
+    private void registrarFalhaDefinitiva(List<UUID> ids, String cep, String motivo) {
+        for (UUID id : ids) {
+            outboxService.registrar(TipoEvento.ATIVIDADE_GEOCODIFICACAO_FALHOU, id,
+                    Map.of("atividadeId", id, "cep", cep, "motivo", motivo));
+        }
+        if (!ids.isEmpty()) {
+            atividadeDetalheCache.invalidate(ids);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordenadas do CEP cadastrado pelo usuário, obtidas fora da transação do cadastro/alteração: a consulta
+ * às APIs de CEP (que pode levar segundos) roda depois do commit, numa thread própria, e não segura uma
+ * conexão do banco nem é paga por cadastros recusados. Se as APIs estiverem fora, as coordenadas ficam nulas
+ * e são obtidas na primeira busca "perto de mim" (findCoordenadas).
+ */
+@Service
+@Slf4j
+public class GeocodificacaoUsuarioService {
+
+    private final UserRepository userRepository;
+    private final GeocodingService geocodingService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Counter consultasComFalha;
+
+    public GeocodificacaoUsuarioService(UserRepository userRepository,
+                                        GeocodingService geocodingService,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${usuarios.geocodificacao.threads:2}") int threads,
+                                        @Value("${usuarios.geocodificacao.queue-capacity:1000}") int queueCapacity) {
+        this.userRepository = userRepository;
+        this.geocodingService = geocodingService;
+        this.transactionTemplate = transactionTemplate;
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                tarefa -> {
+                    Thread thread = new Thread(tarefa, "geocodificacao-usuario-" + contador.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.consultasComFalha = Counter.builder("usuarios.geocodificacao.falhas")
+                .description("Consultas de CEP de usuários que não retornaram coordenadas")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Agenda a consulta do CEP para depois do commit (ou já, fora de uma transação).
+     * Um cadastro desfeito, como um e-mail já em uso, não chega a consultar as APIs.
+     */
+    public void agendar(UUID usuarioId, String cep) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enfileirar(usuarioId, cep);
+                }
+            });
+        } else {
+            enfileirar(usuarioId, cep);
+        }
+    }
+
+    /**
+     * Coordenadas salvas do usuário, sem chamada externa. Se ainda não existem (APIs de CEP fora no cadastro
+     * ou consulta ainda na fila), consulta o CEP agora, sem transação aberta, e grava para as próximas buscas.
+     */
+    public GeocodingService.Coordenadas findCoordenadas(User usuario) {
+        if (usuario.getLatitude() != null && usuario.getLongitude() != null) {
+            return new GeocodingService.Coordenadas(usuario.getLatitude(), usuario.getLongitude());
+        }
+
+        GeocodingService.Coordenadas coords = resolver(usuario.getId(), usuario.getCep());
+        if (coords == null) {
+            throw new EntityNotFoundException("Não foi possível encontrar coordenadas para o CEP cadastrado: " + usuario.getCep());
+        }
+        return coords;
+    }
+
+    @PreDestroy
+    void encerrar() {
+        executor.shutdownNow();
+    }
+
+    private void enfileirar(UUID usuarioId, String cep) {
+        try {
+            executor.execute(() -> {
+                try {
+                    resolver(usuarioId, cep);
+                } catch (Exception e) {
+                    log.warn("Erro ao geocodificar o CEP {} do usuário {}.", cep, usuarioId, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Fila de geocodificação de usuários cheia; o usuário {} fica para a primeira busca.", usuarioId);
+        }
+    }
+
+    private GeocodingService.Coordenadas resolver(UUID usuarioId, String cep) {
+        GeocodingService.Coordenadas coords = geocodingService.getCoordinates(cep);
+        if (coords == null) {
+            consultasComFalha.increment();
+            return null;
+        }
+        // Só grava se o CEP ainda for o consultado (o usuário pode ter trocado de CEP no meio tempo)
+        transactionTemplate.executeWithoutResult(status ->
+                userRepository.atualizarCoordenadas(usuarioId, cep, coords.latitude(), coords.longitude()));
+        return coords;
+    }
+}
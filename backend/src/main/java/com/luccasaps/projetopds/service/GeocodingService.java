@@ -1,15 +1,30 @@
 package com.luccasaps.projetopds.service;
 
 import com.luccasaps.projetopds.controller.dto.GeocodingResponseDTO;
-import com.luccasaps.projetopds.dto.OpenCageResponseDTO;
+import com.luccasaps.projetopds.controller.dto.OpenCageResponseDTO;
+import com.luccasaps.projetopds.observability.RequestTiming;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Coordenadas de um CEP via Brasil API e OpenCage. Cada provedor tem um disjuntor (CircuitBreaker):
+ * um provedor fora do ar é pulado sem custo até a espera acabar, e a ordem das tentativas segue
+ * o provedor mais saudável e mais rápido no momento, em vez de uma ordem fixa.
+ */
 @Service
+@Slf4j
 public class GeocodingService {
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
     @Value("${geocoding.opencage.api-key}")
     private String openCageApiKey;
@@ -17,44 +32,112 @@ public class GeocodingService {
     // Criamos um record simples para retornar as coordenadas de forma padronizada
     public record Coordenadas(Double latitude, Double longitude) {}
 
+    // Sem coordenadas, 'cepInexistente' diz se todos os provedores responderam que não conhecem o CEP (ou o CEP
+    // nem tem 8 dígitos), o que não muda tentando de novo; senão, algum provedor estava fora e vale repetir depois
+    public record Consulta(Coordenadas coordenadas, boolean cepInexistente) {}
+
+    // 'consulta' devolve null quando o provedor respondeu, mas não tem coordenadas para o CEP
+    private record Provedor(CircuitBreaker circuito, Function<String, Coordenadas> consulta) {}
+
+    private final List<Provedor> provedores;
+
+    public GeocodingService(@Qualifier("outboundRestTemplate") RestTemplate restTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${geocoding.circuit-breaker.janela:20}") int janela,
+                            @Value("${geocoding.circuit-breaker.min-chamadas:5}") int minChamadas,
+                            @Value("${geocoding.circuit-breaker.taxa-falha:0.5}") double taxaFalha,
+                            @Value("${geocoding.circuit-breaker.espera-aberto-ms:30000}") long esperaAbertoMs,
+                            @Value("${geocoding.circuit-breaker.chamadas-meio-aberto:2}") int chamadasMeioAberto,
+                            @Value("${geocoding.circuit-breaker.ewma-alpha:0.2}") double ewmaAlpha) {
+        CircuitBreaker.Config config = new CircuitBreaker.Config(
+                janela, minChamadas, taxaFalha, esperaAbertoMs, chamadasMeioAberto, ewmaAlpha);
+        this.restTemplate = restTemplate;
+
+        // A ordem da lista só desempata provedores ainda sem medição
+        this.provedores = List.of(
+                new Provedor(new CircuitBreaker("brasilapi", config, meterRegistry), this::consultarBrasilApi),
+                new Provedor(new CircuitBreaker("opencage", config, meterRegistry), this::consultarOpenCage)
+        );
+    }
+
     public Coordenadas getCoordinates(String cep) {
+        return consultar(cep).coordenadas();
+    }
+
+    public Consulta consultar(String cep) {
+        long inicio = RequestTiming.inicio();
+        try {
+            return consultarProvedores(cep);
+        } finally {
+            RequestTiming.registrar(RequestTiming.Fase.GEOCODING, inicio);
+        }
+    }
+
+    private Consulta consultarProvedores(String cep) {
         String cepLimpo = cep.replaceAll("[^0-9]", "");
         if (cepLimpo.length() != 8) {
-            return null;
+            return new Consulta(null, true);
         }
 
-        // --- TENTATIVA 1: Brasil API ---
-        try {
-            String urlBrasilApi = "https://brasilapi.com.br/api/cep/v2/" + cepLimpo;
-            GeocodingResponseDTO response = restTemplate.getForObject(urlBrasilApi, GeocodingResponseDTO.class);
+        List<Provedor> ordenados = provedores.stream()
+                .sorted(Comparator.comparingDouble(p -> p.circuito().custo()))
+                .toList();
 
-            if (response != null && response.location() != null && response.location().coordinates() != null && response.location().coordinates().latitude() != null) {
-                System.out.println("LOG DE DEBUG: Coordenadas encontradas via Brasil API.");
-                return new Coordenadas(response.location().coordinates().latitude(), response.location().coordinates().longitude());
+        boolean algumIndisponivel = false;
+        for (Provedor provedor : ordenados) {
+            CircuitBreaker circuito = provedor.circuito();
+            if (!circuito.permitirChamada()) {
+                log.debug("Provedor {} com disjuntor aberto; pulando.", circuito.getNome());
+                algumIndisponivel = true;
+                continue;
             }
-        } catch (Exception e) {
-            System.err.println("LOG DE ERRO: Brasil API falhou. Causa: " + e.getMessage());
-        }
 
-        // --- TENTATIVA 2: OpenCage API (Fallback) ---
-        System.out.println("LOG DE DEBUG: Fallback para OpenCage API.");
-        try {
-            // A consulta do OpenCage pode ser mais genérica, usando o CEP e "Brasil"
-            String urlOpenCage = String.format("https://api.opencagedata.com/geocode/v1/json?q=%s, Brasil&key=%s", cepLimpo, openCageApiKey);
-            OpenCageResponseDTO response = restTemplate.getForObject(urlOpenCage, OpenCageResponseDTO.class);
-
-            if (response != null && response.results() != null && !response.results().isEmpty()) {
-                OpenCageResponseDTO.Geometry geometry = response.results().get(0).geometry();
-                if (geometry != null && geometry.latitude() != null) {
-                    System.out.println("LOG DE DEBUG: Coordenadas encontradas via OpenCage API.");
-                    return new Coordenadas(geometry.latitude(), geometry.longitude());
+            long inicio = System.nanoTime();
+            try {
+                Coordenadas coordenadas = provedor.consulta().apply(cepLimpo);
+                circuito.registrarSucesso(System.nanoTime() - inicio);
+                if (coordenadas != null) {
+                    log.debug("Coordenadas encontradas via {}.", circuito.getNome());
+                    return new Consulta(coordenadas, false);
                 }
+            } catch (HttpClientErrorException.NotFound | HttpClientErrorException.BadRequest e) {
+                // O provedor está no ar e respondeu que não conhece o CEP: não conta como falha
+                circuito.registrarSucesso(System.nanoTime() - inicio);
+                log.debug("Provedor {} não encontrou o CEP {}.", circuito.getNome(), cepLimpo);
+            } catch (Exception e) {
+                circuito.registrarFalha(System.nanoTime() - inicio);
+                log.warn("Provedor {} falhou: {}", circuito.getNome(), e.getMessage());
+                algumIndisponivel = true;
             }
-        } catch (Exception e) {
-            System.err.println("LOG DE ERRO: OpenCage API (fallback) também falhou. Causa: " + e.getMessage());
         }
 
-        // Se ambas as APIs falharem, retorna nulo
+        // Nenhum provedor disponível tinha as coordenadas
+        return new Consulta(null, !algumIndisponivel);
+    }
+
+    private Coordenadas consultarBrasilApi(String cepLimpo) {
+        // Template de URI: a métrica http.client.requests agrupa por template, não por CEP
+        GeocodingResponseDTO response = restTemplate.getForObject(
+                "https://brasilapi.com.br/api/cep/v2/{cep}", GeocodingResponseDTO.class, cepLimpo);
+
+        if (response != null && response.location() != null && response.location().coordinates() != null && response.location().coordinates().latitude() != null) {
+            return new Coordenadas(response.location().coordinates().latitude(), response.location().coordinates().longitude());
+        }
+        return null;
+    }
+
+    private Coordenadas consultarOpenCage(String cepLimpo) {
+        // A consulta do OpenCage pode ser mais genérica, usando o CEP e "Brasil"
+        OpenCageResponseDTO response = restTemplate.getForObject(
+                "https://api.opencagedata.com/geocode/v1/json?q={q}&key={key}", OpenCageResponseDTO.class,
+                cepLimpo + ", Brasil", openCageApiKey);
+
+        if (response != null && response.results() != null && !response.results().isEmpty()) {
+            OpenCageResponseDTO.Geometry geometry = response.results().get(0).geometry();
+            if (geometry != null && geometry.latitude() != null) {
+                return new Coordenadas(geometry.latitude(), geometry.longitude());
+            }
+        }
         return null;
     }
-}
\ No newline at end of file
+}
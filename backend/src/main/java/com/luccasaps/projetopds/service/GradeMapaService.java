@@ -0,0 +1,283 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.CelulaMapaDTO;
+import com.luccasaps.projetopds.controller.dto.GradeMapaDTO;
+import com.luccasaps.projetopds.model.OutboxEvento;
+import com.luccasaps.projetopds.model.TipoEvento;
+import com.luccasaps.projetopds.outbox.OutboxEventHandler;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Grade em memória das atividades abertas (com coordenadas) para a visão de mapa: para cada nível de quadkey
+ * (0 a Quadkey.NIVEL_MAXIMO), quantidade e soma das coordenadas por célula e modalidade. Uma consulta lê
+ * só as células dentro do viewport, então o custo e o tamanho da resposta dependem do número de células,
+ * não do número de atividades.
+ * A grade é atualizada pelos eventos do outbox (cada evento relê a atividade pelo ID) e reconstruída
+ * periodicamente a partir do banco. Só a instância que despacha o outbox recebe os eventos; as demais leem
+ * os eventos novos da tabela a cada 'sincronizacao-interval-ms' (a que despacha também, sem efeito, já que
+ * a atualização é idempotente). A reconstrução roda em todas as instâncias e corrige o que muda sem evento
+ * (ex.: atividades encerradas pelo job de ciclo de vida) e eventos com ID menor gravados depois da leitura.
+ */
+@Service
+@Slf4j
+public class GradeMapaService implements OutboxEventHandler {
+
+    private static final Set<TipoEvento> EVENTOS = EnumSet.of(
+            TipoEvento.ATIVIDADE_CRIADA, TipoEvento.ATIVIDADE_ATUALIZADA, TipoEvento.ATIVIDADE_EXCLUIDA,
+            TipoEvento.ATIVIDADE_GEOCODIFICADA, TipoEvento.INSCRICAO_REALIZADA, TipoEvento.INSCRICAO_CANCELADA);
+
+    private final AtividadeRepository atividadeRepository;
+    private final OutboxEventoRepository outboxEventoRepository;
+    private final Timer tempoReconstrucao;
+
+    private volatile Grade grade = new Grade();
+    // IDs alterados durante uma reconstrução, reaplicados na grade nova depois da troca
+    private volatile Set<UUID> alteradosDuranteReconstrucao;
+    // Último evento do outbox já refletido na grade; negativo até a primeira reconstrução
+    private long ultimoEventoLido = -1;
+
+    @Value("${atividades.mapa.max-celulas:1024}")
+    private int maxCelulas;
+
+    @Value("${atividades.mapa.sincronizacao-lote:500}")
+    private int loteSincronizacao;
+
+    public GradeMapaService(AtividadeRepository atividadeRepository, OutboxEventoRepository outboxEventoRepository,
+                            MeterRegistry meterRegistry) {
+        this.atividadeRepository = atividadeRepository;
+        this.outboxEventoRepository = outboxEventoRepository;
+
+        this.tempoReconstrucao = Timer.builder("atividades.mapa.reconstrucao")
+                .description("Tempo para reconstruir a grade do mapa a partir do banco")
+                .register(meterRegistry);
+        Gauge.builder("atividades.mapa.pontos", this, s -> s.grade.pontos.size())
+                .description("Atividades abertas na grade do mapa")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Células do viewport (norte/sul/leste/oeste em graus) no nível adequado ao zoom do mapa,
+     * opcionalmente só com as modalidades informadas. O nível é reduzido até caber em 'max-celulas'.
+     */
+    public GradeMapaDTO agregar(double norte, double sul, double leste, double oeste, int zoom, Set<String> modalidades) {
+        if (norte < sul || norte > 90 || sul < -90 || Math.abs(leste) > 180 || Math.abs(oeste) > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "VIEWPORT_INVALIDO");
+        }
+
+        // Células de ~64 px em um tile de 256 px do zoom pedido
+        int nivel = Math.clamp(zoom + 2, 0, Quadkey.NIVEL_MAXIMO);
+        while (nivel > 0 && quantidadeDeCelulas(norte, sul, leste, oeste, nivel) > maxCelulas) {
+            nivel--;
+        }
+
+        int y0 = Quadkey.tileY(norte, nivel);
+        int y1 = Quadkey.tileY(sul, nivel);
+        int x0 = Quadkey.tileX(oeste, nivel);
+        int largura = larguraEmTiles(oeste, leste, nivel);
+        int tiles = 1 << nivel;
+
+        Grade atual = grade;
+        Map<Long, Celula> celulasDoNivel = atual.niveis.get(nivel);
+        List<CelulaMapaDTO> resultado = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < largura; i++) {
+            int x = (x0 + i) % tiles; // viewport que cruza o antimeridiano
+            for (int y = y0; y <= y1; y++) {
+                Celula celula = celulasDoNivel.get(chave(x, y));
+                CelulaMapaDTO dto = celula != null ? celula.paraDTO(Quadkey.quadkey(x, y, nivel), modalidades) : null;
+                if (dto != null) {
+                    resultado.add(dto);
+                    total += dto.quantidade();
+                }
+            }
+        }
+        return new GradeMapaDTO(nivel, total, resultado);
+    }
+
+    @Override
+    public boolean suporta(TipoEvento tipo) {
+        return EVENTOS.contains(tipo);
+    }
+
+    // Idempotente: relê o estado atual da atividade, então reentregas e eventos fora de ordem não distorcem a grade
+    @Override
+    public void processar(OutboxEvento evento) {
+        atualizar(UUID.fromString(evento.getAgregadoId()));
+    }
+
+    @Scheduled(fixedDelayString = "${atividades.mapa.reconstrucao-interval-ms:300000}",
+            initialDelayString = "${atividades.mapa.initial-delay-ms:0}")
+    public synchronized void reconstruir() {
+        Set<UUID> alterados = ConcurrentHashMap.newKeySet();
+        alteradosDuranteReconstrucao = alterados;
+        Grade nova = new Grade();
+        long ultimoEvento;
+        try {
+            // Lido antes das atividades: os eventos seguintes são reaplicados pela sincronização (idempotente)
+            ultimoEvento = outboxEventoRepository.findUltimoId();
+            tempoReconstrucao.record(() -> atividadeRepository.findPontosMapa().forEach(t -> nova.colocar(ponto(t))));
+            grade = nova;
+        } finally {
+            // Se a leitura falhar, a grade anterior continua valendo e os eventos param de ser acumulados
+            alteradosDuranteReconstrucao = null;
+        }
+
+        ultimoEventoLido = ultimoEvento;
+        alterados.forEach(this::atualizar);
+        log.debug("Grade do mapa reconstruída com {} atividades.", nova.pontos.size());
+    }
+
+    /**
+     * Aplica os eventos gravados no outbox desde a última leitura, inclusive os despachados por outra instância.
+     */
+    @Scheduled(fixedDelayString = "${atividades.mapa.sincronizacao-interval-ms:5000}",
+            initialDelayString = "${atividades.mapa.sincronizacao-interval-ms:5000}")
+    public synchronized void sincronizar() {
+        if (ultimoEventoLido < 0) {
+            return; // a grade ainda não foi construída; a reconstrução lê tudo
+        }
+        List<Tuple> eventos;
+        do {
+            eventos = outboxEventoRepository.findAgregadosDesde(ultimoEventoLido, EVENTOS, Limit.of(loteSincronizacao));
+            for (Tuple evento : eventos) {
+                atualizar(UUID.fromString(evento.get("agregadoId", String.class)));
+                ultimoEventoLido = evento.get("id", Long.class);
+            }
+        } while (eventos.size() == loteSincronizacao);
+    }
+
+    private void atualizar(UUID atividadeId) {
+        Set<UUID> alterados = alteradosDuranteReconstrucao;
+        if (alterados != null) {
+            alterados.add(atividadeId); // antes da leitura: se a reconstrução leu um estado anterior, é reaplicado
+        }
+
+        atividadeRepository.findPontoMapaById(atividadeId).ifPresentOrElse(
+                t -> grade.colocar(ponto(t)),
+                () -> grade.remover(atividadeId));
+    }
+
+    private static Ponto ponto(Tuple t) {
+        double latitude = t.get("latitude", Double.class);
+        double longitude = t.get("longitude", Double.class);
+        return new Ponto(t.get("id", UUID.class), latitude, longitude, t.get("modalidade", String.class),
+                Quadkey.tileX(longitude, Quadkey.NIVEL_MAXIMO), Quadkey.tileY(latitude, Quadkey.NIVEL_MAXIMO));
+    }
+
+    private static long quantidadeDeCelulas(double norte, double sul, double leste, double oeste, int nivel) {
+        long altura = Quadkey.tileY(sul, nivel) - Quadkey.tileY(norte, nivel) + 1L;
+        return altura * larguraEmTiles(oeste, leste, nivel);
+    }
+
+    private static int larguraEmTiles(double oeste, double leste, int nivel) {
+        int x0 = Quadkey.tileX(oeste, nivel);
+        int x1 = Quadkey.tileX(leste, nivel);
+        return x0 <= x1 ? x1 - x0 + 1 : (1 << nivel) - x0 + x1 + 1;
+    }
+
+    private static long chave(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    // x e y são os tiles no nível máximo; os dos outros níveis saem por deslocamento
+    private record Ponto(UUID id, double latitude, double longitude, String modalidade, int x, int y) {}
+
+    private static final class Grade {
+
+        final Map<UUID, Ponto> pontos = new ConcurrentHashMap<>();
+        final List<Map<Long, Celula>> niveis = new ArrayList<>(Quadkey.NIVEL_MAXIMO + 1);
+
+        Grade() {
+            for (int nivel = 0; nivel <= Quadkey.NIVEL_MAXIMO; nivel++) {
+                niveis.add(new ConcurrentHashMap<>());
+            }
+        }
+
+        // Escritas são raras (eventos e reconstrução) e serializadas; leituras só travam a célula lida
+        synchronized void colocar(Ponto ponto) {
+            Ponto anterior = pontos.put(ponto.id(), ponto);
+            if (anterior != null) {
+                alterar(anterior, -1);
+            }
+            alterar(ponto, 1);
+        }
+
+        synchronized void remover(UUID id) {
+            Ponto anterior = pontos.remove(id);
+            if (anterior != null) {
+                alterar(anterior, -1);
+            }
+        }
+
+        private void alterar(Ponto ponto, int delta) {
+            for (int nivel = 0; nivel <= Quadkey.NIVEL_MAXIMO; nivel++) {
+                int deslocamento = Quadkey.NIVEL_MAXIMO - nivel;
+                long chave = chave(ponto.x() >>> deslocamento, ponto.y() >>> deslocamento);
+                Map<Long, Celula> celulas = niveis.get(nivel);
+                if (delta > 0) {
+                    celulas.computeIfAbsent(chave, k -> new Celula()).somar(ponto, delta);
+                } else {
+                    // A célula vazia sai do mapa, então o tamanho da grade acompanha as atividades abertas
+                    celulas.computeIfPresent(chave, (k, celula) -> celula.somar(ponto, delta) ? null : celula);
+                }
+            }
+        }
+    }
+
+    private static final class Celula {
+
+        private final Map<String, double[]> porModalidade = new HashMap<>(4); // {quantidade, soma lat, soma lon}
+
+        // true quando a célula ficou vazia
+        synchronized boolean somar(Ponto ponto, int delta) {
+            double[] acumulado = porModalidade.computeIfAbsent(ponto.modalidade(), m -> new double[3]);
+            acumulado[0] += delta;
+            acumulado[1] += delta * ponto.latitude();
+            acumulado[2] += delta * ponto.longitude();
+            if (acumulado[0] <= 0) {
+                porModalidade.remove(ponto.modalidade());
+            }
+            return porModalidade.isEmpty();
+        }
+
+        synchronized CelulaMapaDTO paraDTO(String quadkey, Set<String> modalidades) {
+            int quantidade = 0;
+            double somaLat = 0;
+            double somaLon = 0;
+            Map<String, Integer> contagens = new HashMap<>();
+            for (Map.Entry<String, double[]> e : porModalidade.entrySet()) {
+                if (modalidades != null && !modalidades.isEmpty() && !modalidades.contains(e.getKey())) {
+                    continue;
+                }
+                double[] acumulado = e.getValue();
+                quantidade += (int) acumulado[0];
+                somaLat += acumulado[1];
+                somaLon += acumulado[2];
+                contagens.put(e.getKey(), (int) acumulado[0]);
+            }
+            return quantidade == 0 ? null
+                    : new CelulaMapaDTO(quadkey, quantidade, somaLat / quantidade, somaLon / quantidade, contagens);
+        }
+    }
+}
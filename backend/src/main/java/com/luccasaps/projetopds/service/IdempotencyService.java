@@ -0,0 +1,324 @@
+package com.luccasaps.projetopds.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luccasaps.projetopds.model.IdempotencyRecord;
+import com.luccasaps.projetopds.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Suporte ao cabeçalho Idempotency-Key nas operações que os clientes costumam repetir.
+ *
+ * - A primeira requisição com uma chave executa a operação e guarda a resposta (em memória e,
+ *   opcionalmente, na tabela 'idempotency_key').
+ * - Repetições com a mesma chave recebem a resposta guardada, sem executar nada de novo.
+ * - Repetições que chegam enquanto a primeira ainda está em andamento esperam por ela
+ *   e recebem o mesmo resultado.
+ * - Falhas não são guardadas: o cliente pode tentar de novo com a mesma chave.
+ * - A memória guarda no máximo 'max-keys' respostas: ao passar disso, uma thread própria descarta as mais
+ *   antigas (na ordem de conclusão, sem percorrer o mapa), fora da requisição. Com 'persistent', as
+ *   descartadas continuam na tabela.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String HEADER_REPLAY = "Idempotent-Replayed";
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 128;
+
+    private record RespostaArmazenada(int status, String location, Object corpo) {}
+
+    private record Concluida(String chave, Execucao execucao) {}
+
+    private static final class Execucao {
+        private final String fingerprint;
+        private final CompletableFuture<RespostaArmazenada> resultado = new CompletableFuture<>();
+        private volatile long expiraEmNanos;
+
+        private Execucao(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private void concluir(RespostaArmazenada resposta, long ttlNanos) {
+            expiraEmNanos = System.nanoTime() + ttlNanos;
+            resultado.complete(resposta);
+        }
+
+        // Execuções em andamento nunca expiram; só as concluídas, depois do TTL
+        private boolean isExpirada(long agoraNanos) {
+            return resultado.isDone() && agoraNanos - expiraEmNanos > 0;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Execucao> execucoes = new ConcurrentHashMap<>();
+    // Execuções concluídas em ordem de conclusão; com o TTL fixo, também é a ordem de expiração
+    private final ConcurrentLinkedQueue<Concluida> concluidas = new ConcurrentLinkedQueue<>();
+    // Uma thread para o descarte: no máximo uma poda em andamento e uma na fila; as demais são descartadas
+    private final ThreadPoolExecutor podador = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(1),
+            tarefa -> {
+                Thread thread = new Thread(tarefa, "idempotency-poda");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.DiscardPolicy());
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final long ttlMs;
+    private final int maxKeys;
+    private final boolean persistent;
+    private final long waitTimeoutMs;
+
+    public IdempotencyService(IdempotencyRecordRepository idempotencyRecordRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-ms:86400000}") long ttlMs,
+                              @Value("${idempotency.max-keys:50000}") int maxKeys,
+                              @Value("${idempotency.persistent:false}") boolean persistent,
+                              @Value("${idempotency.wait-timeout-ms:30000}") long waitTimeoutMs) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.ttlMs = ttlMs;
+        this.maxKeys = maxKeys;
+        this.persistent = persistent;
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.podador.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Executa a 'acao' no máximo uma vez por chave dentro do escopo informado.
+     *
+     * @param chave      valor do cabeçalho Idempotency-Key (sem chave, a ação é executada normalmente)
+     * @param escopo     identifica o usuário e a rota, para que chaves de clientes diferentes não colidam
+     * @param requisicao corpo/parâmetros da requisição; reusar a chave com outros dados retorna 422
+     * @param tipoCorpo  tipo do corpo da resposta (para ler a resposta guardada na tabela)
+     */
+    public <T> ResponseEntity<T> executar(String chave, String escopo, Object requisicao,
+                                          Class<T> tipoCorpo, Supplier<ResponseEntity<T>> acao) {
+        if (!StringUtils.hasText(chave)) {
+            return acao.get();
+        }
+        if (chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "IDEMPOTENCY_KEY_INVALIDA");
+        }
+
+        // Hash de escopo + chave: tamanho fixo na memória e na coluna 'chave', qualquer que seja o username
+        String chaveCompleta = sha256((escopo + ":" + chave).getBytes(StandardCharsets.UTF_8));
+        String fingerprint = fingerprint(requisicao);
+
+        // 1. Já existe uma execução (concluída ou em andamento) para esta chave?
+        Execucao existente = buscarValida(chaveCompleta);
+        if (existente == null && persistent) {
+            existente = carregarDaTabela(chaveCompleta, tipoCorpo);
+        }
+        if (existente != null) {
+            return repetir(existente, fingerprint, tipoCorpo);
+        }
+
+        // 2. Mantém o mapa limitado: a poda roda em segundo plano. Só passa do dobro do limite se a poda não
+        //    der conta (ou tudo estiver em andamento); aí recusa em vez de executar sem deduplicação.
+        if (execucoes.size() >= maxKeys) {
+            podador.execute(this::podar);
+            if (execucoes.size() >= 2L * maxKeys) {
+                log.warn("Limite de chaves de idempotência atingido ({}); recusando a requisição.", maxKeys);
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "IDEMPOTENCY_KEY_LIMIT");
+            }
+        }
+
+        // 3. Registra esta requisição como a "dona" da chave; se outra ganhou a corrida, espera por ela.
+        Execucao nova = new Execucao(fingerprint);
+        Execucao concorrente = execucoes.putIfAbsent(chaveCompleta, nova);
+        if (concorrente != null) {
+            return repetir(concorrente, fingerprint, tipoCorpo);
+        }
+
+        // 4. Executa a operação e guarda a resposta.
+        try {
+            ResponseEntity<T> resposta = acao.get();
+            RespostaArmazenada armazenada = new RespostaArmazenada(
+                    resposta.getStatusCode().value(),
+                    resposta.getHeaders().getFirst(HttpHeaders.LOCATION),
+                    resposta.getBody());
+
+            if (persistent) {
+                salvarNaTabela(chaveCompleta, fingerprint, armazenada);
+            }
+            concluir(chaveCompleta, nova, armazenada);
+            return resposta;
+        } catch (RuntimeException e) {
+            execucoes.remove(chaveCompleta, nova);
+            nova.resultado.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.cleanup-interval-ms:300000}")
+    public void limparExpiradas() {
+        podar();
+
+        if (persistent) {
+            transactionTemplate.executeWithoutResult(status ->
+                    idempotencyRecordRepository.deleteExpirados(LocalDateTime.now()));
+        }
+    }
+
+    @PreDestroy
+    void encerrar() {
+        podador.shutdownNow();
+    }
+
+    // Retira da frente da fila as expiradas e, se o mapa ainda estiver acima do limite, as mais antigas
+    private synchronized void podar() {
+        long agora = System.nanoTime();
+        Concluida maisAntiga;
+        while ((maisAntiga = concluidas.peek()) != null
+                && (maisAntiga.execucao().isExpirada(agora) || execucoes.size() > maxKeys)) {
+            concluidas.poll();
+            execucoes.remove(maisAntiga.chave(), maisAntiga.execucao());
+        }
+    }
+
+    private void concluir(String chaveCompleta, Execucao execucao, RespostaArmazenada resposta) {
+        execucao.concluir(resposta, TimeUnit.MILLISECONDS.toNanos(ttlMs));
+        concluidas.add(new Concluida(chaveCompleta, execucao));
+    }
+
+    private Execucao buscarValida(String chaveCompleta) {
+        Execucao execucao = execucoes.get(chaveCompleta);
+        if (execucao != null && execucao.isExpirada(System.nanoTime())) {
+            execucoes.remove(chaveCompleta, execucao);
+            return null;
+        }
+        return execucao;
+    }
+
+    private <T> ResponseEntity<T> repetir(Execucao execucao, String fingerprint, Class<T> tipoCorpo) {
+        if (!execucao.fingerprint.equals(fingerprint)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "IDEMPOTENCY_KEY_REUSED");
+        }
+
+        RespostaArmazenada resposta;
+        try {
+            resposta = execucao.resultado.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "IDEMPOTENCY_KEY_IN_PROGRESS");
+        } catch (ExecutionException e) {
+            // A execução original falhou: a repetição concorrente recebe o mesmo erro
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(resposta.status())
+                .header(HEADER_REPLAY, "true");
+        if (resposta.location() != null) {
+            builder.header(HttpHeaders.LOCATION, resposta.location());
+        }
+        return builder.body(tipoCorpo.cast(resposta.corpo()));
+    }
+
+    private Execucao carregarDaTabela(String chaveCompleta, Class<?> tipoCorpo) {
+        Optional<IdempotencyRecord> salvo = idempotencyRecordRepository.findByChaveAndExpiraEmAfter(chaveCompleta, LocalDateTime.now());
+        if (salvo.isEmpty()) {
+            return null;
+        }
+
+        IdempotencyRecord record = salvo.get();
+        Object corpo = null;
+        if (record.getCorpo() != null && tipoCorpo != Void.class) {
+            try {
+                corpo = objectMapper.readValue(record.getCorpo(), tipoCorpo);
+            } catch (JsonProcessingException e) {
+                log.warn("Resposta guardada ilegível para a chave {}; executando novamente.", chaveCompleta);
+                return null;
+            }
+        }
+
+        // Guarda também em memória para as próximas repetições
+        Execucao execucao = new Execucao(record.getFingerprint());
+        Execucao concorrente = execucoes.putIfAbsent(chaveCompleta, execucao);
+        if (concorrente != null) {
+            return concorrente;
+        }
+        concluir(chaveCompleta, execucao, new RespostaArmazenada(record.getStatus(), record.getLocation(), corpo));
+        return execucao;
+    }
+
+    private void salvarNaTabela(String chaveCompleta, String fingerprint, RespostaArmazenada resposta) {
+        try {
+            String corpo = resposta.corpo() != null ? objectMapper.writeValueAsString(resposta.corpo()) : null;
+            if (corpo != null && corpo.length() > 8000) {
+                log.debug("Resposta grande demais para a tabela de idempotência; mantida só em memória.");
+                return;
+            }
+
+            LocalDateTime agora = LocalDateTime.now();
+            IdempotencyRecord record = new IdempotencyRecord();
+            record.setChave(chaveCompleta);
+            record.setFingerprint(fingerprint);
+            record.setStatus(resposta.status());
+            record.setLocation(resposta.location());
+            record.setCorpo(corpo);
+            record.setCriadoEm(agora);
+            record.setExpiraEm(agora.plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMs)));
+            idempotencyRecordRepository.save(record);
+        } catch (Exception e) {
+            // A operação já foi executada com sucesso; falhar aqui só perde a deduplicação entre instâncias
+            log.warn("Não foi possível guardar a resposta da chave {}: {}", chaveCompleta, e.toString());
+        }
+    }
+
+    private String fingerprint(Object requisicao) {
+        try {
+            byte[] conteudo = requisicao instanceof String texto
+                    ? texto.getBytes(StandardCharsets.UTF_8)
+                    : objectMapper.writeValueAsBytes(requisicao);
+            return sha256(conteudo);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Não foi possível calcular o fingerprint da requisição.", e);
+        }
+    }
+
+    private static String sha256(byte[] conteudo) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(conteudo));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível.", e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.luccasaps.projetopds.service;
 
+import com.luccasaps.projetopds.cache.UserProfileCache;
 import com.luccasaps.projetopds.model.Modalidade;
 import com.luccasaps.projetopds.model.User;
 import com.luccasaps.projetopds.repository.ModalidadeRepository;
@@ -12,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -21,6 +23,8 @@ public class ModalidadeService {
 
     private final UserRepository userRepository;
     private final ModalidadeRepository modalidadeRepository;
+    private final UserProfileCache userProfileCache;
+    private final EstatisticasModalidadeService estatisticasModalidadeService;
 
     @Transactional // Garante que toda a operação ocorra em uma única transação
     public void atribuirModalidades(UUID usuarioId, List<String> modalidadesNomes) {
@@ -31,6 +35,8 @@ public class ModalidadeService {
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado com o ID: " + usuarioId));
 
         // 2. Limpa a lista de modalidades atual do usuário para garantir a substituição completa.
+        // (guardando uma cópia para as estatísticas por modalidade)
+        Set<Modalidade> anteriores = new HashSet<>(user.getModalidades());
         user.getModalidades().clear();
 
         // 3. Se a lista de nomes não for vazia, busca as modalidades correspondentes.
@@ -50,8 +56,13 @@ public class ModalidadeService {
             user.setModalidades(new HashSet<>(modalidadesEncontradas));
         }
 
+        estatisticasModalidadeService.registrarModalidadesDoUsuario(anteriores, user.getModalidades());
+
         // 5. Salva o usuário. O JPA/Hibernate se encarregará de atualizar a tabela de junção 'user_modalidade'.
         userRepository.save(user);
+
+        // 6. As modalidades fazem parte do perfil público, que precisa sair do cache.
+        userProfileCache.invalidate(user.getUsername());
     }
 
     public List<Modalidade> findAll(){
@@ -0,0 +1,37 @@
+package com.luccasaps.projetopds.service;
+
+/**
+ * Conversões entre coordenadas e tiles da projeção Web Mercator (a mesma dos mapas do front),
+ * e o quadkey de um tile: um dígito (0-3) por nível, do mais grosso ao mais fino.
+ */
+final class Quadkey {
+
+    static final int NIVEL_MAXIMO = 20; // tiles de ~38 m no equador
+    static final double LATITUDE_MAXIMA = 85.05112878;
+
+    private Quadkey() {
+    }
+
+    static int tileX(double longitude, int nivel) {
+        long tiles = 1L << nivel;
+        double x = (longitude + 180) / 360 * tiles;
+        return (int) Math.min(tiles - 1, Math.max(0, (long) Math.floor(x)));
+    }
+
+    static int tileY(double latitude, int nivel) {
+        long tiles = 1L << nivel;
+        double lat = Math.toRadians(Math.clamp(latitude, -LATITUDE_MAXIMA, LATITUDE_MAXIMA));
+        double y = (1 - Math.log(Math.tan(lat) + 1 / Math.cos(lat)) / Math.PI) / 2 * tiles;
+        return (int) Math.min(tiles - 1, Math.max(0, (long) Math.floor(y)));
+    }
+
+    static String quadkey(int x, int y, int nivel) {
+        StringBuilder sb = new StringBuilder(nivel);
+        for (int i = nivel; i > 0; i--) {
+            int mascara = 1 << (i - 1);
+            int digito = ((x & mascara) != 0 ? 1 : 0) + ((y & mascara) != 0 ? 2 : 0);
+            sb.append((char) ('0' + digito));
+        }
+        return sb.toString();
+    }
+}
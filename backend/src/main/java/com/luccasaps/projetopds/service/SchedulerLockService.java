@@ -0,0 +1,40 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.repository.SchedulerLockRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Trava distribuída baseada em uma linha da tabela 'scheduler_lock'.
+ * Cada job agendado adquire a trava antes de rodar; se outra instância já a detém, o job é pulado.
+ * As linhas de cada trava são criadas pelas migrações (db/migration).
+ */
+@Service
+@RequiredArgsConstructor
+public class SchedulerLockService {
+
+    // Identifica esta instância da aplicação (ex: "12345@host-1#c0ffee...")
+    private static final String INSTANCIA = ManagementFactory.getRuntimeMXBean().getName() + "#" + UUID.randomUUID();
+
+    private final SchedulerLockRepository schedulerLockRepository;
+
+    // Cada operação roda em sua própria transação curta, para que a trava fique visível
+    // às outras instâncias imediatamente e não dependa da transação do job.
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String nome, Duration duracao) {
+        LocalDateTime agora = LocalDateTime.now();
+        return schedulerLockRepository.tryAcquire(nome, INSTANCIA, agora, agora.plus(duracao)) == 1;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void release(String nome) {
+        schedulerLockRepository.release(nome, INSTANCIA, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,329 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.AtividadeEmAltaDTO;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.TendenciaCheckpoint;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.TendenciaCheckpointRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Tuple;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ranking de atividades em alta por inscrições e visualizações recentes, sem consultar 'atividade_participantes'.
+ * As requisições só incrementam contadores (LongAdder, sem trava). Um job periódico aplica o decaimento
+ * exponencial (meia-vida configurável), calcula o top-K global, por UF, por modalidade e por UF + modalidade,
+ * e publica uma foto imutável; as consultas leem só essa foto.
+ * Os contadores são de cada instância (cada uma vê as próprias requisições). O checkpoint periódico em
+ * 'tendencia_checkpoint' soma a contribuição de todas: cada instância acrescenta só o que acumulou desde o
+ * próprio checkpoint anterior ao valor gravado (com o decaimento do tempo desde a última gravação), sem apagar
+ * o que as outras gravaram. Na subida, a instância parte da soma restaurada, então um restart não zera o ranking.
+ */
+@Service
+@Slf4j
+public class TendenciaAtividadesService {
+
+    static final String LOCK = "tendencia-checkpoint";
+    static final String TODAS = "*";
+
+    private static final Set<StatusAtividade> STATUS_RANQUEAVEIS = EnumSet.of(StatusAtividade.OPEN, StatusAtividade.CLOSED);
+    private static final int TAMANHO_LOTE = 1000;
+    // Linhas sem contribuição nova por esse número de meias-vidas (menos de 0,1% do valor) são apagadas
+    private static final int MEIAS_VIDAS_RETIDAS = 10;
+
+    private final AtividadeRepository atividadeRepository;
+    private final TendenciaCheckpointRepository checkpointRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer tempoRecalculo;
+
+    private final Map<UUID, Contadores> contadores = new ConcurrentHashMap<>();
+    private volatile Map<Chave, List<AtividadeEmAltaDTO>> ranking = Map.of();
+    private long ultimoRecalculoNanos = System.nanoTime();
+
+    @Value("${atividades.tendencia.meia-vida:6h}")
+    private Duration meiaVida;
+
+    @Value("${atividades.tendencia.peso-inscricao:5.0}")
+    private double pesoInscricao;
+
+    @Value("${atividades.tendencia.peso-visualizacao:1.0}")
+    private double pesoVisualizacao;
+
+    @Value("${atividades.tendencia.top-k:20}")
+    private int topK;
+
+    @Value("${atividades.tendencia.max-atividades:50000}")
+    private int maxAtividades;
+
+    @Value("${atividades.tendencia.pontuacao-minima:0.05}")
+    private double pontuacaoMinima;
+
+    @Value("${atividades.tendencia.lock-duration-ms:120000}")
+    private long lockDurationMs;
+
+    public TendenciaAtividadesService(AtividadeRepository atividadeRepository,
+                                      TendenciaCheckpointRepository checkpointRepository,
+                                      SchedulerLockService schedulerLockService,
+                                      TransactionTemplate transactionTemplate,
+                                      MeterRegistry meterRegistry) {
+        this.atividadeRepository = atividadeRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = transactionTemplate;
+
+        this.tempoRecalculo = Timer.builder("atividades.tendencia.recalculo")
+                .description("Tempo para aplicar o decaimento e recalcular o ranking de atividades em alta")
+                .register(meterRegistry);
+        Gauge.builder("atividades.tendencia.rastreadas", contadores, Map::size)
+                .description("Atividades com pontuação no ranking em memória")
+                .register(meterRegistry);
+    }
+
+    public void registrarVisualizacao(UUID atividadeId) {
+        Contadores c = contadores(atividadeId);
+        if (c != null) {
+            c.visualizacoes.increment();
+        }
+    }
+
+    // Conta só depois do commit: uma inscrição desfeita não sobe a atividade no ranking
+    public void registrarInscricao(UUID atividadeId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            incrementarInscricoes(atividadeId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                incrementarInscricoes(atividadeId);
+            }
+        });
+    }
+
+    /**
+     * Top da foto atual; 'uf' e 'modalidade' nulos valem "todas".
+     */
+    public List<AtividadeEmAltaDTO> findEmAlta(String uf, String modalidade, int limite) {
+        Chave chave = new Chave(
+                uf == null || uf.isBlank() ? TODAS : uf.toUpperCase(Locale.ROOT),
+                modalidade == null || modalidade.isBlank() ? TODAS : modalidade.toLowerCase(Locale.ROOT));
+        List<AtividadeEmAltaDTO> top = ranking.getOrDefault(chave, List.of());
+        return top.size() > limite ? top.subList(0, limite) : top;
+    }
+
+    @Scheduled(fixedDelayString = "${atividades.tendencia.interval-ms:30000}",
+            initialDelayString = "${atividades.tendencia.initial-delay-ms:30000}")
+    public synchronized void recalcular() {
+        tempoRecalculo.record(this::aplicarDecaimentoERanquear);
+    }
+
+    @Scheduled(fixedDelayString = "${atividades.tendencia.checkpoint-interval-ms:300000}",
+            initialDelayString = "${atividades.tendencia.checkpoint-initial-delay-ms:300000}")
+    public void gravarCheckpoint() {
+        if (!schedulerLockService.tryAcquire(LOCK, Duration.ofMillis(lockDurationMs))) {
+            log.debug("Checkpoint do ranking em execução em outra instância; pulando.");
+            return;
+        }
+
+        try {
+            LocalDateTime agora = LocalDateTime.now();
+            // Retira o que esta instância acumulou desde o último checkpoint; volta para os contadores se a gravação falhar
+            Map<UUID, double[]> pendentes = new HashMap<>();
+            synchronized (this) {
+                contadores.forEach((id, c) -> {
+                    if (c.pendenteInscricoes > 0 || c.pendenteVisualizacoes > 0) {
+                        pendentes.put(id, new double[]{c.pendenteInscricoes, c.pendenteVisualizacoes});
+                        c.pendenteInscricoes = 0;
+                        c.pendenteVisualizacoes = 0;
+                    }
+                });
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> somarAoCheckpoint(pendentes, agora));
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    pendentes.forEach((id, p) -> {
+                        Contadores c = contadores.get(id);
+                        if (c != null) {
+                            c.pendenteInscricoes += p[0];
+                            c.pendenteVisualizacoes += p[1];
+                        }
+                    });
+                }
+                throw e;
+            }
+            log.debug("Checkpoint do ranking somou a contribuição de {} atividades.", pendentes.size());
+        } finally {
+            schedulerLockService.release(LOCK);
+        }
+    }
+
+    // Merge com as linhas gravadas (também pelas outras instâncias); a trava do checkpoint evita gravações simultâneas
+    private void somarAoCheckpoint(Map<UUID, double[]> pendentes, LocalDateTime agora) {
+        List<UUID> ids = new ArrayList<>(pendentes.keySet());
+        for (int i = 0; i < ids.size(); i += TAMANHO_LOTE) {
+            List<UUID> lote = ids.subList(i, Math.min(ids.size(), i + TAMANHO_LOTE));
+            Map<UUID, TendenciaCheckpoint> gravadas = new HashMap<>();
+            checkpointRepository.findAllById(lote).forEach(l -> gravadas.put(l.getAtividadeId(), l));
+
+            List<TendenciaCheckpoint> novas = new ArrayList<>();
+            for (UUID id : lote) {
+                double[] p = pendentes.get(id);
+                TendenciaCheckpoint linha = gravadas.get(id);
+                if (linha == null) {
+                    novas.add(new TendenciaCheckpoint(id, p[0], p[1], agora));
+                    continue;
+                }
+                double fator = fatorDecaimento(Duration.between(linha.getAtualizadoEm(), agora).toNanos());
+                linha.setPontuacaoInscricoes(linha.getPontuacaoInscricoes() * fator + p[0]);
+                linha.setPontuacaoVisualizacoes(linha.getPontuacaoVisualizacoes() * fator + p[1]);
+                linha.setAtualizadoEm(agora);
+            }
+            checkpointRepository.saveAll(novas);
+        }
+        // Atividades sem procura há muito tempo (ou excluídas) deixam de ocupar a tabela
+        checkpointRepository.deleteByAtualizadoEmBefore(agora.minus(meiaVida.multipliedBy(MEIAS_VIDAS_RETIDAS)));
+    }
+
+    // Restaura as pontuações somadas de todas as instâncias, com o decaimento desde a última gravação de cada linha.
+    // Entram só na pontuação local, não no pendente: o próximo checkpoint não as soma de novo.
+    @EventListener(ApplicationReadyEvent.class)
+    public void restaurarCheckpoint() {
+        LocalDateTime agora = LocalDateTime.now();
+        int restauradas = 0;
+        synchronized (this) {
+            for (TendenciaCheckpoint linha : checkpointRepository.findAll()) {
+                double fator = fatorDecaimento(Duration.between(linha.getAtualizadoEm(), agora).toNanos());
+                Contadores c = contadores(linha.getAtividadeId());
+                if (c != null) {
+                    c.pontuacaoInscricoes += linha.getPontuacaoInscricoes() * fator;
+                    c.pontuacaoVisualizacoes += linha.getPontuacaoVisualizacoes() * fator;
+                    restauradas++;
+                }
+            }
+        }
+        log.info("Ranking de atividades em alta restaurado com {} atividades.", restauradas);
+        recalcular();
+    }
+
+    private void aplicarDecaimentoERanquear() {
+        long agora = System.nanoTime();
+        double fator = fatorDecaimento(agora - ultimoRecalculoNanos);
+        ultimoRecalculoNanos = agora;
+
+        // 1. Decaimento + eventos desde a última rodada; atividades esquecidas saem da memória
+        Map<UUID, Double> pontuacoes = new HashMap<>();
+        for (Map.Entry<UUID, Contadores> e : contadores.entrySet()) {
+            Contadores c = e.getValue();
+            long inscricoes = c.inscricoes.sumThenReset();
+            long visualizacoes = c.visualizacoes.sumThenReset();
+            c.pontuacaoInscricoes = c.pontuacaoInscricoes * fator + inscricoes;
+            c.pontuacaoVisualizacoes = c.pontuacaoVisualizacoes * fator + visualizacoes;
+            c.pendenteInscricoes = c.pendenteInscricoes * fator + inscricoes;
+            c.pendenteVisualizacoes = c.pendenteVisualizacoes * fator + visualizacoes;
+            double pontuacao = pesoInscricao * c.pontuacaoInscricoes + pesoVisualizacao * c.pontuacaoVisualizacoes;
+            if (pontuacao < pontuacaoMinima) {
+                contadores.remove(e.getKey(), c);
+            } else {
+                pontuacoes.put(e.getKey(), pontuacao);
+            }
+        }
+
+        // 2. Dados das atividades ainda ativas; top-K por chave com heaps de tamanho K
+        Map<Chave, PriorityQueue<AtividadeEmAltaDTO>> heaps = new HashMap<>();
+        List<UUID> ids = new ArrayList<>(pontuacoes.keySet());
+        LocalDate hoje = LocalDate.now();
+        for (int i = 0; i < ids.size(); i += TAMANHO_LOTE) {
+            List<UUID> lote = ids.subList(i, Math.min(ids.size(), i + TAMANHO_LOTE));
+            for (Tuple t : atividadeRepository.findResumosTendencia(lote, STATUS_RANQUEAVEIS, hoje)) {
+                UUID id = t.get("id", UUID.class);
+                String uf = t.get("uf", String.class);
+                String modalidade = t.get("modalidade", String.class);
+                AtividadeEmAltaDTO item = new AtividadeEmAltaDTO(id, t.get("titulo", String.class), modalidade, uf,
+                        t.get("data", LocalDate.class), t.get("horario", LocalTime.class), pontuacoes.get(id));
+
+                adicionar(heaps, new Chave(TODAS, TODAS), item);
+                adicionar(heaps, new Chave(uf, TODAS), item);
+                adicionar(heaps, new Chave(TODAS, modalidade), item);
+                adicionar(heaps, new Chave(uf, modalidade), item);
+            }
+        }
+
+        // 3. Publica a nova foto de uma vez
+        Map<Chave, List<AtividadeEmAltaDTO>> novo = new HashMap<>();
+        heaps.forEach((chave, heap) -> novo.put(chave,
+                heap.stream().sorted(Comparator.comparingDouble(AtividadeEmAltaDTO::pontuacao).reversed()).toList()));
+        ranking = Map.copyOf(novo);
+    }
+
+    private void adicionar(Map<Chave, PriorityQueue<AtividadeEmAltaDTO>> heaps, Chave chave, AtividadeEmAltaDTO item) {
+        PriorityQueue<AtividadeEmAltaDTO> heap = heaps.computeIfAbsent(chave,
+                k -> new PriorityQueue<>(Comparator.comparingDouble(AtividadeEmAltaDTO::pontuacao)));
+        heap.offer(item);
+        if (heap.size() > topK) {
+            heap.poll(); // descarta a menor pontuação
+        }
+    }
+
+    private double fatorDecaimento(long decorridoNanos) {
+        return Math.exp(-Math.log(2) * Math.max(0, decorridoNanos) / meiaVida.toNanos());
+    }
+
+    private void incrementarInscricoes(UUID atividadeId) {
+        Contadores c = contadores(atividadeId);
+        if (c != null) {
+            c.inscricoes.increment();
+        }
+    }
+
+    // null quando o limite de atividades rastreadas foi atingido (a atividade entra quando outra sair)
+    private Contadores contadores(UUID atividadeId) {
+        Contadores c = contadores.get(atividadeId);
+        if (c != null || contadores.size() >= maxAtividades) {
+            return c;
+        }
+        return contadores.computeIfAbsent(atividadeId, id -> new Contadores());
+    }
+
+    private record Chave(String uf, String modalidade) {}
+
+    // Os LongAdder recebem os eventos das requisições; as pontuações só são alteradas pelo recálculo.
+    // 'pendente*' é a parte das pontuações vinda desta instância e ainda não somada ao checkpoint.
+    private static final class Contadores {
+        final LongAdder inscricoes = new LongAdder();
+        final LongAdder visualizacoes = new LongAdder();
+        volatile double pontuacaoInscricoes;
+        volatile double pontuacaoVisualizacoes;
+        volatile double pendenteInscricoes;
+        volatile double pendenteVisualizacoes;
+    }
+}
@@ -1,17 +1,25 @@
 package com.luccasaps.projetopds.service;
 
+import com.luccasaps.projetopds.cache.AtividadeDetalheCache;
+import com.luccasaps.projetopds.cache.UserProfileCache;
 import com.luccasaps.projetopds.controller.dto.UserDTO;
 import com.luccasaps.projetopds.controller.dto.UserResponseDTO;
 import com.luccasaps.projetopds.controller.dto.UserUpdateDTO;
 import com.luccasaps.projetopds.controller.mappers.UserMapper;
 import com.luccasaps.projetopds.model.Atividade;
 import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.model.TipoEvento;
 import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.outbox.OutboxService;
+import com.luccasaps.projetopds.repository.AtividadeArquivadaRepository;
 import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ListaEsperaRepository;
 import com.luccasaps.projetopds.repository.ModalidadeRepository;
 import com.luccasaps.projetopds.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -34,25 +42,24 @@ public class UserService{
     private final ModalidadeRepository modalidadeRepository;
     private final UserMapper userMapper;
     private final AtividadeRepository atividadeRepository;
+    private final AtividadeArquivadaRepository atividadeArquivadaRepository;
+    private final ListaEsperaRepository listaEsperaRepository;
+    private final AtividadeService atividadeService;
+    private final UserProfileCache userProfileCache;
+    private final AtividadeDetalheCache atividadeDetalheCache;
+    private final OutboxService outboxService;
+    private final GeocodificacaoUsuarioService geocodificacaoUsuarioService;
+    private final EstatisticasModalidadeService estatisticasModalidadeService;
+    private final DisponibilidadeCadastroService disponibilidadeCadastroService;
 
     @Transactional
     public User save(UserDTO userDTO){
 
         // normaliza para consistência
+        // (e-mail e username duplicados são barrados pelas restrições únicas no INSERT, ver inserir)
         final String email = userDTO.email().toLowerCase(Locale.ROOT);
         final String username = userDTO.username().toLowerCase(Locale.ROOT); // ajuste ao seu DTO
 
-        // checa e-mail duplicado
-        if (userRepository.findByEmailIgnoreCase(email).isPresent()) {
-            // 409 + code legível para o front
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "EMAIL_TAKEN");
-        }
-
-        // (opcional, mas recomendado) checar username duplicado também
-        if (userRepository.findOptionalByUsername(username).isPresent()) {
-            throw new ResponseStatusException(HttpStatus.CONFLICT, "USERNAME_TAKEN");
-        }
-
         User user = userMapper.toEntity(userDTO);
 
         user.setEmail(email);
@@ -78,7 +85,13 @@ public class UserService{
             user.setModalidades(new HashSet<>(modalidades));
         }
 
-        return userRepository.save(user);
+        User salvo = inserir(user);
+        disponibilidadeCadastroService.registrarCadastro(salvo.getEmail(), salvo.getUsername());
+        geocodificacaoUsuarioService.agendar(salvo.getId(), salvo.getCep()); // depois do commit, fora da transação
+        estatisticasModalidadeService.registrarModalidadesDoUsuario(Set.of(), salvo.getModalidades());
+        outboxService.registrar(TipoEvento.USUARIO_CADASTRADO, salvo.getId(),
+                Map.of("usuarioId", salvo.getId(), "username", salvo.getUsername(), "uf", salvo.getUf()));
+        return salvo;
     }
 
     @Transactional(readOnly = true)
@@ -86,9 +99,9 @@ public class UserService{
         return userRepository.findAll(pageable);
     }
 
-    @Transactional
+    @Transactional(readOnly = true)
     public UserResponseDTO findByUsername(String username){
-        User user = userRepository.findOptionalByUsername(username).orElseThrow(() -> new EntityNotFoundException("Usuario não encontrado com username: " + username));
+        User user = userRepository.findByUsernameFetchModalidades(username).orElseThrow(() -> new EntityNotFoundException("Usuario não encontrado com username: " + username));
 
         return userMapper.toResponseDTO(user);
     }
@@ -98,10 +111,39 @@ public class UserService{
 
         User user = userRepository.findOptionalByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado: " + username));
-
+        String cepAnterior = user.getCep();
+        String emailAnterior = user.getEmail();
 
         userMapper.updateEntityFromDTO(userUpdateDTO, user);
 
+        // E-mail e username com a mesma normalização do cadastro (as restrições únicas comparam o valor gravado)
+        if (userUpdateDTO.email() != null) {
+            user.setEmail(userUpdateDTO.email().toLowerCase(Locale.ROOT));
+        }
+        if (userUpdateDTO.username() != null) {
+            user.setUsername(userUpdateDTO.username().toLowerCase(Locale.ROOT));
+        }
+        // As demais instâncias recebem o e-mail/username novo pelo outbox (DisponibilidadeCadastroService.sincronizar)
+        if (!user.getEmail().equals(emailAnterior) || !user.getUsername().equals(username)) {
+            disponibilidadeCadastroService.registrarCadastro(user.getEmail(), user.getUsername());
+            outboxService.registrar(TipoEvento.USUARIO_ATUALIZADO, user.getId(),
+                    Map.of("usuarioId", user.getId(), "username", user.getUsername()));
+        }
+
+        // Endereço: mesma normalização do cadastro; as coordenadas só são consultadas de novo (depois do commit)
+        // se o CEP mudou, e até lá as antigas deixam de valer
+        if (userUpdateDTO.uf() != null) {
+            user.setUf(userUpdateDTO.uf().toUpperCase(Locale.ROOT));
+        }
+        if (userUpdateDTO.cep() != null) {
+            user.setCep(userUpdateDTO.cep().replaceAll("\\D", ""));
+            if (!user.getCep().equals(cepAnterior)) {
+                user.setLatitude(null);
+                user.setLongitude(null);
+                geocodificacaoUsuarioService.agendar(user.getId(), user.getCep());
+            }
+        }
+
         if (StringUtils.hasText(userUpdateDTO.password())) {
             user.setPassword(passwordEncoder.encode(userUpdateDTO.password()));
         }
@@ -109,26 +151,102 @@ public class UserService{
         // 4. Lógica para atualizar as modalidades
         if (userUpdateDTO.modalidadesNomes() != null) {
             List<Modalidade> modalidades = modalidadeRepository.findByNomeIn(userUpdateDTO.modalidadesNomes());
+            estatisticasModalidadeService.registrarModalidadesDoUsuario(user.getModalidades(), modalidades);
             user.setModalidades(new HashSet<>(modalidades));
         }
 
+        // 5. O perfil público pode estar em cache com o username antigo e/ou o novo
+        userProfileCache.invalidate(username, user.getUsername());
+
         return user;
     }
 
+    /**
+     * Coordenadas salvas do usuário, sem chamada externa. Se ainda não existem (APIs de CEP fora no cadastro,
+     * consulta ainda na fila ou conta anterior a essa coluna), consulta o CEP cadastrado uma vez, sem
+     * transação aberta, e grava para as próximas buscas.
+     */
+    public GeocodingService.Coordenadas findCoordenadas(User usuario) {
+        return geocodificacaoUsuarioService.findCoordenadas(usuario);
+    }
+
+    /**
+     * Um único INSERT (com flush para a violação aparecer aqui, e não no commit); e-mail ou username já em uso
+     * viram 409 com o mesmo código que o front já trata. Os valores chegam em minúsculas e, desde o V14, todos os
+     * gravados também estão; no Postgres os índices uk_usuarios_*_lower garantem isso sem diferenciar maiúsculas.
+     */
+    private User inserir(User user) {
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            String restricao = e.getCause() instanceof ConstraintViolationException violacao && violacao.getConstraintName() != null
+                    ? violacao.getConstraintName()
+                    : String.valueOf(e.getMostSpecificCause().getMessage());
+            restricao = restricao.toLowerCase(Locale.ROOT);
+            if (restricao.contains("uk_usuarios_email")) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "EMAIL_TAKEN");
+            }
+            if (restricao.contains("uk_usuarios_user_name")) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "USERNAME_TAKEN");
+            }
+            throw e;
+        }
+    }
+
     @Transactional
     public void deleteSelf(String username) {
-        // 1. Busca o usuário que será excluído.
-        User user = userRepository.findOptionalByUsername(username)
+        // 1. Busca apenas o ID do usuário que será excluído.
+        UUID userId = userRepository.findIdByUsername(username)
                 .orElseThrow(() -> new EntityNotFoundException("Usuário não encontrado: " + username));
 
-        // 2. Busca e exclui todas as atividades criadas por este usuário para evitar erros de chave estrangeira.
-        List<Atividade> atividadesCriadas = atividadeRepository.findAllByCriador(user);
-        if (!atividadesCriadas.isEmpty()) {
-            atividadeRepository.deleteAll(atividadesCriadas);
+        // 2. Anota as atividades de outras pessoas em que ele ocupa vaga (depois da remoção, as filas delas andam)
+        // ou está na fila: cada remoção gera o mesmo evento de uma saída feita pelo próprio usuário.
+        List<UUID> vagasLiberadas = atividadeRepository.findIdsInscricoesEmAtividadesDeOutros(userId,
+                AtividadeService.STATUS_ATIVOS);
+        List<UUID> filasDeixadas = listaEsperaRepository.findAtividadeIdsEmFilasDeOutros(userId);
+        // As atividades dele que ainda aparecem no mapa e nos detalhes: cada uma recebe ATIVIDADE_EXCLUIDA
+        // (um único INSERT ... SELECT, antes da remoção) e sai do cache de detalhes.
+        List<UUID> atividadesExcluidas = atividadeRepository.findIdsByCriadorIdAndStatusIn(userId,
+                AtividadeService.STATUS_ATIVOS);
+        if (!atividadesExcluidas.isEmpty()) {
+            outboxService.registrarPorAtividadeDoCriador(TipoEvento.ATIVIDADE_EXCLUIDA, userId,
+                    AtividadeService.STATUS_ATIVOS);
+        }
+
+        // 3. Remove, com comandos em massa, tudo o que referencia o usuário para evitar erros de chave estrangeira.
+        // A quantidade de comandos é fixa, não importa quantas atividades ou inscrições o usuário tenha.
+        listaEsperaRepository.deleteByCriadorId(userId);            // filas das atividades criadas por ele
+        listaEsperaRepository.encolherFilasDoUsuario(userId);       // sai das filas de outras atividades
+        listaEsperaRepository.deslocarFilasDoUsuario(userId);
+        listaEsperaRepository.deleteByUsuarioId(userId);
+        atividadeRepository.deleteParticipantesByCriadorId(userId); // inscrições nas atividades criadas por ele
+        atividadeRepository.deleteInscricoesByUsuarioId(userId);    // inscrições dele em atividades de outros
+        atividadeRepository.deleteInBulkByCriadorId(userId);        // as atividades criadas por ele
+        atividadeArquivadaRepository.deleteParticipantesByCriadorId(userId); // o mesmo para o arquivo
+        atividadeArquivadaRepository.deleteInscricoesByUsuarioId(userId);
+        atividadeArquivadaRepository.deleteInBulkByCriadorId(userId);
+        userRepository.deleteModalidadesByUserId(userId);           // associações em user_modalidade
+
+        // 4. Eventos das saídas (antes das promoções, que geram os eventos seguintes das mesmas atividades)
+        // e promoção de quem aguardava nas atividades em que ele ocupava vaga (comandos por atividade afetada).
+        for (UUID atividadeId : vagasLiberadas) {
+            outboxService.registrar(TipoEvento.INSCRICAO_CANCELADA, atividadeId,
+                    Map.of("atividadeId", atividadeId, "usuarioId", userId, "contaExcluida", true));
         }
+        for (UUID atividadeId : filasDeixadas) {
+            outboxService.registrar(TipoEvento.LISTA_ESPERA_SAIDA, atividadeId,
+                    Map.of("atividadeId", atividadeId, "usuarioId", userId, "contaExcluida", true));
+        }
+        atividadeService.preencherVagasLiberadas(vagasLiberadas);
+
+        // 5. Agora, com as dependências removidas, exclui o usuário.
+        userRepository.deleteInBulkById(userId);
+
+        userProfileCache.invalidate(username);
+        atividadeDetalheCache.invalidate(atividadesExcluidas);
 
-        // 3. Agora, com as dependências removidas, exclui o usuário.
-        // O JPA cuidará de remover as associações em tabelas de junção (como user_modalidade).
-        userRepository.delete(user);
+        // As remoções em massa atingem atividades e inscrições de várias modalidades: em vez de calcular
+        // cada diferença, as estatísticas são recalculadas depois do commit.
+        estatisticasModalidadeService.solicitarReconciliacao();
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,4 @@
+-- Coordenadas do CEP do usuário, obtidas no cadastro e quando o CEP muda (busca "perto de mim" sem geocodificar).
+-- Usuários antigos ficam sem coordenadas até a primeira busca por /atividades/proximas/me.
+ALTER TABLE usuarios ADD COLUMN latitude DOUBLE PRECISION;
+ALTER TABLE usuarios ADD COLUMN longitude DOUBLE PRECISION;
@@ -0,0 +1,10 @@
+-- Pontuações do ranking de atividades em alta (TendenciaAtividadesService), gravadas periodicamente
+-- para que um restart não zere o ranking. Sem chave estrangeira: atividades excluídas somem no próximo checkpoint.
+CREATE TABLE tendencia_checkpoint (
+    atividade_id            UUID             NOT NULL PRIMARY KEY,
+    pontuacao_inscricoes    DOUBLE PRECISION NOT NULL,
+    pontuacao_visualizacoes DOUBLE PRECISION NOT NULL,
+    atualizado_em           TIMESTAMP(6)     NOT NULL
+);
+
+INSERT INTO scheduler_lock (nome, bloqueado_ate, bloqueado_por) VALUES ('tendencia-checkpoint', TIMESTAMP '2000-01-01 00:00:00', NULL);
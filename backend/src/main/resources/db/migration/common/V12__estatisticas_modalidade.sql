@@ -0,0 +1,34 @@
+-- Contadores por modalidade mantidos pelas escritas (EstatisticasModalidadeService). Cada modalidade tem
+-- 8 linhas ("faixas"); cada transação soma na faixa sorteada, então escritas simultâneas na mesma modalidade
+-- raramente esperam pela mesma linha. O valor da modalidade é a soma das faixas.
+CREATE TABLE modalidade_estatistica (
+    modalidade_id      BIGINT  NOT NULL,
+    faixa              INTEGER NOT NULL,
+    atividades_ativas  BIGINT  NOT NULL,
+    atividades_lotadas BIGINT  NOT NULL,
+    participantes      BIGINT  NOT NULL,
+    capacidade         BIGINT  NOT NULL,
+    usuarios           BIGINT  NOT NULL,
+    PRIMARY KEY (modalidade_id, faixa),
+    CONSTRAINT fk_modalidade_estatistica_modalidade FOREIGN KEY (modalidade_id) REFERENCES modalidade (id)
+);
+
+-- Começa zerada; a reconciliação feita na subida da aplicação grava os valores reais
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 0, 0, 0, 0, 0, 0 FROM modalidade;
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 1, 0, 0, 0, 0, 0 FROM modalidade;
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 2, 0, 0, 0, 0, 0 FROM modalidade;
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 3, 0, 0, 0, 0, 0 FROM modalidade;
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 4, 0, 0, 0, 0, 0 FROM modalidade;
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 5, 0, 0, 0, 0, 0 FROM modalidade;
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 6, 0, 0, 0, 0, 0 FROM modalidade;
+INSERT INTO modalidade_estatistica (modalidade_id, faixa, atividades_ativas, atividades_lotadas, participantes, capacidade, usuarios)
+SELECT id, 7, 0, 0, 0, 0, 0 FROM modalidade;
+
+INSERT INTO scheduler_lock (nome, bloqueado_ate, bloqueado_por) VALUES ('estatisticas-modalidade', TIMESTAMP '2000-01-01 00:00:00', NULL);
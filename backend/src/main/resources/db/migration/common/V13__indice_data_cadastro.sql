@@ -0,0 +1,2 @@
+-- Cadastros recentes de todas as instâncias entram no filtro de disponibilidade (DisponibilidadeCadastroService)
+CREATE INDEX idx_usuarios_data_cadastro ON usuarios (data_cadastro);
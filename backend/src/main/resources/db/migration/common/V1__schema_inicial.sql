@@ -0,0 +1,101 @@
+-- Esquema inicial, equivalente ao que o Hibernate gerava com ddl-auto: create-drop.
+-- A partir daqui, toda alteração de esquema deve ser feita por uma nova migração.
+
+CREATE TABLE modalidade (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nome VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_modalidade_nome UNIQUE (nome)
+);
+
+CREATE TABLE usuarios (
+    id              UUID         NOT NULL PRIMARY KEY,
+    name            VARCHAR(255) NOT NULL,
+    genero          VARCHAR(20),
+    user_name       VARCHAR(255) NOT NULL,
+    email           VARCHAR(255) NOT NULL,
+    data_nascimento DATE         NOT NULL,
+    password        VARCHAR(255) NOT NULL,
+    phone           VARCHAR(255) NOT NULL,
+    cep             VARCHAR(9)   NOT NULL,
+    uf              VARCHAR(2)   NOT NULL,
+    street          VARCHAR(120) NOT NULL,
+    data_cadastro   TIMESTAMP(6),
+    CONSTRAINT uk_usuarios_user_name UNIQUE (user_name),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE TABLE user_modalidade (
+    user_id       UUID   NOT NULL,
+    modalidade_id BIGINT NOT NULL,
+    PRIMARY KEY (user_id, modalidade_id),
+    CONSTRAINT fk_user_modalidade_usuario FOREIGN KEY (user_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_user_modalidade_modalidade FOREIGN KEY (modalidade_id) REFERENCES modalidade (id)
+);
+
+CREATE TABLE atividade (
+    id            UUID         NOT NULL PRIMARY KEY,
+    criador_id    UUID         NOT NULL,
+    modalidade_id BIGINT       NOT NULL,
+    titulo        VARCHAR(50)  NOT NULL,
+    observacoes   VARCHAR(500),
+    data          DATE         NOT NULL,
+    horario       TIME         NOT NULL,
+    cep           VARCHAR(9),
+    uf            VARCHAR(2),
+    street        VARCHAR(120),
+    latitude      DOUBLE PRECISION,
+    longitude     DOUBLE PRECISION,
+    capacidade    INTEGER,
+    sem_limite    BOOLEAN      NOT NULL,
+    status        VARCHAR(20)  NOT NULL,
+    criado_em     TIMESTAMP(6),
+    atualizado_em TIMESTAMP(6),
+    CONSTRAINT fk_atividade_criador FOREIGN KEY (criador_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_atividade_modalidade FOREIGN KEY (modalidade_id) REFERENCES modalidade (id)
+);
+
+CREATE TABLE atividade_participantes (
+    atividade_id UUID NOT NULL,
+    usuario_id   UUID NOT NULL,
+    PRIMARY KEY (atividade_id, usuario_id),
+    CONSTRAINT fk_atividade_participantes_atividade FOREIGN KEY (atividade_id) REFERENCES atividade (id),
+    CONSTRAINT fk_atividade_participantes_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+CREATE TABLE scheduler_lock (
+    nome          VARCHAR(64)  NOT NULL PRIMARY KEY,
+    bloqueado_ate TIMESTAMP(6) NOT NULL,
+    bloqueado_por VARCHAR(128)
+);
+
+CREATE TABLE atividade_arquivada (
+    id                  UUID         NOT NULL PRIMARY KEY,
+    criador_id          UUID         NOT NULL,
+    modalidade_id       BIGINT       NOT NULL,
+    titulo              VARCHAR(50)  NOT NULL,
+    observacoes         VARCHAR(500),
+    data                DATE         NOT NULL,
+    horario             TIME         NOT NULL,
+    cep                 VARCHAR(9),
+    uf                  VARCHAR(2),
+    street              VARCHAR(120),
+    latitude            DOUBLE PRECISION,
+    longitude           DOUBLE PRECISION,
+    capacidade          INTEGER,
+    sem_limite          BOOLEAN      NOT NULL,
+    status              VARCHAR(20)  NOT NULL,
+    participantes_count INTEGER      NOT NULL,
+    criado_em           TIMESTAMP(6),
+    atualizado_em       TIMESTAMP(6),
+    arquivado_em        TIMESTAMP(6) NOT NULL,
+    CONSTRAINT fk_atividade_arquivada_criador FOREIGN KEY (criador_id) REFERENCES usuarios (id),
+    CONSTRAINT fk_atividade_arquivada_modalidade FOREIGN KEY (modalidade_id) REFERENCES modalidade (id)
+);
+
+-- Sem chave estrangeira para 'usuarios': o histórico guarda apenas os IDs dos participantes
+CREATE TABLE atividade_participantes_arquivada (
+    atividade_id UUID NOT NULL,
+    usuario_id   UUID NOT NULL,
+    PRIMARY KEY (atividade_id, usuario_id),
+    CONSTRAINT fk_atividade_participantes_arquivada_atividade FOREIGN KEY (atividade_id) REFERENCES atividade_arquivada (id)
+);
@@ -0,0 +1,14 @@
+-- Modalidades disponíveis (antes no import.sql)
+INSERT INTO modalidade (nome) VALUES ('corrida');
+INSERT INTO modalidade (nome) VALUES ('musculacao');
+INSERT INTO modalidade (nome) VALUES ('natacao');
+INSERT INTO modalidade (nome) VALUES ('boxe');
+INSERT INTO modalidade (nome) VALUES ('futebol');
+INSERT INTO modalidade (nome) VALUES ('volei');
+INSERT INTO modalidade (nome) VALUES ('ciclismo');
+INSERT INTO modalidade (nome) VALUES ('tenis');
+INSERT INTO modalidade (nome) VALUES ('basquete');
+
+-- Uma linha por job agendado protegido pelo SchedulerLockService
+INSERT INTO scheduler_lock (nome, bloqueado_ate, bloqueado_por) VALUES ('atividade-lifecycle', TIMESTAMP '2000-01-01 00:00:00', NULL);
+INSERT INTO scheduler_lock (nome, bloqueado_ate, bloqueado_por) VALUES ('atividade-arquivamento', TIMESTAMP '2000-01-01 00:00:00', NULL);
@@ -0,0 +1,12 @@
+-- Respostas guardadas por Idempotency-Key (opcional, ver 'idempotency.persistent')
+CREATE TABLE idempotency_key (
+    chave       VARCHAR(255)  NOT NULL PRIMARY KEY,
+    fingerprint VARCHAR(64)   NOT NULL,
+    status      INTEGER       NOT NULL,
+    location    VARCHAR(512),
+    corpo       VARCHAR(8000),
+    criado_em   TIMESTAMP(6)  NOT NULL,
+    expira_em   TIMESTAMP(6)  NOT NULL
+);
+
+CREATE INDEX idx_idempotency_key_expira_em ON idempotency_key (expira_em);
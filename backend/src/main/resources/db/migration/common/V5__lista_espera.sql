@@ -0,0 +1,18 @@
+-- Lista de espera por atividade: a fila ocupa as posições [espera_inicio, espera_fim)
+ALTER TABLE atividade ADD COLUMN espera_inicio BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE atividade ADD COLUMN espera_fim BIGINT NOT NULL DEFAULT 0;
+
+CREATE TABLE atividade_lista_espera (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    atividade_id UUID         NOT NULL,
+    usuario_id   UUID         NOT NULL,
+    posicao      BIGINT       NOT NULL,
+    criado_em    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT uk_lista_espera_atividade_usuario UNIQUE (atividade_id, usuario_id),
+    CONSTRAINT fk_lista_espera_atividade FOREIGN KEY (atividade_id) REFERENCES atividade (id),
+    CONSTRAINT fk_lista_espera_usuario FOREIGN KEY (usuario_id) REFERENCES usuarios (id)
+);
+
+-- Não é UNIQUE: ao sair do meio da fila, as posições seguintes são deslocadas em um único UPDATE
+CREATE INDEX idx_lista_espera_atividade_posicao ON atividade_lista_espera (atividade_id, posicao);
+-- O índice de usuario_id (exclusão de conta) fica em V5_1, só no Postgres: o H2 já indexa a chave estrangeira
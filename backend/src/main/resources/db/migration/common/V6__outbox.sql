@@ -0,0 +1,20 @@
+-- Outbox de eventos de domínio (ver OutboxService / OutboxDispatcher)
+CREATE TABLE outbox_evento (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tipo              VARCHAR(40)   NOT NULL,
+    agregado_tipo     VARCHAR(40)   NOT NULL,
+    agregado_id       VARCHAR(64)   NOT NULL,
+    payload           VARCHAR(4000) NOT NULL,
+    status            VARCHAR(20)   NOT NULL,
+    tentativas        INTEGER       NOT NULL,
+    proxima_tentativa TIMESTAMP(6)  NOT NULL,
+    erro              VARCHAR(500),
+    criado_em         TIMESTAMP(6)  NOT NULL,
+    processado_em     TIMESTAMP(6)
+);
+
+-- Leitura dos pendentes em ordem e verificação de eventos anteriores do mesmo agregado
+CREATE INDEX idx_outbox_status_id ON outbox_evento (status, id);
+CREATE INDEX idx_outbox_agregado ON outbox_evento (agregado_tipo, agregado_id, id);
+
+INSERT INTO scheduler_lock (nome, bloqueado_ate, bloqueado_por) VALUES ('outbox-dispatcher', TIMESTAMP '2000-01-01 00:00:00', NULL);
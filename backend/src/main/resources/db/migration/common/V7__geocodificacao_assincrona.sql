@@ -0,0 +1,13 @@
+-- Geocodificação das atividades em segundo plano (ver GeocodificacaoAtividadeService)
+ALTER TABLE atividade ADD COLUMN geocodificacao_status VARCHAR(20) NOT NULL DEFAULT 'RESOLVIDO';
+ALTER TABLE atividade ADD COLUMN geocodificacao_tentativas INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE atividade ADD COLUMN geocodificacao_proxima_tentativa TIMESTAMP(6);
+
+-- Atividades antigas sem coordenadas entram na fila
+UPDATE atividade
+SET geocodificacao_status = 'PENDENTE', geocodificacao_proxima_tentativa = CURRENT_TIMESTAMP
+WHERE latitude IS NULL OR longitude IS NULL;
+
+CREATE INDEX idx_atividade_geocodificacao ON atividade (geocodificacao_status, geocodificacao_proxima_tentativa);
+
+INSERT INTO scheduler_lock (nome, bloqueado_ate, bloqueado_por) VALUES ('atividade-geocodificacao', TIMESTAMP '2000-01-01 00:00:00', NULL);
@@ -0,0 +1,9 @@
+-- Índices compostos da busca filtrada (GET /atividades/busca, ver AtividadeSpecifications).
+-- Status + janela de datas usa idx_atividade_status_data (V3).
+
+-- Modalidade + status + datas; também atende os filtros só por modalidade. No Postgres substitui o índice
+-- simples (removido em V8_1); no H2 o simples fica, porque sustenta a chave estrangeira de modalidade_id.
+CREATE INDEX idx_atividade_modalidade_status_data ON atividade (modalidade_id, status, data, horario);
+
+-- Status + retângulo do raio (latitude em intervalo, longitude filtrada no próprio índice)
+CREATE INDEX idx_atividade_status_lat_lon ON atividade (status, latitude, longitude);
@@ -0,0 +1,6 @@
+-- Mesma normalização da versão Postgres. O H2 não suporta índices sobre expressões nem blocos DO:
+-- uma colisão ('Ana@x.com' e 'ana@x.com') faz o UPDATE violar uk_usuarios_email / uk_usuarios_user_name
+-- e a migração falha do mesmo jeito, e daqui em diante a aplicação só grava minúsculas.
+
+UPDATE usuarios SET email = lower(email) WHERE email <> lower(email);
+UPDATE usuarios SET user_name = lower(user_name) WHERE user_name <> lower(user_name);
@@ -0,0 +1,12 @@
+-- Mesmos índices da versão Postgres, com duas diferenças:
+-- - o H2 não suporta índices sobre expressões, então upper() de email e username fica apenas na
+--   migração do Postgres; aqui as colunas continuam cobertas pelas constraints UNIQUE;
+-- - o H2 já cria um índice para cada chave estrangeira, então os índices simples de criador_id e
+--   modalidade_id (atividade e atividade_arquivada) seriam duplicados e não são criados.
+
+CREATE INDEX idx_atividade_status_data ON atividade (status, data, horario);
+
+CREATE INDEX idx_atividade_participantes_usuario ON atividade_participantes (usuario_id, atividade_id);
+CREATE INDEX idx_user_modalidade_modalidade ON user_modalidade (modalidade_id, user_id);
+
+CREATE INDEX idx_atividade_participantes_arquivada_usuario ON atividade_participantes_arquivada (usuario_id, atividade_id);
@@ -0,0 +1,2 @@
+-- Agenda (GET /atividades/agenda). O H2 não tem índices parciais; o status entra como primeira coluna.
+CREATE INDEX idx_atividade_abertas_agenda ON atividade (status, data, horario, id);
@@ -0,0 +1,25 @@
+-- O cadastro e a edição de perfil gravam e-mail e username em minúsculas, mas a edição antiga gravava o valor
+-- como veio: contas como 'Ana@x.com' e 'ana@x.com' podem coexistir e quebrar os find*IgnoreCase.
+-- A migração para se houver colisão (as contas precisam ser resolvidas à mão antes), normaliza os valores
+-- e passa a garantir a unicidade sem diferenciar maiúsculas.
+DO $$
+DECLARE
+    repetido TEXT;
+BEGIN
+    SELECT lower(email) INTO repetido FROM usuarios GROUP BY lower(email) HAVING count(*) > 1 LIMIT 1;
+    IF repetido IS NOT NULL THEN
+        RAISE EXCEPTION 'Mais de uma conta com o e-mail % (sem diferenciar maiúsculas)', repetido;
+    END IF;
+    SELECT lower(user_name) INTO repetido FROM usuarios GROUP BY lower(user_name) HAVING count(*) > 1 LIMIT 1;
+    IF repetido IS NOT NULL THEN
+        RAISE EXCEPTION 'Mais de uma conta com o username % (sem diferenciar maiúsculas)', repetido;
+    END IF;
+END $$;
+
+UPDATE usuarios SET email = lower(email) WHERE email <> lower(email);
+UPDATE usuarios SET user_name = lower(user_name) WHERE user_name <> lower(user_name);
+
+-- As restrições do V1 continuam servindo às buscas pelo valor exato (existsByEmail, findByUsername...);
+-- os nomes começam pelos delas para o UserService traduzir a violação no mesmo 409.
+CREATE UNIQUE INDEX uk_usuarios_email_lower ON usuarios (lower(email));
+CREATE UNIQUE INDEX uk_usuarios_user_name_lower ON usuarios (lower(user_name));
@@ -0,0 +1,20 @@
+-- Índices para as consultas mais frequentes (além das PKs e UNIQUEs do V1).
+
+-- SecurityFilter e findByEmailIgnoreCase* comparam upper(email); os derivados *IgnoreCase usam upper()
+CREATE INDEX idx_usuarios_email_upper ON usuarios (upper(email));
+CREATE INDEX idx_usuarios_user_name_upper ON usuarios (upper(user_name));
+
+-- findByCriador / exclusão de conta e filtros por modalidade
+CREATE INDEX idx_atividade_criador ON atividade (criador_id);
+CREATE INDEX idx_atividade_modalidade ON atividade (modalidade_id);
+
+-- Job de ciclo de vida, arquivamento e buscas por status/data
+CREATE INDEX idx_atividade_status_data ON atividade (status, data, horario);
+
+-- Tabelas de junção no sentido inverso da PK (usuário -> atividades, modalidade -> usuários)
+CREATE INDEX idx_atividade_participantes_usuario ON atividade_participantes (usuario_id, atividade_id);
+CREATE INDEX idx_user_modalidade_modalidade ON user_modalidade (modalidade_id, user_id);
+
+-- Arquivo: exclusão de conta e histórico do usuário
+CREATE INDEX idx_atividade_arquivada_criador ON atividade_arquivada (criador_id);
+CREATE INDEX idx_atividade_participantes_arquivada_usuario ON atividade_participantes_arquivada (usuario_id, atividade_id);
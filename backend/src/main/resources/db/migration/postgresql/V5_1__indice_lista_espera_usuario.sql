@@ -0,0 +1,2 @@
+-- Filas em que o usuário está (exclusão de conta). O H2 já cria esse índice para fk_lista_espera_usuario.
+CREATE INDEX idx_lista_espera_usuario ON atividade_lista_espera (usuario_id);
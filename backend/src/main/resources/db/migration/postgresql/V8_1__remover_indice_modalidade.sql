@@ -0,0 +1,3 @@
+-- idx_atividade_modalidade_status_data (V8) começa por modalidade_id e cobre os filtros só por modalidade.
+-- Só no Postgres: no H2 o índice simples é o que sustenta a chave estrangeira e não pode ser removido.
+DROP INDEX IF EXISTS idx_atividade_modalidade;
@@ -0,0 +1,3 @@
+-- Agenda (GET /atividades/agenda): índice parcial só com as atividades abertas, na ordem de início.
+-- As atividades passadas saem do índice quando o job de ciclo de vida as encerra, então ele não cresce com o histórico.
+CREATE INDEX idx_atividade_abertas_agenda ON atividade (data, horario, id) WHERE status = 'OPEN';
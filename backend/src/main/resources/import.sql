@@ -1,10 +0,0 @@
-INSERT INTO modalidade (id, nome) VALUES (1, 'corrida');
-INSERT INTO modalidade (id, nome) VALUES (2, 'musculacao');
-INSERT INTO modalidade (id, nome) VALUES (3, 'natacao');
-INSERT INTO modalidade (id, nome) VALUES (4, 'boxe');
-INSERT INTO modalidade (id, nome) VALUES (5, 'futebol');
-INSERT INTO modalidade (id, nome) VALUES (6, 'volei');
-INSERT INTO modalidade (id, nome) VALUES (7, 'ciclismo');
-INSERT INTO modalidade (id, nome) VALUES (8, 'tenis');
-INSERT INTO modalidade (id, nome) VALUES (9, 'basquete');
---script para povoar modalidades BD
\ No newline at end of file
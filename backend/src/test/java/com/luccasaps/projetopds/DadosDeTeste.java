@@ -0,0 +1,54 @@
+package com.luccasaps.projetopds;
+
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.Genero;
+import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.User;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Usuários e atividades válidos para os testes, ainda não salvos. Cada teste ajusta só o que importa para ele.
+ */
+public final class DadosDeTeste {
+
+    private DadosDeTeste() {
+    }
+
+    // E-mail '<username>@exemplo.com', endereço na Praça da Sé (CEP 01001000) e sem coordenadas
+    public static User usuario(String username) {
+        User user = new User();
+        user.setName(username);
+        user.setGenero(Genero.NAO_INFORMAR);
+        user.setUsername(username);
+        user.setEmail(username + "@exemplo.com");
+        user.setDataNascimento(LocalDate.of(1990, 1, 1));
+        user.setPassword("senha-criptografada");
+        user.setPhone("11999999999");
+        user.setCep("01001000");
+        user.setUf("SP");
+        user.setStreet("Praça da Sé");
+        return user;
+    }
+
+    // Aberta, amanhã às 7h, com 10 vagas e o criador já inscrito
+    public static Atividade atividade(String titulo, User criador, Modalidade modalidade) {
+        return atividade(titulo, criador, modalidade, StatusAtividade.OPEN, LocalDate.now().plusDays(1));
+    }
+
+    public static Atividade atividade(String titulo, User criador, Modalidade modalidade,
+                                      StatusAtividade status, LocalDate data) {
+        Atividade atividade = new Atividade();
+        atividade.setTitulo(titulo);
+        atividade.setCriador(criador);
+        atividade.setModalidade(modalidade);
+        atividade.setData(data);
+        atividade.setHorario(LocalTime.of(7, 0));
+        atividade.setCapacidade(10);
+        atividade.setStatus(status);
+        atividade.getParticipantes().add(criador);
+        return atividade;
+    }
+}
@@ -0,0 +1,76 @@
+package com.luccasaps.projetopds.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedCacheTests {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final BoundedCache<String, String> cache = new BoundedCache<String, String>("teste", 2, Duration.ofMinutes(1))
+            .bindTo(registry);
+
+    @Test
+    void descartaOItemUsadoHaMaisTempoAoPassarDoTamanhoMaximo() {
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a"); // 'b' passa a ser o usado há mais tempo
+        cache.put("c", "3");
+
+        assertEquals(2, cache.size());
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(1, registry.get("cache.evictions").tag("cache", "teste").functionCounter().count());
+    }
+
+    @Test
+    void valorCarregadoDuranteInvalidacaoDaChaveNaoEGuardado() {
+        cache.put("outra", "x");
+
+        String carregado = cache.get("a", chave -> {
+            cache.invalidate("a");
+            return "antigo";
+        });
+
+        assertEquals("antigo", carregado);
+        assertNull(cache.get("a"));
+        assertEquals("novo", cache.get("a", chave -> "novo"));
+        assertEquals("novo", cache.get("a"));
+    }
+
+    @Test
+    void invalidacaoDeOutraChaveNaoDescartaACarga() {
+        cache.get("a", chave -> {
+            cache.invalidate("b");
+            return "1";
+        });
+
+        assertEquals("1", cache.get("a"));
+    }
+
+    @Test
+    void invalidateAllDescartaAsCargasEmAndamento() {
+        cache.get("a", chave -> {
+            cache.invalidateAll();
+            return "1";
+        });
+
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    void falhaNaCargaNaoGuardaNadaNemBloqueiaAProxima() {
+        assertThrows(IllegalStateException.class, () -> cache.get("a", chave -> {
+            throw new IllegalStateException("banco fora");
+        }));
+
+        assertEquals(0, cache.size());
+        assertEquals("1", cache.get("a", chave -> "1"));
+        assertEquals("1", cache.get("a"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.luccasaps.projetopds.cache;
+
+import com.luccasaps.projetopds.controller.dto.UserUpdateDTO;
+import com.luccasaps.projetopds.repository.UserRepository;
+import com.luccasaps.projetopds.service.UserService;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class UserProfileCacheTests {
+
+    @Autowired
+    private UserProfileCache userProfileCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @Test
+    void perfilFicaNoCacheAteSerAlterado() {
+        userRepository.save(usuario("perfilcache"));
+
+        perfil("perfilcache");
+        perfil("perfilcache");
+        assertEquals(1, cargas.get());
+
+        userService.update("perfilcache", atualizacao("Nome Novo", null));
+
+        assertTrue(perfil("perfilcache").contains("Nome Novo"));
+        assertEquals(2, cargas.get());
+    }
+
+    @Test
+    void trocaDeUsernameInvalidaOAntigoEONovo() {
+        userRepository.save(usuario("perfilantigo"));
+        perfil("perfilantigo");
+
+        userService.update("perfilantigo", atualizacao(null, "perfilnovo"));
+
+        assertThrows(EntityNotFoundException.class, () -> perfil("perfilantigo"));
+        assertTrue(perfil("perfilnovo").contains("perfilnovo"));
+    }
+
+    @Test
+    void contaExcluidaSaiDoCache() {
+        userRepository.save(usuario("perfilexcluido"));
+        perfil("perfilexcluido");
+
+        userService.deleteSelf("perfilexcluido");
+
+        assertThrows(EntityNotFoundException.class, () -> perfil("perfilexcluido"));
+        assertEquals(2, cargas.get());
+    }
+
+    private String perfil(String username) {
+        byte[] json = userProfileCache.get(username, () -> {
+            cargas.incrementAndGet();
+            return userService.findByUsername(username);
+        });
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    private static UserUpdateDTO atualizacao(String nome, String username) {
+        return new UserUpdateDTO(nome, username, null, null, null, null, null, null, null, null);
+    }
+}
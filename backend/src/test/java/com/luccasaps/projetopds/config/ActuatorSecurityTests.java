@@ -0,0 +1,66 @@
+package com.luccasaps.projetopds.config;
+
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.UserRepository;
+import com.luccasaps.projetopds.service.TokenService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "jwt.secret=c2VncmVkby1kZS10ZXN0ZXMtY29tLXBlbG8tbWVub3MtMzItYnl0ZXM=",
+        "seguranca.admin-emails=Admin@exemplo.com"
+})
+@AutoConfigureMockMvc
+@Transactional
+class ActuatorSecurityTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void healthContinuaPublico() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void usuarioComumNaoLeNemZeraAsMetricas() throws Exception {
+        String token = token("comum");
+
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", token)).andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/hibernate").header("Authorization", token)).andExpect(status().isForbidden());
+        mockMvc.perform(delete("/actuator/hibernate").header("Authorization", token)).andExpect(status().isForbidden());
+    }
+
+    @Test
+    void semTokenNaoAcessaOActuator() throws Exception {
+        mockMvc.perform(get("/actuator/hibernate")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void adminConfiguradoAcessaOActuator() throws Exception {
+        String token = token("admin");
+
+        mockMvc.perform(get("/actuator/metrics").header("Authorization", token)).andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/hibernate").header("Authorization", token)).andExpect(status().isOk());
+    }
+
+    private String token(String username) {
+        User user = userRepository.save(usuario(username));
+        return "Bearer " + tokenService.gerarToken(user);
+    }
+}
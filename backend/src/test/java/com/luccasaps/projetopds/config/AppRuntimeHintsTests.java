@@ -0,0 +1,34 @@
+package com.luccasaps.projetopds.config;
+
+import com.luccasaps.projetopds.controller.dto.UserResponseDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AppRuntimeHintsTests {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    AppRuntimeHintsTests() {
+        new AppRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void registraAsImplementacoesDoJjwtQueExistemNoClasspath() throws Exception {
+        for (String classe : AppRuntimeHints.CLASSES_JJWT) {
+            // Garante que os nomes continuam válidos na versão do JJWT usada pelo projeto
+            Class.forName(classe);
+            assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of(classe)).test(hints), classe);
+        }
+        assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/services/io.jsonwebtoken.io.Serializer").test(hints));
+    }
+
+    @Test
+    void registraMigracoesEPerfilSerializado() {
+        assertTrue(RuntimeHintsPredicates.resource().forResource("db/migration/common/V1__schema_inicial.sql").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(UserResponseDTO.class).test(hints));
+    }
+}
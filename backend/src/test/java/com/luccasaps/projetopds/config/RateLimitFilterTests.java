@@ -0,0 +1,78 @@
+package com.luccasaps.projetopds.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.validation.BindValidationException;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTests {
+
+    private final ApplicationContextRunner contexto = new ApplicationContextRunner()
+            .withUserConfiguration(Propriedades.class)
+            .withPropertyValues(
+                    "rate-limit.policies[0].name=login",
+                    "rate-limit.policies[0].method=POST",
+                    "rate-limit.policies[0].path=/login");
+
+    @EnableConfigurationProperties(RateLimitProperties.class)
+    static class Propriedades {
+    }
+
+    @Test
+    void politicaValidaSobe() {
+        contexto.withPropertyValues("rate-limit.policies[0].capacity=10", "rate-limit.policies[0].refill-period=1m")
+                .run(ctx -> assertEquals(10, ctx.getBean(RateLimitProperties.class).policies().get(0).capacity()));
+    }
+
+    @Test
+    void capacidadeZeradaImpedeASubida() {
+        contexto.withPropertyValues("rate-limit.policies[0].capacity=0", "rate-limit.policies[0].refill-period=1m")
+                .run(ctx -> assertFalhaDeValidacao(ctx.getStartupFailure()));
+    }
+
+    @Test
+    void periodoZeradoOuAusenteImpedeASubida() {
+        contexto.withPropertyValues("rate-limit.policies[0].capacity=10", "rate-limit.policies[0].refill-period=0s")
+                .run(ctx -> assertFalhaDeValidacao(ctx.getStartupFailure()));
+        contexto.withPropertyValues("rate-limit.policies[0].capacity=10")
+                .run(ctx -> assertFalhaDeValidacao(ctx.getStartupFailure()));
+    }
+
+    @Test
+    void contadorDeRejeicoesJaExisteAntesDaPrimeiraRejeicao() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        RateLimitProperties properties = new RateLimitProperties(true, 100, List.of(
+                new RateLimitProperties.Policy("login", "POST", "/login", 1, Duration.ofMinutes(1))));
+        RateLimitFilter filtro = new RateLimitFilter(properties, registry);
+        assertEquals(0, registry.get("rate.limit.rejeicoes").tag("politica", "login").counter().count());
+
+        assertEquals(200, login(filtro).getStatus());
+        MockHttpServletResponse rejeitada = login(filtro);
+
+        assertEquals(429, rejeitada.getStatus());
+        assertEquals("60", rejeitada.getHeader("Retry-After"));
+        assertEquals(1, registry.get("rate.limit.rejeicoes").tag("politica", "login").counter().count());
+    }
+
+    private static void assertFalhaDeValidacao(Throwable falha) {
+        assertInstanceOf(BindValidationException.class, NestedExceptionUtils.getRootCause(falha));
+    }
+
+    private static MockHttpServletResponse login(RateLimitFilter filtro) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filtro.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
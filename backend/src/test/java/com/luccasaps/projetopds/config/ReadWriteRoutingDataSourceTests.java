@@ -0,0 +1,98 @@
+package com.luccasaps.projetopds.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roteamento com dois bancos H2 em memória no lugar do primário e da réplica. Cada um responde
+ * "de onde veio" a leitura, e a réplica guarda numa tabela o atraso que a consulta de lag devolve.
+ */
+class ReadWriteRoutingDataSourceTests {
+
+    private final String sufixo = UUID.randomUUID().toString();
+    private final DataSource primario = banco("primario-" + sufixo, "primario");
+    private final DataSource replica = banco("replica-" + sufixo, "replica");
+    private final ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "SELECT segundos FROM atraso",
+            Duration.ofSeconds(5), new SimpleMeterRegistry());
+
+    private final DataSource dataSource = new DataSourceRoutingConfiguration().dataSource(primario, replica, monitor);
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final TransactionTemplate escrita = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    private final TransactionTemplate leitura = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+    ReadWriteRoutingDataSourceTests() {
+        new JdbcTemplate(replica).execute("CREATE TABLE atraso (segundos DOUBLE)");
+        new JdbcTemplate(replica).execute("INSERT INTO atraso VALUES (0)");
+        leitura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void fecharBancos() {
+        new JdbcTemplate(primario).execute("SHUTDOWN");
+        new JdbcTemplate(replica).execute("SHUTDOWN");
+    }
+
+    @Test
+    void antesDaPrimeiraVerificacaoTudoVaiParaOPrimario() {
+        assertFalse(monitor.isReplicaDisponivel());
+        assertEquals("primario", origem(leitura));
+    }
+
+    @Test
+    void leiturasVaoParaAReplicaEEscritasParaOPrimario() {
+        monitor.verificar();
+
+        assertEquals("replica", origem(leitura));
+        assertEquals("primario", origem(escrita));
+        assertEquals("primario", jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class));
+    }
+
+    @Test
+    void atrasoAcimaDoLimiteDevolveAsLeiturasAoPrimario() {
+        monitor.verificar();
+        assertEquals("replica", origem(leitura));
+
+        new JdbcTemplate(replica).update("UPDATE atraso SET segundos = 30");
+        monitor.verificar();
+        assertFalse(monitor.isReplicaDisponivel());
+        assertEquals("primario", origem(leitura));
+
+        // Quando a réplica alcança o primário, as leituras voltam para ela
+        new JdbcTemplate(replica).update("UPDATE atraso SET segundos = 1");
+        monitor.verificar();
+        assertEquals("replica", origem(leitura));
+    }
+
+    @Test
+    void replicaForaDoArDevolveAsLeiturasAoPrimario() {
+        monitor.verificar();
+        new JdbcTemplate(replica).execute("DROP TABLE atraso");
+
+        monitor.verificar();
+
+        assertEquals("primario", origem(leitura));
+    }
+
+    private String origem(TransactionTemplate transacao) {
+        return transacao.execute(status -> jdbcTemplate.queryForObject("SELECT nome FROM origem", String.class));
+    }
+
+    private static DataSource banco(String nomeBanco, String origem) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + nomeBanco + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE origem (nome VARCHAR(20))");
+        jdbc.update("INSERT INTO origem VALUES (?)", origem);
+        return dataSource;
+    }
+}
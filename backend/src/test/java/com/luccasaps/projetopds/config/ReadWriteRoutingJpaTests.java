@@ -0,0 +1,101 @@
+package com.luccasaps.projetopds.config;
+
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.UserRepository;
+import com.luccasaps.projetopds.service.UserService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Roteamento com a aplicação inteira (JpaTransactionManager + Hibernate): primário e réplica são dois bancos
+ * H2 diferentes, então o que está só em um deles mostra para onde cada comando foi. A réplica recebe o esquema
+ * pelas mesmas migrações e os dados são gravados nela direto, no lugar da replicação.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.replica.enabled=true",
+        "spring.datasource.replica.lag-check-interval-ms=3600000"
+})
+class ReadWriteRoutingJpaTests {
+
+    private static final String SUFIXO = UUID.randomUUID().toString();
+    private static final String URL_REPLICA = "jdbc:h2:mem:replica-" + SUFIXO + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1";
+    private static final DataSource REPLICA = new DriverManagerDataSource(URL_REPLICA, "sa", "");
+
+    @DynamicPropertySource
+    static void bancos(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:h2:mem:primario-" + SUFIXO + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        registry.add("spring.datasource.replica.url", () -> URL_REPLICA);
+        Flyway.configure()
+                .dataSource(REPLICA)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primario;
+
+    private final JdbcTemplate replica = new JdbcTemplate(REPLICA);
+
+    @BeforeEach
+    void replicaDisponivel() {
+        replicaLagMonitor.verificar();
+        assertTrue(replicaLagMonitor.isReplicaDisponivel());
+    }
+
+    @AfterEach
+    void limpar() {
+        replica.update("DELETE FROM usuarios");
+        new JdbcTemplate(primario).update("DELETE FROM usuarios");
+    }
+
+    @Test
+    void leiturasReadOnlyDoServicoEDoRepositorioVaoParaAReplica() {
+        UUID id = UUID.randomUUID();
+        replica.update("""
+                INSERT INTO usuarios (id, name, user_name, email, data_nascimento, password, phone, cep, uf, street)
+                VALUES (?, 'Só na réplica', 'so-na-replica', 'so-na-replica@exemplo.com', DATE '1990-01-01',
+                        'senha', '11999999999', '01001000', 'SP', 'Praça da Sé')
+                """, id);
+
+        // UserService.findByUsername e SimpleJpaRepository.findById são @Transactional(readOnly = true)
+        assertEquals("so-na-replica", userService.findByUsername("so-na-replica").username());
+        assertTrue(userRepository.findById(id).isPresent());
+    }
+
+    @Test
+    void escritasVaoParaOPrimario() {
+        User salvo = userRepository.save(usuario("no-primario"));
+
+        assertEquals(1, new JdbcTemplate(primario).queryForObject(
+                "SELECT count(*) FROM usuarios WHERE id = ?", Integer.class, salvo.getId()));
+        assertEquals(0, replica.queryForObject("SELECT count(*) FROM usuarios WHERE id = ?", Integer.class, salvo.getId()));
+        // A leitura seguinte vai para a réplica, que (sem replicação aqui) não tem o usuário
+        assertTrue(userRepository.findById(salvo.getId()).isEmpty());
+    }
+}
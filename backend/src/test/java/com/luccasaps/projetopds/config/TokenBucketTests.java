@@ -0,0 +1,67 @@
+package com.luccasaps.projetopds.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTests {
+
+    private static final long SEGUNDO = TimeUnit.SECONDS.toNanos(1);
+
+    // 5 fichas reabastecidas em 5s: uma ficha por segundo
+    private final TokenBucket balde = new TokenBucket(5, 5 * SEGUNDO, 0);
+
+    @Test
+    void baldeCheioAceitaUmaRajadaDoTamanhoDaCapacidade() {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, balde.tryConsume(0), "ficha " + (i + 1));
+        }
+
+        // Sem fichas: espera exatamente o tempo de repor uma
+        assertEquals(SEGUNDO, balde.tryConsume(0));
+        assertFalse(balde.isCheio(0));
+    }
+
+    @Test
+    void reabasteceUmaFichaPorIntervalo() {
+        esvaziar(0);
+
+        assertEquals(SEGUNDO / 2, balde.tryConsume(SEGUNDO / 2));
+        assertEquals(0, balde.tryConsume(SEGUNDO));
+        assertEquals(SEGUNDO, balde.tryConsume(SEGUNDO));
+
+        // Dois intervalos depois, duas fichas
+        assertEquals(0, balde.tryConsume(3 * SEGUNDO));
+        assertEquals(0, balde.tryConsume(3 * SEGUNDO));
+        assertTrue(balde.tryConsume(3 * SEGUNDO) > 0);
+    }
+
+    @Test
+    void ociosidadeNaoAcumulaMaisQueACapacidade() {
+        esvaziar(0);
+
+        long depois = 100 * SEGUNDO;
+        assertTrue(balde.isCheio(depois));
+        esvaziar(depois);
+        assertEquals(SEGUNDO, balde.tryConsume(depois));
+    }
+
+    @Test
+    void recusaNaoConsomeFicha() {
+        esvaziar(0);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(balde.tryConsume(0) > 0);
+        }
+
+        // As recusas não empurram a próxima ficha para mais tarde
+        assertEquals(0, balde.tryConsume(SEGUNDO));
+    }
+
+    private void esvaziar(long agora) {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, balde.tryConsume(agora));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.luccasaps.projetopds.controller;
+
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.StatusGeocodificacao;
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ModalidadeRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import com.luccasaps.projetopds.service.GeocodingService;
+import com.luccasaps.projetopds.service.TokenService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.luccasaps.projetopds.DadosDeTeste.atividade;
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "jwt.secret=c2VncmVkby1kZS10ZXN0ZXMtY29tLXBlbG8tbWVub3MtMzItYnl0ZXM=")
+@AutoConfigureMockMvc
+@Transactional
+class AtividadeControllerProximasMeTests {
+
+    // Praça da Sé (SP); a atividade "perto" fica a ~1 km e a "longe", em Campinas (~85 km)
+    private static final GeocodingService.Coordenadas SE = new GeocodingService.Coordenadas(-23.5503, -46.6339);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @Autowired
+    private ModalidadeRepository modalidadeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoBean
+    private GeocodingService geocodingService;
+
+    private User criador;
+
+    @BeforeEach
+    void criarAtividades() {
+        User comCoordenadas = usuario("criador");
+        comCoordenadas.setLatitude(SE.latitude());
+        comCoordenadas.setLongitude(SE.longitude());
+        criador = userRepository.save(comCoordenadas);
+        atividadeRepository.save(atividadeEm("Perto", -23.5587, -46.6395));
+        atividadeRepository.save(atividadeEm("Longe", -22.9056, -47.0608));
+        entityManager.flush();
+    }
+
+    @Test
+    void usaAsCoordenadasSalvasSemConsultarAsApisDeCep() throws Exception {
+        mockMvc.perform(get("/atividades/proximas/me").param("distancia", "5")
+                        .header("Authorization", "Bearer " + tokenService.gerarToken(criador)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].titulo").value("Perto"));
+
+        verifyNoInteractions(geocodingService);
+    }
+
+    @Test
+    void usuarioSemCoordenadasConsultaOCepUmaVezEGuardaOResultado() throws Exception {
+        User semCoordenadas = userRepository.save(usuario("sem-coordenadas"));
+        entityManager.flush();
+        when(geocodingService.getCoordinates("01001000")).thenReturn(SE);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/atividades/proximas/me").param("distancia", "5")
+                            .header("Authorization", "Bearer " + tokenService.gerarToken(semCoordenadas)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].titulo").value("Perto"));
+            entityManager.clear(); // a próxima requisição relê o usuário do banco, como numa nova sessão
+        }
+
+        verify(geocodingService, times(1)).getCoordinates(anyString());
+        User salvo = userRepository.findOptionalByUsername("sem-coordenadas").orElseThrow();
+        assertEquals(SE.latitude(), salvo.getLatitude());
+        assertEquals(SE.longitude(), salvo.getLongitude());
+    }
+
+    @Test
+    void usuarioSemCoordenadasComCepNaoEncontradoRecebe404() throws Exception {
+        User semCoordenadas = userRepository.save(usuario("sem-coordenadas"));
+        entityManager.flush();
+        when(geocodingService.getCoordinates(anyString())).thenReturn(null);
+
+        mockMvc.perform(get("/atividades/proximas/me")
+                        .header("Authorization", "Bearer " + tokenService.gerarToken(semCoordenadas)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void exigeAutenticacao() throws Exception {
+        mockMvc.perform(get("/atividades/proximas/me"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private Atividade atividadeEm(String titulo, double latitude, double longitude) {
+        Atividade atividade = atividade(titulo, criador, modalidadeRepository.findByNome("corrida"));
+        atividade.setLatitude(latitude);
+        atividade.setLongitude(longitude);
+        atividade.setGeocodificacao(StatusGeocodificacao.RESOLVIDO);
+        return atividade;
+    }
+}
@@ -0,0 +1,72 @@
+package com.luccasaps.projetopds.observability;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ServerTimingFilterTests {
+
+    @Test
+    void cabecalhoTrazAsFasesMedidasAntesDoCorpo() throws Exception {
+        ServerTimingFilter filter = novoFiltro();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/atividades"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                RequestTiming.registrar(RequestTiming.Fase.AUTH, RequestTiming.inicio());
+                RequestTiming.consultaIniciada();
+                RequestTiming.consultaTerminada();
+                RequestTiming.consultaIniciada();
+                RequestTiming.consultaTerminada();
+                resp.getWriter().write("[]");
+            }
+        }));
+
+        String cabecalho = response.getHeader(ServerTimingResponseWrapper.HEADER);
+        assertNotNull(cabecalho);
+        assertTrue(cabecalho.startsWith("auth;dur="), cabecalho);
+        assertTrue(cabecalho.contains("db;dur=") && cabecalho.contains("desc=\"2 sql\""), cabecalho);
+        assertTrue(cabecalho.contains("app;dur="), cabecalho);
+        assertFalse(cabecalho.contains("geo;"), cabecalho);
+        assertEquals("[]", response.getContentAsString());
+    }
+
+    @Test
+    void respostaSemCorpoTambemRecebeCabecalho() throws Exception {
+        ServerTimingFilter filter = novoFiltro();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("DELETE", "/atividades/1/inscricao"), response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doDelete(HttpServletRequest req, HttpServletResponse resp) {
+                resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            }
+        }));
+
+        assertEquals("app;dur=", response.getHeader(ServerTimingResponseWrapper.HEADER).replaceAll("[0-9.]", ""));
+    }
+
+    @Test
+    void foraDeUmaRequisicaoNadaEMedido() {
+        assertEquals(0, RequestTiming.inicio());
+        RequestTiming.registrar(RequestTiming.Fase.DB, 0); // não lança
+    }
+
+    private ServerTimingFilter novoFiltro() {
+        ServerTimingFilter filter = new ServerTimingFilter();
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "header", true);
+        ReflectionTestUtils.setField(filter, "logSampleRate", 1.0);
+        return filter;
+    }
+}
@@ -0,0 +1,93 @@
+package com.luccasaps.projetopds.observability;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SqlMetricsQueryListenerTests {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    // O SimpleMeterRegistry não gera os buckets; a configuração pedida por cada timer é guardada aqui
+    private final Map<String, DistributionStatisticConfig> configuracoes = new HashMap<>();
+    private final SqlMetricsQueryListener listener;
+
+    @SuppressWarnings("unchecked")
+    SqlMetricsQueryListenerTests() {
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                configuracoes.put(id.getName(), config);
+                return config;
+            }
+        });
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(registry);
+        listener = new SqlMetricsQueryListener(provider, -1, 2, true);
+    }
+
+    @Test
+    void bucketsFixosPorComandoEPercentisPorOperacao() {
+        executar("select * from atividade where id = 1", 5);
+        executar("select * from atividade where id = 2", 7);
+        executar("update atividade set status = 'CLOSED' where id = 1", 3);
+
+        Timer comando = registry.get(SqlMetricsQueryListener.METRICA)
+                .tag("sql", "select * from atividade where id = ?").timer();
+        assertEquals(2, comando.count());
+        // Por comando, só os buckets fixos: o número de séries por rótulo 'sql' não depende do Micrometer
+        assertNotEquals(Boolean.TRUE, configuracoes.get(SqlMetricsQueryListener.METRICA).isPercentileHistogram());
+        CountAtBucket[] buckets = comando.takeSnapshot().histogramCounts();
+        assertEquals(SqlMetricsQueryListener.BUCKETS_COMANDO.length, buckets.length);
+        assertEquals(0, buckets[1].count()); // até 2 ms
+        assertEquals(1, buckets[2].count()); // até 5 ms
+        assertEquals(2, buckets[3].count()); // até 10 ms
+
+        Timer selects = registry.get(SqlMetricsQueryListener.METRICA_OPERACAO).tag("operacao", "select").timer();
+        assertEquals(2, selects.count());
+        assertEquals(Boolean.TRUE, configuracoes.get(SqlMetricsQueryListener.METRICA_OPERACAO).isPercentileHistogram());
+        assertEquals(1, registry.get(SqlMetricsQueryListener.METRICA_OPERACAO).tag("operacao", "update").timer().count());
+    }
+
+    @Test
+    void comandosAlemDoLimiteContinuamNaMetricaPorOperacao() {
+        executar("select a from t1", 1);
+        executar("select b from t2", 1);
+        executar("select c from t3", 1);
+
+        assertEquals(1, registry.get(SqlMetricsQueryListener.METRICA)
+                .tag("sql", SqlMetricsQueryListener.OUTROS).timer().count());
+        assertEquals(3, registry.get(SqlMetricsQueryListener.METRICA_OPERACAO).tag("operacao", "select").timer().count());
+    }
+
+    @Test
+    void operacaoEAPrimeiraPalavraDoComando() {
+        assertEquals("select", SqlMetricsQueryListener.operacao("  (SELECT 1) UNION (SELECT 2)"));
+        assertEquals("insert", SqlMetricsQueryListener.operacao("insert into atividade values (?)"));
+        assertEquals("delete", SqlMetricsQueryListener.operacao("\n\tDELETE FROM outbox_evento"));
+        assertEquals("outro", SqlMetricsQueryListener.operacao("with x as (select 1) select * from x"));
+        assertEquals("outro", SqlMetricsQueryListener.operacao("call refresh()"));
+        assertEquals("outro", SqlMetricsQueryListener.operacao(""));
+    }
+
+    private void executar(String sql, long elapsedMs) {
+        ExecutionInfo execucao = new ExecutionInfo();
+        execucao.setElapsedTime(elapsedMs);
+        execucao.setSuccess(true);
+        listener.afterQuery(execucao, List.of(new QueryInfo(sql)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.luccasaps.projetopds.observability;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlNormalizerTests {
+
+    @Test
+    void literaisEListasInViramPlaceholders() {
+        String a = SqlNormalizer.normalizar("select a1_0.id from atividade a1_0\n where a1_0.status = 'OPEN'  and a1_0.capacidade > 10 and a1_0.id in (?, ?, ?)");
+        String b = SqlNormalizer.normalizar("select a1_0.id from atividade a1_0 where a1_0.status = 'CLOSED' and a1_0.capacidade > 3 and a1_0.id in (?,?)");
+
+        assertEquals("select a1_0.id from atividade a1_0 where a1_0.status = ? and a1_0.capacidade > ? and a1_0.id in (?)", a);
+        assertEquals(a, b);
+    }
+
+    @Test
+    void valoresNaoAparecemNaFormaNormalizada() {
+        String sql = SqlNormalizer.normalizar("update usuarios set email = 'ana@exemplo.com', phone = '11999999999' where user_name = 'it''s'");
+
+        assertFalse(sql.contains("ana@exemplo.com"));
+        assertFalse(sql.contains("11999999999"));
+        assertEquals("update usuarios set email = ?, phone = ? where user_name = ?", sql);
+    }
+
+    @Test
+    void listasEnormesETextosLongosNaoEstouramAPilha() {
+        String lista = "?, ".repeat(20_000) + "?";
+        String texto = "x".repeat(100_000);
+
+        assertEquals("delete from atividade where id in (?)",
+                SqlNormalizer.normalizar("delete from atividade where id in (" + lista + ")"));
+        assertEquals("update atividade set observacoes = ?",
+                SqlNormalizer.normalizar("update atividade set observacoes = '" + texto + "'"));
+    }
+
+    @Test
+    void comandosMuitoLongosSaoTruncados() {
+        String sql = SqlNormalizer.normalizar("select " + "coluna, ".repeat(100) + "id from atividade");
+
+        assertEquals(SqlNormalizer.TAMANHO_MAXIMO + 3, sql.length());
+    }
+}
@@ -0,0 +1,161 @@
+package com.luccasaps.projetopds.outbox;
+
+import com.luccasaps.projetopds.model.OutboxEvento;
+import com.luccasaps.projetopds.model.StatusOutbox;
+import com.luccasaps.projetopds.model.TipoEvento;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import com.luccasaps.projetopds.service.SchedulerLockService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class OutboxDispatcherTests {
+
+    private final OutboxEventoRepository repository = mock(OutboxEventoRepository.class);
+    private final SchedulerLockService schedulerLockService = mock(SchedulerLockService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final List<Long> entregues = new ArrayList<>();
+    private Set<String> agregadosComFalha = Set.of();
+
+    private final OutboxDispatcher dispatcher;
+
+    @SuppressWarnings("unchecked")
+    OutboxDispatcherTests() {
+        OutboxEventHandler handler = new OutboxEventHandler() {
+            @Override
+            public boolean suporta(TipoEvento tipo) {
+                return true;
+            }
+
+            @Override
+            public void processar(OutboxEvento evento) {
+                if (agregadosComFalha.contains(evento.getAgregadoId())) {
+                    throw new IllegalStateException("consumidor fora");
+                }
+                entregues.add(evento.getId());
+            }
+        };
+        ObjectProvider<OutboxEventHandler> handlers = mock(ObjectProvider.class);
+        when(handlers.orderedStream()).thenAnswer(inv -> Stream.of(handler));
+        dispatcher = new OutboxDispatcher(repository, handlers, schedulerLockService, transactionTemplate,
+                new SimpleMeterRegistry());
+
+        when(schedulerLockService.tryAcquire(eq(OutboxDispatcher.LOCK), any())).thenReturn(true);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 3);
+        ReflectionTestUtils.setField(dispatcher, "maxBatchesPerRun", 5);
+        ReflectionTestUtils.setField(dispatcher, "maxTentativas", 3);
+        ReflectionTestUtils.setField(dispatcher, "backoffInicialMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "backoffMaxMs", 600_000L);
+        ReflectionTestUtils.setField(dispatcher, "lockDurationMs", 60_000L);
+    }
+
+    @Test
+    void entregaEmOrdemESeguraOAgregadoQueFalhou() {
+        agregadosComFalha = Set.of("b");
+        when(repository.findProntos(any(), any())).thenReturn(
+                List.of(evento(1, "a", 0), evento(2, "b", 0), evento(3, "a", 0)),
+                List.of(evento(4, "b", 0), evento(5, "c", 0)));
+
+        dispatcher.despachar();
+
+        // O evento 4 é do agregado 'b', cujo evento 2 falhou: não é entregue fora de ordem
+        assertEquals(List.of(1L, 3L, 5L), entregues);
+        verify(repository).marcarProcessados(eq(List.of(1L, 3L)), any());
+        verify(repository).marcarProcessados(eq(List.of(5L)), any());
+        verify(repository).registrarFalha(eq(2L), eq(StatusOutbox.PENDENTE), any(), eq("consumidor fora"));
+        verify(repository).registrarFalha(eq(4L), eq(StatusOutbox.PENDENTE), any(), eq("consumidor fora"));
+        verify(schedulerLockService).release(OutboxDispatcher.LOCK);
+    }
+
+    @Test
+    void falhaReagendaComEsperaExponencial() {
+        agregadosComFalha = Set.of("a");
+        when(repository.findProntos(any(), any())).thenReturn(List.of(evento(1, "a", 1)));
+
+        LocalDateTime antes = LocalDateTime.now();
+        dispatcher.despachar();
+
+        // Segunda falha: 1s * 2
+        ArgumentCaptor<LocalDateTime> proxima = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).registrarFalha(eq(1L), eq(StatusOutbox.PENDENTE), proxima.capture(), any());
+        Duration espera = Duration.between(antes, proxima.getValue());
+        assertTrue(espera.compareTo(Duration.ofSeconds(2)) >= 0 && espera.compareTo(Duration.ofSeconds(3)) < 0,
+                "espera: " + espera);
+    }
+
+    @Test
+    void ultimaTentativaMarcaOEventoComoFalhou() {
+        agregadosComFalha = Set.of("a");
+        when(repository.findProntos(any(), any())).thenReturn(List.of(evento(1, "a", 2)));
+
+        dispatcher.despachar();
+
+        verify(repository).registrarFalha(eq(1L), eq(StatusOutbox.FALHOU), any(), any());
+        verify(repository, never()).marcarProcessados(any(), any());
+    }
+
+    @Test
+    void renovaATravaAntesDeCadaLoteEParaSeElaForPerdida() {
+        when(schedulerLockService.tryAcquire(eq(OutboxDispatcher.LOCK), any())).thenReturn(true, true, false);
+        when(repository.findProntos(any(), any())).thenAnswer(inv -> lote(entregues.size() + 1));
+
+        dispatcher.despachar();
+
+        // Aquisição + renovação antes do 2º lote; a renovação do 3º falha e nada mais é lido
+        verify(schedulerLockService, times(3)).tryAcquire(eq(OutboxDispatcher.LOCK), any());
+        verify(repository, times(2)).findProntos(any(), any());
+        assertEquals(6, entregues.size());
+    }
+
+    @Test
+    void paraNoMeioDoLoteQuandoOPrazoDaTravaAcaba() {
+        ReflectionTestUtils.setField(dispatcher, "lockDurationMs", 0L);
+        when(repository.findProntos(any(), any())).thenReturn(lote(1));
+
+        dispatcher.despachar();
+
+        // Sem prazo, nenhum evento é entregue: todos ficam pendentes para a próxima rodada
+        assertTrue(entregues.isEmpty());
+        verify(repository, times(1)).findProntos(any(), any());
+        verify(repository, never()).marcarProcessados(any(), any());
+    }
+
+    private List<OutboxEvento> lote(long primeiroId) {
+        return LongStream.range(primeiroId, primeiroId + 3).mapToObj(id -> evento(id, "x" + id, 0)).toList();
+    }
+
+    private static OutboxEvento evento(long id, String agregado, int tentativas) {
+        OutboxEvento evento = new OutboxEvento();
+        evento.setId(id);
+        evento.setTipo(TipoEvento.ATIVIDADE_ATUALIZADA);
+        evento.setAgregadoTipo("atividade");
+        evento.setAgregadoId(agregado);
+        evento.setStatus(StatusOutbox.PENDENTE);
+        evento.setTentativas(tentativas);
+        evento.setCriadoEm(LocalDateTime.now());
+        return evento;
+    }
+}
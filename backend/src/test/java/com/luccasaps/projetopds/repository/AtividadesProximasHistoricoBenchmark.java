@@ -0,0 +1,151 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.service.AtividadeArquivamentoService;
+import com.luccasaps.projetopds.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Custo da busca "perto de mim" (AtividadeRepository.findAtividadesProximasPaginado) com um número fixo de
+ * atividades abertas e um histórico de atividades encerradas que cresce 10x, antes e depois do arquivamento.
+ * Além do tempo, registra as linhas lidas pelo H2 (scanCount do EXPLAIN ANALYZE), que não dependem da máquina:
+ * com o histórico arquivado, são as mesmas para qualquer tamanho de histórico.
+ * Fora da suíte normal (o nome não segue o padrão do Surefire); roda com o perfil 'benchmark':
+ *   ./mvnw -Pbenchmark test -Dtest=AtividadesProximasHistoricoBenchmark
+ */
+@SpringBootTest(properties = {
+        "atividades.arquivamento.chunk-size=2000",
+        "atividades.arquivamento.max-chunks-per-run=1000"
+})
+class AtividadesProximasHistoricoBenchmark {
+
+    private static final int ABERTAS = 1000;
+    private static final int HISTORICO_INICIAL = 2000;
+    private static final int CRESCIMENTO = 10;
+    private static final int AQUECIMENTO = 300;
+    private static final int CONSULTAS = 500;
+
+    // Praça da Sé; todas as atividades ficam a menos de ~20 km daqui, dentro do raio da busca
+    private static final double LAT = -23.5503;
+    private static final double LON = -46.6339;
+    private static final double RAIO_KM = 25;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @Autowired
+    private AtividadeArquivamentoService arquivamentoService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void buscaPorProximidadeNaoDependeDoHistoricoArquivado() {
+        User usuario = userRepository.save(usuario("benchmark-historico"));
+        long modalidade = jdbcTemplate.queryForObject("SELECT id FROM modalidade WHERE nome = 'corrida'", Long.class);
+
+        try {
+            inserir(usuario.getId(), modalidade, ABERTAS, false);
+
+            System.out.printf("%-10s %-14s %10s %10s %12s%n", "histórico", "situação", "p50 ms", "p99 ms", "linhas lidas");
+            long linhasArquivadoInicial = 0;
+            int historico = 0;
+            for (int alvo : new int[]{HISTORICO_INICIAL, HISTORICO_INICIAL * CRESCIMENTO}) {
+                inserir(usuario.getId(), modalidade, alvo - historico, true);
+                historico = alvo;
+                medir(historico, "tabela quente");
+
+                arquivamentoService.arquivarAtividadesAntigas();
+                assertEquals(ABERTAS, jdbcTemplate.queryForObject(
+                        "SELECT count(*) FROM atividade WHERE criador_id = ?", Integer.class, usuario.getId()));
+                long linhas = medir(historico, "arquivado");
+
+                if (linhasArquivadoInicial == 0) {
+                    linhasArquivadoInicial = linhas;
+                } else {
+                    // Com o histórico no arquivo, a busca lê as mesmas linhas com 10x mais histórico
+                    assertEquals(linhasArquivadoInicial, linhas);
+                }
+            }
+        } finally {
+            userService.deleteSelf(usuario.getUsername());
+        }
+    }
+
+    private long medir(int historico, String situacao) {
+        for (int i = 0; i < AQUECIMENTO; i++) {
+            atividadeRepository.findAtividadesProximasPaginado(LAT, LON, RAIO_KM, 20, 0);
+        }
+        double[] duracoes = new double[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            long inicio = System.nanoTime();
+            int encontradas = atividadeRepository.findAtividadesProximasPaginado(LAT, LON, RAIO_KM, 20, 0).size();
+            duracoes[i] = (System.nanoTime() - inicio) / 1_000_000.0;
+            assertEquals(20, encontradas);
+        }
+        Arrays.sort(duracoes);
+
+        long linhas = linhasLidas();
+        System.out.printf("%-10d %-14s %10.3f %10.3f %12d%n", historico, situacao,
+                duracoes[CONSULTAS / 2], duracoes[(int) (CONSULTAS * 0.99)], linhas);
+        return linhas;
+    }
+
+    // A mesma consulta da busca, com os parâmetros no texto, para o EXPLAIN ANALYZE do H2
+    private long linhasLidas() {
+        String distancia = "(6371 * acos(cos(radians(" + LAT + ")) * cos(radians(a.latitude)) * cos(radians(a.longitude) - radians("
+                + LON + ")) + sin(radians(" + LAT + ")) * sin(radians(a.latitude))))";
+        String plano = jdbcTemplate.queryForObject("EXPLAIN ANALYZE SELECT a.id, " + distancia + " AS distancia FROM atividade a "
+                + "WHERE a.status IN ('OPEN', 'CLOSED') AND a.geocodificacao_status = 'RESOLVIDO' AND " + distancia + " < " + RAIO_KM
+                + " ORDER BY distancia LIMIT 20", String.class);
+        Matcher scanCount = Pattern.compile("scanCount: (\\d+)").matcher(plano);
+        long linhas = 0;
+        while (scanCount.find()) {
+            linhas += Long.parseLong(scanCount.group(1));
+        }
+        return linhas;
+    }
+
+    private void inserir(UUID usuarioId, long modalidade, int quantidade, boolean encerradas) {
+        List<Object[]> atividades = new ArrayList<>(quantidade);
+        List<Object[]> participantes = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            UUID id = UUID.randomUUID();
+            LocalDate data = encerradas
+                    ? LocalDate.now().minusDays(60 + random.nextInt(700))
+                    : LocalDate.now().plusDays(1 + random.nextInt(60));
+            atividades.add(new Object[]{id, usuarioId, modalidade, "Benchmark", data, LocalTime.of(7, 0),
+                    LAT + (random.nextDouble() - 0.5) * 0.3, LON + (random.nextDouble() - 0.5) * 0.3,
+                    encerradas ? "FINISHED" : "OPEN"});
+            participantes.add(new Object[]{id, usuarioId});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO atividade (id, criador_id, modalidade_id, titulo, data, horario, cep, uf, "
+                + "latitude, longitude, capacidade, sem_limite, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?, '01001000', 'SP', ?, ?, 10, FALSE, ?)", atividades);
+        jdbcTemplate.batchUpdate("INSERT INTO atividade_participantes (atividade_id, usuario_id) VALUES (?, ?)", participantes);
+    }
+}
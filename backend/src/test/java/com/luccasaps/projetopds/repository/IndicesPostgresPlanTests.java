@@ -0,0 +1,119 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.StatusAtividade;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Planos no Postgres dos comandos gerados pelos repositórios que dependem dos índices só do Postgres:
+ * upper(email) e upper(user_name) (V3), criador_id (V3; no H2 é o índice da chave estrangeira),
+ * o índice parcial da agenda (V9), o da fila por usuário (V5_1) e o de modalidade + status (V8, depois do V8_1).
+ * Precisa de um banco Postgres vazio (as migrações rodam na subida); sem 'planos.postgres.url' a classe é
+ * ignorada. Uso: mvn -Pplanos-postgres test (ver o perfil no pom.xml)
+ * Com as tabelas vazias o planejador sempre prefere a varredura sequencial; o EXPLAIN roda com
+ * enable_seqscan desligado, então o que se confere é que existe um índice que atende o comando.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=${planos.postgres.url}",
+        "spring.datasource.username=${planos.postgres.username:postgres}",
+        "spring.datasource.password=${planos.postgres.password:}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect"
+})
+@EnabledIfSystemProperty(named = "planos.postgres.url", matches = ".+")
+class IndicesPostgresPlanTests {
+
+    private static final UUID ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @Autowired
+    private ListaEsperaRepository listaEsperaRepository;
+
+    @Test
+    void buscaDeUsuarioPorEmailSemDiferenciarMaiusculas() throws SQLException {
+        assertUsaIndice(capturar(() -> userRepository.findByEmailIgnoreCaseFetchModalidades("Ana@Exemplo.com")),
+                "usuarios", "idx_usuarios_email_upper");
+        assertUsaIndice(capturar(() -> userRepository.existsByEmailIgnoreCase("Ana@Exemplo.com")),
+                "usuarios", "idx_usuarios_email_upper");
+    }
+
+    @Test
+    void buscaDeUsuarioPorUsernameSemDiferenciarMaiusculas() throws SQLException {
+        assertUsaIndice(capturar(() -> userRepository.existsByUsernameIgnoreCase("Ana")),
+                "usuarios", "idx_usuarios_user_name_upper");
+    }
+
+    @Test
+    void atividadesDoCriador() throws SQLException {
+        assertUsaIndice(capturar(() -> atividadeRepository.findIdsByCriadorIdAndStatusIn(ID,
+                        List.of(StatusAtividade.OPEN, StatusAtividade.CLOSED))),
+                "atividade", "idx_atividade_criador");
+    }
+
+    @Test
+    void agendaUsaOIndiceParcialDasAbertas() throws SQLException {
+        LocalDate hoje = LocalDate.of(2030, 1, 1);
+        assertUsaIndice(capturar(() -> atividadeRepository.findIdsAgenda(-23.55, -46.63, 10.0,
+                        hoje, LocalTime.of(6, 0), new UUID(0, 0), hoje.plusDays(1), LocalTime.of(6, 0), 21)),
+                "atividade", "idx_atividade_abertas_agenda");
+    }
+
+    @Test
+    void filasDoUsuario() throws SQLException {
+        assertUsaIndice(capturar(() -> listaEsperaRepository.findAtividadeIdsEmFilasDeOutros(ID)),
+                "atividade_lista_espera", "idx_lista_espera_usuario");
+    }
+
+    @Test
+    void buscaPorModalidadeUsaOIndiceComposto() throws SQLException {
+        assertUsaIndice(capturar(() -> atividadeRepository.findAll(Specification.allOf(
+                        AtividadeSpecifications.comStatus(List.of(StatusAtividade.OPEN)),
+                        AtividadeSpecifications.comModalidades(List.of(1L))), PageRequest.of(0, 20))),
+                "atividade", "idx_atividade_modalidade_status_data");
+    }
+
+    private List<PlanosDeExecucao.Comando> capturar(Runnable execucao) {
+        return PlanosDeExecucao.capturar(dataSource, execucao);
+    }
+
+    private void assertUsaIndice(List<PlanosDeExecucao.Comando> comandos, String tabela, String indice) throws SQLException {
+        PlanosDeExecucao.Comando comando = PlanosDeExecucao.primeiroQueLe(comandos, tabela);
+        String plano;
+        try (Connection conexao = dataSource.getConnection(); Statement st = conexao.createStatement()) {
+            st.execute("SET enable_seqscan = off");
+            try {
+                plano = PlanosDeExecucao.explicar(conexao, comando);
+            } finally {
+                st.execute("RESET enable_seqscan"); // a conexão volta para o pool
+            }
+        }
+        assertTrue(Pattern.compile("Index (Only )?Scan.* using " + indice + "\\b").matcher(plano).find()
+                        || Pattern.compile("Bitmap Index Scan on " + indice + "\\b").matcher(plano).find(),
+                "Plano de " + comando.sql().toLowerCase(Locale.ROOT) + " sem " + indice + ":\n" + plano);
+    }
+}
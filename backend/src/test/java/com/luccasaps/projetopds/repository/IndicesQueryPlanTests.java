@@ -0,0 +1,110 @@
+package com.luccasaps.projetopds.repository;
+
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere, pelo plano de execução do H2 (EXPLAIN), que as consultas principais usam os índices
+ * criados pelas migrações. Os índices funcionais de email/username só existem no Postgres (ver
+ * IndicesPostgresPlanTests).
+ * Para as colunas de chave estrangeira o H2 usa o índice que cria sozinho para a constraint
+ * (FK_&lt;constraint&gt;_INDEX_*), então é esse o esperado.
+ */
+@SpringBootTest
+class IndicesQueryPlanTests {
+
+    private static final String UUID_QUALQUER = "'00000000-0000-0000-0000-000000000001'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "SELECT id FROM atividade WHERE criador_id = " + UUID_QUALQUER + " | FK_ATIVIDADE_CRIADOR_INDEX",
+            "SELECT id FROM atividade WHERE modalidade_id = 1 | FK_ATIVIDADE_MODALIDADE_INDEX;IDX_ATIVIDADE_MODALIDADE_STATUS_DATA",
+            // O índice da agenda (V9) também começa por status e data
+            "SELECT id FROM atividade WHERE status = 'OPEN' AND data < DATE '2030-01-01' | IDX_ATIVIDADE_STATUS_DATA;IDX_ATIVIDADE_ABERTAS_AGENDA",
+            "SELECT atividade_id FROM atividade_participantes WHERE usuario_id = " + UUID_QUALQUER + " | IDX_ATIVIDADE_PARTICIPANTES_USUARIO",
+            "SELECT user_id FROM user_modalidade WHERE modalidade_id = 1 | IDX_USER_MODALIDADE_MODALIDADE",
+            "SELECT id FROM atividade_arquivada WHERE criador_id = " + UUID_QUALQUER + " | FK_ATIVIDADE_ARQUIVADA_CRIADOR_INDEX",
+            "SELECT atividade_id FROM atividade_participantes_arquivada WHERE usuario_id = " + UUID_QUALQUER + " | IDX_ATIVIDADE_PARTICIPANTES_ARQUIVADA_USUARIO",
+            "SELECT atividade_id FROM atividade_lista_espera WHERE usuario_id = " + UUID_QUALQUER + " | FK_LISTA_ESPERA_USUARIO_INDEX"
+    })
+    void consultaUsaIndice(String sql, String indicesAceitos) {
+        assertUsaIndice(jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class), indicesAceitos);
+    }
+
+    /**
+     * Cada combinação de filtros da busca (AtividadeService.buscar sempre inclui o status), com o SQL que o
+     * Hibernate gera a partir das AtividadeSpecifications. Com as tabelas vazias o H2 escolhe entre índices de
+     * mesmo prefixo sem critério estável, então qualquer um dos aceitos serve; a varredura da tabela, nunca.
+     */
+    static Stream<Arguments> combinacoesDaBusca() {
+        Specification<Atividade> ativas = AtividadeSpecifications.comStatus(List.of(StatusAtividade.OPEN, StatusAtividade.CLOSED));
+        Specification<Atividade> comVagas = AtividadeSpecifications.comStatus(List.of(StatusAtividade.OPEN));
+        Specification<Atividade> modalidades = AtividadeSpecifications.comModalidades(List.of(1L, 2L));
+        Specification<Atividade> janela = AtividadeSpecifications.aPartirDe(LocalDate.of(2030, 1, 1))
+                .and(AtividadeSpecifications.ate(LocalDate.of(2030, 1, 31)));
+        Specification<Atividade> raio = AtividadeSpecifications.dentroDoRaio(-23.55, -46.63, 10);
+
+        String porStatus = "IDX_ATIVIDADE_STATUS_DATA;IDX_ATIVIDADE_ABERTAS_AGENDA;IDX_ATIVIDADE_STATUS_LAT_LON";
+        String porModalidade = "IDX_ATIVIDADE_MODALIDADE_STATUS_DATA;FK_ATIVIDADE_MODALIDADE_INDEX";
+        return Stream.of(
+                Arguments.of("status", ativas, porStatus),
+                Arguments.of("com vagas", comVagas, porStatus),
+                Arguments.of("modalidade", ativas.and(modalidades), porModalidade + ";" + porStatus),
+                Arguments.of("janela de datas", ativas.and(janela), "IDX_ATIVIDADE_STATUS_DATA;IDX_ATIVIDADE_ABERTAS_AGENDA"),
+                Arguments.of("modalidade + janela", ativas.and(modalidades).and(janela), porModalidade + ";" + porStatus),
+                Arguments.of("raio", ativas.and(raio), "IDX_ATIVIDADE_STATUS_LAT_LON;IDX_ATIVIDADE_STATUS_DATA"),
+                Arguments.of("com vagas + raio", comVagas.and(raio), porStatus),
+                Arguments.of("modalidade + raio", ativas.and(modalidades).and(raio), porModalidade + ";" + porStatus),
+                Arguments.of("janela + raio", ativas.and(janela).and(raio), porStatus),
+                Arguments.of("modalidade + janela + raio", ativas.and(modalidades).and(janela).and(raio),
+                        porModalidade + ";" + porStatus));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("combinacoesDaBusca")
+    void buscaFiltradaUsaIndice(String combinacao, Specification<Atividade> filtros, String indicesAceitos) throws SQLException {
+        List<PlanosDeExecucao.Comando> comandos = PlanosDeExecucao.capturar(dataSource,
+                () -> atividadeRepository.findAll(filtros, PageRequest.of(0, 20)));
+
+        try (Connection conexao = dataSource.getConnection()) {
+            assertUsaIndice(PlanosDeExecucao.explicar(conexao, PlanosDeExecucao.primeiroQueLe(comandos, "atividade")),
+                    indicesAceitos);
+        }
+    }
+
+    // 'indicesAceitos' lista prefixos de nome separados por ';', conferidos no comentário do plano
+    private static void assertUsaIndice(String plano, String indicesAceitos) {
+        Pattern indice = Pattern.compile("/\\* PUBLIC\\.(" + indicesAceitos.replace(';', '|') + ")");
+        assertTrue(plano != null && indice.matcher(plano.toUpperCase()).find()
+                        && !plano.toUpperCase().contains("PUBLIC.ATIVIDADE.TABLESCAN"),
+                "Plano sem nenhum dos índices " + indicesAceitos + ": " + plano);
+    }
+}
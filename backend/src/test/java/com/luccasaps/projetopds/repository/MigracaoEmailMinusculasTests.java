@@ -0,0 +1,72 @@
+package com.luccasaps.projetopds.repository;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * V14 num banco H2 próprio, com contas gravadas pela edição de perfil antiga (e-mail e username como vieram).
+ */
+class MigracaoEmailMinusculasTests {
+
+    private final DataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:migracao-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    @AfterEach
+    void fecharBanco() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void normalizaEmailEUsernameGravadosComMaiusculas() {
+        migrar("13");
+        inserirUsuario("Ana", "Ana@Exemplo.com");
+        inserirUsuario("bruno", "bruno@exemplo.com");
+
+        migrar(null);
+
+        assertEquals(List.of("ana@exemplo.com", "bruno@exemplo.com"),
+                jdbcTemplate.queryForList("SELECT email FROM usuarios ORDER BY email", String.class));
+        assertEquals(List.of("ana", "bruno"),
+                jdbcTemplate.queryForList("SELECT user_name FROM usuarios ORDER BY user_name", String.class));
+    }
+
+    @Test
+    void colisaoSemDiferenciarMaiusculasInterrompeAMigracao() {
+        migrar("13");
+        inserirUsuario("ana", "ana@exemplo.com");
+        inserirUsuario("outra", "ANA@exemplo.com");
+
+        assertThrows(FlywayException.class, () -> migrar(null));
+        // Nada foi alterado: as contas precisam ser resolvidas antes
+        assertEquals(List.of("ANA@exemplo.com", "ana@exemplo.com"),
+                jdbcTemplate.queryForList("SELECT email FROM usuarios ORDER BY email", String.class));
+    }
+
+    private void migrar(String versao) {
+        var configuracao = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2");
+        if (versao != null) {
+            configuracao.target(versao);
+        }
+        configuracao.load().migrate();
+    }
+
+    private void inserirUsuario(String username, String email) {
+        jdbcTemplate.update("""
+                INSERT INTO usuarios (id, name, user_name, email, data_nascimento, password, phone, cep, uf, street)
+                VALUES (?, ?, ?, ?, DATE '1990-01-01', 'senha', '11999999999', '01001000', 'SP', 'Praça da Sé')
+                """, UUID.randomUUID(), username, username, email);
+    }
+}
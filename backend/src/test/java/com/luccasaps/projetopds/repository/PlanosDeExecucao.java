@@ -0,0 +1,104 @@
+package com.luccasaps.projetopds.repository;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.regex.Pattern;
+
+/**
+ * Captura, no proxy JDBC do DataSource (DataSourceProxyPostProcessor), os comandos que os repositórios executam
+ * na thread do teste, com os parâmetros, e devolve o plano de execução (EXPLAIN) de cada um. Assim os testes de
+ * plano conferem o SQL que o Hibernate realmente gera, e não uma versão escrita à mão.
+ */
+final class PlanosDeExecucao {
+
+    record Comando(String sql, List<ParameterSetOperation> parametros) {
+
+        // SELECT com a tabela no FROM ou num JOIN (o Hibernate qualifica o nome com o esquema: public.usuarios)
+        boolean le(String tabela) {
+            String minusculo = sql.toLowerCase(Locale.ROOT);
+            return minusculo.startsWith("select")
+                    && Pattern.compile("\\b(from|join)\\s+(\\w+\\.)?" + tabela + "\\s").matcher(minusculo).find();
+        }
+    }
+
+    private PlanosDeExecucao() {
+    }
+
+    static List<Comando> capturar(DataSource dataSource, Runnable execucao) {
+        ChainListener cadeia = ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener();
+        Thread thread = Thread.currentThread();
+        List<Comando> comandos = new ArrayList<>();
+        QueryExecutionListener captura = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                if (Thread.currentThread() != thread) {
+                    return; // jobs agendados do mesmo contexto
+                }
+                for (QueryInfo consulta : queryInfoList) {
+                    List<List<ParameterSetOperation>> parametros = consulta.getParametersList();
+                    comandos.add(new Comando(consulta.getQuery().strip(),
+                            parametros.isEmpty() ? List.of() : List.copyOf(parametros.getFirst())));
+                }
+            }
+        };
+
+        // Troca a lista inteira: as outras threads continuam percorrendo a anterior sem concorrência
+        List<QueryExecutionListener> anteriores = cadeia.getListeners();
+        List<QueryExecutionListener> comCaptura = new ArrayList<>(anteriores);
+        comCaptura.add(captura);
+        cadeia.setListeners(comCaptura);
+        try {
+            execucao.run();
+        } finally {
+            cadeia.setListeners(anteriores);
+        }
+        return comandos;
+    }
+
+    // Primeiro comando capturado que lê a tabela
+    static Comando primeiroQueLe(List<Comando> comandos, String tabela) {
+        return comandos.stream()
+                .filter(c -> c.le(tabela))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Nenhum SELECT em " + tabela + ": " + comandos));
+    }
+
+    // Linhas do plano unidas por quebra de linha, com os mesmos parâmetros da execução original
+    static String explicar(Connection conexao, Comando comando) throws SQLException {
+        try (PreparedStatement ps = conexao.prepareStatement("EXPLAIN " + comando.sql())) {
+            for (ParameterSetOperation operacao : comando.parametros()) {
+                try {
+                    operacao.getMethod().invoke(ps, operacao.getArgs());
+                } catch (IllegalAccessException | InvocationTargetException e) {
+                    throw new IllegalStateException("Parâmetro não reaplicado: " + operacao.getMethod(), e);
+                }
+            }
+            StringJoiner plano = new StringJoiner("\n");
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plano.add(rs.getString(1));
+                }
+            }
+            return plano.toString();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AtividadeLifecycleServiceTests {
+
+    private final UUID primeira = UUID.randomUUID();
+    private final UUID segunda = UUID.randomUUID();
+    private final UUID terceira = UUID.randomUUID();
+
+    private final AtividadeRepository atividadeRepository = mock(AtividadeRepository.class);
+    private final SchedulerLockService schedulerLockService = mock(SchedulerLockService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final EstatisticasModalidadeService estatisticasModalidadeService = mock(EstatisticasModalidadeService.class);
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final AtividadeLifecycleService service = new AtividadeLifecycleService(atividadeRepository,
+            schedulerLockService, transactionTemplate, estatisticasModalidadeService, registry);
+
+    AtividadeLifecycleServiceTests() {
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(atividadeRepository.countByStatus(StatusAtividade.OPEN)).thenReturn(42L);
+
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxBatchesPerRun", 3);
+        ReflectionTestUtils.setField(service, "lockDurationMs", 300_000L);
+    }
+
+    @Test
+    void encerraEmLotesAteUmLoteIncompleto() {
+        when(schedulerLockService.tryAcquire(eq(AtividadeLifecycleService.LOCK), any())).thenReturn(true);
+        when(atividadeRepository.findIdsPassadas(any(), any(), any(), any()))
+                .thenReturn(List.of(primeira, segunda), List.of(terceira));
+        when(atividadeRepository.updateStatusInBulk(any(), any(), eq(StatusAtividade.FINISHED), any())).thenReturn(2, 1);
+
+        service.encerrarAtividadesPassadas();
+
+        // Cada lote sai das estatísticas por modalidade antes de ser encerrado
+        var ordem = inOrder(estatisticasModalidadeService, atividadeRepository);
+        ordem.verify(estatisticasModalidadeService).removerContribuicoes(List.of(primeira, segunda));
+        ordem.verify(atividadeRepository).updateStatusInBulk(eq(List.of(primeira, segunda)), any(), eq(StatusAtividade.FINISHED), any());
+        ordem.verify(estatisticasModalidadeService).removerContribuicoes(List.of(terceira));
+        ordem.verify(atividadeRepository).updateStatusInBulk(eq(List.of(terceira)), any(), eq(StatusAtividade.FINISHED), any());
+        verify(atividadeRepository, times(2)).findIdsPassadas(any(), any(), any(), any());
+        verify(schedulerLockService).release(AtividadeLifecycleService.LOCK);
+
+        assertEquals(3, registry.get("atividades.lifecycle.encerradas").counter().count());
+        assertEquals(3, registry.get("atividades.lifecycle.ultima.execucao.encerradas").gauge().value());
+        assertEquals(42, registry.get("atividades.abertas").gauge().value());
+    }
+
+    @Test
+    void paraNoLimiteDeLotesPorExecucao() {
+        when(schedulerLockService.tryAcquire(eq(AtividadeLifecycleService.LOCK), any())).thenReturn(true);
+        when(atividadeRepository.findIdsPassadas(any(), any(), any(), any())).thenReturn(List.of(primeira, segunda));
+        when(atividadeRepository.updateStatusInBulk(any(), any(), any(), any())).thenReturn(2);
+
+        service.encerrarAtividadesPassadas();
+
+        // Os lotes restantes ficam para a próxima rodada
+        verify(atividadeRepository, times(3)).findIdsPassadas(any(), any(), any(), any());
+        assertEquals(6, registry.get("atividades.lifecycle.ultima.execucao.encerradas").gauge().value());
+    }
+
+    @Test
+    void semATravaNaoEncerraNadaMasAtualizaAsAbertas() {
+        when(schedulerLockService.tryAcquire(eq(AtividadeLifecycleService.LOCK), any())).thenReturn(false);
+
+        service.encerrarAtividadesPassadas();
+
+        verify(atividadeRepository, never()).findIdsPassadas(any(), any(), any(), any());
+        verifyNoInteractions(estatisticasModalidadeService);
+        verify(schedulerLockService, never()).release(any());
+        assertEquals(42, registry.get("atividades.abertas").gauge().value());
+    }
+
+    @Test
+    void abertasNaoConsultamOBancoACadaColeta() {
+        registry.get("atividades.abertas").gauge().value();
+        registry.get("atividades.abertas").gauge().value();
+
+        verify(atividadeRepository, never()).countByStatus(any());
+    }
+}
@@ -0,0 +1,77 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.AtividadeResponseDTO;
+import com.luccasaps.projetopds.controller.dto.BuscaAtividadesDTO;
+import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ModalidadeRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.luccasaps.projetopds.DadosDeTeste.atividade;
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class AtividadeServiceBuscaTests {
+
+    @Autowired
+    private AtividadeService atividadeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @Autowired
+    private ModalidadeRepository modalidadeRepository;
+
+    @BeforeEach
+    void criarAtividades() {
+        Modalidade corrida = modalidadeRepository.findByNome("corrida");
+        User criador = userRepository.save(usuario("criador"));
+        atividadeRepository.save(atividade("Aberta", criador, corrida, StatusAtividade.OPEN, LocalDate.now().plusDays(1)));
+        atividadeRepository.save(atividade("Lotada", criador, corrida, StatusAtividade.CLOSED, LocalDate.now().plusDays(1)));
+        atividadeRepository.save(atividade("Encerrada", criador, corrida, StatusAtividade.FINISHED, LocalDate.now().plusDays(1)));
+    }
+
+    @Test
+    void comVagasRestringeOsStatusPedidos() {
+        assertEquals(List.of("Aberta"), titulos(buscar(List.of(StatusAtividade.OPEN, StatusAtividade.CLOSED), true)));
+        assertEquals(List.of("Aberta"), titulos(buscar(null, true)));
+    }
+
+    @Test
+    void comVagasComStatusSemVagaNaoTemResultado() {
+        assertTrue(buscar(List.of(StatusAtividade.CLOSED), true).isEmpty());
+        assertTrue(buscar(List.of(StatusAtividade.FINISHED), true).isEmpty());
+    }
+
+    @Test
+    void semComVagasUsaOsStatusPedidos() {
+        assertEquals(List.of("Lotada"), titulos(buscar(List.of(StatusAtividade.CLOSED), null)));
+        assertEquals(List.of("Aberta", "Lotada"), titulos(buscar(null, false)));
+    }
+
+    private Page<AtividadeResponseDTO> buscar(List<StatusAtividade> status, Boolean comVagas) {
+        BuscaAtividadesDTO filtros = new BuscaAtividadesDTO(null, null, null, status, comVagas, null, null);
+        return atividadeService.buscar(filtros, PageRequest.of(0, 10));
+    }
+
+    private static List<String> titulos(Page<AtividadeResponseDTO> pagina) {
+        return pagina.getContent().stream().map(AtividadeResponseDTO::titulo).sorted().toList();
+    }
+}
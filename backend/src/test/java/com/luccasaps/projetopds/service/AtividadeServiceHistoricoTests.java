@@ -0,0 +1,87 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.AtividadeResponseDTO;
+import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.AtividadeArquivadaRepository;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ModalidadeRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.luccasaps.projetopds.DadosDeTeste.atividade;
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class AtividadeServiceHistoricoTests {
+
+    @Autowired
+    private AtividadeService atividadeService;
+
+    @Autowired
+    private AtividadeArquivamentoService arquivamentoService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @Autowired
+    private AtividadeArquivadaRepository atividadeArquivadaRepository;
+
+    @Autowired
+    private ModalidadeRepository modalidadeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void paginasPercorremATabelaQuenteEDepoisOArquivoSemRepetirNemPular() {
+        Modalidade corrida = modalidadeRepository.findByNome("corrida");
+        User usuario = userRepository.save(usuario("historico"));
+
+        // 3 atividades recentes (ficam na tabela quente) e 4 antigas (vão para o arquivo)
+        for (int dias = 1; dias <= 3; dias++) {
+            atividadeRepository.save(atividade("Recente " + dias, usuario, corrida, StatusAtividade.FINISHED,
+                    LocalDate.now().minusDays(dias)));
+        }
+        for (int dias = 100; dias <= 400; dias += 100) {
+            atividadeRepository.save(atividade("Antiga " + dias, usuario, corrida, StatusAtividade.FINISHED,
+                    LocalDate.now().minusDays(dias)));
+        }
+        // Uma atividade futura não entra no histórico
+        atividadeRepository.save(atividade("Futura", usuario, corrida));
+        entityManager.flush();
+
+        arquivamentoService.arquivarAtividadesAntigas();
+        entityManager.clear();
+        assertEquals(4, atividadeArquivadaRepository.countHistorico(usuario.getId()));
+
+        // Páginas de 2: a segunda mistura a última recente com a primeira arquivada
+        List<String> titulos = new ArrayList<>();
+        for (int pagina = 0; pagina < 4; pagina++) {
+            Page<AtividadeResponseDTO> resultado = atividadeService.findHistoricoPaginated("historico", PageRequest.of(pagina, 2));
+            assertEquals(7, resultado.getTotalElements());
+            assertEquals(4, resultado.getTotalPages());
+            resultado.getContent().forEach(a -> titulos.add(a.titulo()));
+        }
+
+        assertEquals(List.of("Recente 1", "Recente 2", "Recente 3", "Antiga 100", "Antiga 200", "Antiga 300", "Antiga 400"),
+                titulos);
+        assertTrue(atividadeService.findHistoricoPaginated("historico", PageRequest.of(4, 2)).getContent().isEmpty());
+    }
+}
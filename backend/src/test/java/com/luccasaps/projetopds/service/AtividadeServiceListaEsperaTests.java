@@ -0,0 +1,135 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.ListaEsperaResponseDTO;
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ModalidadeRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class AtividadeServiceListaEsperaTests {
+
+    @Autowired
+    private AtividadeService atividadeService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @Autowired
+    private ModalidadeRepository modalidadeRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private UUID atividadeId;
+
+    @BeforeEach
+    void criarAtividadeComDuasVagas() {
+        Modalidade corrida = modalidadeRepository.findByNome("corrida");
+        User criador = userRepository.save(usuario("criador"));
+        for (String username : List.of("ana", "bruno", "carla", "diego")) {
+            userRepository.save(usuario(username));
+        }
+
+        Atividade atividade = new Atividade();
+        atividade.setTitulo("Corrida no parque");
+        atividade.setCriador(criador);
+        atividade.setModalidade(corrida);
+        atividade.setData(LocalDate.now().plusDays(1));
+        atividade.setHorario(LocalTime.of(7, 0));
+        atividade.setCapacidade(2);
+        atividade.setStatus(StatusAtividade.OPEN);
+        atividade.getParticipantes().add(criador);
+        atividadeId = atividadeRepository.save(atividade).getId();
+    }
+
+    @Test
+    void inscricaoNaAtividadeLotadaEntraNaFilaESaidaPromoveOPrimeiro() {
+        assertTrue(atividadeService.inscrever(atividadeId, "ana").isEmpty()); // ocupa a última vaga
+        assertEquals(StatusAtividade.CLOSED, status());
+
+        Optional<ListaEsperaResponseDTO> bruno = atividadeService.inscrever(atividadeId, "bruno");
+        Optional<ListaEsperaResponseDTO> carla = atividadeService.inscrever(atividadeId, "carla");
+        assertEquals(new ListaEsperaResponseDTO(atividadeId, 1, 1), bruno.orElseThrow());
+        assertEquals(new ListaEsperaResponseDTO(atividadeId, 2, 2), carla.orElseThrow());
+
+        atividadeService.sair(atividadeId, "ana");
+
+        assertEquals(List.of("bruno", "criador"), participantes());
+        assertEquals(StatusAtividade.CLOSED, status());
+        assertEquals(new ListaEsperaResponseDTO(atividadeId, 1, 1),
+                atividadeService.findPosicaoNaListaDeEspera(atividadeId, "carla"));
+        assertThrows(EntityNotFoundException.class, () -> atividadeService.findPosicaoNaListaDeEspera(atividadeId, "bruno"));
+    }
+
+    @Test
+    void saidaDoMeioDaFilaAdiantaQuemEstaAtras() {
+        atividadeService.inscrever(atividadeId, "ana");
+        atividadeService.inscrever(atividadeId, "bruno");
+        atividadeService.inscrever(atividadeId, "carla");
+        atividadeService.inscrever(atividadeId, "diego");
+
+        atividadeService.sair(atividadeId, "carla");
+
+        assertEquals(new ListaEsperaResponseDTO(atividadeId, 1, 2),
+                atividadeService.findPosicaoNaListaDeEspera(atividadeId, "bruno"));
+        assertEquals(new ListaEsperaResponseDTO(atividadeId, 2, 2),
+                atividadeService.findPosicaoNaListaDeEspera(atividadeId, "diego"));
+        assertEquals(List.of("ana", "criador"), participantes());
+    }
+
+    @Test
+    void saidaSemFilaReabreAAtividade() {
+        atividadeService.inscrever(atividadeId, "ana");
+        assertEquals(StatusAtividade.CLOSED, status());
+
+        atividadeService.sair(atividadeId, "ana");
+
+        assertEquals(StatusAtividade.OPEN, status());
+        assertEquals(List.of("criador"), participantes());
+    }
+
+    @Test
+    void naoInscreveDuasVezesNaFila() {
+        atividadeService.inscrever(atividadeId, "ana");
+        atividadeService.inscrever(atividadeId, "bruno");
+
+        assertThrows(IllegalStateException.class, () -> atividadeService.inscrever(atividadeId, "bruno"));
+    }
+
+    private StatusAtividade status() {
+        entityManager.flush();
+        entityManager.clear();
+        return atividadeRepository.findById(atividadeId).orElseThrow().getStatus();
+    }
+
+    private List<String> participantes() {
+        entityManager.flush();
+        entityManager.clear();
+        return atividadeRepository.findById(atividadeId).orElseThrow().getParticipantes().stream()
+                .map(User::getUsername).sorted().toList();
+    }
+}
@@ -0,0 +1,80 @@
+package com.luccasaps.projetopds.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTests {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong relogio = new AtomicLong(1_000 * MS);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CircuitBreaker circuito = new CircuitBreaker("teste",
+            new CircuitBreaker.Config(10, 4, 0.5, 30_000, 2, 0.5), meterRegistry, relogio::get);
+
+    @Test
+    void abreQuandoATaxaDeFalhaAtingeOLimiteEFechaDepoisDosTestes() {
+        circuito.registrarSucesso(10 * MS);
+        circuito.registrarFalha(10 * MS);
+        circuito.registrarSucesso(10 * MS);
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuito.getEstado()); // menos que o mínimo de chamadas
+
+        circuito.registrarFalha(10 * MS);
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuito.getEstado());
+        assertFalse(circuito.permitirChamada());
+
+        // Depois da espera: só duas chamadas de teste simultâneas
+        relogio.addAndGet(30_000 * MS);
+        assertTrue(circuito.permitirChamada());
+        assertTrue(circuito.permitirChamada());
+        assertFalse(circuito.permitirChamada());
+        assertEquals(CircuitBreaker.Estado.MEIO_ABERTO, circuito.getEstado());
+
+        circuito.registrarSucesso(10 * MS);
+        circuito.registrarSucesso(10 * MS);
+        assertEquals(CircuitBreaker.Estado.FECHADO, circuito.getEstado());
+        assertEquals(0, circuito.getTaxaFalha());
+
+        assertEquals(1, meterRegistry.get("geocoding.circuito.transicoes").tag("para", "ABERTO").counter().count());
+        assertEquals(1, meterRegistry.get("geocoding.circuito.transicoes").tag("para", "FECHADO").counter().count());
+        assertEquals(0, meterRegistry.get("geocoding.circuito.estado").gauge().value());
+    }
+
+    @Test
+    void falhaNoTesteReabreODisjuntor() {
+        for (int i = 0; i < 4; i++) {
+            circuito.registrarFalha(MS);
+        }
+        relogio.addAndGet(30_000 * MS);
+
+        assertTrue(circuito.permitirChamada());
+        circuito.registrarFalha(MS);
+
+        assertEquals(CircuitBreaker.Estado.ABERTO, circuito.getEstado());
+        assertFalse(circuito.permitirChamada());
+        assertEquals(Double.MAX_VALUE, circuito.custo());
+    }
+
+    @Test
+    void custoSegueALatenciaMediaEATaxaDeSucesso() {
+        CircuitBreaker outro = new CircuitBreaker("outro",
+                new CircuitBreaker.Config(10, 4, 0.5, 30_000, 2, 0.5), meterRegistry, relogio::get);
+        assertTrue(circuito.custo() < Double.MAX_VALUE && circuito.custo() == outro.custo()); // ambos sem medição
+
+        circuito.registrarSucesso(100 * MS);
+        outro.registrarSucesso(40 * MS);
+        assertTrue(outro.custo() < circuito.custo());
+
+        // Falhas encarecem o provedor mesmo com o disjuntor fechado
+        outro.registrarFalha(MS);
+        outro.registrarFalha(MS);
+        outro.registrarSucesso(40 * MS);
+        assertEquals(CircuitBreaker.Estado.FECHADO, outro.getEstado());
+        assertTrue(outro.custo() > 40 / 0.5 - 1);
+    }
+}
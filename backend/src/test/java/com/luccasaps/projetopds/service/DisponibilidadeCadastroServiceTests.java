@@ -0,0 +1,103 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.DisponibilidadeDTO;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DisponibilidadeCadastroServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final OutboxEventoRepository outboxEventoRepository = mock(OutboxEventoRepository.class);
+    private final DisponibilidadeCadastroService service =
+            new DisponibilidadeCadastroService(userRepository, outboxEventoRepository, new SimpleMeterRegistry());
+
+    @Test
+    void antesDoFiltroFicarProntoTudoVaiAoBanco() {
+        when(userRepository.existsByUsername("ana")).thenReturn(true);
+
+        assertEquals(new DisponibilidadeDTO(null, false), service.verificar(null, "Ana"));
+        verify(userRepository).existsByUsername("ana");
+    }
+
+    @Test
+    void valorLivreNaoConsultaOBancoEValorEmUsoEConfirmado() {
+        configurar();
+        Tuple ana = credenciais("ana@exemplo.com", "ana");
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.findCredenciais(any())).thenReturn(List.of(ana));
+        when(userRepository.existsByEmail("ana@exemplo.com")).thenReturn(true);
+        service.reconstruir();
+
+        assertEquals(new DisponibilidadeDTO(true, true), service.verificar("bruno@exemplo.com", "bruno"));
+        verify(userRepository, never()).existsByEmail("bruno@exemplo.com");
+        verify(userRepository, never()).existsByUsername("bruno");
+
+        assertEquals(new DisponibilidadeDTO(false, null), service.verificar("ANA@exemplo.com", ""));
+        verify(userRepository).existsByEmail("ana@exemplo.com");
+
+        // Cadastro confirmado nesta instância passa a ir ao banco também
+        service.registrarCadastro("carla@exemplo.com", "carla");
+        service.verificar(null, "carla");
+        verify(userRepository).existsByUsername("carla");
+    }
+
+    @Test
+    void usernameTrocadoEmOutraInstanciaEntraNoFiltroPelaSincronizacao() {
+        configurar();
+        UUID anaId = UUID.randomUUID();
+        Tuple ana = credenciais("ana@exemplo.com", "ana");
+        when(userRepository.count()).thenReturn(1L);
+        when(userRepository.findCredenciais(any())).thenReturn(List.of(ana));
+        when(outboxEventoRepository.findUltimoId()).thenReturn(7L);
+        service.reconstruir();
+
+        // Outra instância trocou o username da Ana para 'beatriz' (evento 8 do outbox)
+        Tuple evento = mock(Tuple.class);
+        when(evento.get("id", Long.class)).thenReturn(8L);
+        when(evento.get("agregadoId", String.class)).thenReturn(anaId.toString());
+        Tuple renomeada = credenciais("ana@exemplo.com", "beatriz");
+        when(outboxEventoRepository.findAgregadosDesde(eq(7L), any(), any())).thenReturn(List.of(evento));
+        when(userRepository.findCredenciaisByIdIn(List.of(anaId))).thenReturn(List.of(renomeada));
+        when(userRepository.existsByUsername("beatriz")).thenReturn(true);
+
+        // Antes da sincronização o filtro ainda não conhece o valor novo
+        assertEquals(new DisponibilidadeDTO(null, true), service.verificar(null, "beatriz"));
+
+        service.sincronizar();
+
+        assertEquals(new DisponibilidadeDTO(null, false), service.verificar(null, "Beatriz"));
+        verify(userRepository).existsByUsername("beatriz");
+
+        // A próxima rodada continua depois do último evento lido
+        service.sincronizar();
+        verify(outboxEventoRepository).findAgregadosDesde(eq(8L), any(), any());
+    }
+
+    private void configurar() {
+        ReflectionTestUtils.setField(service, "taxaFalsoPositivo", 0.001);
+        ReflectionTestUtils.setField(service, "capacidadeMinima", 1000L);
+        ReflectionTestUtils.setField(service, "lote", 100);
+        ReflectionTestUtils.setField(service, "margemSincronizacao", Duration.ofMinutes(2));
+    }
+
+    private static Tuple credenciais(String email, String username) {
+        Tuple t = mock(Tuple.class);
+        when(t.get("id", UUID.class)).thenReturn(UUID.randomUUID());
+        when(t.get("email", String.class)).thenReturn(email);
+        when(t.get("username", String.class)).thenReturn(username);
+        return t;
+    }
+}
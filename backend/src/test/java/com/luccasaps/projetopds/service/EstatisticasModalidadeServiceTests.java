@@ -0,0 +1,158 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.model.ModalidadeEstatistica;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ModalidadeEstatisticaRepository;
+import com.luccasaps.projetopds.repository.ModalidadeRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EstatisticasModalidadeServiceTests {
+
+    private final ModalidadeEstatisticaRepository estatisticaRepository = mock(ModalidadeEstatisticaRepository.class);
+    private final AtividadeRepository atividadeRepository = mock(AtividadeRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ModalidadeRepository modalidadeRepository = mock(ModalidadeRepository.class);
+    private final SchedulerLockService schedulerLockService = mock(SchedulerLockService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final EstatisticasModalidadeService service = new EstatisticasModalidadeService(estatisticaRepository,
+            atividadeRepository, userRepository, modalidadeRepository, schedulerLockService, transactionTemplate,
+            new SimpleMeterRegistry());
+
+    private final Modalidade corrida = modalidade(1L);
+    private final Modalidade yoga = modalidade(2L);
+
+    @AfterEach
+    void limparTransacao() {
+        TransactionSynchronizationManager.unbindResourceIfPossible(service);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void diferencasDaTransacaoViramUmUpdatePorModalidadeNoCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        when(estatisticaRepository.incrementar(anyLong(), anyInt(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong()))
+                .thenReturn(1);
+
+        // Inscrição que lota a atividade: 4 -> 5 participantes de 5 vagas
+        Atividade atividade = atividade(corrida, 5);
+        service.removerContribuicao(atividade, 4);
+        atividade.setStatus(StatusAtividade.CLOSED);
+        service.adicionarContribuicao(atividade, 5);
+
+        // Usuário troca yoga por corrida
+        service.registrarModalidadesDoUsuario(Set.of(yoga), Set.of(corrida));
+
+        // Nada é gravado antes do commit
+        verify(estatisticaRepository, never()).incrementar(any(), any(), anyLong(), anyLong(), anyLong(), anyLong(), anyLong());
+
+        commit();
+
+        verify(estatisticaRepository).incrementar(eq(1L), anyInt(), eq(0L), eq(1L), eq(1L), eq(0L), eq(1L));
+        verify(estatisticaRepository).incrementar(eq(2L), anyInt(), eq(0L), eq(0L), eq(0L), eq(0L), eq(-1L));
+        verifyNoMoreInteractions(estatisticaRepository);
+    }
+
+    @Test
+    void atividadeEncerradaNaoContaEAlteracaoSemEfeitoNaoGravaNada() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        Atividade encerrada = atividade(corrida, 10);
+        encerrada.setStatus(StatusAtividade.FINISHED);
+        service.adicionarContribuicao(encerrada, 3);
+
+        // Alteração do título: sai e entra a mesma contribuição
+        Atividade aberta = atividade(corrida, 10);
+        service.removerContribuicao(aberta, 3);
+        service.adicionarContribuicao(aberta, 3);
+
+        commit();
+
+        verifyNoInteractions(estatisticaRepository);
+    }
+
+    @Test
+    void reconciliacaoGravaOValorRealNaFaixaZeroEZeraAsDemais() {
+        when(schedulerLockService.tryAcquire(eq(EstatisticasModalidadeService.LOCK), any())).thenReturn(true);
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        // Contadores com deriva espalhados em duas faixas; as outras ainda não existem
+        ModalidadeEstatistica faixa0 = linha(1L, 0, 2, 5);
+        ModalidadeEstatistica faixa3 = linha(1L, 3, 2, 1);
+        when(estatisticaRepository.findAllForUpdate()).thenReturn(List.of(faixa0, faixa3));
+        when(atividadeRepository.somarEstatisticasPorModalidade()).thenReturn(
+                List.<Object[]>of(new Object[]{1L, 3L, 1L, 7L, 10L}));
+        when(userRepository.countUsuariosPorModalidade()).thenReturn(List.<Object[]>of(new Object[]{1L, 4L}));
+        when(modalidadeRepository.findAll()).thenReturn(List.of(corrida));
+        List<ModalidadeEstatistica> novas = new ArrayList<>();
+        when(estatisticaRepository.saveAll(anyList())).thenAnswer(inv -> {
+            novas.addAll(inv.<Collection<ModalidadeEstatistica>>getArgument(0));
+            return novas;
+        });
+
+        service.reconciliarSeSolicitado(); // a primeira verificação após a subida sempre reconcilia
+
+        assertEquals(3, faixa0.getAtividadesAtivas());
+        assertEquals(1, faixa0.getAtividadesLotadas());
+        assertEquals(7, faixa0.getParticipantes());
+        assertEquals(10, faixa0.getCapacidade());
+        assertEquals(4, faixa0.getUsuarios());
+        assertEquals(0, faixa3.getAtividadesAtivas());
+        assertEquals(0, faixa3.getUsuarios());
+        assertEquals(EstatisticasModalidadeService.FAIXAS - 2, novas.size());
+        assertTrue(novas.stream().allMatch(l -> l.getAtividadesAtivas() == 0 && l.getUsuarios() == 0));
+        verify(schedulerLockService).release(EstatisticasModalidadeService.LOCK);
+
+        // Sem novo pedido, a próxima verificação não reconcilia de novo
+        service.reconciliarSeSolicitado();
+        verify(estatisticaRepository, times(1)).findAllForUpdate();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> sincronizacoes = TransactionSynchronizationManager.getSynchronizations();
+        sincronizacoes.forEach(s -> s.beforeCommit(false));
+        sincronizacoes.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private static Modalidade modalidade(Long id) {
+        Modalidade modalidade = new Modalidade();
+        modalidade.setId(id);
+        return modalidade;
+    }
+
+    private static Atividade atividade(Modalidade modalidade, int capacidade) {
+        Atividade atividade = new Atividade();
+        atividade.setModalidade(modalidade);
+        atividade.setCapacidade(capacidade);
+        atividade.setSemLimite(false);
+        atividade.setStatus(StatusAtividade.OPEN);
+        return atividade;
+    }
+
+    private static ModalidadeEstatistica linha(Long modalidadeId, int faixa, long atividades, long usuarios) {
+        ModalidadeEstatistica linha = new ModalidadeEstatistica(modalidadeId, faixa);
+        linha.setAtividadesAtivas(atividades);
+        linha.setUsuarios(usuarios);
+        return linha;
+    }
+}
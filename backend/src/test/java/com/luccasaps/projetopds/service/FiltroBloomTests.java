@@ -0,0 +1,43 @@
+package com.luccasaps.projetopds.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiltroBloomTests {
+
+    @Test
+    void valoresAdicionadosSempreSaoEncontrados() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("u:usuario" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filtro.podeConter("u:usuario" + i), "falso negativo para usuario" + i);
+        }
+    }
+
+    @Test
+    void taxaDeFalsoPositivoFicaPertoDaConfigurada() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filtro.adicionar("e:pessoa" + i + "@exemplo.com");
+        }
+
+        int falsosPositivos = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filtro.podeConter("e:outra" + i + "@exemplo.com")) {
+                falsosPositivos++;
+            }
+        }
+        assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos); // 1% esperado, 2% de tolerância
+        assertEquals(7, filtro.funcoes());
+    }
+
+    @Test
+    void filtroVazioNaoContemNada() {
+        FiltroBloom filtro = new FiltroBloom(1_000, 0.01);
+        assertFalse(filtro.podeConter("u:ana"));
+        assertFalse(filtro.podeConter(""));
+    }
+}
@@ -0,0 +1,156 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.cache.AtividadeDetalheCache;
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.StatusGeocodificacao;
+import com.luccasaps.projetopds.model.TipoEvento;
+import com.luccasaps.projetopds.outbox.OutboxService;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GeocodificacaoAtividadeServiceTests {
+
+    private static final String CEP = "01001000";
+
+    private final UUID primeira = UUID.randomUUID();
+    private final UUID segunda = UUID.randomUUID();
+
+    private final AtividadeRepository atividadeRepository = mock(AtividadeRepository.class);
+    private final GeocodingService geocodingService = mock(GeocodingService.class);
+    private final OutboxService outboxService = mock(OutboxService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final AtividadeDetalheCache atividadeDetalheCache = mock(AtividadeDetalheCache.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GeocodificacaoAtividadeService service = new GeocodificacaoAtividadeService(atividadeRepository,
+            geocodingService, outboxService, mock(SchedulerLockService.class), transactionTemplate,
+            atividadeDetalheCache, registry, 1, 10);
+
+    GeocodificacaoAtividadeServiceTests() {
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any())).thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        ReflectionTestUtils.setField(service, "esperaInicialMs", 120_000L);
+        ReflectionTestUtils.setField(service, "maxTentativas", 8);
+        ReflectionTestUtils.setField(service, "backoffInicialMs", 30_000L);
+        ReflectionTestUtils.setField(service, "backoffMaxMs", 3_600_000L);
+    }
+
+    @AfterEach
+    void encerrar() {
+        service.encerrar();
+    }
+
+    @Test
+    void coordenadasResolvemTodasAsAtividadesDoCep() {
+        when(geocodingService.consultar(CEP)).thenReturn(
+                new GeocodingService.Consulta(new GeocodingService.Coordenadas(-23.55, -46.63), false));
+        when(atividadeRepository.findIdsGeocodificacaoPendenteByCep(CEP)).thenReturn(List.of(primeira, segunda));
+        when(atividadeRepository.resolverGeocodificacao(any(), any(), any())).thenReturn(2);
+
+        service.resolver(CEP);
+
+        verify(atividadeRepository).resolverGeocodificacao(List.of(primeira, segunda), -23.55, -46.63);
+        verify(outboxService, times(2)).registrar(eq(TipoEvento.ATIVIDADE_GEOCODIFICADA), any(), any());
+        verify(atividadeDetalheCache).invalidate(List.of(primeira, segunda));
+    }
+
+    @Test
+    void cepInexistenteFalhaSemNovasTentativas() {
+        when(geocodingService.consultar(CEP)).thenReturn(new GeocodingService.Consulta(null, true));
+        when(atividadeRepository.findIdsGeocodificacaoPendenteByCep(CEP)).thenReturn(List.of(primeira, segunda));
+
+        service.resolver(CEP);
+
+        verify(atividadeRepository).registrarCepInexistente(List.of(primeira, segunda));
+        verify(atividadeRepository, never()).registrarFalhaGeocodificacao(any(), any(), anyInt());
+        verify(outboxService).registrar(TipoEvento.ATIVIDADE_GEOCODIFICACAO_FALHOU, primeira,
+                Map.of("atividadeId", primeira, "cep", CEP, "motivo", "CEP_INEXISTENTE"));
+        verify(outboxService).registrar(TipoEvento.ATIVIDADE_GEOCODIFICACAO_FALHOU, segunda,
+                Map.of("atividadeId", segunda, "cep", CEP, "motivo", "CEP_INEXISTENTE"));
+        verify(atividadeDetalheCache).invalidate(List.of(primeira, segunda));
+    }
+
+    @Test
+    void provedoresForaReagendamComEsperaExponencial() {
+        when(geocodingService.consultar(CEP)).thenReturn(new GeocodingService.Consulta(null, false));
+        when(atividadeRepository.findMaxTentativasGeocodificacaoByCep(CEP)).thenReturn(Optional.of(2));
+        when(atividadeRepository.findIdsGeocodificacaoEsgotadaByCep(CEP, 8)).thenReturn(List.of());
+
+        LocalDateTime antes = LocalDateTime.now();
+        service.resolver(CEP);
+
+        // Terceira falha: 30s * 2²
+        ArgumentCaptor<LocalDateTime> proxima = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(atividadeRepository).registrarFalhaGeocodificacao(eq(CEP), proxima.capture(), eq(8));
+        Duration espera = Duration.between(antes, proxima.getValue());
+        assertTrue(espera.compareTo(Duration.ofSeconds(120)) >= 0 && espera.compareTo(Duration.ofSeconds(121)) < 0,
+                "espera: " + espera);
+        verify(atividadeRepository, never()).registrarCepInexistente(any());
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    void tentativasEsgotadasAvisamOCriador() {
+        when(geocodingService.consultar(CEP)).thenReturn(new GeocodingService.Consulta(null, false));
+        when(atividadeRepository.findMaxTentativasGeocodificacaoByCep(CEP)).thenReturn(Optional.of(7));
+        when(atividadeRepository.findIdsGeocodificacaoEsgotadaByCep(CEP, 8)).thenReturn(List.of(primeira));
+
+        service.resolver(CEP);
+
+        verify(atividadeRepository).registrarFalhaGeocodificacao(eq(CEP), any(), eq(8));
+        verify(outboxService).registrar(TipoEvento.ATIVIDADE_GEOCODIFICACAO_FALHOU, primeira,
+                Map.of("atividadeId", primeira, "cep", CEP, "motivo", "TENTATIVAS_ESGOTADAS"));
+    }
+
+    @Test
+    void marcarPendenteLimpaAsCoordenadasEConsultaOCep() {
+        when(geocodingService.consultar(CEP)).thenReturn(new GeocodingService.Consulta(null, false));
+        when(atividadeRepository.findMaxTentativasGeocodificacaoByCep(CEP)).thenReturn(Optional.empty());
+        Atividade atividade = new Atividade();
+        atividade.setCep(CEP);
+        atividade.setLatitude(-23.55);
+        atividade.setLongitude(-46.63);
+        atividade.setGeocodificacao(StatusGeocodificacao.FALHOU);
+
+        service.marcarPendente(atividade);
+
+        assertEquals(StatusGeocodificacao.PENDENTE, atividade.getGeocodificacao());
+        assertNull(atividade.getLatitude());
+        assertEquals(0, atividade.getGeocodificacaoTentativas());
+        verify(geocodingService, timeout(2000)).consultar(CEP);
+    }
+
+    @Test
+    void pendentesSaoContadasNaVarreduraENaoACadaColeta() {
+        when(atividadeRepository.countByGeocodificacao(StatusGeocodificacao.PENDENTE)).thenReturn(5L);
+        assertEquals(0, registry.get("atividades.geocodificacao.pendentes").gauge().value());
+        verify(atividadeRepository, never()).countByGeocodificacao(any());
+
+        // Mesmo sem a trava (outra instância varre), o gauge desta instância é atualizado
+        service.varrerPendentes();
+
+        assertEquals(5, registry.get("atividades.geocodificacao.pendentes").gauge().value());
+        verify(atividadeRepository, never()).findCepsGeocodificacaoPendente(any(), any());
+    }
+}
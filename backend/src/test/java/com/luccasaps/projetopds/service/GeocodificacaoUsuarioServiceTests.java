@@ -0,0 +1,76 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GeocodificacaoUsuarioServiceTests {
+
+    private static final UUID USUARIO = UUID.randomUUID();
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final GeocodingService geocodingService = mock(GeocodingService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final GeocodificacaoUsuarioService service = new GeocodificacaoUsuarioService(userRepository,
+            geocodingService, transactionTemplate, new SimpleMeterRegistry(), 1, 10);
+
+    GeocodificacaoUsuarioServiceTests() {
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(geocodingService.getCoordinates("01001000")).thenReturn(new GeocodingService.Coordenadas(-23.55, -46.63));
+    }
+
+    @AfterEach
+    void encerrar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        service.encerrar();
+    }
+
+    @Test
+    void consultaOCepSoDepoisDoCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.agendar(USUARIO, "01001000");
+        verifyNoInteractions(geocodingService);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // O CEP entra na condição: se o usuário trocou de CEP no meio tempo, nada é gravado
+        verify(userRepository, timeout(2000)).atualizarCoordenadas(USUARIO, "01001000", -23.55, -46.63);
+    }
+
+    @Test
+    void cadastroDesfeitoNaoConsultaAsApis() throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.agendar(USUARIO, "01001000");
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        Thread.sleep(100);
+        verifyNoInteractions(geocodingService, userRepository);
+    }
+
+    @Test
+    void cepNaoEncontradoDeixaAsCoordenadasParaABusca() {
+        service.agendar(USUARIO, "99999999");
+
+        verify(geocodingService, timeout(2000)).getCoordinates("99999999");
+        verify(userRepository, after(100).never()).atualizarCoordenadas(any(), any(), any(), any());
+    }
+}
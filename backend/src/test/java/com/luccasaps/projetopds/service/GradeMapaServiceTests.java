@@ -0,0 +1,99 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GradeMapaServiceTests {
+
+    private final UUID primeira = UUID.randomUUID();
+    private final UUID segunda = UUID.randomUUID();
+
+    private final AtividadeRepository atividadeRepository = mock(AtividadeRepository.class);
+    private final OutboxEventoRepository outboxEventoRepository = mock(OutboxEventoRepository.class);
+    private final GradeMapaService service = new GradeMapaService(atividadeRepository, outboxEventoRepository,
+            new SimpleMeterRegistry());
+
+    GradeMapaServiceTests() {
+        ReflectionTestUtils.setField(service, "maxCelulas", 1024);
+        ReflectionTestUtils.setField(service, "loteSincronizacao", 2);
+    }
+
+    @Test
+    void sincronizacaoAplicaEventosDespachadosPorOutraInstancia() {
+        Tuple pontoPrimeira = ponto(primeira);
+        when(outboxEventoRepository.findUltimoId()).thenReturn(10L);
+        when(atividadeRepository.findPontosMapa()).thenReturn(List.of(pontoPrimeira));
+        service.reconstruir();
+
+        // Eventos de outra instância: a segunda atividade foi criada e a primeira encerrada
+        Tuple criada = evento(11, segunda);
+        Tuple encerrada = evento(12, primeira);
+        Tuple pontoSegunda = ponto(segunda);
+        when(outboxEventoRepository.findAgregadosDesde(eq(10L), any(), any())).thenReturn(List.of(criada, encerrada));
+        when(outboxEventoRepository.findAgregadosDesde(eq(12L), any(), any())).thenReturn(List.of());
+        when(atividadeRepository.findPontoMapaById(segunda)).thenReturn(Optional.of(pontoSegunda));
+        when(atividadeRepository.findPontoMapaById(primeira)).thenReturn(Optional.empty());
+
+        service.sincronizar();
+
+        assertEquals(1, mundo());
+        verify(outboxEventoRepository).findAgregadosDesde(eq(12L), any(), any()); // lote cheio: lê o próximo
+
+        // A próxima rodada continua do último evento lido
+        service.sincronizar();
+        verify(outboxEventoRepository, times(2)).findAgregadosDesde(eq(12L), any(), any());
+    }
+
+    @Test
+    void sincronizacaoEsperaAPrimeiraReconstrucao() {
+        service.sincronizar();
+
+        verifyNoInteractions(outboxEventoRepository);
+    }
+
+    @Test
+    void falhaNaReconstrucaoMantemAGradeAnterior() {
+        Tuple pontoPrimeira = ponto(primeira);
+        when(atividadeRepository.findPontosMapa()).thenReturn(List.of(pontoPrimeira));
+        service.reconstruir();
+
+        when(atividadeRepository.findPontosMapa()).thenThrow(new IllegalStateException("banco fora"));
+        assertThrows(IllegalStateException.class, service::reconstruir);
+
+        assertEquals(1, mundo());
+        // Os eventos seguintes não ficam acumulados para uma troca de grade que não vai acontecer
+        assertNull(ReflectionTestUtils.getField(service, "alteradosDuranteReconstrucao"));
+    }
+
+    private int mundo() {
+        return service.agregar(80, -80, 179, -179, 0, null).total();
+    }
+
+    private static Tuple ponto(UUID id) {
+        Tuple t = mock(Tuple.class);
+        when(t.get("id", UUID.class)).thenReturn(id);
+        when(t.get("latitude", Double.class)).thenReturn(-23.55);
+        when(t.get("longitude", Double.class)).thenReturn(-46.63);
+        when(t.get("modalidade", String.class)).thenReturn("corrida");
+        return t;
+    }
+
+    private static Tuple evento(long id, UUID atividadeId) {
+        Tuple t = mock(Tuple.class);
+        when(t.get("id", Long.class)).thenReturn(id);
+        when(t.get("agregadoId", String.class)).thenReturn(atividadeId.toString());
+        return t;
+    }
+}
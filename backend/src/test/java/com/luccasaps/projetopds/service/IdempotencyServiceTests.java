@@ -0,0 +1,147 @@
+package com.luccasaps.projetopds.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luccasaps.projetopds.model.IdempotencyRecord;
+import com.luccasaps.projetopds.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTests {
+
+    private static final String ESCOPO = "joana:POST /atividades";
+
+    private final IdempotencyRecordRepository repository = mock(IdempotencyRecordRepository.class);
+    private final AtomicInteger execucoes = new AtomicInteger();
+    private IdempotencyService service = novoServico(50_000, false);
+
+    @AfterEach
+    void encerrar() {
+        service.encerrar();
+    }
+
+    @Test
+    void repeticaoRecebeARespostaGuardadaSemExecutarDeNovo() {
+        ResponseEntity<String> primeira = service.executar("k1", ESCOPO, "corpo", String.class, this::criar);
+        ResponseEntity<String> repetida = service.executar("k1", ESCOPO, "corpo", String.class, this::criar);
+
+        assertEquals(1, execucoes.get());
+        assertEquals(HttpStatus.CREATED, repetida.getStatusCode());
+        assertEquals(primeira.getBody(), repetida.getBody());
+        assertEquals("true", repetida.getHeaders().getFirst(IdempotencyService.HEADER_REPLAY));
+        assertNull(primeira.getHeaders().getFirst(IdempotencyService.HEADER_REPLAY));
+    }
+
+    @Test
+    void mesmaChaveComOutrosDadosERecusada() {
+        service.executar("k1", ESCOPO, "corpo", String.class, this::criar);
+
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.executar("k1", ESCOPO, "outro corpo", String.class, this::criar));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatusCode());
+        assertEquals("IDEMPOTENCY_KEY_REUSED", e.getReason());
+    }
+
+    @Test
+    void repeticaoConcorrenteEsperaAExecucaoOriginal() throws Exception {
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> original = CompletableFuture.supplyAsync(() ->
+                service.executar("k1", ESCOPO, "corpo", String.class, () -> {
+                    iniciou.countDown();
+                    aguardar(liberar);
+                    return criar();
+                }));
+        assertTrue(iniciou.await(2, TimeUnit.SECONDS));
+
+        CompletableFuture<ResponseEntity<String>> repetida = CompletableFuture.supplyAsync(() ->
+                service.executar("k1", ESCOPO, "corpo", String.class, this::criar));
+        Thread.sleep(100);
+        assertFalse(repetida.isDone());
+
+        liberar.countDown();
+        assertEquals(original.get(2, TimeUnit.SECONDS).getBody(), repetida.get(2, TimeUnit.SECONDS).getBody());
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void falhaNaoEGuardada() {
+        assertThrows(IllegalStateException.class, () -> service.executar("k1", ESCOPO, "corpo", String.class, () -> {
+            throw new IllegalStateException("falhou");
+        }));
+
+        service.executar("k1", ESCOPO, "corpo", String.class, this::criar);
+        assertEquals(1, execucoes.get());
+    }
+
+    @Test
+    void chaveLongaDemaisERecusada() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> service.executar("k".repeat(129), ESCOPO, "corpo", String.class, this::criar));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+        assertEquals("IDEMPOTENCY_KEY_INVALIDA", e.getReason());
+        assertEquals(0, execucoes.get());
+    }
+
+    @Test
+    void acimaDoLimiteDescartaAsRespostasMaisAntigas() {
+        service.encerrar();
+        service = novoServico(2, false);
+
+        service.executar("k1", ESCOPO, "corpo", String.class, this::criar);
+        service.executar("k2", ESCOPO, "corpo", String.class, this::criar);
+        service.executar("k3", ESCOPO, "corpo", String.class, this::criar); // agenda a poda; não fica sem deduplicação
+        service.limparExpiradas();
+
+        service.executar("k3", ESCOPO, "corpo", String.class, this::criar);
+        service.executar("k2", ESCOPO, "corpo", String.class, this::criar);
+        assertEquals(3, execucoes.get());
+
+        service.executar("k1", ESCOPO, "corpo", String.class, this::criar);
+        assertEquals(4, execucoes.get());
+    }
+
+    @Test
+    void chaveGuardadaNaTabelaTemTamanhoFixo() {
+        service.encerrar();
+        service = novoServico(50_000, true);
+        when(repository.findByChaveAndExpiraEmAfter(any(), any())).thenReturn(Optional.empty());
+
+        service.executar("k".repeat(128), "u".repeat(300) + ":POST /atividades", "corpo", String.class, this::criar);
+
+        ArgumentCaptor<IdempotencyRecord> salvo = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        verify(repository).save(salvo.capture());
+        assertEquals(64, salvo.getValue().getChave().length());
+    }
+
+    private IdempotencyService novoServico(int maxKeys, boolean persistent) {
+        return new IdempotencyService(repository, mock(TransactionTemplate.class), new ObjectMapper(),
+                86_400_000, maxKeys, persistent, 2000);
+    }
+
+    private ResponseEntity<String> criar() {
+        return ResponseEntity.status(HttpStatus.CREATED).body("atividade-" + execucoes.incrementAndGet());
+    }
+
+    private static void aguardar(CountDownLatch latch) {
+        try {
+            latch.await(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
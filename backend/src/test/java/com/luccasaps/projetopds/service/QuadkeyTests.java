@@ -0,0 +1,40 @@
+package com.luccasaps.projetopds.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuadkeyTests {
+
+    @Test
+    void quadkeyIntercalaOsBitsDoTileDoMaisGrossoAoMaisFino() {
+        assertEquals("213", Quadkey.quadkey(3, 5, 3));
+        assertEquals("", Quadkey.quadkey(0, 0, 0));
+    }
+
+    @Test
+    void tilesDeUmaCoordenadaConhecida() {
+        // Praça da Sé, São Paulo, no zoom 10
+        assertEquals(379, Quadkey.tileX(-46.6339, 10));
+        assertEquals(580, Quadkey.tileY(-23.5503, 10));
+    }
+
+    @Test
+    void tilesDoNivelMaisGrossoSaoPrefixosDoMaisFino() {
+        int x = Quadkey.tileX(-46.6339, Quadkey.NIVEL_MAXIMO);
+        int y = Quadkey.tileY(-23.5503, Quadkey.NIVEL_MAXIMO);
+        int deslocamento = Quadkey.NIVEL_MAXIMO - 12;
+
+        assertEquals(Quadkey.tileX(-46.6339, 12), x >>> deslocamento);
+        assertEquals(Quadkey.tileY(-23.5503, 12), y >>> deslocamento);
+        assertTrue(Quadkey.quadkey(x, y, Quadkey.NIVEL_MAXIMO)
+                .startsWith(Quadkey.quadkey(x >>> deslocamento, y >>> deslocamento, 12)));
+    }
+
+    @Test
+    void coordenadasForaDoMercatorFicamNaBorda() {
+        assertEquals(0, Quadkey.tileY(89.9, 5));
+        assertEquals(31, Quadkey.tileY(-89.9, 5));
+        assertEquals(31, Quadkey.tileX(180, 5));
+    }
+}
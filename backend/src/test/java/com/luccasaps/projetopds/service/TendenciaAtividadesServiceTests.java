@@ -0,0 +1,139 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.AtividadeEmAltaDTO;
+import com.luccasaps.projetopds.model.TendenciaCheckpoint;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.TendenciaCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TendenciaAtividadesServiceTests {
+
+    private final UUID corridaSp = UUID.randomUUID();
+    private final UUID yogaSp = UUID.randomUUID();
+    private final UUID corridaRj = UUID.randomUUID();
+
+    private final AtividadeRepository atividadeRepository = mock(AtividadeRepository.class);
+    private final TendenciaCheckpointRepository checkpointRepository = mock(TendenciaCheckpointRepository.class);
+    private final SchedulerLockService schedulerLockService = mock(SchedulerLockService.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final TendenciaAtividadesService service = new TendenciaAtividadesService(atividadeRepository,
+            checkpointRepository, schedulerLockService, transactionTemplate, new SimpleMeterRegistry());
+
+    @Test
+    void rankingPorChaveSegueInscricoesEVisualizacoes() {
+        configurar(Duration.ofHours(6));
+        Map<UUID, Tuple> resumos = Map.of(
+                corridaSp, resumo(corridaSp, "corrida", "SP"),
+                yogaSp, resumo(yogaSp, "yoga", "SP"),
+                corridaRj, resumo(corridaRj, "corrida", "RJ"));
+        when(atividadeRepository.findResumosTendencia(any(), any(), any())).thenAnswer(inv ->
+                inv.<Collection<UUID>>getArgument(0).stream().map(resumos::get).toList());
+
+        service.registrarInscricao(yogaSp);       // 5 pontos
+        for (int i = 0; i < 3; i++) {
+            service.registrarVisualizacao(corridaSp); // 3 pontos
+        }
+        service.registrarVisualizacao(corridaRj);     // 1 ponto
+        service.recalcular();
+
+        assertEquals(List.of(yogaSp, corridaSp, corridaRj), ids(service.findEmAlta(null, null, 10)));
+        assertEquals(List.of(yogaSp, corridaSp), ids(service.findEmAlta("sp", null, 10)));
+        assertEquals(List.of(corridaSp, corridaRj), ids(service.findEmAlta(null, "Corrida", 10)));
+        assertEquals(List.of(corridaRj), ids(service.findEmAlta("RJ", "corrida", 10)));
+        assertEquals(List.of(yogaSp), ids(service.findEmAlta(null, null, 1)));
+        assertTrue(service.findEmAlta("BA", null, 10).isEmpty());
+    }
+
+    @Test
+    void pontuacaoDecaiComOTempoEAtividadeEsquecidaSaiDoRanking() {
+        configurar(Duration.ofNanos(1)); // meia-vida desprezível: tudo decai entre dois recálculos
+        when(atividadeRepository.findResumosTendencia(any(), any(), any()))
+                .thenAnswer(inv -> List.of(resumo(corridaSp, "corrida", "SP")));
+
+        service.registrarVisualizacao(corridaSp);
+        service.recalcular();
+        assertEquals(1, service.findEmAlta(null, null, 10).size());
+
+        service.recalcular();
+        assertTrue(service.findEmAlta(null, null, 10).isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void checkpointSomaAContribuicaoDaInstanciaSemApagarAsDasOutras() {
+        configurar(Duration.ofDays(365)); // decaimento desprezível durante o teste
+        when(atividadeRepository.findResumosTendencia(any(), any(), any())).thenAnswer(inv -> List.of());
+        when(schedulerLockService.tryAcquire(anyString(), any())).thenReturn(true);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        // Linha gravada por outra instância para a mesma atividade
+        TendenciaCheckpoint gravada = new TendenciaCheckpoint(corridaSp, 10.0, 4.0, LocalDateTime.now());
+        when(checkpointRepository.findAllById(any())).thenAnswer(inv ->
+                inv.<Collection<UUID>>getArgument(0).contains(corridaSp) ? List.of(gravada) : List.of());
+
+        service.registrarInscricao(corridaSp);
+        service.registrarVisualizacao(corridaSp);
+        service.registrarVisualizacao(yogaSp);
+        service.recalcular();
+        service.gravarCheckpoint();
+
+        assertEquals(11.0, gravada.getPontuacaoInscricoes(), 1e-6);
+        assertEquals(5.0, gravada.getPontuacaoVisualizacoes(), 1e-6);
+        ArgumentCaptor<List<TendenciaCheckpoint>> novas = ArgumentCaptor.forClass(List.class);
+        verify(checkpointRepository).saveAll(novas.capture());
+        assertEquals(List.of(yogaSp), novas.getValue().stream().map(TendenciaCheckpoint::getAtividadeId).toList());
+        verify(checkpointRepository, never()).deleteAllInBatch();
+
+        // Sem eventos novos, o próximo checkpoint não soma de novo o que já foi gravado
+        service.recalcular();
+        service.gravarCheckpoint();
+        assertEquals(11.0, gravada.getPontuacaoInscricoes(), 1e-6);
+    }
+
+    private void configurar(Duration meiaVida) {
+        ReflectionTestUtils.setField(service, "meiaVida", meiaVida);
+        ReflectionTestUtils.setField(service, "pesoInscricao", 5.0);
+        ReflectionTestUtils.setField(service, "pesoVisualizacao", 1.0);
+        ReflectionTestUtils.setField(service, "topK", 20);
+        ReflectionTestUtils.setField(service, "maxAtividades", 1000);
+        ReflectionTestUtils.setField(service, "pontuacaoMinima", 0.05);
+    }
+
+    private static Tuple resumo(UUID id, String modalidade, String uf) {
+        Tuple t = mock(Tuple.class);
+        when(t.get("id", UUID.class)).thenReturn(id);
+        when(t.get("titulo", String.class)).thenReturn("Atividade " + modalidade);
+        when(t.get("modalidade", String.class)).thenReturn(modalidade);
+        when(t.get("uf", String.class)).thenReturn(uf);
+        when(t.get("data", LocalDate.class)).thenReturn(LocalDate.now().plusDays(1));
+        when(t.get("horario", LocalTime.class)).thenReturn(LocalTime.of(7, 0));
+        return t;
+    }
+
+    private static List<UUID> ids(List<AtividadeEmAltaDTO> itens) {
+        return itens.stream().map(AtividadeEmAltaDTO::id).toList();
+    }
+}
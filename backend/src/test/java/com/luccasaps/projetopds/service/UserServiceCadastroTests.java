@@ -0,0 +1,76 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.controller.dto.UserDTO;
+import com.luccasaps.projetopds.model.Genero;
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@Transactional
+class UserServiceCadastroTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @MockitoBean
+    private GeocodificacaoUsuarioService geocodificacaoUsuarioService;
+
+    @Test
+    void cadastroNormalizaEAgendaAGeocodificacao() {
+        User salvo = userService.save(cadastro("Maria", "Maria@Exemplo.com"));
+
+        assertEquals("maria", salvo.getUsername());
+        assertEquals("maria@exemplo.com", salvo.getEmail());
+        assertNull(salvo.getLatitude()); // as coordenadas chegam depois do commit
+        verify(geocodificacaoUsuarioService).agendar(salvo.getId(), "01001000");
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // cada cadastro na sua transação, como nas requisições
+    void emailOuUsernameEmUsoViram409SemConsultarAsApisDeCep() {
+        User primeiro = userService.save(cadastro("joana", "joana@exemplo.com"));
+        try {
+            // A restrição única compara o valor gravado, e o cadastro grava em minúsculas
+            ResponseStatusException email = assertThrows(ResponseStatusException.class,
+                    () -> userService.save(cadastro("outra", "JOANA@exemplo.com")));
+            assertEquals(HttpStatus.CONFLICT, email.getStatusCode());
+            assertEquals("EMAIL_TAKEN", email.getReason());
+
+            ResponseStatusException username = assertThrows(ResponseStatusException.class,
+                    () -> userService.save(cadastro("Joana", "outra@exemplo.com")));
+            assertEquals(HttpStatus.CONFLICT, username.getStatusCode());
+            assertEquals("USERNAME_TAKEN", username.getReason());
+
+            // Só o cadastro aceito agendou a consulta do CEP
+            verify(geocodificacaoUsuarioService, times(1)).agendar(any(), any());
+            verify(geocodificacaoUsuarioService).agendar(eq(primeiro.getId()), any());
+            assertEquals(1, userRepository.findAll().stream().filter(u -> u.getUsername().startsWith("joana")).count());
+        } finally {
+            userService.deleteSelf("joana");
+        }
+    }
+
+    private static UserDTO cadastro(String username, String email) {
+        return new UserDTO(username, Genero.NAO_INFORMAR, username, email, LocalDate.of(1990, 1, 1),
+                "senha-secreta", "11999999999", "01001-000", "sp", "Praça da Sé", List.of("corrida"));
+    }
+}
@@ -0,0 +1,238 @@
+package com.luccasaps.projetopds.service;
+
+import com.luccasaps.projetopds.model.Atividade;
+import com.luccasaps.projetopds.model.Modalidade;
+import com.luccasaps.projetopds.cache.AtividadeDetalheCache;
+import com.luccasaps.projetopds.model.OutboxEvento;
+import com.luccasaps.projetopds.model.StatusAtividade;
+import com.luccasaps.projetopds.model.StatusOutbox;
+import com.luccasaps.projetopds.model.TipoEvento;
+import com.luccasaps.projetopds.model.User;
+import com.luccasaps.projetopds.repository.AtividadeRepository;
+import com.luccasaps.projetopds.repository.ListaEsperaRepository;
+import com.luccasaps.projetopds.repository.ModalidadeRepository;
+import com.luccasaps.projetopds.repository.OutboxEventoRepository;
+import com.luccasaps.projetopds.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.luccasaps.projetopds.DadosDeTeste.atividade;
+import static com.luccasaps.projetopds.DadosDeTeste.usuario;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.luccasaps.projetopds.service.UserServiceDeleteSelfTests$ComandosDaThread")
+@Transactional
+class UserServiceDeleteSelfTests {
+
+    private static final int QUANTIDADE_ATIVIDADES = 3000;
+    private static final int COMANDOS_FIXOS = 20;
+
+    /**
+     * Conta os comandos que o Hibernate prepara na thread do teste. As estatísticas do Hibernate somariam
+     * também os dos jobs agendados que rodam no mesmo contexto (mapa, outbox...).
+     */
+    public static class ComandosDaThread implements StatementInspector {
+
+        private static final ThreadLocal<int[]> CONTAGEM = ThreadLocal.withInitial(() -> new int[1]);
+
+        @Override
+        public String inspect(String sql) {
+            CONTAGEM.get()[0]++;
+            return sql;
+        }
+
+        static void zerar() {
+            CONTAGEM.get()[0] = 0;
+        }
+
+        static int contagem() {
+            return CONTAGEM.get()[0];
+        }
+    }
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AtividadeRepository atividadeRepository;
+
+    @Autowired
+    private ModalidadeRepository modalidadeRepository;
+
+    @Autowired
+    private AtividadeService atividadeService;
+
+    @Autowired
+    private ListaEsperaRepository listaEsperaRepository;
+
+    @Autowired
+    private OutboxEventoRepository outboxEventoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @MockitoSpyBean
+    private AtividadeDetalheCache atividadeDetalheCache;
+
+    @Test
+    void deleteSelfRemoveMilharesDeAtividadesComQuantidadeFixaDeComandos() {
+        Modalidade corrida = modalidadeRepository.findByNome("corrida");
+        User dono = userRepository.save(usuario("dono"));
+        User outro = userRepository.save(usuario("outro"));
+
+        // O dono cria milhares de atividades; o outro usuário se inscreve em todas elas
+        List<Atividade> atividades = new ArrayList<>();
+        for (int i = 0; i < QUANTIDADE_ATIVIDADES; i++) {
+            Atividade atividade = atividade("Atividade " + i, dono, corrida);
+            atividade.getParticipantes().add(outro);
+            atividades.add(atividade);
+        }
+        atividadeRepository.saveAll(atividades);
+
+        // O dono também está inscrito em uma atividade de outra pessoa
+        Atividade atividadeDoOutro = atividade("Do outro", outro, corrida);
+        atividadeDoOutro.getParticipantes().add(dono);
+        atividadeRepository.save(atividadeDoOutro);
+
+        entityManager.flush();
+        entityManager.clear();
+
+        ComandosDaThread.zerar();
+
+        userService.deleteSelf("dono");
+
+        // Comandos fixos: consulta do ID, consultas das atividades em que ele ocupa vaga ou está na fila e das
+        // que ele criou, o INSERT ... SELECT com os eventos de exclusão, os comandos em massa (tabela quente,
+        // lista de espera e arquivo; o Hibernate limpa as tabelas de coleção antes de cada 'delete' em JPQL) e a
+        // exclusão do usuário. Mais o evento, a trava e a contagem da única atividade de outra pessoa em que ele
+        // ocupava vaga. Nada depende das milhares de atividades criadas por ele.
+        assertEquals(COMANDOS_FIXOS + 3, ComandosDaThread.contagem());
+
+        // Cada atividade dele sai do mapa (evento) e do cache de detalhes
+        Set<String> criadas = atividades.stream().map(a -> a.getId().toString()).collect(Collectors.toSet());
+        List<OutboxEvento> exclusoes = outboxEventoRepository.findAll().stream()
+                .filter(e -> e.getTipo() == TipoEvento.ATIVIDADE_EXCLUIDA)
+                .toList();
+        assertEquals(criadas, exclusoes.stream().map(OutboxEvento::getAgregadoId).collect(Collectors.toSet()));
+        assertEquals(QUANTIDADE_ATIVIDADES, exclusoes.size());
+        OutboxEvento exclusao = exclusoes.getFirst();
+        assertEquals("{\"atividadeId\":\"" + exclusao.getAgregadoId() + "\"}", exclusao.getPayload());
+        assertEquals(StatusOutbox.PENDENTE, exclusao.getStatus());
+        verify(atividadeDetalheCache).invalidate(argThat((Collection<UUID> ids) ->
+                ids.size() == QUANTIDADE_ATIVIDADES && criadas.containsAll(ids.stream().map(UUID::toString).toList())));
+
+        assertTrue(userRepository.findOptionalByUsername("dono").isEmpty());
+        assertTrue(userRepository.findOptionalByUsername("outro").isPresent());
+        assertEquals(1, atividadeRepository.count());
+
+        Atividade restante = atividadeRepository.findById(atividadeDoOutro.getId()).orElseThrow();
+        assertEquals(1, restante.getParticipantes().size());
+        assertFalse(restante.getParticipantes().stream().anyMatch(u -> u.getUsername().equals("dono")));
+    }
+
+    @Test
+    void deleteSelfPassaAVagaAoPrimeiroDaListaDeEspera() {
+        Modalidade corrida = modalidadeRepository.findByNome("corrida");
+        User criador = userRepository.save(usuario("criador"));
+        userRepository.save(usuario("dono"));
+        userRepository.save(usuario("primeiro"));
+        userRepository.save(usuario("segundo"));
+
+        // Capacidade 2: o criador e o dono ocupam as vagas; os outros dois entram na fila
+        Atividade atividade = atividade("Lotada", criador, corrida);
+        atividade.setCapacidade(2);
+        atividadeRepository.save(atividade);
+        atividadeService.inscrever(atividade.getId(), "dono");
+        assertTrue(atividadeService.inscrever(atividade.getId(), "primeiro").isPresent());
+        assertTrue(atividadeService.inscrever(atividade.getId(), "segundo").isPresent());
+        entityManager.flush();
+        entityManager.clear();
+
+        userService.deleteSelf("dono");
+        entityManager.flush();
+        entityManager.clear();
+
+        Atividade depois = atividadeRepository.findById(atividade.getId()).orElseThrow();
+        assertEquals(StatusAtividade.CLOSED, depois.getStatus());
+        assertEquals(List.of("criador", "primeiro"),
+                depois.getParticipantes().stream().map(User::getUsername).sorted().toList());
+        assertEquals(1, atividadeService.findPosicaoNaListaDeEspera(atividade.getId(), "segundo").posicao());
+        assertEquals(1, listaEsperaRepository.count());
+
+        // A saída do dono vem antes da promoção no outbox (mesma atividade, entregues em ordem)
+        assertEquals(List.of(TipoEvento.INSCRICAO_CANCELADA, TipoEvento.INSCRICAO_REALIZADA),
+                eventosApos(atividade.getId(), TipoEvento.LISTA_ESPERA_ENTRADA));
+    }
+
+    @Test
+    void deleteSelfRegistraASaidaDaListaDeEspera() {
+        Modalidade corrida = modalidadeRepository.findByNome("corrida");
+        User criador = userRepository.save(usuario("criador"));
+        userRepository.save(usuario("dono"));
+
+        Atividade atividade = atividade("Lotada", criador, corrida);
+        atividade.setCapacidade(1);
+        atividade.setStatus(StatusAtividade.CLOSED);
+        atividadeRepository.save(atividade);
+        assertTrue(atividadeService.inscrever(atividade.getId(), "dono").isPresent());
+        entityManager.flush();
+        entityManager.clear();
+
+        userService.deleteSelf("dono");
+        entityManager.flush();
+
+        assertEquals(List.of(TipoEvento.LISTA_ESPERA_SAIDA), eventosApos(atividade.getId(), TipoEvento.LISTA_ESPERA_ENTRADA));
+        assertEquals(0, listaEsperaRepository.count());
+    }
+
+    // Tipos dos eventos da atividade gravados depois do último evento do tipo informado, em ordem
+    private List<TipoEvento> eventosApos(UUID atividadeId, TipoEvento marco) {
+        List<TipoEvento> tipos = outboxEventoRepository.findAll().stream()
+                .filter(e -> e.getAgregadoId().equals(atividadeId.toString()))
+                .sorted(Comparator.comparing(OutboxEvento::getId))
+                .map(OutboxEvento::getTipo)
+                .toList();
+        return tipos.subList(tipos.lastIndexOf(marco) + 1, tipos.size());
+    }
+
+    @Test
+    void deleteSelfReabreAtividadeLotadaSemFila() {
+        Modalidade corrida = modalidadeRepository.findByNome("corrida");
+        User criador = userRepository.save(usuario("criador"));
+        userRepository.save(usuario("dono"));
+
+        Atividade atividade = atividade("Lotada", criador, corrida);
+        atividade.setCapacidade(2);
+        atividadeRepository.save(atividade);
+        atividadeService.inscrever(atividade.getId(), "dono");
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(StatusAtividade.CLOSED, atividadeRepository.findById(atividade.getId()).orElseThrow().getStatus());
+        entityManager.clear();
+
+        userService.deleteSelf("dono");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(StatusAtividade.OPEN, atividadeRepository.findById(atividade.getId()).orElseThrow().getStatus());
+    }
+}